@@ -18,6 +18,41 @@ class AndroidIntegration {
             this.handleLocationError(event.detail.error);
         });
         
+        // Listen for geofence arrivals (pickup/dropoff)
+        window.addEventListener('android-arrival', (event) => {
+            window.dispatchEvent(new CustomEvent('native-arrival', { detail: event.detail }));
+        });
+        
+        // Cercas da corrida armadas ({ serviceId }) ou recusadas ({ serviceId, code, message });
+        // code 1004 = falta a localização "o tempo todo", e a chegada não será detectada
+        ['geofences-armed', 'geofence-error'].forEach((kind) => {
+            window.addEventListener('android-' + kind, (event) => {
+                window.dispatchEvent(new CustomEvent('native-' + kind, { detail: event.detail }));
+            });
+        });
+        
+        // Fim da corrida: { serviceId, summary } (distância, tempos de cada etapa, velocidades)
+        window.addEventListener('android-trip-summary', (event) => {
+            window.dispatchEvent(new CustomEvent('native-trip-summary', { detail: event.detail }));
+        });
+        
+        // Link mudou de classe: { quality, chatPageSize }
+        window.addEventListener('android-network-quality', (event) => {
+            window.dispatchEvent(new CustomEvent('native-network-quality', { detail: event.detail }));
+        });
+        
+        // Foto de documento reprovada na triagem, nada enviado: { documentType, reason, message }
+        window.addEventListener('android-document-rejected', (event) => {
+            window.dispatchEvent(new CustomEvent('native-document-rejected', { detail: event.detail }));
+        });
+        
+        // Lote do cadastro: progresso único, cada item concluído e o resumo ({ uploaded, failed, rejected, items })
+        ['progress', 'item', 'complete'].forEach((kind) => {
+            window.addEventListener('android-document-batch-' + kind, (event) => {
+                window.dispatchEvent(new CustomEvent('native-document-batch-' + kind, { detail: event.detail }));
+            });
+        });
+        
         // Listen for Android navigation events
         window.addEventListener('android-navigation', (event) => {
             this.handleNavigation(event.detail);
@@ -37,6 +72,58 @@ class AndroidIntegration {
         }
     }
     
+    // Rastreamento da corrida ativa em serviço de primeiro plano (continua com o app em segundo plano).
+    // acceptedAt (Date, ISO ou epoch ms; opcional): aceite da corrida, início do tempo no resumo
+    startRideTracking(userId, serviceId, acceptedAt) {
+        if (this.isAndroid) {
+            const acceptedAtMillis = acceptedAt ? new Date(acceptedAt).getTime() : 0;
+            window.Android.startRideTracking(userId, serviceId, acceptedAtMillis || 0);
+        }
+    }
+    
+    stopRideTracking() {
+        if (this.isAndroid) {
+            window.Android.stopRideTracking();
+        }
+    }
+    
+    // Chegada detectada por geofence (evento 'android-arrival' com state AT_PICKUP, TO_DROPOFF, AT_DROPOFF);
+    // o resultado de armar vem em 'android-geofences-armed' ou 'android-geofence-error'
+    armRideGeofences(serviceId, userId, receiverId, pickup, dropoff, autoMessages = true) {
+        if (this.isAndroid) {
+            window.Android.armRideGeofences(serviceId, userId, receiverId,
+                pickup.latitude, pickup.longitude, dropoff.latitude, dropoff.longitude, autoMessages);
+        }
+    }
+    
+    disarmRideGeofences() {
+        if (this.isAndroid) {
+            window.Android.disarmRideGeofences();
+        }
+    }
+    
+    // Tela da corrida numa ida paralela: resultado no evento 'android-ride-screen'
+    // ({ serviceId, profile, messages, location }) ou 'android-ride-screen-error'
+    loadRideScreen(serviceId, otherUserId) {
+        if (this.isAndroid) {
+            window.Android.loadRideScreen(serviceId, otherUserId);
+        }
+    }
+    
+    // Chamar logo após aceitar a corrida: a tela seguinte (loadRideScreen) abre com os dados já carregados
+    onRideAccepted(serviceId, otherUserId) {
+        if (this.isAndroid) {
+            window.Android.onRideAccepted(serviceId, otherUserId);
+        }
+    }
+    
+    // Ao sair da tela: cancela as leituras ainda no ar
+    cancelScreenLoads() {
+        if (this.isAndroid) {
+            window.Android.cancelScreenLoads();
+        }
+    }
+    
     hasLocationPermission() {
         if (this.isAndroid) {
             return window.Android.hasLocationPermission();
@@ -90,9 +177,13 @@ class AndroidIntegration {
     }
     
     // Notifications
-    showNotification(title, message, serviceId) {
+    showNotification(title, message, serviceId, avatarUrl = null) {
         if (this.isAndroid) {
-            window.Android.showNotification(title, message, serviceId);
+            if (avatarUrl) {
+                window.Android.showNotificationWithAvatar(title, message, serviceId, avatarUrl);
+            } else {
+                window.Android.showNotification(title, message, serviceId);
+            }
         }
     }
     
@@ -194,6 +285,37 @@ class AndroidIntegration {
         }
     }
     
+    // Captura nativa: o resultado chega pelo evento 'android-document-captured'
+    // com { documentType, fileId, thumbnail } em vez da imagem em base64
+    captureDocument(documentType) {
+        if (this.isAndroid) {
+            window.Android.captureDocument(documentType);
+        }
+    }
+    
+    uploadCapturedDocument(userId, documentType, fileId) {
+        if (this.isAndroid) {
+            window.Android.uploadCapturedDocument(userId, documentType, fileId);
+        }
+    }
+    
+    // Todos os documentos do cadastro de uma vez: items = [{ documentType, fileId }
+    // ou { documentType, base64Data, format }]. Retorna o id do lote (null se a lista for inválida)
+    uploadDocumentBatch(userId, items) {
+        if (this.isAndroid) {
+            return window.Android.uploadDocumentBatch(userId, JSON.stringify(items));
+        }
+        return null;
+    }
+    
+    // Depois de 'native-document-batch-complete' com falhas: reenvia só os itens que falharam
+    retryDocumentBatch(batchId) {
+        if (this.isAndroid) {
+            return window.Android.retryDocumentBatch(batchId);
+        }
+        return false;
+    }
+    
     isValidDocumentType(documentType) {
         if (this.isAndroid) {
             return window.Android.isValidDocumentType(documentType);
@@ -201,12 +323,117 @@ class AndroidIntegration {
         return false;
     }
     
+    // { checked, passed, rejected, rejectedByReason, meanMs, p99Ms }
+    getDocumentQualityStats() {
+        if (this.isAndroid) {
+            return JSON.parse(window.Android.getDocumentQualityStats());
+        }
+        return null;
+    }
+    
     isValidFileSize(base64Data) {
         if (this.isAndroid) {
             return window.Android.isValidFileSize(base64Data);
         }
         return false;
     }
+    
+    // Metrics (p50/p99 e vazão por endpoint, ponte, localização e notificações)
+    getMetrics() {
+        if (this.isAndroid) {
+            return JSON.parse(window.Android.getMetrics());
+        }
+        return null;
+    }
+    
+    dumpMetrics() {
+        if (this.isAndroid) {
+            return window.Android.dumpMetrics();
+        }
+        return null;
+    }
+    
+    // Eventos recentes do log nativo (para anexar em chamados de suporte)
+    getRecentLogs() {
+        if (this.isAndroid) {
+            return window.Android.getRecentLogs();
+        }
+        return null;
+    }
+    
+    dumpLogs() {
+        if (this.isAndroid) {
+            return window.Android.dumpLogs();
+        }
+        return null;
+    }
+    
+    getDocumentCacheStats() {
+        if (this.isAndroid) {
+            return JSON.parse(window.Android.getDocumentCacheStats());
+        }
+        return null;
+    }
+    
+    // Tiles do mapa: estatísticas do cache em disco
+    getTileCacheStats() {
+        if (this.isAndroid) {
+            return JSON.parse(window.Android.getTileCacheStats());
+        }
+        return null;
+    }
+    
+    getAvatarCacheStats() {
+        if (this.isAndroid) {
+            return JSON.parse(window.Android.getAvatarCacheStats());
+        }
+        return null;
+    }
+    
+    // { quality, throughputKbps, rttMs, qualityChanges }
+    getNetworkQuality() {
+        if (this.isAndroid) {
+            return JSON.parse(window.Android.getNetworkQuality());
+        }
+        return null;
+    }
+    
+    // Conta logada (chamar após o login e com null no logout): o histórico local do chat é por usuário
+    setSignedInUser(userId) {
+        if (this.isAndroid) {
+            window.Android.setSignedInUser(userId || '');
+        }
+    }
+    
+    // Mensagens que chegaram pelo realtime: entram no histórico local da busca
+    indexChatMessages(serviceId, messages) {
+        if (this.isAndroid) {
+            window.Android.indexChatMessages(serviceId, JSON.stringify(messages));
+        }
+    }
+    
+    // Busca offline no chat (sem acento, por prefixo); serviceId opcional. Mais recentes primeiro
+    searchChat(query, serviceId, limit) {
+        if (this.isAndroid) {
+            return JSON.parse(window.Android.searchChat(query, serviceId || '', limit || 20));
+        }
+        return [];
+    }
+    
+    getChatSearchStats() {
+        if (this.isAndroid) {
+            return JSON.parse(window.Android.getChatSearchStats());
+        }
+        return null;
+    }
+    
+    // A aplicação pode chamar depois de registrar seus listeners 'native-*' para receber os
+    // eventos guardados antes do fim do carregamento; sem a chamada, a entrega é no onPageFinished
+    ready() {
+        if (this.isAndroid && window.Android.onBridgeReady) {
+            window.Android.onBridgeReady();
+        }
+    }
 }
 
 // Initialize Android integration
@@ -0,0 +1,206 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+import com.motofreela.core.EventRing;
+import com.motofreela.core.LogText;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Fachada de log do app: nível checado antes de formatar, segredos mascarados e eventos recentes num ring
+public final class AppLog {
+    public static final int DEBUG = Log.DEBUG;
+    public static final int INFO = Log.INFO;
+    public static final int WARN = Log.WARN;
+    public static final int ERROR = Log.ERROR;
+
+    // Argumento maior que isso (ex.: corpo de resposta) é cortado
+    static final int MAX_ARG_CHARS = 256;
+    private static final int RING_CAPACITY = 1024;
+    private static final int RING_SLOT_BYTES = 256;
+
+    // Debug: tudo no logcat. Release: logcat só WARN+, ring guarda INFO+. Começa nos níveis de
+    // release: processos que sobem sem a Activity (serviço, receiver) não vazam DEBUG antes do init
+    private static volatile int logcatLevel = Log.WARN;
+    private static volatile int ringLevel = Log.INFO;
+    private static volatile int minLevel = Log.INFO;
+
+    private static final EventRing RING = new EventRing(RING_CAPACITY, RING_SLOT_BYTES);
+
+    private static final ThreadLocal<StringBuilder> BUILDERS = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private AppLog() {
+    }
+
+    // Chamado por todo ponto de entrada do processo (Activity, serviço, receiver)
+    public static void init(Context context) {
+        boolean debuggable = (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        setLevels(debuggable ? Log.DEBUG : Log.WARN, debuggable ? Log.DEBUG : Log.INFO);
+    }
+
+    static void setLevels(int logcat, int ring) {
+        logcatLevel = logcat;
+        ringLevel = ring;
+        minLevel = Math.min(logcat, ring);
+    }
+
+    // Para montar mensagens caras só quando alguém vai ler
+    public static boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    public static void d(String tag, String message) {
+        if (Log.DEBUG >= minLevel) {
+            log(Log.DEBUG, tag, message, null, null, null, 0);
+        }
+    }
+
+    public static void d(String tag, String pattern, Object a) {
+        if (Log.DEBUG >= minLevel) {
+            log(Log.DEBUG, tag, pattern, a, null, null, 1);
+        }
+    }
+
+    public static void d(String tag, String pattern, Object a, Object b) {
+        if (Log.DEBUG >= minLevel) {
+            log(Log.DEBUG, tag, pattern, a, b, null, 2);
+        }
+    }
+
+    public static void d(String tag, String pattern, Object a, Object b, Object c) {
+        if (Log.DEBUG >= minLevel) {
+            log(Log.DEBUG, tag, pattern, a, b, c, 3);
+        }
+    }
+
+    public static void i(String tag, String message) {
+        if (Log.INFO >= minLevel) {
+            log(Log.INFO, tag, message, null, null, null, 0);
+        }
+    }
+
+    public static void i(String tag, String pattern, Object a) {
+        if (Log.INFO >= minLevel) {
+            log(Log.INFO, tag, pattern, a, null, null, 1);
+        }
+    }
+
+    public static void i(String tag, String pattern, Object a, Object b) {
+        if (Log.INFO >= minLevel) {
+            log(Log.INFO, tag, pattern, a, b, null, 2);
+        }
+    }
+
+    public static void w(String tag, String message) {
+        if (Log.WARN >= minLevel) {
+            log(Log.WARN, tag, message, null, null, null, 0);
+        }
+    }
+
+    public static void w(String tag, String pattern, Object a) {
+        if (Log.WARN >= minLevel) {
+            log(Log.WARN, tag, pattern, a, null, null, 1);
+        }
+    }
+
+    public static void w(String tag, String pattern, Object a, Object b) {
+        if (Log.WARN >= minLevel) {
+            log(Log.WARN, tag, pattern, a, b, null, 2);
+        }
+    }
+
+    public static void e(String tag, String message) {
+        if (Log.ERROR >= minLevel) {
+            log(Log.ERROR, tag, message, null, null, null, 0);
+        }
+    }
+
+    public static void e(String tag, String pattern, Object a) {
+        if (Log.ERROR >= minLevel) {
+            log(Log.ERROR, tag, pattern, a, null, null, 1);
+        }
+    }
+
+    public static void e(String tag, String pattern, Object a, Object b) {
+        if (Log.ERROR >= minLevel) {
+            log(Log.ERROR, tag, pattern, a, b, null, 2);
+        }
+    }
+
+    private static void log(int level, String tag, String pattern, Object a, Object b, Object c, int argCount) {
+        StringBuilder message = BUILDERS.get();
+        message.setLength(0);
+        LogText.format(message, pattern, a, b, c, argCount, MAX_ARG_CHARS);
+
+        if (level >= ringLevel) {
+            RING.record(System.currentTimeMillis(), level, tag, message);
+        }
+        if (level >= logcatLevel) {
+            Log.println(level, tag, message.toString());
+        }
+    }
+
+    // Amostragem de eventos frequentes (ex.: cada fix): um por intervalo, contando os descartados
+    public static final class Sampler {
+        private final long intervalMs;
+        private long lastLoggedMs = Long.MIN_VALUE;
+        private int suppressed;
+
+        public Sampler(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        // true se este evento deve ser logado; use getSuppressedAndReset() na mensagem
+        public synchronized boolean sample(int level) {
+            if (level < minLevel) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            if (lastLoggedMs != Long.MIN_VALUE && now - lastLoggedMs < intervalMs) {
+                suppressed++;
+                return false;
+            }
+            lastLoggedMs = now;
+            return true;
+        }
+
+        public synchronized int getSuppressedAndReset() {
+            int count = suppressed;
+            suppressed = 0;
+            return count;
+        }
+    }
+
+    // Gravar os eventos recentes em arquivo (anexado a chamados de suporte)
+    public static File dumpToFile(File directory) throws IOException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File file = new File(directory, "log-" + System.currentTimeMillis() + ".txt");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            RING.dump(writer);
+        }
+        return file;
+    }
+
+    // Eventos recentes como texto (para a WebView)
+    public static String recentEvents() {
+        StringBuilder text = new StringBuilder();
+        try {
+            RING.dump(text);
+        } catch (IOException e) {
+            // StringBuilder não lança
+        }
+        return text.toString();
+    }
+}
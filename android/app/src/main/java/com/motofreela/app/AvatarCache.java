@@ -0,0 +1,391 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.LruCache;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Miniaturas das fotos de perfil (48, 96 e 192 px) em LRU de memória e de disco
+public class AvatarCache {
+    private static final String TAG = "AvatarCache";
+
+    static final int[] BUCKETS = {48, 96, 192};
+    // Orçamento de disco para miniaturas
+    public static final long DEFAULT_MAX_DISK_BYTES = 8L * 1024 * 1024;
+    private static final int JPEG_QUALITY = 85;
+    private static final long DOWNLOAD_WAIT_S = 10;
+    private static final String AVATAR_PATH = "/storage/v1/object/public/avatars/";
+    private static final String RENDER_PATH = "/storage/v1/render/image/public/avatars/";
+
+    public interface BitmapCallback {
+        // bitmap null se a foto não pôde ser baixada ou decodificada
+        void onBitmap(Bitmap bitmap);
+    }
+
+    private static AvatarCache instance;
+
+    private final OkHttpClient httpClient;
+    private final File directory;
+    private final long maxDiskBytes;
+    private final LruCache<String, Bitmap> memory;
+    // Arquivo -> tamanho, em ordem de acesso (LRU em disco)
+    private final LinkedHashMap<String, Long> diskEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long diskBytes;
+    // Uma única geração por foto, mesmo com vários pedidos ao mesmo tempo
+    private final Map<String, SupabaseFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "avatar-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final MetricsRegistry.Counter memoryHits = metrics.counter("avatar.memory_hits");
+    private final MetricsRegistry.Counter diskHits = metrics.counter("avatar.disk_hits");
+    private final MetricsRegistry.Counter downloads = metrics.counter("avatar.downloads");
+    private final MetricsRegistry.Counter failures = metrics.counter("avatar.failures");
+    private final MetricsRegistry.Counter bytesDownloaded = metrics.counter("avatar.bytes_downloaded");
+    private final MetricsRegistry.Counter bytesServed = metrics.counter("avatar.bytes_served");
+    private final MetricsRegistry.Histogram generateTime = metrics.histogram("avatar.generate");
+
+    public static synchronized AvatarCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new AvatarCache(
+                SupabaseService.sharedClient(),
+                new File(context.getApplicationContext().getCacheDir(), "avatars"),
+                DEFAULT_MAX_DISK_BYTES,
+                (int) Math.min(Runtime.getRuntime().maxMemory() / 32, 8L * 1024 * 1024));
+        }
+        return instance;
+    }
+
+    AvatarCache(OkHttpClient httpClient, File directory, long maxDiskBytes, int maxMemoryBytes) {
+        this.httpClient = httpClient;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        this.memory = new LruCache<String, Bitmap>(maxMemoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        loadDiskEntries();
+    }
+
+    // Menor tamanho padrão que cobre o pedido (o maior, se o pedido passar dele)
+    static int bucketFor(int sizePx) {
+        for (int bucket : BUCKETS) {
+            if (bucket >= sizePx) {
+                return bucket;
+            }
+        }
+        return BUCKETS[BUCKETS.length - 1];
+    }
+
+    // Redução na decodificação: o lado menor (o recorte quadrado) continua >= alvo
+    static int sampleSizeForCrop(int width, int height, int target) {
+        int sampleSize = 1;
+        int smallest = Math.min(width, height);
+        while (smallest / (sampleSize * 2) >= target) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    // URL de foto do bucket avatars (objeto público ou transformação de imagem do Storage)
+    static boolean isAvatarUrl(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        if (parsed == null) {
+            return false;
+        }
+        String path = parsed.encodedPath();
+        return path.contains(AVATAR_PATH) || path.contains(RENDER_PATH);
+    }
+
+    // A mesma foto pedida pela transformação do Storage vira a URL do objeto original
+    static String sourceUrl(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        if (parsed == null) {
+            return url;
+        }
+        return parsed.newBuilder()
+            .encodedPath(parsed.encodedPath().replace(RENDER_PATH, AVATAR_PATH))
+            .query(null)
+            .build()
+            .toString();
+    }
+
+    // Chamado em shouldInterceptRequest: miniatura no tamanho de ?width= (192 px sem ele)
+    public WebResourceResponse intercept(WebResourceRequest request) {
+        String url = request.getUrl().toString();
+        if (!"GET".equals(request.getMethod()) || !isAvatarUrl(url)) {
+            return null;
+        }
+        String width = request.getUrl().getQueryParameter("width");
+        int bucket = bucketFor(width != null ? parseSize(width) : BUCKETS[BUCKETS.length - 1]);
+        File file = getThumbnailFile(sourceUrl(url), bucket);
+        if (file == null) {
+            return null;
+        }
+        try {
+            Map<String, String> headers = new HashMap<>();
+            headers.put("Access-Control-Allow-Origin", "*");
+            bytesServed.add(file.length());
+            return new WebResourceResponse("image/jpeg", null, 200, "OK", headers, new FileInputStream(file));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Bitmap pronto para ícone grande; bloqueia na primeira vez (não chamar na thread principal)
+    public Bitmap getBitmap(String url, int sizePx) {
+        int bucket = bucketFor(sizePx);
+        String key = key(url, bucket);
+        Bitmap cached = memory.get(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return cached;
+        }
+        File file = getThumbnailFile(url, bucket);
+        if (file == null) {
+            return null;
+        }
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath());
+        if (bitmap != null) {
+            memory.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    // Versão assíncrona para a thread principal; o callback roda no executor (ou na hora, se estava em memória)
+    public void loadBitmap(String url, int sizePx, BitmapCallback callback) {
+        Bitmap cached = memory.get(key(url, bucketFor(sizePx)));
+        if (cached != null) {
+            memoryHits.increment();
+            callback.onBitmap(cached);
+            return;
+        }
+        executor.execute(() -> callback.onBitmap(getBitmap(url, sizePx)));
+    }
+
+    // Gerar as miniaturas antes de a tela pedir (ex.: pré-carga da corrida)
+    public void prefetch(String url) {
+        if (url == null || url.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> getThumbnailFile(url, BUCKETS[0]));
+    }
+
+    public synchronized JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        try {
+            stats.put("memoryHits", memoryHits.get());
+            stats.put("diskHits", diskHits.get());
+            stats.put("downloads", downloads.get());
+            stats.put("failures", failures.get());
+            stats.put("bytesDownloaded", bytesDownloaded.get());
+            stats.put("bytesServed", bytesServed.get());
+            stats.put("memoryBytes", memory.size());
+            stats.put("diskBytes", diskBytes);
+            stats.put("maxDiskBytes", maxDiskBytes);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Erro ao montar estatísticas: {}", e.getMessage());
+        }
+        return stats;
+    }
+
+    private File getThumbnailFile(String url, int bucket) {
+        File file = diskFile(key(url, bucket));
+        if (file != null) {
+            diskHits.increment();
+            return file;
+        }
+        if (!generate(url)) {
+            return null;
+        }
+        return diskFile(key(url, bucket));
+    }
+
+    // Baixar uma vez e gravar todos os tamanhos; pedidos simultâneos esperam a mesma geração
+    private boolean generate(String url) {
+        SupabaseFuture<Boolean> mine = new SupabaseFuture<>();
+        SupabaseFuture<Boolean> existing = inFlight.putIfAbsent(url, mine);
+        if (existing != null) {
+            try {
+                return existing.get(DOWNLOAD_WAIT_S, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                return false;
+            }
+        }
+        boolean ok = false;
+        try {
+            ok = download(url);
+        } finally {
+            mine.complete(ok);
+            inFlight.remove(url);
+        }
+        return ok;
+    }
+
+    private boolean download(String url) {
+        long startNanos = System.nanoTime();
+        downloads.increment();
+        byte[] original;
+        try (Response response = httpClient.newCall(new Request.Builder().url(url).build()).execute()) {
+            if (!response.isSuccessful() || response.body() == null) {
+                failures.increment();
+                AppLog.w(TAG, "Foto indisponível: {}", response.code());
+                return false;
+            }
+            original = response.body().bytes();
+            bytesDownloaded.add(original.length);
+        } catch (IOException e) {
+            failures.increment();
+            AppLog.w(TAG, "Erro ao baixar foto: {}", e.getMessage());
+            return false;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(original, 0, original.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            failures.increment();
+            return false;
+        }
+        // Uma decodificação reduzida para o maior tamanho; os menores saem dela
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSizeForCrop(options.outWidth, options.outHeight, BUCKETS[BUCKETS.length - 1]);
+        Bitmap decoded = BitmapFactory.decodeByteArray(original, 0, original.length, options);
+        if (decoded == null) {
+            failures.increment();
+            return false;
+        }
+        try {
+            for (int bucket : BUCKETS) {
+                Bitmap thumbnail = centerCrop(decoded, bucket);
+                try {
+                    write(key(url, bucket), thumbnail);
+                } finally {
+                    if (thumbnail != decoded) {
+                        thumbnail.recycle();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            failures.increment();
+            AppLog.e(TAG, "Erro ao gravar miniatura: {}", e.getMessage());
+            return false;
+        } finally {
+            decoded.recycle();
+            generateTime.recordSince(startNanos);
+        }
+        return true;
+    }
+
+    private static Bitmap centerCrop(Bitmap source, int size) {
+        int side = Math.min(source.getWidth(), source.getHeight());
+        int left = (source.getWidth() - side) / 2;
+        int top = (source.getHeight() - side) / 2;
+        Bitmap target = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        new Canvas(target).drawBitmap(source, new Rect(left, top, left + side, top + side),
+            new Rect(0, 0, size, size), new Paint(Paint.FILTER_BITMAP_FLAG));
+        return target;
+    }
+
+    private void write(String key, Bitmap thumbnail) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        thumbnail.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, output);
+        File file = new File(directory, key + ".jpg");
+        File temp = new File(directory, key + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(temp)) {
+            output.writeTo(outputStream);
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Falha ao gravar " + file.getName());
+        }
+        synchronized (this) {
+            Long previous = diskEntries.put(key, file.length());
+            diskBytes += file.length() - (previous != null ? previous : 0);
+            trimToSize();
+        }
+    }
+
+    private synchronized File diskFile(String key) {
+        if (diskEntries.get(key) == null) {
+            return null;
+        }
+        File file = new File(directory, key + ".jpg");
+        if (!file.exists()) {
+            diskBytes -= diskEntries.remove(key);
+            return null;
+        }
+        return file;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> iterator = diskEntries.entrySet().iterator();
+        while (diskBytes > maxDiskBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            new File(directory, eldest.getKey() + ".jpg").delete();
+            diskBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    // Ordem de acesso aproximada pela data de modificação (reabrir o app não zera o LRU)
+    private synchronized void loadDiskEntries() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".jpg"));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File file : files) {
+            String name = file.getName();
+            diskEntries.put(name.substring(0, name.length() - 4), file.length());
+            diskBytes += file.length();
+        }
+    }
+
+    private static String key(String url, int bucket) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        return DocumentCache.hash(bytes, 0, bytes.length) + "_" + bucket;
+    }
+
+    private static int parseSize(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return BUCKETS[BUCKETS.length - 1];
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.motofreela.app;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Chamadas presas ao ciclo de vida de uma tela; close() cancela o que estiver na fila ou no ar
+public class CallScope {
+    private final Set<SupabaseFuture<?>> futures = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final MetricsRegistry.Counter cancelled = MetricsRegistry.getInstance().counter("scope.cancelled");
+    private volatile boolean closed;
+
+    <T> void add(SupabaseFuture<T> future) {
+        if (closed) {
+            future.cancel();
+            return;
+        }
+        futures.add(future);
+        future.whenComplete((value, error) -> futures.remove(future));
+        // close() pode ter rodado entre a checagem e o add
+        if (closed) {
+            future.cancel();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void close() {
+        closed = true;
+        for (SupabaseFuture<?> future : futures) {
+            if (future.cancel()) {
+                cancelled.increment();
+            }
+        }
+        futures.clear();
+    }
+}
@@ -0,0 +1,238 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import com.motofreela.core.ChatSearchIndex;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Histórico do chat no aparelho, um por usuário, indexado para busca offline
+public class ChatHistoryStore {
+    private static final String TAG = "ChatHistoryStore";
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+
+    // Do usuário logado; null sem ninguém logado
+    private static ChatHistoryStore instance;
+
+    private final String userId;
+    private final File file;
+    private final ChatSearchIndex index = new ChatSearchIndex();
+    // Uma thread: a carga inicial termina antes de qualquer gravação nova
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chat-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final MetricsRegistry.Counter indexed = metrics.counter("chat_search.messages_indexed");
+    private final MetricsRegistry.Counter searches = metrics.counter("chat_search.searches");
+    private final MetricsRegistry.Histogram searchTime = metrics.histogram("chat_search.search");
+    private final MetricsRegistry.Histogram loadTime = metrics.histogram("chat_search.load");
+
+    // Histórico do usuário (aberto na primeira chamada, fechando o de quem estava antes); null sem usuário
+    public static synchronized ChatHistoryStore forUser(Context context, String userId) {
+        if (instance != null && instance.userId.equals(userId)) {
+            return instance;
+        }
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+        if (userId == null || userId.isEmpty()) {
+            return null;
+        }
+        File root = new File(context.getApplicationContext().getFilesDir(), "chat");
+        // Arquivo único das versões sem separação por conta: não dá para saber de quem era
+        new File(root, "messages.jsonl").delete();
+        File dir = new File(root, userId.replaceAll("[^A-Za-z0-9_-]", "_"));
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        instance = new ChatHistoryStore(userId, new File(dir, "messages.jsonl"));
+        return instance;
+    }
+
+    ChatHistoryStore(String userId, File file) {
+        this.userId = userId;
+        this.file = file;
+        executor.execute(this::load);
+    }
+
+    // Gravações já na fila terminam; o índice em memória é liberado com o objeto
+    private void close() {
+        executor.shutdown();
+    }
+
+    // Resposta do PostgREST (array de linhas de messages) de uma corrida
+    public void addMessages(String serviceId, String responseJson) {
+        executor.execute(() -> {
+            try {
+                JSONArray rows = new JSONArray(responseJson);
+                StringBuilder lines = new StringBuilder();
+                for (int i = 0; i < rows.length(); i++) {
+                    JSONObject row = rows.optJSONObject(i);
+                    if (row != null) {
+                        add(serviceId, row, lines);
+                    }
+                }
+                append(lines);
+            } catch (JSONException e) {
+                AppLog.w(TAG, "Mensagens da corrida {} ignoradas: {}", serviceId, e.getMessage());
+            }
+        });
+    }
+
+    // Busca no histórico inteiro (serviceId null) ou numa corrida; JSON com as mais recentes primeiro
+    public String search(String query, String serviceId, int limit) {
+        long start = System.nanoTime();
+        List<ChatSearchIndex.Hit> hits = index.search(query, serviceId,
+            Math.min(limit > 0 ? limit : DEFAULT_LIMIT, MAX_LIMIT));
+        JSONArray result = new JSONArray();
+        try {
+            for (ChatSearchIndex.Hit hit : hits) {
+                result.put(new JSONObject()
+                    .put("id", hit.messageId)
+                    .put("service_id", hit.serviceId)
+                    .put("created_at", hit.timeMillis)
+                    .put("content", hit.text));
+            }
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Erro ao montar resultado da busca: {}", e.getMessage());
+        }
+        searches.increment();
+        searchTime.recordSince(start);
+        return result.toString();
+    }
+
+    public JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        try {
+            stats.put("messages", index.size());
+            stats.put("terms", index.termCount());
+            stats.put("fileBytes", file.length());
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Erro ao montar estatísticas: {}", e.getMessage());
+        }
+        return stats;
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        long start = System.nanoTime();
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    JSONObject stored = new JSONObject(line);
+                    if (index.add(stored.getString("id"), stored.optString("service_id", null),
+                            stored.optLong("created_at"), stored.optString("content"))) {
+                        count++;
+                    }
+                } catch (JSONException e) {
+                    // Linha cortada por um processo morto no meio da gravação
+                }
+            }
+        } catch (IOException e) {
+            AppLog.e(TAG, "Erro ao ler histórico do chat: {}", e.getMessage());
+        }
+        loadTime.recordSince(start);
+        AppLog.i(TAG, "Histórico do chat carregado: {} mensagens, {} termos", count, index.termCount());
+    }
+
+    private void add(String serviceId, JSONObject row, StringBuilder lines) throws JSONException {
+        String id = row.optString("id", null);
+        String content = row.optString("content", null);
+        if (id == null || content == null || content.isEmpty()) {
+            return;
+        }
+        long createdAt = parseTimestamp(row.optString("created_at"));
+        if (!index.add(id, serviceId, createdAt, content)) {
+            return;
+        }
+        indexed.increment();
+        lines.append(new JSONObject()
+            .put("id", id)
+            .put("service_id", serviceId)
+            .put("created_at", createdAt)
+            .put("content", content))
+            .append('\n');
+    }
+
+    private void append(StringBuilder lines) {
+        if (lines.length() == 0) {
+            return;
+        }
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.append(lines);
+        } catch (IOException e) {
+            AppLog.e(TAG, "Erro ao gravar histórico do chat: {}", e.getMessage());
+        }
+    }
+
+    // timestamptz do PostgREST ("2025-03-01T14:05:09.123456+00:00", "...Z"); 0 se não reconhecer
+    static long parseTimestamp(String value) {
+        if (value == null || value.length() < 19 || value.charAt(10) != 'T') {
+            return 0;
+        }
+        try {
+            int year = Integer.parseInt(value.substring(0, 4));
+            int month = Integer.parseInt(value.substring(5, 7));
+            int day = Integer.parseInt(value.substring(8, 10));
+            int hour = Integer.parseInt(value.substring(11, 13));
+            int minute = Integer.parseInt(value.substring(14, 16));
+            int second = Integer.parseInt(value.substring(17, 19));
+            int position = 19;
+            int millis = 0;
+            if (position < value.length() && value.charAt(position) == '.') {
+                int scale = 100;
+                position++;
+                while (position < value.length() && Character.isDigit(value.charAt(position))) {
+                    millis += (value.charAt(position) - '0') * scale;
+                    scale /= 10;
+                    position++;
+                }
+            }
+            long offsetMinutes = 0;
+            if (position + 6 <= value.length() && (value.charAt(position) == '+' || value.charAt(position) == '-')) {
+                offsetMinutes = Integer.parseInt(value.substring(position + 1, position + 3)) * 60
+                    + Integer.parseInt(value.substring(position + 4, position + 6));
+                if (value.charAt(position) == '-') {
+                    offsetMinutes = -offsetMinutes;
+                }
+            }
+            long seconds = daysFromCivil(year, month, day) * 86_400L + hour * 3600L + minute * 60L + second
+                - offsetMinutes * 60;
+            return seconds * 1000 + millis;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // Dias desde 1970-01-01 no calendário gregoriano (sem java.time, que pede API 26)
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468;
+    }
+}
@@ -1,7 +1,6 @@
 package com.motofreela.app;
 
 import android.content.Context;
-import android.util.Log;
 import org.json.JSONObject;
 import org.json.JSONException;
 
@@ -39,7 +38,7 @@ public class ChatService {
         supabaseService.sendChatMessage(serviceId, currentUserId, receiverId, content, messageType, new SupabaseService.SupabaseCallback() {
             @Override
             public void onSuccess(String response) {
-                Log.d(TAG, "Mensagem enviada com sucesso: " + response);
+                AppLog.d(TAG, "Mensagem enviada com sucesso: {}", serviceId);
                 if (callback != null) {
                     callback.onMessageSent("msg_" + System.currentTimeMillis());
                 }
@@ -47,7 +46,7 @@ public class ChatService {
             
             @Override
             public void onError(String error) {
-                Log.e(TAG, "Erro ao enviar mensagem: " + error);
+                AppLog.e(TAG, "Erro ao enviar mensagem: {}", error);
                 if (callback != null) {
                     callback.onError("Erro ao enviar mensagem");
                 }
@@ -76,14 +75,14 @@ public class ChatService {
             typingData.put("is_typing", isTyping);
             typingData.put("timestamp", System.currentTimeMillis());
             
-            Log.d(TAG, "Status de digitação: " + typingData.toString());
+            AppLog.d(TAG, "Status de digitação: {}", typingData);
             
             if (callback != null) {
                 callback.onTypingStatusChanged(receiverId, isTyping);
             }
             
         } catch (JSONException e) {
-            Log.e(TAG, "Erro ao criar status de digitação: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao criar status de digitação: {}", e.getMessage());
         }
     }
     
@@ -94,10 +93,10 @@ public class ChatService {
             readData.put("service_id", serviceId);
             readData.put("timestamp", System.currentTimeMillis());
             
-            Log.d(TAG, "Marcando mensagens como lidas: " + readData.toString());
+            AppLog.d(TAG, "Marcando mensagens como lidas: {}", readData);
             
         } catch (JSONException e) {
-            Log.e(TAG, "Erro ao marcar mensagens como lidas: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao marcar mensagens como lidas: {}", e.getMessage());
         }
     }
     
@@ -137,12 +136,12 @@ public class ChatService {
     public void checkUnreadMessages(String serviceId) {
         // Aqui você faria uma consulta ao Supabase
         // Por enquanto, simulamos
-        Log.d(TAG, "Verificando mensagens não lidas para serviço: " + serviceId);
+        AppLog.d(TAG, "Verificando mensagens não lidas para serviço: {}", serviceId);
     }
     
     // Obter histórico de mensagens
     public void loadMessageHistory(String serviceId) {
         // Aqui você carregaria o histórico do Supabase
-        Log.d(TAG, "Carregando histórico de mensagens para serviço: " + serviceId);
+        AppLog.d(TAG, "Carregando histórico de mensagens para serviço: {}", serviceId);
     }
 }
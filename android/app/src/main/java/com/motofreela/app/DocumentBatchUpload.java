@@ -0,0 +1,319 @@
+package com.motofreela.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Envio em lote dos documentos do cadastro; retry() reenvia só os que falharam, do arquivo já preparado
+class DocumentBatchUpload {
+    private static final String TAG = "DocumentBatchUpload";
+
+    // Fração do progresso de cada item que corresponde à triagem e compressão
+    private static final double PREPARE_WEIGHT = 0.2;
+
+    enum Status {
+        PENDING,
+        PREPARING,
+        UPLOADING,
+        UPLOADED,
+        FAILED,
+        REJECTED
+    }
+
+    // Triagem e compressão de um item (DocumentService::prepare)
+    interface Preparer {
+        DocumentService.Prepared prepare(String userId, String documentType, byte[] imageBytes, String format,
+                                         File captureFile) throws IOException;
+    }
+
+    interface Listener {
+        void onProgress(DocumentBatchUpload batch, int percent);
+        void onItemFinished(DocumentBatchUpload batch, Item item);
+        // Todos os itens desta rodada terminaram (enviados, com falha ou reprovados)
+        void onFinished(DocumentBatchUpload batch);
+    }
+
+    static final class Item {
+        final String documentType;
+        final byte[] imageBytes;
+        final String format;
+        final File captureFile;
+
+        Status status = Status.PENDING;
+        DocumentService.Prepared prepared;
+        String url;
+        String error;
+        int attempts;
+        // Fração concluída do item nesta rodada (0 a 1)
+        double progress;
+
+        // imageBytes (base64 já decodificado) ou captureFile (captura nativa)
+        Item(String documentType, byte[] imageBytes, String format, File captureFile) {
+            this.documentType = documentType;
+            this.imageBytes = imageBytes;
+            this.format = format;
+            this.captureFile = captureFile;
+        }
+    }
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final MetricsRegistry.Histogram batchTime = metrics.histogram("document.batch");
+    private static final MetricsRegistry.Counter itemsUploaded = metrics.counter("document.batch_uploaded");
+    private static final MetricsRegistry.Counter itemsFailed = metrics.counter("document.batch_failed");
+    private static final MetricsRegistry.Counter itemsRetried = metrics.counter("document.batch_retried");
+
+    final String id = UUID.randomUUID().toString();
+    private final Preparer preparer;
+    private final SupabaseService supabaseService;
+    private final DocumentCache documentCache;
+    private final Executor processingExecutor;
+    private final String userId;
+    private final List<Item> items;
+    private final Listener listener;
+
+    private int running;
+    private int lastPercent = -1;
+    private long roundStartNanos;
+
+    DocumentBatchUpload(Preparer preparer, SupabaseService supabaseService, DocumentCache documentCache,
+                        Executor processingExecutor, String userId, List<Item> items, Listener listener) {
+        this.preparer = preparer;
+        this.supabaseService = supabaseService;
+        this.documentCache = documentCache;
+        this.processingExecutor = processingExecutor;
+        this.userId = userId;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.listener = listener;
+    }
+
+    void start() {
+        submit(Status.PENDING);
+    }
+
+    // Reenvia só os itens que falharam; false se o lote ainda está rodando ou não há o que reenviar
+    boolean retry() {
+        return submit(Status.FAILED);
+    }
+
+    synchronized boolean isRunning() {
+        return running > 0;
+    }
+
+    synchronized boolean hasFailures() {
+        for (Item item : items) {
+            if (item.status == Status.FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean submit(Status from) {
+        List<Item> round = new ArrayList<>();
+        synchronized (this) {
+            if (running > 0) {
+                return false;
+            }
+            for (Item item : items) {
+                if (item.status == from) {
+                    round.add(item);
+                }
+                // Itens fora desta rodada contam como concluídos no progresso
+                item.progress = item.status == from ? 0 : 1;
+            }
+            if (round.isEmpty()) {
+                return false;
+            }
+            running = round.size();
+            lastPercent = -1;
+            roundStartNanos = System.nanoTime();
+        }
+        if (from == Status.FAILED) {
+            itemsRetried.add(round.size());
+        }
+        reportProgress();
+
+        for (Item item : round) {
+            DocumentService.Prepared prepared;
+            synchronized (this) {
+                item.attempts++;
+                item.error = null;
+                prepared = item.prepared;
+            }
+            // O arquivo preparado pode ter saído do cache (LRU) entre as tentativas
+            if (prepared != null && (prepared.cachedUrl != null || prepared.file.exists())) {
+                upload(item, prepared);
+            } else {
+                setStatus(item, Status.PREPARING);
+                processingExecutor.execute(() -> prepare(item));
+            }
+        }
+        return true;
+    }
+
+    // Thread de processamento: um documento por vez, enquanto os anteriores sobem
+    private void prepare(Item item) {
+        DocumentService.Prepared prepared;
+        try {
+            prepared = preparer.prepare(userId, item.documentType, item.imageBytes, item.format, item.captureFile);
+        } catch (Exception e) {
+            AppLog.e(TAG, "Erro ao processar {}: {}", item.documentType, e.getMessage());
+            finish(item, Status.FAILED, null, "Erro ao processar imagem");
+            return;
+        }
+        synchronized (this) {
+            item.prepared = prepared;
+        }
+        upload(item, prepared);
+    }
+
+    private void upload(Item item, DocumentService.Prepared prepared) {
+        if (prepared.rejected()) {
+            if (item.captureFile != null) {
+                item.captureFile.delete();
+            }
+            finish(item, Status.REJECTED, null, DocumentService.qualityMessage(prepared.rejection));
+            return;
+        }
+        if (prepared.cachedUrl != null) {
+            AppLog.d(TAG, "{} já enviado, reutilizando URL", item.documentType);
+            if (item.captureFile != null) {
+                item.captureFile.delete();
+            }
+            finish(item, Status.UPLOADED, prepared.cachedUrl, null);
+            return;
+        }
+
+        setStatus(item, Status.UPLOADING);
+        ProgressRequestBody.Listener progress = (written, length) -> {
+            if (length > 0) {
+                synchronized (this) {
+                    item.progress = PREPARE_WEIGHT + (1 - PREPARE_WEIGHT) * Math.min(1.0, (double) written / length);
+                }
+                reportProgress();
+            }
+        };
+        supabaseService.uploadDocument(userId, item.documentType, prepared.file, prepared.format, progress,
+            new SupabaseService.SupabaseCallback() {
+                @Override
+                public void onSuccess(String response) {
+                    documentCache.putRemoteUrl(userId, item.documentType, prepared.hash, response);
+                    if (item.captureFile != null) {
+                        item.captureFile.delete();
+                    }
+                    finish(item, Status.UPLOADED, response, null);
+                }
+
+                @Override
+                public void onError(String error) {
+                    AppLog.w(TAG, "Upload de {} falhou: {}", item.documentType, error);
+                    finish(item, Status.FAILED, null, "Erro ao enviar documento");
+                }
+            });
+    }
+
+    private void setStatus(Item item, Status status) {
+        synchronized (this) {
+            item.status = status;
+            if (status == Status.UPLOADING) {
+                item.progress = PREPARE_WEIGHT;
+            }
+        }
+        reportProgress();
+    }
+
+    private void finish(Item item, Status status, String url, String error) {
+        boolean roundDone;
+        long startNanos;
+        synchronized (this) {
+            item.status = status;
+            item.url = url;
+            item.error = error;
+            item.progress = 1;
+            roundDone = --running == 0;
+            startNanos = roundStartNanos;
+        }
+        if (status == Status.UPLOADED) {
+            itemsUploaded.increment();
+        } else if (status == Status.FAILED) {
+            itemsFailed.increment();
+        }
+        reportProgress();
+        listener.onItemFinished(this, item);
+        if (roundDone) {
+            batchTime.recordSince(startNanos);
+            AppLog.i(TAG, "Lote {} terminou: {}", id, summary());
+            listener.onFinished(this);
+        }
+    }
+
+    // Média do progresso dos itens; só avisa quando o percentual inteiro muda
+    private void reportProgress() {
+        int percent;
+        synchronized (this) {
+            double sum = 0;
+            for (Item item : items) {
+                sum += item.progress;
+            }
+            percent = (int) (100 * sum / items.size());
+            if (percent == lastPercent) {
+                return;
+            }
+            lastPercent = percent;
+        }
+        listener.onProgress(this, percent);
+    }
+
+    static JSONObject itemToJson(Item item) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("documentType", item.documentType);
+        json.put("status", item.status.name());
+        json.put("attempts", item.attempts);
+        if (item.url != null) {
+            json.put("url", item.url);
+        }
+        if (item.error != null) {
+            json.put("error", item.error);
+        }
+        if (item.status == Status.REJECTED && item.prepared != null) {
+            json.put("reason", item.prepared.rejection.name());
+        }
+        return json;
+    }
+
+    // { batchId, uploaded, failed, rejected, items: [...] }
+    synchronized JSONObject summary() {
+        JSONObject json = new JSONObject();
+        try {
+            int uploaded = 0;
+            int failed = 0;
+            int rejected = 0;
+            JSONArray itemsJson = new JSONArray();
+            for (Item item : items) {
+                if (item.status == Status.UPLOADED) {
+                    uploaded++;
+                } else if (item.status == Status.FAILED) {
+                    failed++;
+                } else if (item.status == Status.REJECTED) {
+                    rejected++;
+                }
+                itemsJson.put(itemToJson(item));
+            }
+            json.put("batchId", id);
+            json.put("uploaded", uploaded);
+            json.put("failed", failed);
+            json.put("rejected", rejected);
+            json.put("items", itemsJson);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Erro ao montar resumo do lote: {}", e.getMessage());
+        }
+        return json;
+    }
+}
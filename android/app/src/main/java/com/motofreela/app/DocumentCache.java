@@ -0,0 +1,308 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DocumentCache {
+    private static final String TAG = "DocumentCache";
+    private static final String INDEX_FILE = "index.json";
+
+    // Orçamento de disco para documentos locais
+    public static final long DEFAULT_MAX_BYTES = 20L * 1024 * 1024;
+    private static final int MAX_REMOTE_URLS = 256;
+
+    private final File cacheDir;
+    private final long maxBytes;
+    private long totalBytes;
+
+    // hash -> entrada local, em ordem de acesso (LRU)
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // "<userId>/<tipo>/<hash>" -> URL já enviada ao Supabase Storage. Só o hash não basta:
+    // o mesmo arquivo em outro tipo ou de outra conta no aparelho precisa do seu próprio upload
+    private final LinkedHashMap<String, String> remoteUrls = new LinkedHashMap<>(16, 0.75f, true);
+    // "<userId>_<tipo>" -> hash (compatibilidade com saveDocumentLocally)
+    private final Map<String, String> aliases = new LinkedHashMap<>();
+
+    // Estatísticas
+    private long hits;
+    private long misses;
+    private long bytesSaved;
+
+    private static class Entry {
+        final String hash;
+        final String format;
+        final long size;
+
+        Entry(String hash, String format, long size) {
+            this.hash = hash;
+            this.format = format;
+            this.size = size;
+        }
+    }
+
+    private static DocumentCache instance;
+
+    // Instância única por processo (o índice é compartilhado entre serviços)
+    public static synchronized DocumentCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new DocumentCache(new File(context.getApplicationContext().getFilesDir(), "documents"), DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    public DocumentCache(File cacheDir, long maxBytes) {
+        this.cacheDir = cacheDir;
+        this.maxBytes = maxBytes;
+        if (!cacheDir.exists()) {
+            cacheDir.mkdirs();
+        }
+        loadIndex();
+    }
+
+    // Hash SHA-256 dos bytes codificados
+    public static String hash(byte[] data, int offset, int length) {
+        MessageDigest digest = newDigest();
+        digest.update(data, offset, length);
+        return toHex(digest.digest());
+    }
+
+    public static String hash(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[16 * 1024];
+        try (InputStream inputStream = new FileInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    static String remoteKey(String userId, String documentType, String hash) {
+        return userId + "/" + documentType + "/" + hash;
+    }
+
+    // URL remota de um conteúdo já enviado por este usuário como este tipo (conta como acerto/erro)
+    public synchronized String lookupRemoteUrl(String userId, String documentType, String hash, long size) {
+        String url = remoteUrls.get(remoteKey(userId, documentType, hash));
+        if (url != null) {
+            hits++;
+            bytesSaved += size;
+        } else {
+            misses++;
+        }
+        return url;
+    }
+
+    public synchronized void putRemoteUrl(String userId, String documentType, String hash, String url) {
+        remoteUrls.put(remoteKey(userId, documentType, hash), url);
+        Iterator<Map.Entry<String, String>> iterator = remoteUrls.entrySet().iterator();
+        while (remoteUrls.size() > MAX_REMOTE_URLS && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        saveIndex();
+    }
+
+    // Gravar conteúdo no cache (no-op se o hash já existir)
+    public synchronized File put(String hash, byte[] data, int offset, int length, String format) throws IOException {
+        Entry existing = entries.get(hash);
+        File file = fileFor(hash, format);
+        if (existing != null && file.exists()) {
+            return file;
+        }
+
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(data, offset, length);
+        }
+        entries.put(hash, new Entry(hash, format, length));
+        totalBytes += length;
+        trimToSize();
+        saveIndex();
+        return file;
+    }
+
+    public synchronized File get(String hash) {
+        Entry entry = entries.get(hash);
+        if (entry == null) {
+            return null;
+        }
+        File file = fileFor(hash, entry.format);
+        if (!file.exists()) {
+            removeEntry(hash);
+            return null;
+        }
+        return file;
+    }
+
+    public synchronized void putAlias(String alias, String hash) {
+        aliases.put(alias, hash);
+        saveIndex();
+    }
+
+    public synchronized File getByAlias(String alias) {
+        String hash = aliases.get(alias);
+        return hash != null ? get(hash) : null;
+    }
+
+    // Estatísticas em JSON para a WebView
+    public synchronized JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        try {
+            long lookups = hits + misses;
+            stats.put("hits", hits);
+            stats.put("misses", misses);
+            stats.put("hitRate", lookups > 0 ? (double) hits / lookups : 0.0);
+            stats.put("bytesSaved", bytesSaved);
+            stats.put("entries", entries.size());
+            stats.put("totalBytes", totalBytes);
+            stats.put("maxBytes", maxBytes);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Erro ao montar estatísticas: {}", e.getMessage());
+        }
+        return stats;
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            fileFor(eldest.hash, eldest.format).delete();
+            totalBytes -= eldest.size;
+            iterator.remove();
+            removeAliases(eldest.hash);
+            AppLog.d(TAG, "Documento removido do cache: {}", eldest.hash);
+        }
+    }
+
+    // Arquivo sumiu do disco: tira a entrada e os apelidos que apontavam para ela
+    private void removeEntry(String hash) {
+        Entry entry = entries.remove(hash);
+        if (entry != null) {
+            totalBytes -= entry.size;
+        }
+        removeAliases(hash);
+        saveIndex();
+    }
+
+    private void removeAliases(String hash) {
+        Iterator<String> iterator = aliases.values().iterator();
+        while (iterator.hasNext()) {
+            if (hash.equals(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private File fileFor(String hash, String format) {
+        return new File(cacheDir, hash + "." + format);
+    }
+
+    private void loadIndex() {
+        File indexFile = new File(cacheDir, INDEX_FILE);
+        if (!indexFile.exists()) {
+            return;
+        }
+
+        try (InputStream inputStream = new FileInputStream(indexFile)) {
+            byte[] content = new byte[(int) indexFile.length()];
+            int offset = 0;
+            int read;
+            while (offset < content.length && (read = inputStream.read(content, offset, content.length - offset)) != -1) {
+                offset += read;
+            }
+
+            JSONObject index = new JSONObject(new String(content, 0, offset, StandardCharsets.UTF_8));
+            JSONArray entryArray = index.optJSONArray("entries");
+            for (int i = 0; entryArray != null && i < entryArray.length(); i++) {
+                JSONObject item = entryArray.getJSONObject(i);
+                Entry entry = new Entry(item.getString("hash"), item.getString("format"), item.getLong("size"));
+                if (fileFor(entry.hash, entry.format).exists()) {
+                    entries.put(entry.hash, entry);
+                    totalBytes += entry.size;
+                }
+            }
+
+            JSONObject urls = index.optJSONObject("remoteUrls");
+            if (urls != null) {
+                Iterator<String> keys = urls.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    // Índices antigos usavam só o hash como chave: descartados
+                    if (key.indexOf('/') >= 0) {
+                        remoteUrls.put(key, urls.getString(key));
+                    }
+                }
+            }
+
+            JSONObject aliasObject = index.optJSONObject("aliases");
+            if (aliasObject != null) {
+                Iterator<String> keys = aliasObject.keys();
+                while (keys.hasNext()) {
+                    String alias = keys.next();
+                    String hash = aliasObject.getString(alias);
+                    if (entries.containsKey(hash)) {
+                        aliases.put(alias, hash);
+                    }
+                }
+            }
+        } catch (IOException | JSONException e) {
+            AppLog.e(TAG, "Erro ao carregar índice do cache: {}", e.getMessage());
+        }
+    }
+
+    private void saveIndex() {
+        try {
+            JSONObject index = new JSONObject();
+            JSONArray entryArray = new JSONArray();
+            for (Entry entry : entries.values()) {
+                entryArray.put(new JSONObject()
+                    .put("hash", entry.hash)
+                    .put("format", entry.format)
+                    .put("size", entry.size));
+            }
+            index.put("entries", entryArray);
+            index.put("remoteUrls", new JSONObject(remoteUrls));
+            index.put("aliases", new JSONObject(aliases));
+
+            File tempFile = new File(cacheDir, INDEX_FILE + ".tmp");
+            try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+                outputStream.write(index.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            tempFile.renameTo(new File(cacheDir, INDEX_FILE));
+        } catch (IOException | JSONException e) {
+            AppLog.e(TAG, "Erro ao salvar índice do cache: {}", e.getMessage());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] hex = new char[bytes.length * 2];
+        final char[] digits = "0123456789abcdef".toCharArray();
+        for (int i = 0; i < bytes.length; i++) {
+            hex[i * 2] = digits[(bytes[i] >> 4) & 0x0f];
+            hex[i * 2 + 1] = digits[bytes[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+}
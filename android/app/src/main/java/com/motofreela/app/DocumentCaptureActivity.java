@@ -0,0 +1,185 @@
+package com.motofreela.app;
+
+import android.Manifest;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Bundle;
+import android.util.Base64;
+import android.util.Size;
+import android.widget.Button;
+import android.widget.TextView;
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageCapture;
+import androidx.camera.core.ImageCaptureException;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
+import androidx.camera.view.PreviewView;
+import androidx.core.content.ContextCompat;
+import com.google.common.util.concurrent.ListenableFuture;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class DocumentCaptureActivity extends AppCompatActivity {
+    private static final String TAG = "DocumentCaptureActivity";
+
+    public static final String EXTRA_DOCUMENT_TYPE = "documentType";
+    public static final String EXTRA_FILE_ID = "fileId";
+    public static final String EXTRA_THUMBNAIL = "thumbnail";
+    // Motivo do cancelamento (só quando não foi o usuário que voltou)
+    public static final String EXTRA_ERROR = "error";
+    public static final String ERROR_CAMERA_PERMISSION = "camera_permission_denied";
+    public static final String ERROR_CAMERA_UNAVAILABLE = "camera_unavailable";
+
+    // Resolução de captura alinhada com o pipeline de documentos
+    private static final Size TARGET_RESOLUTION = new Size(1600, 1200);
+    private static final int CAPTURE_JPEG_QUALITY = 85;
+    private static final int THUMBNAIL_SIZE = 160;
+
+    private String documentType;
+    private PreviewView previewView;
+    private Button captureButton;
+    private ImageCapture imageCapture;
+    private ExecutorService captureExecutor;
+
+    private final ActivityResultLauncher<String> cameraPermission =
+        registerForActivityResult(new ActivityResultContracts.RequestPermission(), granted -> {
+            if (granted) {
+                startCamera();
+            } else {
+                AppLog.w(TAG, "Permissão de câmera negada");
+                finishWithError(ERROR_CAMERA_PERMISSION);
+            }
+        });
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_document_capture);
+
+        documentType = getIntent().getStringExtra(EXTRA_DOCUMENT_TYPE);
+        previewView = findViewById(R.id.document_preview);
+        captureButton = findViewById(R.id.document_capture_button);
+        TextView labelView = findViewById(R.id.document_capture_label);
+
+        labelView.setText(DocumentService.getDocumentLabel(documentType));
+
+        captureExecutor = Executors.newSingleThreadExecutor();
+        captureButton.setOnClickListener(view -> takePicture());
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA) == PackageManager.PERMISSION_GRANTED) {
+            startCamera();
+        } else {
+            cameraPermission.launch(Manifest.permission.CAMERA);
+        }
+    }
+
+    private void startCamera() {
+        ListenableFuture<ProcessCameraProvider> providerFuture = ProcessCameraProvider.getInstance(this);
+        providerFuture.addListener(() -> {
+            try {
+                ProcessCameraProvider cameraProvider = providerFuture.get();
+
+                Preview preview = new Preview.Builder().build();
+                preview.setSurfaceProvider(previewView.getSurfaceProvider());
+
+                // Captura já na resolução alvo, comprimida pelo próprio pipeline da câmera
+                ResolutionSelector resolutionSelector = new ResolutionSelector.Builder()
+                    .setResolutionStrategy(new ResolutionStrategy(
+                        TARGET_RESOLUTION,
+                        ResolutionStrategy.FALLBACK_RULE_CLOSEST_HIGHER_THEN_LOWER
+                    ))
+                    .build();
+
+                imageCapture = new ImageCapture.Builder()
+                    .setCaptureMode(ImageCapture.CAPTURE_MODE_MINIMIZE_LATENCY)
+                    .setResolutionSelector(resolutionSelector)
+                    .setJpegQuality(CAPTURE_JPEG_QUALITY)
+                    .build();
+
+                // Selfie usa a câmera frontal
+                CameraSelector cameraSelector = DocumentService.DOCUMENT_SELFIE.equals(documentType)
+                    ? CameraSelector.DEFAULT_FRONT_CAMERA
+                    : CameraSelector.DEFAULT_BACK_CAMERA;
+
+                cameraProvider.unbindAll();
+                cameraProvider.bindToLifecycle(this, cameraSelector, preview, imageCapture);
+            } catch (Exception e) {
+                AppLog.e(TAG, "Erro ao iniciar câmera: {}", e.getMessage());
+                finishWithError(ERROR_CAMERA_UNAVAILABLE);
+            }
+        }, ContextCompat.getMainExecutor(this));
+    }
+
+    private void takePicture() {
+        if (imageCapture == null) {
+            return;
+        }
+        captureButton.setEnabled(false);
+
+        File outputFile = DocumentService.newCaptureFile(this, documentType);
+        ImageCapture.OutputFileOptions outputOptions = new ImageCapture.OutputFileOptions.Builder(outputFile).build();
+
+        imageCapture.takePicture(outputOptions, captureExecutor, new ImageCapture.OnImageSavedCallback() {
+            @Override
+            public void onImageSaved(@NonNull ImageCapture.OutputFileResults outputFileResults) {
+                AppLog.d(TAG, "Documento capturado: {} ({} bytes)", outputFile.getName(), outputFile.length());
+
+                Intent result = new Intent();
+                result.putExtra(EXTRA_DOCUMENT_TYPE, documentType);
+                result.putExtra(EXTRA_FILE_ID, outputFile.getName());
+                result.putExtra(EXTRA_THUMBNAIL, createThumbnail(outputFile));
+                setResult(RESULT_OK, result);
+                finish();
+            }
+
+            @Override
+            public void onError(@NonNull ImageCaptureException exception) {
+                AppLog.e(TAG, "Erro ao capturar documento: {}", exception.getMessage());
+                outputFile.delete();
+                runOnUiThread(() -> captureButton.setEnabled(true));
+            }
+        });
+    }
+
+    // Miniatura pequena para a WebView (data URL com poucos KB)
+    private String createThumbnail(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+
+        options.inSampleSize = DocumentImagePipeline.calculateInSampleSize(options.outWidth, options.outHeight, THUMBNAIL_SIZE);
+        options.inJustDecodeBounds = false;
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap thumbnail = BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+        if (thumbnail == null) {
+            return null;
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        thumbnail.compress(Bitmap.CompressFormat.JPEG, 70, outputStream);
+        thumbnail.recycle();
+        return "data:image/jpeg;base64," + Base64.encodeToString(outputStream.toByteArray(), Base64.NO_WRAP);
+    }
+
+    private void finishWithError(String error) {
+        setResult(RESULT_CANCELED, new Intent().putExtra(EXTRA_ERROR, error));
+        finish();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (captureExecutor != null) {
+            captureExecutor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.motofreela.app;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.os.Debug;
+import android.os.SystemClock;
+import androidx.exifinterface.media.ExifInterface;
+import com.motofreela.core.ImageQualityGate;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+public class DocumentImagePipeline {
+    private static final String TAG = "DocumentImagePipeline";
+
+    // Resolução e tamanho alvo dos documentos enviados
+    public static final int DEFAULT_MAX_DIMENSION = 1600;
+    public static final int DEFAULT_TARGET_BYTES = 400 * 1024;
+
+    // Faixa da busca de qualidade JPEG
+    private static final int MIN_QUALITY = 40;
+    private static final int MAX_QUALITY = 90;
+    private static final int QUALITY_STEP_TOLERANCE = 4;
+
+    private static final int DECODE_TEMP_STORAGE = 16 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 4;
+    private static final int INITIAL_BUFFER_SIZE = 256 * 1024;
+
+    // Pool de buffers reutilizados entre documentos
+    private final ArrayDeque<PooledOutputStream> bufferPool = new ArrayDeque<>();
+    private final ArrayDeque<byte[]> tempStoragePool = new ArrayDeque<>();
+    // Pixels e luma da cópia de análise da triagem, reaproveitados entre documentos
+    private int[] analysisPixels;
+    private byte[] analysisLuma;
+
+    // Buffer de saída que expõe o array interno sem cópia
+    public static class PooledOutputStream extends ByteArrayOutputStream {
+        PooledOutputStream(int size) {
+            super(size);
+        }
+
+        public byte[] buffer() {
+            return buf;
+        }
+    }
+
+    // Pico de memória do processamento: amostrado logo após cada alocação grande
+    private static final class HeapSampler {
+        private final long baseline = currentHeapBytes();
+        private long peak;
+
+        void sample() {
+            peak = Math.max(peak, currentHeapBytes() - baseline);
+        }
+    }
+
+    // Origem da imagem (bytes em memória ou arquivo)
+    private interface ImageSource {
+        Bitmap decode(BitmapFactory.Options options) throws IOException;
+    }
+
+    // Resultado do processamento de um documento
+    public class Result {
+        private PooledOutputStream output;
+        public final String format;
+        public final int width;
+        public final int height;
+        public final int sampleSize;
+        public final int quality;
+        public final int encodeAttempts;
+        public final long decodeTimeMs;
+        public final long encodeTimeMs;
+        public final long peakHeapBytes;
+
+        Result(PooledOutputStream output, String format, int width, int height, int sampleSize, int quality,
+               int encodeAttempts, long decodeTimeMs, long encodeTimeMs, long peakHeapBytes) {
+            this.output = output;
+            this.format = format;
+            this.width = width;
+            this.height = height;
+            this.sampleSize = sampleSize;
+            this.quality = quality;
+            this.encodeAttempts = encodeAttempts;
+            this.decodeTimeMs = decodeTimeMs;
+            this.encodeTimeMs = encodeTimeMs;
+            this.peakHeapBytes = peakHeapBytes;
+        }
+
+        // Bytes codificados (válidos até release())
+        public byte[] data() {
+            return output.buffer();
+        }
+
+        public int length() {
+            return output.size();
+        }
+
+        // Devolver o buffer ao pool
+        public void release() {
+            if (output != null) {
+                releaseBuffer(output);
+                output = null;
+            }
+        }
+
+        public String describe() {
+            return String.format(java.util.Locale.US,
+                "%dx%d (sample %d) %s q=%d tentativas=%d bytes=%d decode=%dms encode=%dms heap_pico=%dKB",
+                width, height, sampleSize, format, quality, encodeAttempts, length(),
+                decodeTimeMs, encodeTimeMs, peakHeapBytes / 1024);
+        }
+
+        @Override
+        public String toString() {
+            return describe();
+        }
+    }
+
+    // Processar imagem a partir de bytes já decodificados do base64
+    public Result process(byte[] source, String format, int maxDimension, int targetBytes) throws IOException {
+        return process(options -> BitmapFactory.decodeByteArray(source, 0, source.length, options),
+            format, maxDimension, targetBytes);
+    }
+
+    // Processar imagem a partir de um arquivo (captura nativa, respeitando a orientação EXIF)
+    public Result processFile(String path, String format, int maxDimension, int targetBytes) throws IOException {
+        int rotation = exifRotation(path);
+        return process(options -> BitmapFactory.decodeFile(path, options), format, maxDimension, targetBytes, rotation);
+    }
+
+    // Triagem de qualidade sobre uma cópia reduzida (lado maior ImageQualityGate.ANALYSIS_MAX_DIMENSION)
+    public ImageQualityGate.Assessment assessQuality(byte[] source, ImageQualityGate gate) throws IOException {
+        return assessQuality(options -> BitmapFactory.decodeByteArray(source, 0, source.length, options), gate);
+    }
+
+    public ImageQualityGate.Assessment assessQualityFile(String path, ImageQualityGate gate) throws IOException {
+        return assessQuality(options -> BitmapFactory.decodeFile(path, options), gate);
+    }
+
+    private synchronized ImageQualityGate.Assessment assessQuality(ImageSource source, ImageQualityGate gate) throws IOException {
+        byte[] tempStorage = acquireTempStorage();
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            options.inTempStorage = tempStorage;
+            source.decode(options);
+            int sourceWidth = options.outWidth;
+            int sourceHeight = options.outHeight;
+            if (sourceWidth <= 0 || sourceHeight <= 0) {
+                throw new IOException("Imagem inválida");
+            }
+
+            // Os limiares de nitidez valem numa escala fixa: reduzir sempre até o mesmo lado maior
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = calculateInSampleSize(sourceWidth, sourceHeight, ImageQualityGate.ANALYSIS_MAX_DIMENSION);
+            options.inPreferredConfig = Bitmap.Config.RGB_565;
+            Bitmap decoded = source.decode(options);
+            if (decoded == null) {
+                throw new IOException("Erro ao decodificar imagem");
+            }
+            Bitmap bitmap = scaleToFit(decoded, ImageQualityGate.ANALYSIS_MAX_DIMENSION, 0, null);
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            int pixels = width * height;
+            if (analysisPixels == null || analysisPixels.length < pixels) {
+                analysisPixels = new int[pixels];
+                analysisLuma = new byte[pixels];
+            }
+            bitmap.getPixels(analysisPixels, 0, width, 0, 0, width, height);
+            bitmap.recycle();
+            ImageQualityGate.toLuma(analysisPixels, pixels, analysisLuma);
+            return gate.assess(analysisLuma, width, height, sourceWidth, sourceHeight);
+        } finally {
+            releaseTempStorage(tempStorage);
+        }
+    }
+
+    private Result process(ImageSource source, String format, int maxDimension, int targetBytes) throws IOException {
+        return process(source, format, maxDimension, targetBytes, 0);
+    }
+
+    private Result process(ImageSource source, String format, int maxDimension, int targetBytes, int rotation) throws IOException {
+        HeapSampler heap = new HeapSampler();
+        byte[] tempStorage = acquireTempStorage();
+
+        try {
+            // Ler apenas as dimensões, sem alocar pixels
+            long decodeStart = SystemClock.elapsedRealtime();
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            options.inTempStorage = tempStorage;
+            source.decode(options);
+
+            if (options.outWidth <= 0 || options.outHeight <= 0) {
+                throw new IOException("Imagem inválida");
+            }
+
+            // Decodificar já reduzido para a resolução alvo
+            int sampleSize = calculateInSampleSize(options.outWidth, options.outHeight, maxDimension);
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = sampleSize;
+            options.inPreferredConfig = "png".equals(format) ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+            Bitmap decoded = source.decode(options);
+            if (decoded == null) {
+                throw new IOException("Erro ao decodificar imagem");
+            }
+            heap.sample();
+
+            Bitmap bitmap = scaleToFit(decoded, maxDimension, rotation, heap);
+            int width = bitmap.getWidth();
+            int height = bitmap.getHeight();
+            long decodeTimeMs = SystemClock.elapsedRealtime() - decodeStart;
+
+            // Codificar uma única vez, buscando a qualidade que cabe no alvo
+            long encodeStart = SystemClock.elapsedRealtime();
+            PooledOutputStream output = acquireBuffer();
+            int quality;
+            int attempts;
+            try {
+                if ("png".equals(format)) {
+                    output.reset();
+                    bitmap.compress(Bitmap.CompressFormat.PNG, 100, output);
+                    heap.sample();
+                    quality = 100;
+                    attempts = 1;
+                } else {
+                    int[] search = encodeToTarget(bitmap, output, targetBytes, heap);
+                    quality = search[0];
+                    attempts = search[1];
+                }
+            } catch (RuntimeException e) {
+                releaseBuffer(output);
+                throw e;
+            } finally {
+                bitmap.recycle();
+            }
+            long encodeTimeMs = SystemClock.elapsedRealtime() - encodeStart;
+
+            return new Result(output, format, width, height, sampleSize, quality,
+                attempts, decodeTimeMs, encodeTimeMs, heap.peak);
+        } finally {
+            releaseTempStorage(tempStorage);
+        }
+    }
+
+    // Busca binária da qualidade JPEG; o buffer final sempre contém a melhor tentativa válida
+    private int[] encodeToTarget(Bitmap bitmap, PooledOutputStream output, int targetBytes, HeapSampler heap) {
+        int attempts = 1;
+        output.reset();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, MAX_QUALITY, output);
+        // Primeira tentativa é a maior: o buffer de saída cresce até aqui
+        heap.sample();
+        if (output.size() <= targetBytes) {
+            return new int[]{MAX_QUALITY, attempts};
+        }
+
+        int low = MIN_QUALITY;
+        int high = MAX_QUALITY;
+        int best = -1;
+        int lastEncoded = MAX_QUALITY;
+        while (high - low > QUALITY_STEP_TOLERANCE) {
+            int mid = (low + high) >>> 1;
+            output.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, mid, output);
+            heap.sample();
+            lastEncoded = mid;
+            attempts++;
+            if (output.size() <= targetBytes) {
+                best = mid;
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+
+        // Garantir que o buffer contém a qualidade escolhida
+        int chosen = best > 0 ? best : MIN_QUALITY;
+        if (lastEncoded != chosen) {
+            output.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, chosen, output);
+            attempts++;
+        }
+        return new int[]{chosen, attempts};
+    }
+
+    // Rotação em graus indicada no EXIF (0 se a foto já está em pé)
+    static int exifRotation(String path) throws IOException {
+        return new ExifInterface(path).getRotationDegrees();
+    }
+
+    // Maior potência de 2 que mantém o lado maior >= resolução alvo
+    static int calculateInSampleSize(int width, int height, int maxDimension) {
+        int sampleSize = 1;
+        int largest = Math.max(width, height);
+        while (largest / (sampleSize * 2) >= maxDimension) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    // Ajuste fino após o inSampleSize (que só reduz em potências de 2) e rotação EXIF
+    // heap null = sem medição (triagem)
+    private Bitmap scaleToFit(Bitmap bitmap, int maxDimension, int rotation, HeapSampler heap) {
+        int largest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (largest <= maxDimension && rotation == 0) {
+            return bitmap;
+        }
+        float scale = largest > maxDimension ? (float) maxDimension / largest : 1f;
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        matrix.postRotate(rotation);
+        Bitmap transformed = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+        // Original e transformado vivos ao mesmo tempo: normalmente o pico do processamento
+        if (heap != null) {
+            heap.sample();
+        }
+        if (transformed != bitmap) {
+            bitmap.recycle();
+        }
+        return transformed;
+    }
+
+    // Heap Java + heap nativo (pixels de Bitmap ficam no nativo a partir do API 26)
+    private static long currentHeapBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) + Debug.getNativeHeapAllocatedSize();
+    }
+
+    private synchronized PooledOutputStream acquireBuffer() {
+        PooledOutputStream buffer = bufferPool.pollFirst();
+        return buffer != null ? buffer : new PooledOutputStream(INITIAL_BUFFER_SIZE);
+    }
+
+    private synchronized void releaseBuffer(PooledOutputStream buffer) {
+        buffer.reset();
+        if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+            bufferPool.addFirst(buffer);
+        } else {
+            AppLog.d(TAG, "Pool de buffers cheio, descartando buffer");
+        }
+    }
+
+    private synchronized byte[] acquireTempStorage() {
+        byte[] storage = tempStoragePool.pollFirst();
+        return storage != null ? storage : new byte[DECODE_TEMP_STORAGE];
+    }
+
+    private synchronized void releaseTempStorage(byte[] storage) {
+        if (tempStoragePool.size() < MAX_POOLED_BUFFERS) {
+            tempStoragePool.addFirst(storage);
+        }
+    }
+}
@@ -4,19 +4,31 @@ import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.util.Base64;
-import android.util.Log;
+import com.motofreela.core.ImageQualityGate;
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.json.JSONException;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class DocumentService {
     private static final String TAG = "DocumentService";
     private Context context;
     private NotificationService notificationService;
     private SupabaseService supabaseService;
+    private DocumentImagePipeline imagePipeline;
+    private DocumentCache documentCache;
+    private ExecutorService processingExecutor;
     
     // Tipos de documentos
     public static final String DOCUMENT_CNH = "cnh";
@@ -24,10 +36,22 @@ public class DocumentService {
     public static final String DOCUMENT_SELFIE = "selfie";
     public static final String DOCUMENT_VEHICLE_PHOTO = "vehicle_photo";
     
+    // Triagem antes do envio: CNH e CRLV precisam de texto legível; selfie e foto do veículo, só de foco
+    private static final ImageQualityGate DOCUMENT_GATE = new ImageQualityGate(600, 100);
+    private static final ImageQualityGate PHOTO_GATE = new ImageQualityGate(480, 60);
+    
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final MetricsRegistry.Histogram qualityCheckTime = metrics.histogram("document.quality_check");
+    private static final MetricsRegistry.Counter qualityPassed = metrics.counter("document.quality_passed");
+    private static final MetricsRegistry.Counter qualityRejected = metrics.counter("document.quality_rejected");
+    
     public DocumentService(Context context) {
         this.context = context;
         this.notificationService = new NotificationService(context);
         this.supabaseService = new SupabaseService(context);
+        this.imagePipeline = new DocumentImagePipeline();
+        this.documentCache = DocumentCache.getInstance(context);
+        this.processingExecutor = Executors.newSingleThreadExecutor();
     }
     
     // Interface para callbacks de upload
@@ -35,6 +59,8 @@ public class DocumentService {
         void onDocumentUploaded(String documentType, String documentUrl);
         void onUploadProgress(int progress);
         void onUploadError(String error);
+        // Foto reprovada na triagem (reason: TOO_SMALL, TOO_DARK, TOO_BRIGHT, BLURRY); nada foi enviado
+        void onQualityRejected(String documentType, String reason, String message);
     }
     
     private DocumentCallback callback;
@@ -44,7 +70,7 @@ public class DocumentService {
     }
     
     // Obter labels dos documentos
-    public String getDocumentLabel(String documentType) {
+    public static String getDocumentLabel(String documentType) {
         switch (documentType) {
             case DOCUMENT_CNH:
                 return "CNH (Carteira Nacional de Habilitação)";
@@ -75,74 +101,326 @@ public class DocumentService {
     
     // Upload de documento
     public void uploadDocument(String userId, String documentType, String base64Data, String format) {
-        try {
-            // Converter base64 para bitmap
-            byte[] imageBytes = Base64.decode(base64Data, Base64.DEFAULT);
-            Bitmap bitmap = BitmapFactory.decodeByteArray(imageBytes, 0, imageBytes.length);
-            
-            if (bitmap == null) {
+        // Decodificação e compressão fora da thread principal
+        processingExecutor.execute(() -> {
+            Prepared prepared;
+            try {
+                prepared = prepare(userId, documentType, Base64.decode(base64Data, Base64.DEFAULT), format, null);
+            } catch (Exception e) {
+                AppLog.e(TAG, "Erro ao processar imagem: {}", e.getMessage());
                 if (callback != null) {
                     callback.onUploadError("Erro ao processar imagem");
                 }
                 return;
             }
-            
-            // Comprimir imagem
-            Bitmap compressedBitmap = compressImage(bitmap, 90);
-            
-            // Converter para base64 comprimido
-            String compressedBase64 = bitmapToBase64(compressedBitmap, format);
-            
-            // Upload para Supabase Storage
-            supabaseService.uploadDocument(userId, documentType, compressedBase64, format, new SupabaseService.SupabaseCallback() {
+            uploadPrepared(userId, documentType, prepared, null);
+        });
+    }
+    
+    // Lotes com itens ainda por enviar, por id (para retryDocumentBatch)
+    private final Map<String, DocumentBatchUpload> batches = new ConcurrentHashMap<>();
+    
+    // Cadastro inteiro de uma vez. items: [{ documentType, fileId } ou { documentType, base64Data, format }].
+    // Retorna o id do lote; null se a lista for inválida (tipo desconhecido, repetido ou captura sumida)
+    public String uploadDocumentBatch(String userId, JSONArray items, DocumentBatchUpload.Listener listener) {
+        List<DocumentBatchUpload.Item> batchItems = new ArrayList<>();
+        Set<String> types = new HashSet<>();
+        for (int i = 0; i < items.length(); i++) {
+            JSONObject json = items.optJSONObject(i);
+            String documentType = json != null ? json.optString("documentType", null) : null;
+            if (!isValidDocumentType(documentType) || !types.add(documentType)) {
+                AppLog.w(TAG, "Lote recusado: documento inválido ou repetido ({})", documentType);
+                return null;
+            }
+            if (json.has("fileId")) {
+                File file = resolveCaptureFile(json.optString("fileId"));
+                if (file == null) {
+                    AppLog.w(TAG, "Lote recusado: captura de {} não encontrada", documentType);
+                    return null;
+                }
+                batchItems.add(new DocumentBatchUpload.Item(documentType, null, "jpg", file));
+            } else {
+                String format = json.optString("format", "jpg");
+                if (!isValidFormat(format)) {
+                    AppLog.w(TAG, "Lote recusado: formato {} de {}", format, documentType);
+                    return null;
+                }
+                try {
+                    batchItems.add(new DocumentBatchUpload.Item(documentType,
+                        Base64.decode(json.optString("base64Data"), Base64.DEFAULT), format, null));
+                } catch (IllegalArgumentException e) {
+                    AppLog.w(TAG, "Lote recusado: base64 inválido em {}", documentType);
+                    return null;
+                }
+            }
+        }
+        if (batchItems.isEmpty()) {
+            return null;
+        }
+        
+        DocumentBatchUpload batch = new DocumentBatchUpload(this::prepare, supabaseService, documentCache, processingExecutor,
+            userId, batchItems, new DocumentBatchUpload.Listener() {
                 @Override
-                public void onSuccess(String response) {
-                    Log.d(TAG, "Documento enviado com sucesso: " + response);
-                    if (callback != null) {
-                        callback.onDocumentUploaded(documentType, response);
-                    }
-                    
-                    // Mostrar notificação de sucesso
-                    notificationService.showRideNotification(
-                        "📄 Documento Enviado",
-                        getDocumentLabel(documentType) + " enviado com sucesso!",
-                        "document_" + documentType
-                    );
+                public void onProgress(DocumentBatchUpload batch, int percent) {
+                    listener.onProgress(batch, percent);
                 }
                 
                 @Override
-                public void onError(String error) {
-                    Log.e(TAG, "Erro no upload: " + error);
-                    if (callback != null) {
-                        callback.onUploadError("Erro ao enviar documento");
+                public void onItemFinished(DocumentBatchUpload batch, DocumentBatchUpload.Item item) {
+                    listener.onItemFinished(batch, item);
+                }
+                
+                @Override
+                public void onFinished(DocumentBatchUpload batch) {
+                    if (!batch.hasFailures()) {
+                        batches.remove(batch.id);
                     }
+                    listener.onFinished(batch);
                 }
             });
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Erro no upload do documento: " + e.getMessage());
+        batches.put(batch.id, batch);
+        batch.start();
+        return batch.id;
+    }
+    
+    // Reenvia só os itens que falharam; false se o lote não existe, ainda roda ou não tem falhas
+    public boolean retryDocumentBatch(String batchId) {
+        DocumentBatchUpload batch = batches.get(batchId);
+        return batch != null && batch.retry();
+    }
+    
+    // Diretório das capturas nativas aguardando envio
+    static File getCaptureDir(Context context) {
+        File captureDir = new File(context.getCacheDir(), "captures");
+        if (!captureDir.exists()) {
+            captureDir.mkdirs();
+        }
+        return captureDir;
+    }
+    
+    // Novo arquivo de captura para um tipo de documento
+    static File newCaptureFile(Context context, String documentType) {
+        return new File(getCaptureDir(context), documentType + "_" + System.currentTimeMillis() + ".jpg");
+    }
+    
+    // Resolver a referência entregue à WebView (apenas o nome do arquivo)
+    private File resolveCaptureFile(String fileId) {
+        if (fileId == null || fileId.contains("/") || fileId.contains("..")) {
+            return null;
+        }
+        File file = new File(getCaptureDir(context), fileId);
+        return file.exists() ? file : null;
+    }
+    
+    // Upload de documento capturado pela câmera nativa
+    public void uploadCapturedDocument(String userId, String documentType, String fileId) {
+        File file = resolveCaptureFile(fileId);
+        if (file == null) {
             if (callback != null) {
-                callback.onUploadError("Erro ao processar documento");
+                callback.onUploadError("Captura não encontrada");
             }
+            return;
         }
+        
+        processingExecutor.execute(() -> {
+            Prepared prepared;
+            try {
+                prepared = prepare(userId, documentType, null, "jpg", file);
+            } catch (Exception e) {
+                AppLog.e(TAG, "Erro ao processar captura: {}", e.getMessage());
+                if (callback != null) {
+                    callback.onUploadError("Erro ao processar imagem");
+                }
+                return;
+            }
+            uploadPrepared(userId, documentType, prepared, file);
+        });
     }
     
-    // Comprimir imagem
-    private Bitmap compressImage(Bitmap bitmap, int quality) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, outputStream);
-        byte[] compressedBytes = outputStream.toByteArray();
-        return BitmapFactory.decodeByteArray(compressedBytes, 0, compressedBytes.length);
+    // Foto triada e pronta para subir: arquivo (a captura ou a cópia comprimida no cache) e seu hash
+    static final class Prepared {
+        final ImageQualityGate.Verdict rejection;
+        final File file;
+        final String format;
+        final String hash;
+        // Mesmo conteúdo já enviado antes: não precisa subir de novo
+        final String cachedUrl;
+        
+        Prepared(ImageQualityGate.Verdict rejection, File file, String format, String hash, String cachedUrl) {
+            this.rejection = rejection;
+            this.file = file;
+            this.format = format;
+            this.hash = hash;
+            this.cachedUrl = cachedUrl;
+        }
+        
+        boolean rejected() {
+            return rejection != null;
+        }
     }
     
-    // Converter bitmap para base64
-    private String bitmapToBase64(Bitmap bitmap, String format) {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        Bitmap.CompressFormat compressFormat = format.equals("png") ? 
-            Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
-        bitmap.compress(compressFormat, 90, outputStream);
-        byte[] imageBytes = outputStream.toByteArray();
-        return Base64.encodeToString(imageBytes, Base64.DEFAULT);
+    // Triagem, compressão e cópia no cache, na thread de processamento; imageBytes ou captureFile
+    Prepared prepare(String userId, String documentType, byte[] imageBytes, String format, File captureFile) throws IOException {
+        long checkStart = System.nanoTime();
+        ImageQualityGate.Assessment assessment = captureFile != null
+            ? imagePipeline.assessQualityFile(captureFile.getAbsolutePath(), gateFor(documentType))
+            : imagePipeline.assessQuality(imageBytes, gateFor(documentType));
+        if (!recordQuality(documentType, assessment, checkStart)) {
+            return new Prepared(assessment.verdict, null, null, null, null);
+        }
+        
+        // Resolução e tamanho alvo conforme o link no momento do envio
+        NetworkPolicy policy = NetworkQualityMonitor.getInstance().getPolicy();
+        // A câmera já grava na resolução alvo; só recomprimir se passar do limite (menor em link ruim).
+        // O CameraX grava a orientação só no EXIF: foto girada passa pelo pipeline para sair em pé
+        if (captureFile != null && captureFile.length() <= policy.documentTargetBytes
+                && DocumentImagePipeline.exifRotation(captureFile.getAbsolutePath()) == 0) {
+            String hash = DocumentCache.hash(captureFile);
+            return new Prepared(null, captureFile, "jpg", hash, documentCache.lookupRemoteUrl(userId, documentType, hash, captureFile.length()));
+        }
+        
+        DocumentImagePipeline.Result result = captureFile != null
+            ? imagePipeline.processFile(captureFile.getAbsolutePath(), "jpg", policy.documentMaxDimension, policy.documentTargetBytes)
+            : imagePipeline.process(imageBytes, outputFormat(format), policy.documentMaxDimension, policy.documentTargetBytes);
+        try {
+            AppLog.d(TAG, "Documento {} processado: {}", documentType, result);
+            String hash = DocumentCache.hash(result.data(), 0, result.length());
+            String cachedUrl = documentCache.lookupRemoteUrl(userId, documentType, hash, result.length());
+            if (cachedUrl != null) {
+                return new Prepared(null, null, result.format, hash, cachedUrl);
+            }
+            // Cópia local: o upload sai do arquivo e novas tentativas do onboarding não recomprimem
+            File file = documentCache.put(hash, result.data(), 0, result.length(), result.format);
+            documentCache.putAlias(userId + "_" + documentType, hash);
+            return new Prepared(null, file, result.format, hash, null);
+        } finally {
+            result.release();
+        }
+    }
+    
+    // Envio avulso: o resultado vai para o DocumentCallback
+    private void uploadPrepared(String userId, String documentType, Prepared prepared, File captureFile) {
+        if (prepared.rejected()) {
+            // A tela pede outra foto; esta não serve mais
+            if (captureFile != null) {
+                captureFile.delete();
+            }
+            if (callback != null) {
+                callback.onQualityRejected(documentType, prepared.rejection.name(), qualityMessage(prepared.rejection));
+            }
+            return;
+        }
+        if (prepared.cachedUrl != null) {
+            AppLog.d(TAG, "Documento já enviado, reutilizando URL: {}", prepared.cachedUrl);
+            if (captureFile != null) {
+                captureFile.delete();
+            }
+            notifyDocumentUploaded(documentType, prepared.cachedUrl);
+            return;
+        }
+        supabaseService.uploadDocument(userId, documentType, prepared.file, prepared.format,
+            uploadCallback(userId, documentType, prepared.hash, captureFile));
+    }
+    
+    private static ImageQualityGate gateFor(String documentType) {
+        return DOCUMENT_CNH.equals(documentType) || DOCUMENT_CRLV.equals(documentType) ? DOCUMENT_GATE : PHOTO_GATE;
+    }
+    
+    // Registra custo e resultado da triagem; reprovada, nada é enviado
+    private boolean recordQuality(String documentType, ImageQualityGate.Assessment assessment, long startNanos) {
+        qualityCheckTime.recordSince(startNanos);
+        if (assessment.passed()) {
+            qualityPassed.increment();
+            AppLog.d(TAG, "Triagem de {} aprovada: {}", documentType, assessment);
+            return true;
+        }
+        qualityRejected.increment();
+        metrics.counter("document.quality_rejected." + assessment.verdict.name().toLowerCase(Locale.US)).increment();
+        AppLog.i(TAG, "Triagem de {} reprovada: {}", documentType, assessment);
+        return false;
+    }
+    
+    static String qualityMessage(ImageQualityGate.Verdict verdict) {
+        switch (verdict) {
+            case TOO_SMALL:
+                return "Foto com resolução baixa. Aproxime o documento da câmera.";
+            case TOO_DARK:
+                return "Foto escura. Procure um lugar mais iluminado.";
+            case TOO_BRIGHT:
+                return "Foto com reflexo ou clara demais. Evite luz direta sobre o documento.";
+            case BLURRY:
+                return "Foto tremida ou fora de foco. Segure o celular firme e tente de novo.";
+            default:
+                return "";
+        }
+    }
+    
+    // Aprovadas, reprovadas por motivo e tempo da triagem
+    public JSONObject getQualityStats() {
+        JSONObject stats = new JSONObject();
+        try {
+            stats.put("checked", qualityCheckTime.getCount());
+            stats.put("passed", qualityPassed.get());
+            stats.put("rejected", qualityRejected.get());
+            JSONObject byReason = new JSONObject();
+            for (ImageQualityGate.Verdict verdict : ImageQualityGate.Verdict.values()) {
+                if (verdict != ImageQualityGate.Verdict.OK) {
+                    String key = verdict.name().toLowerCase(Locale.US);
+                    byReason.put(key, metrics.counter("document.quality_rejected." + key).get());
+                }
+            }
+            stats.put("rejectedByReason", byReason);
+            stats.put("meanMs", qualityCheckTime.getMean() / 1000.0);
+            stats.put("p99Ms", qualityCheckTime.percentile(0.99) / 1000.0);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Erro ao montar estatísticas da triagem: {}", e.getMessage());
+        }
+        return stats;
+    }
+    
+    private SupabaseService.SupabaseCallback uploadCallback(String userId, String documentType, String hash, File captureFile) {
+        return new SupabaseService.SupabaseCallback() {
+            @Override
+            public void onSuccess(String response) {
+                if (captureFile != null) {
+                    captureFile.delete();
+                }
+                documentCache.putRemoteUrl(userId, documentType, hash, response);
+                AppLog.d(TAG, "Documento enviado com sucesso: {}", documentType);
+                notifyDocumentUploaded(documentType, response);
+            }
+            
+            @Override
+            public void onError(String error) {
+                AppLog.e(TAG, "Erro no upload: {}", error);
+                if (callback != null) {
+                    callback.onUploadError("Erro ao enviar documento");
+                }
+            }
+        };
+    }
+    
+    private void notifyDocumentUploaded(String documentType, String documentUrl) {
+        if (callback != null) {
+            callback.onDocumentUploaded(documentType, documentUrl);
+        }
+        
+        // Mostrar notificação de sucesso
+        notificationService.showRideNotification(
+            "📄 Documento Enviado",
+            getDocumentLabel(documentType) + " enviado com sucesso!",
+            "document_" + documentType
+        );
+    }
+    
+    // Estatísticas do cache de documentos (acertos e bytes economizados)
+    public JSONObject getCacheStats() {
+        return documentCache.getStats();
+    }
+    
+    // Formato de saída (JPEG para fotos, PNG preservado)
+    private String outputFormat(String format) {
+        return "png".equalsIgnoreCase(format) ? "png" : "jpg";
     }
     
     // Simular upload (substituir por integração real com Supabase)
@@ -164,7 +442,7 @@ public class DocumentService {
         // Simular URL do documento
         String documentUrl = String.format("https://storage.supabase.com/documents/%s", filename);
         
-        Log.d(TAG, "Documento enviado: " + filename);
+        AppLog.d(TAG, "Documento enviado: {}", filename);
         
         if (callback != null) {
             callback.onDocumentUploaded(documentType, documentUrl);
@@ -218,23 +496,20 @@ public class DocumentService {
     // Salvar documento localmente (para cache)
     public String saveDocumentLocally(String userId, String documentType, Bitmap bitmap, String format) {
         try {
-            File documentsDir = new File(context.getFilesDir(), "documents");
-            if (!documentsDir.exists()) {
-                documentsDir.mkdirs();
-            }
-            
-            String filename = String.format("%s_%s.%s", userId, documentType, format);
-            File file = new File(documentsDir, filename);
-            
-            FileOutputStream outputStream = new FileOutputStream(file);
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             Bitmap.CompressFormat compressFormat = format.equals("png") ? 
                 Bitmap.CompressFormat.PNG : Bitmap.CompressFormat.JPEG;
             bitmap.compress(compressFormat, 90, outputStream);
-            outputStream.close();
+            byte[] imageBytes = outputStream.toByteArray();
+            
+            // Endereçado pelo conteúdo, dentro do orçamento LRU
+            String hash = DocumentCache.hash(imageBytes, 0, imageBytes.length);
+            File file = documentCache.put(hash, imageBytes, 0, imageBytes.length, format);
+            documentCache.putAlias(userId + "_" + documentType, hash);
             
             return file.getAbsolutePath();
         } catch (IOException e) {
-            Log.e(TAG, "Erro ao salvar documento localmente: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao salvar documento localmente: {}", e.getMessage());
             return null;
         }
     }
@@ -242,15 +517,13 @@ public class DocumentService {
     // Obter documento salvo localmente
     public Bitmap getLocalDocument(String userId, String documentType, String format) {
         try {
-            File documentsDir = new File(context.getFilesDir(), "documents");
-            String filename = String.format("%s_%s.%s", userId, documentType, format);
-            File file = new File(documentsDir, filename);
+            File file = documentCache.getByAlias(userId + "_" + documentType);
             
-            if (file.exists()) {
+            if (file != null) {
                 return BitmapFactory.decodeFile(file.getAbsolutePath());
             }
         } catch (Exception e) {
-            Log.e(TAG, "Erro ao carregar documento local: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao carregar documento local: {}", e.getMessage());
         }
         return null;
     }
@@ -1,7 +1,7 @@
 package com.motofreela.app;
 
 import android.content.Context;
-import android.util.Log;
+import com.motofreela.core.BadgeEngine;
 import org.json.JSONObject;
 import org.json.JSONException;
 import java.util.ArrayList;
@@ -13,6 +13,7 @@ public class GamificationService {
     private static final String TAG = "GamificationService";
     private Context context;
     private NotificationService notificationService;
+    private RideStatsStore rideStats;
     
     // Definição de badges
     public static class Badge {
@@ -20,15 +21,18 @@ public class GamificationService {
         public String name;
         public String description;
         public int requirement;
+        // Estatística do RideStatsStore comparada com requirement
+        public String statKey;
         public String category;
         public String color;
         public String icon;
         
-        public Badge(String id, String name, String description, int requirement, String category, String color, String icon) {
+        public Badge(String id, String name, String description, int requirement, String statKey, String category, String color, String icon) {
             this.id = id;
             this.name = name;
             this.description = description;
             this.requirement = requirement;
+            this.statKey = statKey;
             this.category = category;
             this.color = color;
             this.icon = icon;
@@ -37,21 +41,33 @@ public class GamificationService {
     
     // Badges disponíveis
     private static final List<Badge> AVAILABLE_BADGES = new ArrayList<Badge>() {{
-        add(new Badge("first_ride", "Primeira Corrida", "Complete sua primeira corrida", 1, "rides", "#3B82F6", "⭐"));
-        add(new Badge("veteran", "Veterano", "Complete 50 corridas", 50, "rides", "#F59E0B", "🏆"));
-        add(new Badge("master", "Mestre", "Complete 100 corridas", 100, "rides", "#8B5CF6", "🎖️"));
-        add(new Badge("legend", "Lenda", "Complete 500 corridas", 500, "rides", "#F97316", "👑"));
-        add(new Badge("five_stars", "5 Estrelas", "Mantenha avaliação 5.0 por 10 corridas", 10, "rating", "#FCD34D", "⭐"));
-        add(new Badge("speed_demon", "Velocista", "Complete 10 corridas em menos de 15 minutos", 10, "speed", "#EF4444", "⚡"));
-        add(new Badge("punctual", "Pontual", "Chegue no horário em 20 corridas consecutivas", 20, "streak", "#10B981", "🕐"));
-        add(new Badge("reliable", "Confiável", "Mantenha 95% de taxa de conclusão", 95, "rating", "#3B82F6", "🛡️"));
-        add(new Badge("hot_streak", "Em Chamas", "Complete 7 corridas em um dia", 7, "streak", "#F59E0B", "🔥"));
-        add(new Badge("top_rated", "Bem Avaliado", "Receba 100 avaliações positivas", 100, "rating", "#8B5CF6", "👍"));
+        add(new Badge("first_ride", "Primeira Corrida", "Complete sua primeira corrida", 1, "totalRides", "rides", "#3B82F6", "⭐"));
+        add(new Badge("veteran", "Veterano", "Complete 50 corridas", 50, "totalRides", "rides", "#F59E0B", "🏆"));
+        add(new Badge("master", "Mestre", "Complete 100 corridas", 100, "totalRides", "rides", "#8B5CF6", "🎖️"));
+        add(new Badge("legend", "Lenda", "Complete 500 corridas", 500, "totalRides", "rides", "#F97316", "👑"));
+        add(new Badge("five_stars", "5 Estrelas", "Mantenha avaliação 5.0 por 10 corridas", 10, "fiveStarStreak", "rating", "#FCD34D", "⭐"));
+        add(new Badge("speed_demon", "Velocista", "Complete 10 corridas em menos de 15 minutos", 10, "fastRides", "speed", "#EF4444", "⚡"));
+        add(new Badge("punctual", "Pontual", "Chegue no horário em 20 corridas consecutivas", 20, "punctualStreak", "streak", "#10B981", "🕐"));
+        add(new Badge("reliable", "Confiável", "Mantenha 95% de taxa de conclusão", 95, "completionRate", "rating", "#3B82F6", "🛡️"));
+        add(new Badge("hot_streak", "Em Chamas", "Complete 7 corridas em um dia", 7, "dailyRides", "streak", "#F59E0B", "🔥"));
+        add(new Badge("top_rated", "Bem Avaliado", "Receba 100 avaliações positivas", 100, "positiveRatings", "rating", "#8B5CF6", "👍"));
     }};
     
+    // Regras de conquista avaliadas fora do Android (módulo core), com os requisitos da lista acima
+    private static final BadgeEngine BADGE_ENGINE = new BadgeEngine(badgeRules());
+    
+    private static List<BadgeEngine.Rule> badgeRules() {
+        List<BadgeEngine.Rule> rules = new ArrayList<>(AVAILABLE_BADGES.size());
+        for (Badge badge : AVAILABLE_BADGES) {
+            rules.add(new BadgeEngine.Rule(badge.id, badge.statKey, badge.requirement));
+        }
+        return rules;
+    }
+    
     public GamificationService(Context context) {
         this.context = context;
         this.notificationService = new NotificationService(context);
+        this.rideStats = new RideStatsStore(context);
     }
     
     // Interface para callbacks de gamificação
@@ -75,20 +91,12 @@ public class GamificationService {
     
     // Verificar se um badge foi conquistado
     public boolean checkBadgeEarned(String badgeId, Map<String, Integer> stats) {
-        Badge badge = getBadgeById(badgeId);
-        if (badge == null) return false;
-        
-        int currentValue = getCurrentValueForBadge(badge, stats);
-        return currentValue >= badge.requirement;
+        return BADGE_ENGINE.isEarned(badgeId, stats);
     }
     
     // Obter progresso de um badge
     public int getBadgeProgress(String badgeId, Map<String, Integer> stats) {
-        Badge badge = getBadgeById(badgeId);
-        if (badge == null) return 0;
-        
-        int currentValue = getCurrentValueForBadge(badge, stats);
-        return Math.min((currentValue * 100) / badge.requirement, 100);
+        return BADGE_ENGINE.progress(badgeId, stats);
     }
     
     // Adicionar experiência
@@ -99,7 +107,7 @@ public class GamificationService {
             expData.put("reason", reason);
             expData.put("timestamp", System.currentTimeMillis());
             
-            Log.d(TAG, "Adicionando experiência: " + expData.toString());
+            AppLog.d(TAG, "Adicionando experiência: {}", expData);
             
             if (callback != null) {
                 callback.onExperienceGained(amount, reason);
@@ -109,7 +117,7 @@ public class GamificationService {
             checkLevelUp();
             
         } catch (JSONException e) {
-            Log.e(TAG, "Erro ao adicionar experiência: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao adicionar experiência: {}", e.getMessage());
             if (callback != null) {
                 callback.onError("Erro ao adicionar experiência");
             }
@@ -122,7 +130,7 @@ public class GamificationService {
         // Por enquanto, simulamos
         int currentLevel = 1; // Obter do banco de dados
         int currentExp = 0; // Obter do banco de dados
-        int newLevel = (currentExp / 1000) + 1;
+        int newLevel = BadgeEngine.levelForExperience(currentExp);
         
         if (newLevel > currentLevel) {
             if (callback != null) {
@@ -149,7 +157,7 @@ public class GamificationService {
             badgeData.put("badge_name", badge.name);
             badgeData.put("timestamp", System.currentTimeMillis());
             
-            Log.d(TAG, "Concedendo badge: " + badgeData.toString());
+            AppLog.d(TAG, "Concedendo badge: {}", badgeData);
             
             if (callback != null) {
                 callback.onBadgeEarned(badgeId, badge.name);
@@ -163,7 +171,7 @@ public class GamificationService {
             );
             
         } catch (JSONException e) {
-            Log.e(TAG, "Erro ao conceder badge: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao conceder badge: {}", e.getMessage());
             if (callback != null) {
                 callback.onError("Erro ao conceder badge");
             }
@@ -180,33 +188,6 @@ public class GamificationService {
         return null;
     }
     
-    // Obter valor atual para um badge
-    private int getCurrentValueForBadge(Badge badge, Map<String, Integer> stats) {
-        switch (badge.category) {
-            case "rides":
-                return stats.getOrDefault("totalRides", 0);
-            case "rating":
-                if (badge.id.equals("five_stars")) {
-                    return stats.getOrDefault("fiveStarStreak", 0);
-                } else if (badge.id.equals("reliable")) {
-                    return stats.getOrDefault("completionRate", 0);
-                } else if (badge.id.equals("top_rated")) {
-                    return stats.getOrDefault("positiveRatings", 0);
-                }
-                break;
-            case "speed":
-                return stats.getOrDefault("fastRides", 0);
-            case "streak":
-                if (badge.id.equals("punctual")) {
-                    return stats.getOrDefault("punctualStreak", 0);
-                } else if (badge.id.equals("hot_streak")) {
-                    return stats.getOrDefault("dailyRides", 0);
-                }
-                break;
-        }
-        return 0;
-    }
-    
     // Calcular XP para diferentes ações
     public int getExperienceForAction(String action) {
         switch (action) {
@@ -232,6 +213,8 @@ public class GamificationService {
         stats.put("dailyRides", 0);
         stats.put("positiveRatings", 0);
         stats.put("fiveStarStreak", 0);
+        // Corridas rápidas, pontuais e do dia vêm do resumo de cada corrida (TripMetricsEngine)
+        rideStats.mergeInto(stats, System.currentTimeMillis());
         return stats;
     }
     
@@ -239,10 +222,8 @@ public class GamificationService {
     public void checkAllBadges(String userId) {
         Map<String, Integer> stats = getUserStats(userId);
         
-        for (Badge badge : AVAILABLE_BADGES) {
-            if (checkBadgeEarned(badge.id, stats)) {
-                awardBadge(badge.id);
-            }
+        for (String badgeId : BADGE_ENGINE.earnedBadges(stats)) {
+            awardBadge(badgeId);
         }
     }
 }
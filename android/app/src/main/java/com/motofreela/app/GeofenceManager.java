@@ -0,0 +1,292 @@
+package com.motofreela.app;
+
+import android.Manifest;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import androidx.core.app.ActivityCompat;
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofenceStatusCodes;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+import com.motofreela.core.ArrivalStateMachine;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Cercas da coleta e da entrega da corrida ativa; estado em SharedPreferences (o receiver roda com o app fechado)
+public class GeofenceManager {
+    private static final String TAG = "GeofenceManager";
+    private static final String PREFS = "motofreela_geofences";
+    private static final String KEY_SERVICE_ID = "serviceId";
+    private static final String KEY_USER_ID = "userId";
+    private static final String KEY_RECEIVER_ID = "receiverId";
+    private static final String KEY_STATE = "state";
+    private static final String KEY_INSIDE_DROPOFF = "insideDropoff";
+    private static final String KEY_AUTO_MESSAGES = "autoMessages";
+
+    private static final String PICKUP_PREFIX = "pickup:";
+    private static final String DROPOFF_PREFIX = "dropoff:";
+
+    private static final float RADIUS_M = 150;
+    private static final long EXPIRATION_MS = 6 * 60 * 60 * 1000L; // corrida esquecida não deixa cerca para sempre
+    private static final int RESPONSIVENESS_MS = 10_000;
+
+    // Mensagens automáticas no chat (mesmo texto das mensagens rápidas)
+    static final String PICKUP_ARRIVAL_MESSAGE = "📍 Cheguei no local";
+    static final String DROPOFF_ARRIVAL_MESSAGE = "📍 Cheguei no destino";
+
+    private static final MetricsRegistry.Counter transitionCount = MetricsRegistry.getInstance().counter("geofence.transitions");
+    private static final MetricsRegistry.Counter ignoredCount = MetricsRegistry.getInstance().counter("geofence.ignored");
+
+    // Tela aberta recebe as mudanças de etapa; null com o app fechado
+    public interface ArrivalListener {
+        void onStateChanged(String serviceId, ArrivalStateMachine.State state);
+    }
+
+    // Resultado de arm() para a tela: sem cerca a chegada não é detectada e a página precisa saber
+    public interface ArmCallback {
+        void onArmed(String serviceId);
+        void onArmFailed(String serviceId, int statusCode, String message);
+    }
+
+    // Código próprio para falta de permissão checada antes de chamar o Play Services
+    static final int NO_LOCATION_PERMISSION = GeofenceStatusCodes.GEOFENCE_INSUFFICIENT_LOCATION_PERMISSION;
+
+    private static volatile ArrivalListener arrivalListener;
+
+    private final Context context;
+    private final GeofencingClient geofencingClient;
+
+    public GeofenceManager(Context context) {
+        this.context = context.getApplicationContext();
+        this.geofencingClient = LocationServices.getGeofencingClient(this.context);
+    }
+
+    public static void setArrivalListener(ArrivalListener listener) {
+        arrivalListener = listener;
+    }
+
+    // Geofencing exige localização precisa e, a partir do Android 10, também em segundo plano
+    public static boolean hasPermissions(Context context) {
+        if (ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.Q
+            || ActivityCompat.checkSelfPermission(context, Manifest.permission.ACCESS_BACKGROUND_LOCATION) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    // Armar as cercas da corrida (substitui as de uma corrida anterior)
+    public void arm(String serviceId, String userId, String receiverId,
+                    double pickupLat, double pickupLng, double dropoffLat, double dropoffLng,
+                    boolean autoMessages, ArmCallback callback) {
+        if (!hasPermissions(context)) {
+            AppLog.w(TAG, "Sem permissão de localização em segundo plano; cercas não armadas");
+            callback.onArmFailed(serviceId, NO_LOCATION_PERMISSION, failureMessage(NO_LOCATION_PERMISSION));
+            return;
+        }
+
+        prefs(context).edit()
+            .putString(KEY_SERVICE_ID, serviceId)
+            .putString(KEY_USER_ID, userId)
+            .putString(KEY_RECEIVER_ID, receiverId)
+            .putString(KEY_STATE, ArrivalStateMachine.State.TO_PICKUP.name())
+            .putBoolean(KEY_INSIDE_DROPOFF, false)
+            .putBoolean(KEY_AUTO_MESSAGES, autoMessages)
+            .apply();
+
+        GeofencingRequest request = new GeofencingRequest.Builder()
+            // Já dentro da coleta ao armar: dispara a chegada na hora
+            .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER)
+            .addGeofence(buildGeofence(PICKUP_PREFIX + serviceId, pickupLat, pickupLng))
+            .addGeofence(buildGeofence(DROPOFF_PREFIX + serviceId, dropoffLat, dropoffLng))
+            .build();
+        try {
+            geofencingClient.addGeofences(request, pendingIntent(context)).addOnCompleteListener(task -> {
+                if (task.isSuccessful()) {
+                    AppLog.i(TAG, "Cercas da corrida {} armadas", serviceId);
+                    TrackingService.setBetweenLegs(context, true);
+                    callback.onArmed(serviceId);
+                } else {
+                    Exception error = task.getException();
+                    int statusCode = error instanceof ApiException ? ((ApiException) error).getStatusCode()
+                        : GeofenceStatusCodes.GEOFENCE_NOT_AVAILABLE;
+                    AppLog.e(TAG, "Erro ao armar cercas: {} ({})", statusCode, error);
+                    onArmFailed(serviceId, statusCode, callback);
+                }
+            });
+        } catch (SecurityException e) {
+            AppLog.e(TAG, "Erro de permissão ao armar cercas: {}", e.getMessage());
+            onArmFailed(serviceId, NO_LOCATION_PERMISSION, callback);
+        }
+    }
+
+    // Nada armado: esquece a corrida para um evento de cerca antiga não mexer no estado
+    private void onArmFailed(String serviceId, int statusCode, ArmCallback callback) {
+        prefs(context).edit().clear().apply();
+        callback.onArmFailed(serviceId, statusCode, failureMessage(statusCode));
+    }
+
+    // Texto para a tela; 1004 é a permissão "o tempo todo" negada ou revogada
+    static String failureMessage(int statusCode) {
+        switch (statusCode) {
+            case GeofenceStatusCodes.GEOFENCE_INSUFFICIENT_LOCATION_PERMISSION:
+                return "Permita a localização \"o tempo todo\" para avisar a chegada automaticamente";
+            case GeofenceStatusCodes.GEOFENCE_NOT_AVAILABLE:
+                return "Localização do aparelho desativada; a chegada não será detectada";
+            default:
+                return "Não foi possível ativar o aviso de chegada";
+        }
+    }
+
+    // Remover as cercas e voltar à amostragem normal
+    public void disarm() {
+        disarm(context);
+    }
+
+    static void disarm(Context context) {
+        LocationServices.getGeofencingClient(context).removeGeofences(pendingIntent(context));
+        prefs(context).edit().clear().apply();
+        TrackingService.setBetweenLegs(context, false);
+    }
+
+    // Chamado pelo GeofenceReceiver; retorna true se alguma etapa mudou. 'done' roda quando os
+    // avisos no chat terminam (o receiver segura o processo até lá com goAsync)
+    static boolean onTransition(Context context, List<Geofence> geofences, int transition, Runnable done) {
+        // Começa em 1: liberado no fim deste método, depois de disparar os avisos
+        AtomicInteger pending = new AtomicInteger(1);
+        try {
+            return applyTransition(context, geofences, transition, pending, done);
+        } finally {
+            release(pending, done);
+        }
+    }
+
+    private static boolean applyTransition(Context context, List<Geofence> geofences, int transition,
+                                           AtomicInteger pending, Runnable done) {
+        SharedPreferences prefs = prefs(context);
+        String serviceId = prefs.getString(KEY_SERVICE_ID, null);
+        if (serviceId == null) {
+            // Evento atrasado de uma corrida já encerrada
+            ignoredCount.increment();
+            return false;
+        }
+        ArrivalStateMachine machine = new ArrivalStateMachine(
+            ArrivalStateMachine.State.valueOf(prefs.getString(KEY_STATE, ArrivalStateMachine.State.TO_PICKUP.name())),
+            prefs.getBoolean(KEY_INSIDE_DROPOFF, false));
+        boolean wasInsideDropoff = machine.isInsideDropoff();
+
+        boolean changed = false;
+        for (Geofence geofence : geofences) {
+            ArrivalStateMachine.Leg leg = legOf(geofence.getRequestId(), serviceId);
+            if (leg == null) {
+                ignoredCount.increment();
+                continue;
+            }
+            ArrivalStateMachine.State next = transition == Geofence.GEOFENCE_TRANSITION_ENTER
+                ? machine.onEnter(leg)
+                : transition == Geofence.GEOFENCE_TRANSITION_EXIT ? machine.onExit(leg) : null;
+            if (next == null) {
+                ignoredCount.increment();
+                continue;
+            }
+            changed = true;
+            transitionCount.increment();
+            AppLog.i(TAG, "Corrida {}: {}", serviceId, next);
+            onStateChanged(context, prefs, serviceId, next, pending, done);
+        }
+        if (!changed) {
+            // Entrada na entrega ainda na coleta: fica anotada para a saída da coleta
+            if (machine.isInsideDropoff() != wasInsideDropoff) {
+                prefs.edit().putBoolean(KEY_INSIDE_DROPOFF, machine.isInsideDropoff()).apply();
+            }
+            return false;
+        }
+
+        if (machine.isFinished()) {
+            disarm(context);
+        } else {
+            prefs.edit()
+                .putString(KEY_STATE, machine.getState().name())
+                .putBoolean(KEY_INSIDE_DROPOFF, machine.isInsideDropoff())
+                .apply();
+            TrackingService.setBetweenLegs(context, machine.isBetweenLegs());
+        }
+        return true;
+    }
+
+    private static void onStateChanged(Context context, SharedPreferences prefs, String serviceId,
+                                       ArrivalStateMachine.State state, AtomicInteger pending, Runnable done) {
+        ArrivalListener listener = arrivalListener;
+        if (listener != null) {
+            listener.onStateChanged(serviceId, state);
+        }
+        // Tempos de cada etapa no resumo da corrida
+        TrackingService.onArrival(context, state);
+
+        String message = state == ArrivalStateMachine.State.AT_PICKUP ? PICKUP_ARRIVAL_MESSAGE
+            : state == ArrivalStateMachine.State.AT_DROPOFF ? DROPOFF_ARRIVAL_MESSAGE : null;
+        if (message == null || !prefs.getBoolean(KEY_AUTO_MESSAGES, false)) {
+            return;
+        }
+        pending.incrementAndGet();
+        new SupabaseService(context).sendChatMessage(serviceId, prefs.getString(KEY_USER_ID, null),
+            prefs.getString(KEY_RECEIVER_ID, null), message, "text", new SupabaseService.SupabaseCallback() {
+                @Override
+                public void onSuccess(String response) {
+                    AppLog.d(TAG, "Aviso de chegada enviado no chat");
+                    release(pending, done);
+                }
+
+                @Override
+                public void onError(String error) {
+                    AppLog.e(TAG, "Erro ao enviar aviso de chegada: {}", error);
+                    release(pending, done);
+                }
+            });
+    }
+
+    private static void release(AtomicInteger pending, Runnable done) {
+        if (pending.decrementAndGet() == 0 && done != null) {
+            done.run();
+        }
+    }
+
+    private static ArrivalStateMachine.Leg legOf(String requestId, String serviceId) {
+        if (requestId.equals(PICKUP_PREFIX + serviceId)) {
+            return ArrivalStateMachine.Leg.PICKUP;
+        }
+        if (requestId.equals(DROPOFF_PREFIX + serviceId)) {
+            return ArrivalStateMachine.Leg.DROPOFF;
+        }
+        return null;
+    }
+
+    private static Geofence buildGeofence(String requestId, double latitude, double longitude) {
+        return new Geofence.Builder()
+            .setRequestId(requestId)
+            .setCircularRegion(latitude, longitude, RADIUS_M)
+            .setExpirationDuration(EXPIRATION_MS)
+            .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT)
+            .setNotificationResponsiveness(RESPONSIVENESS_MS)
+            .build();
+    }
+
+    private static PendingIntent pendingIntent(Context context) {
+        Intent intent = new Intent(context, GeofenceReceiver.class);
+        // O Play Services preenche os extras do evento: precisa ser mutável no Android 12+
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            flags |= PendingIntent.FLAG_MUTABLE;
+        }
+        return PendingIntent.getBroadcast(context, 0, intent, flags);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+}
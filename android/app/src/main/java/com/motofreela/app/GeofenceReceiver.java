@@ -0,0 +1,28 @@
+package com.motofreela.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import com.google.android.gms.location.GeofenceStatusCodes;
+import com.google.android.gms.location.GeofencingEvent;
+
+// Recebe as transições das cercas da corrida (também com o app fechado)
+public class GeofenceReceiver extends BroadcastReceiver {
+    private static final String TAG = "GeofenceReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        AppLog.init(context);
+        GeofencingEvent event = GeofencingEvent.fromIntent(intent);
+        if (event == null) {
+            return;
+        }
+        if (event.hasError()) {
+            AppLog.e(TAG, "Erro no geofence: {}", GeofenceStatusCodes.getStatusCodeString(event.getErrorCode()));
+            return;
+        }
+        // O aviso no chat é uma chamada de rede: o processo precisa viver até ela terminar
+        PendingResult result = goAsync();
+        GeofenceManager.onTransition(context, event.getTriggeringGeofences(), event.getGeofenceTransition(), result::finish);
+    }
+}
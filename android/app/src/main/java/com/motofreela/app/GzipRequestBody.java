@@ -0,0 +1,70 @@
+package com.motofreela.app;
+
+import java.io.IOException;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.GzipSink;
+import okio.Okio;
+
+// Corpo comprimido com gzip em streaming (Content-Encoding: gzip), para lotes grandes e repetitivos
+public class GzipRequestBody extends RequestBody {
+    private final RequestBody delegate;
+    private volatile long bytesWritten = -1;
+
+    public GzipRequestBody(RequestBody delegate) {
+        this.delegate = delegate;
+    }
+
+    // Corpo original, para reenviar sem compressão se o servidor recusar
+    public RequestBody getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        CountingSink counter = new CountingSink(sink);
+        BufferedSink gzipSink = Okio.buffer(new GzipSink(counter));
+        delegate.writeTo(gzipSink);
+        // Fecha só o gzip (escreve o trailer); o sink do OkHttp continua aberto
+        gzipSink.close();
+        bytesWritten = counter.count;
+    }
+
+    // Bytes comprimidos da última escrita (-1 se ainda não foi enviado)
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private static final class CountingSink extends ForwardingSink {
+        long count;
+
+        CountingSink(BufferedSink sink) {
+            super(sink);
+        }
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            super.write(source, byteCount);
+            count += byteCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Não fechar o sink da requisição; só esvaziar o que o gzip escreveu
+            ((BufferedSink) delegate()).emit();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.motofreela.app;
+
+import com.motofreela.core.JsonWriter;
+import java.io.IOException;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+// Corpo JSON escrito direto no sink do OkHttp (sem JSONObject nem String intermediária)
+public class JsonRequestBody extends RequestBody {
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    // Um writer por thread do dispatcher; o buffer é reaproveitado entre requisições
+    private static final ThreadLocal<JsonWriter> WRITERS = new ThreadLocal<JsonWriter>() {
+        @Override
+        protected JsonWriter initialValue() {
+            return new JsonWriter(null, 512);
+        }
+    };
+
+    public interface Content {
+        void writeTo(JsonWriter writer) throws IOException;
+    }
+
+    private final Content content;
+    private volatile long bytesWritten = -1;
+
+    public JsonRequestBody(Content content) {
+        this.content = content;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    // Tamanho desconhecido até escrever (vai como chunked)
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        JsonWriter writer = WRITERS.get().reset(sink.outputStream());
+        try {
+            content.writeTo(writer);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Valor inválido (ex.: coordenada NaN) vira falha da chamada, não crash da thread do OkHttp
+            throw new IOException("JSON inválido: " + e.getMessage(), e);
+        }
+        writer.flush();
+        bytesWritten = writer.getBytesWritten();
+    }
+
+    // Bytes da última escrita (-1 se ainda não foi enviado)
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+}
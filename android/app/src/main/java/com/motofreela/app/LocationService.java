@@ -8,18 +8,33 @@ import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
 import androidx.core.app.ActivityCompat;
-import android.util.Log;
+import com.motofreela.core.LocationStreamProcessor;
 
 public class LocationService implements LocationListener {
     private static final String TAG = "LocationService";
     private static final long MIN_TIME_MS = 5000; // 5 segundos
     private static final float MIN_DISTANCE_M = 10; // 10 metros
+    private static final float MAX_UPLOAD_ACCURACY_M = 50; // fixes piores não vão para o Supabase
     
     private Context context;
     private LocationManager locationManager;
     private LocationCallback callback;
     private SupabaseService supabaseService;
     
+    // GPS e rede entregam fixes em paralelo; só envia os que trazem informação nova
+    private final LocationStreamProcessor uploadFilter =
+        new LocationStreamProcessor(MAX_UPLOAD_ACCURACY_M, MIN_DISTANCE_M, MIN_TIME_MS);
+    
+    // Métricas do processamento de cada fix
+    private final MetricsRegistry.Histogram fixHandlingLatency = MetricsRegistry.getInstance().histogram("location.fix_handling");
+    private final MetricsRegistry.Counter fixCount = MetricsRegistry.getInstance().counter("location.fixes");
+    private final MetricsRegistry.Gauge fixAccuracy = MetricsRegistry.getInstance().gauge("location.accuracy_m");
+    // Um fix a cada poucos segundos: no log, no máximo um por intervalo
+    private final AppLog.Sampler fixLogSampler = new AppLog.Sampler(30_000);
+    private final AppLog.Sampler uploadLogSampler = new AppLog.Sampler(30_000);
+    
+    private final MetricsRegistry.Counter filteredFixCount = MetricsRegistry.getInstance().counter("location.fixes_filtered");
+    
     public interface LocationCallback {
         void onLocationUpdate(double latitude, double longitude, float accuracy);
         void onLocationError(String error);
@@ -81,9 +96,9 @@ public class LocationService implements LocationListener {
                 );
             }
             
-            Log.d(TAG, "Localização iniciada");
+            AppLog.d(TAG, "Localização iniciada");
         } catch (SecurityException e) {
-            Log.e(TAG, "Erro de permissão: " + e.getMessage());
+            AppLog.e(TAG, "Erro de permissão: {}", e.getMessage());
             if (callback != null) {
                 callback.onLocationError("Erro de permissão de localização");
             }
@@ -93,9 +108,9 @@ public class LocationService implements LocationListener {
     public void stopLocationUpdates() {
         try {
             locationManager.removeUpdates(this);
-            Log.d(TAG, "Localização parada");
+            AppLog.d(TAG, "Localização parada");
         } catch (SecurityException e) {
-            Log.e(TAG, "Erro ao parar localização: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao parar localização: {}", e.getMessage());
         }
     }
     
@@ -117,7 +132,7 @@ public class LocationService implements LocationListener {
                 return networkLocation;
             }
         } catch (SecurityException e) {
-            Log.e(TAG, "Erro ao obter última localização: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao obter última localização: {}", e.getMessage());
             return null;
         }
     }
@@ -125,7 +140,13 @@ public class LocationService implements LocationListener {
     @Override
     public void onLocationChanged(Location location) {
         if (location != null && callback != null) {
-            Log.d(TAG, "Nova localização: " + location.getLatitude() + ", " + location.getLongitude());
+            long startNanos = System.nanoTime();
+            fixCount.increment();
+            fixAccuracy.set(Math.round(location.getAccuracy()));
+            if (fixLogSampler.sample(AppLog.DEBUG)) {
+                AppLog.d(TAG, "Nova localização: {}, {} (+{} omitidas)",
+                    location.getLatitude(), location.getLongitude(), fixLogSampler.getSuppressedAndReset());
+            }
             
             // Notificar callback local
             callback.onLocationUpdate(
@@ -134,6 +155,12 @@ public class LocationService implements LocationListener {
                 location.getAccuracy()
             );
             
+            if (!uploadFilter.accept(location.getLatitude(), location.getLongitude(), location.getAccuracy(), location.getTime())) {
+                filteredFixCount.increment();
+                fixHandlingLatency.recordSince(startNanos);
+                return;
+            }
+            
             // Enviar para Supabase (você precisaria do userId real)
             String currentUserId = "current_user_id"; // Substituir por ID real
             supabaseService.updateUserLocation(
@@ -144,31 +171,34 @@ public class LocationService implements LocationListener {
                 new SupabaseService.SupabaseCallback() {
                     @Override
                     public void onSuccess(String response) {
-                        Log.d(TAG, "Localização enviada para Supabase: " + response);
+                        if (uploadLogSampler.sample(AppLog.DEBUG)) {
+                            AppLog.d(TAG, "Localização enviada para Supabase (+{} omitidas)", uploadLogSampler.getSuppressedAndReset());
+                        }
                     }
                     
                     @Override
                     public void onError(String error) {
-                        Log.e(TAG, "Erro ao enviar localização para Supabase: " + error);
+                        AppLog.e(TAG, "Erro ao enviar localização para Supabase: {}", error);
                     }
                 }
             );
+            fixHandlingLatency.recordSince(startNanos);
         }
     }
     
     @Override
     public void onStatusChanged(String provider, int status, Bundle extras) {
-        Log.d(TAG, "Status do provider " + provider + " mudou para: " + status);
+        AppLog.d(TAG, "Status do provider {} mudou para: {}", provider, status);
     }
     
     @Override
     public void onProviderEnabled(String provider) {
-        Log.d(TAG, "Provider " + provider + " habilitado");
+        AppLog.d(TAG, "Provider {} habilitado", provider);
     }
     
     @Override
     public void onProviderDisabled(String provider) {
-        Log.d(TAG, "Provider " + provider + " desabilitado");
+        AppLog.d(TAG, "Provider {} desabilitado", provider);
         if (callback != null) {
             callback.onLocationError("GPS desabilitado");
         }
@@ -3,28 +3,67 @@ package com.motofreela.app;
 import android.Manifest;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
 import android.webkit.JavascriptInterface;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 import com.getcapacitor.BridgeActivity;
+import com.getcapacitor.BridgeWebViewClient;
+import com.getcapacitor.WebViewListener;
+import com.motofreela.core.JsonWriter;
+import com.motofreela.core.LocationFix;
+import com.motofreela.core.TripMetricsEngine;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 public class MainActivity extends BridgeActivity {
+    private static final String TAG = "MainActivity";
     private static final int PERMISSION_REQUEST_CODE = 1001;
+    private static final int DOCUMENT_CAPTURE_REQUEST_CODE = 1002;
+    private static final int BACKGROUND_LOCATION_REQUEST_CODE = 1003;
     private NotificationService notificationService;
     private LocationService locationService;
     private ChatService chatService;
     private RatingService ratingService;
     private GamificationService gamificationService;
     private DocumentService documentService;
+    private GeofenceManager geofenceManager;
+    private WebEventBridge webEventBridge;
+    private TileCache tileCache;
+    private AvatarCache avatarCache;
+    // Conta logada na WebView (setSignedInUser); escolhe o histórico local do chat
+    private volatile String signedInUserId;
+    private SupabaseService supabaseService;
+    private PrefetchCoordinator prefetchCoordinator;
+    // Leituras da tela atual; cancelada ao navegar (cancelScreenLoads) e no onDestroy
+    private volatile CallScope screenScope = new CallScope();
+    // A página ajusta paginação e qualidade de imagens quando o link muda de classe
+    private final NetworkQualityMonitor.Listener networkQualityListener = (quality, policy) ->
+        dispatchWebEvent("android-network-quality",
+            "{ quality: '" + quality + "', chatPageSize: " + policy.chatPageSize + " }");
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long createdNanos = System.nanoTime();
         super.onCreate(savedInstanceState);
+        AppLog.init(this);
+        if (bridge != null && bridge.getWebView() != null) {
+            webEventBridge = new WebEventBridge(bridge.getWebView(), createdNanos);
+        }
         
         // Initialize services
         notificationService = new NotificationService(this);
@@ -33,6 +72,39 @@ public class MainActivity extends BridgeActivity {
         ratingService = new RatingService(this);
         gamificationService = new GamificationService(this);
         documentService = new DocumentService(this);
+        geofenceManager = new GeofenceManager(this);
+        tileCache = TileCache.getInstance(this);
+        avatarCache = AvatarCache.getInstance(this);
+        supabaseService = new SupabaseService(this);
+        prefetchCoordinator = new PrefetchCoordinator(supabaseService, avatarCache);
+        NetworkQualityMonitor.getInstance().addListener(networkQualityListener);
+        TrackingService.setTripListener((serviceId, summary) ->
+            dispatchWebEvent("android-trip-summary", "{ serviceId: '" + serviceId + "', summary: " + tripSummaryJson(summary) + " }"));
+        GeofenceManager.setArrivalListener((serviceId, state) ->
+            dispatchWebEvent("android-arrival", "{ serviceId: '" + serviceId + "', state: '" + state + "' }"));
+        documentService.setDocumentCallback(new DocumentService.DocumentCallback() {
+            @Override
+            public void onDocumentUploaded(String documentType, String documentUrl) {
+                dispatchWebEvent("android-document-uploaded",
+                    "{ documentType: '" + documentType + "', url: '" + documentUrl + "' }");
+            }
+            
+            @Override
+            public void onUploadProgress(int progress) {
+                dispatchWebEvent("android-document-progress", "{ progress: " + progress + " }");
+            }
+            
+            @Override
+            public void onUploadError(String error) {
+                dispatchWebEvent("android-document-error", "{ error: '" + error + "' }");
+            }
+            
+            @Override
+            public void onQualityRejected(String documentType, String reason, String message) {
+                dispatchWebEvent("android-document-rejected",
+                    "{ documentType: '" + documentType + "', reason: '" + reason + "', message: " + JSONObject.quote(message) + " }");
+            }
+        });
         
         // Request permissions
         requestPermissions();
@@ -73,15 +145,31 @@ public class MainActivity extends BridgeActivity {
             // Add JavaScript interface for native functionality
             webView.addJavascriptInterface(new WebAppInterface(), "Android");
             
-            // Load Android integration script
-            webView.evaluateJavascript(
-                "if (typeof AndroidIntegration === 'undefined') { " +
-                "  const script = document.createElement('script'); " +
-                "  script.src = 'file:///android_asset/android-integration.js'; " +
-                "  document.head.appendChild(script); " +
-                "}",
-                null
-            );
+            // Tiles dos mapas e miniaturas de fotos saem do cache em disco; o resto segue pelo servidor local do Capacitor
+            bridge.setWebViewClient(new BridgeWebViewClient(bridge) {
+                @Override
+                public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                    WebResourceResponse cached = tileCache.intercept(request);
+                    if (cached == null) {
+                        cached = avatarCache.intercept(request);
+                    }
+                    return cached != null ? cached : super.shouldInterceptRequest(view, request);
+                }
+            });
+            
+            // Script de integração no início de cada documento; eventos esperam a página avisar que está pronta
+            webEventBridge.install(this, bridge.getLocalUrl());
+            bridge.addWebViewListener(new WebViewListener() {
+                @Override
+                public void onPageStarted(WebView view) {
+                    webEventBridge.onPageStarted();
+                }
+                
+                @Override
+                public void onPageLoaded(WebView view) {
+                    webEventBridge.onPageLoaded();
+                }
+            });
         }
         
         // Handle intent extras
@@ -100,13 +188,10 @@ public class MainActivity extends BridgeActivity {
             boolean isEmergency = intent.getBooleanExtra("emergency", false);
             
             if (serviceId != null) {
-                // Navigate to specific service
-                if (bridge != null && bridge.getWebView() != null) {
-                    bridge.getWebView().evaluateJavascript(
-                        "window.dispatchEvent(new CustomEvent('android-navigation', { detail: { serviceId: '" + serviceId + "' } }));",
-                        null
-                    );
-                }
+                // A tela da corrida vem em seguida: adiantar as leituras dela
+                prefetchCoordinator.onServiceOpened(serviceId);
+                // Navigate to specific service (na partida a frio, fica na fila até a página ficar pronta)
+                dispatchWebEvent("android-navigation", "{ serviceId: '" + serviceId + "' }");
             }
             
             if (isEmergency) {
@@ -116,6 +201,57 @@ public class MainActivity extends BridgeActivity {
         }
     }
     
+    // Executar chamada da ponte na thread principal, medindo fila + execução
+    private void runBridgeCall(String metricName, Runnable action) {
+        MetricsRegistry.Histogram latency = MetricsRegistry.getInstance().histogram(metricName);
+        long startNanos = System.nanoTime();
+        runOnUiThread(() -> {
+            action.run();
+            latency.recordSince(startNanos);
+        });
+    }
+    
+    // Resumo compacto da corrida (o mesmo JSON do core) para estatísticas, avaliação e ganhos na web
+    private static String tripSummaryJson(TripMetricsEngine.Summary summary) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try {
+            JsonWriter writer = new JsonWriter(out);
+            summary.writeTo(writer);
+            writer.flush();
+        } catch (IOException e) {
+            return "null";
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    // Disparar evento para a aplicação web (a partir de qualquer thread)
+    private void dispatchWebEvent(String eventName, String detail) {
+        if (webEventBridge != null) {
+            webEventBridge.dispatch(eventName, detail);
+        }
+    }
+    
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        
+        if (requestCode == DOCUMENT_CAPTURE_REQUEST_CODE) {
+            if (resultCode == RESULT_OK && data != null) {
+                // Entregar à WebView apenas a referência do arquivo e a miniatura
+                String documentType = data.getStringExtra(DocumentCaptureActivity.EXTRA_DOCUMENT_TYPE);
+                String fileId = data.getStringExtra(DocumentCaptureActivity.EXTRA_FILE_ID);
+                String thumbnail = data.getStringExtra(DocumentCaptureActivity.EXTRA_THUMBNAIL);
+                dispatchWebEvent("android-document-captured",
+                    "{ documentType: '" + documentType + "', fileId: '" + fileId + "', thumbnail: " +
+                    (thumbnail != null ? "'" + thumbnail + "'" : "null") + " }");
+            } else {
+                String error = data != null ? data.getStringExtra(DocumentCaptureActivity.EXTRA_ERROR) : null;
+                dispatchWebEvent("android-document-capture-cancelled",
+                    error != null ? "{ error: '" + error + "' }" : "{}");
+            }
+        }
+    }
+    
     private void requestPermissions() {
         List<String> permissions = new ArrayList<>();
         
@@ -147,9 +283,23 @@ public class MainActivity extends BridgeActivity {
         
         if (!permissions.isEmpty()) {
             ActivityCompat.requestPermissions(this, permissions.toArray(new String[0]), PERMISSION_REQUEST_CODE);
+        } else {
+            requestBackgroundLocation();
         }
     }
     
+    // Android 10+: "o tempo todo" só pode ser pedida sozinha, depois da localização precisa (no 11+
+    // o sistema abre as configurações). Sem ela as cercas de chegada falham com 1004
+    private void requestBackgroundLocation() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q
+                || ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED
+                || ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_BACKGROUND_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            return;
+        }
+        ActivityCompat.requestPermissions(this, new String[] {Manifest.permission.ACCESS_BACKGROUND_LOCATION},
+            BACKGROUND_LOCATION_REQUEST_CODE);
+    }
+    
     @Override
     public void onRequestPermissionsResult(int requestCode, String[] permissions, int[] grantResults) {
         super.onRequestPermissionsResult(requestCode, permissions, grantResults);
@@ -167,6 +317,8 @@ public class MainActivity extends BridgeActivity {
                 // All permissions granted, start location service
                 startLocationTracking();
             }
+            // Segunda etapa, só se a localização precisa foi concedida
+            requestBackgroundLocation();
         }
     }
     
@@ -175,36 +327,99 @@ public class MainActivity extends BridgeActivity {
             @Override
             public void onLocationUpdate(double latitude, double longitude, float accuracy) {
                 // Send location to web app
-                if (bridge != null && bridge.getWebView() != null) {
-                    bridge.getWebView().evaluateJavascript(
-                        "window.dispatchEvent(new CustomEvent('android-location', { " +
-                        "detail: { latitude: " + latitude + ", longitude: " + longitude + ", accuracy: " + accuracy + " } " +
-                        "}));",
-                        null
-                    );
-                }
+                dispatchWebEvent("android-location",
+                    "{ latitude: " + latitude + ", longitude: " + longitude + ", accuracy: " + accuracy + " }");
             }
             
             @Override
             public void onLocationError(String error) {
                 // Send error to web app
-                if (bridge != null && bridge.getWebView() != null) {
-                    bridge.getWebView().evaluateJavascript(
-                        "window.dispatchEvent(new CustomEvent('android-location-error', { " +
-                        "detail: { error: '" + error + "' } " +
-                        "}));",
-                        null
-                    );
-                }
+                dispatchWebEvent("android-location-error", "{ error: '" + error + "' }");
             }
         });
         
         locationService.startLocationUpdates();
     }
     
+    // Histórico da conta logada; sem ela (página ainda não avisou, ou logout) não há o que indexar
+    private ChatHistoryStore chatHistory() {
+        String userId = signedInUserId;
+        if (userId == null) {
+            userId = supabaseService.getSessionManager().getUserId();
+        }
+        return ChatHistoryStore.forUser(this, userId);
+    }
+    
+    // Corrida ativa: o TrackingService assume o GPS (sobrevive ao app em segundo plano)
+    private void startRideTracking(String userId, String serviceId, long acceptedAtMillis) {
+        locationService.stopLocationUpdates();
+        TrackingService.setBatchListener(fixes -> {
+            // A tela só precisa da posição mais recente do lote
+            LocationFix latest = fixes.get(fixes.size() - 1);
+            dispatchWebEvent("android-location",
+                "{ latitude: " + latest.getLatitude() + ", longitude: " + latest.getLongitude() +
+                ", accuracy: " + latest.getAccuracy() + ", batchSize: " + fixes.size() + " }");
+        });
+        TrackingService.start(this, userId, serviceId, acceptedAtMillis);
+    }
+    
+    private final DocumentBatchUpload.Listener documentBatchListener = new DocumentBatchUpload.Listener() {
+        @Override
+        public void onProgress(DocumentBatchUpload batch, int percent) {
+            dispatchWebEvent("android-document-batch-progress", "{ batchId: '" + batch.id + "', progress: " + percent + " }");
+        }
+        
+        @Override
+        public void onItemFinished(DocumentBatchUpload batch, DocumentBatchUpload.Item item) {
+            try {
+                dispatchWebEvent("android-document-batch-item",
+                    "{ batchId: '" + batch.id + "', item: " + DocumentBatchUpload.itemToJson(item) + " }");
+            } catch (JSONException e) {
+                AppLog.e(TAG, "Erro ao montar item do lote: {}", e.getMessage());
+            }
+        }
+        
+        @Override
+        public void onFinished(DocumentBatchUpload batch) {
+            dispatchWebEvent("android-document-batch-complete", batch.summary().toString());
+        }
+    };
+    
+    // Perfil, mensagens e posição juntos; a tela recebe um único evento 'android-ride-screen'
+    private void loadRideScreen(String serviceId, String otherUserId) {
+        prefetchCoordinator.loadRideScreen(serviceId, otherUserId)
+            .withTimeout(15, TimeUnit.SECONDS)
+            .bindTo(screenScope)
+            .whenComplete((results, error) -> {
+                if (error instanceof CancellationException) {
+                    return;
+                }
+                if (error != null) {
+                    dispatchWebEvent("android-ride-screen-error",
+                        "{ serviceId: '" + serviceId + "', error: " + JSONObject.quote(String.valueOf(error.getMessage())) + " }");
+                    return;
+                }
+                ChatHistoryStore history = chatHistory();
+                if (history != null) {
+                    history.addMessages(serviceId, results.get(1));
+                }
+                // As respostas do PostgREST já são JSON: entram direto no detalhe do evento
+                dispatchWebEvent("android-ride-screen",
+                    "{ serviceId: '" + serviceId + "', profile: " + results.get(0) +
+                    ", messages: " + results.get(1) + ", location: " + results.get(2) + " }");
+            });
+    }
+    
     @Override
     public void onDestroy() {
         super.onDestroy();
+        // Nada do que esta tela pediu precisa terminar
+        screenScope.close();
+        // O TrackingService continua rodando; só deixa de avisar esta tela
+        TrackingService.setBatchListener(null);
+        TrackingService.setTripListener(null);
+        GeofenceManager.setArrivalListener(null);
+        NetworkQualityMonitor.getInstance().removeListener(networkQualityListener);
         if (locationService != null) {
             locationService.stopLocationUpdates();
         }
@@ -212,43 +427,126 @@ public class MainActivity extends BridgeActivity {
     
     // JavaScript interface for native functionality
     public class WebAppInterface {
+        // A aplicação web já registrou os listeners (AndroidIntegration.ready()): liberar os eventos na fila
+        @JavascriptInterface
+        public void onBridgeReady() {
+            if (webEventBridge != null) {
+                webEventBridge.onReady();
+            }
+        }
+        
         @JavascriptInterface
         public void showNotification(String title, String message, String serviceId) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.showNotification", () -> {
                 notificationService.showRideNotification(title, message, serviceId);
             });
         }
         
+        @JavascriptInterface
+        public void showNotificationWithAvatar(String title, String message, String serviceId, String avatarUrl) {
+            runBridgeCall("bridge.showNotificationWithAvatar", () -> {
+                notificationService.showRideNotification(title, message, serviceId, avatarUrl);
+            });
+        }
+        
         @JavascriptInterface
         public void showLocationNotification(String motoboyName, String status) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.showLocationNotification", () -> {
                 notificationService.showLocationUpdateNotification(motoboyName, status);
             });
         }
         
         @JavascriptInterface
         public void showEmergencyNotification(String serviceId, String location) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.showEmergencyNotification", () -> {
                 notificationService.showEmergencyNotification(serviceId, location);
             });
         }
         
         @JavascriptInterface
         public void startLocationTracking() {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.startLocationTracking", () -> {
                 startLocationTracking();
             });
         }
         
         @JavascriptInterface
         public void stopLocationTracking() {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.stopLocationTracking", () -> {
                 if (locationService != null) {
                     locationService.stopLocationUpdates();
                 }
             });
         }
         
+        // acceptedAtMillis: aceite da corrida (epoch ms); 0 se a página não souber, e conta de agora
+        @JavascriptInterface
+        public void startRideTracking(String userId, String serviceId, double acceptedAtMillis) {
+            runBridgeCall("bridge.startRideTracking", () -> {
+                startRideTracking(userId, serviceId,
+                    acceptedAtMillis > 0 ? (long) acceptedAtMillis : System.currentTimeMillis());
+            });
+        }
+        
+        @JavascriptInterface
+        public void stopRideTracking() {
+            runBridgeCall("bridge.stopRideTracking", () -> {
+                geofenceManager.disarm();
+                TrackingService.stop(MainActivity.this);
+            });
+        }
+        
+        // Cercas de coleta e entrega; chegada vira evento 'android-arrival' (e mensagem no chat, se pedido)
+        @JavascriptInterface
+        public void armRideGeofences(String serviceId, String userId, String receiverId,
+                                     double pickupLat, double pickupLng, double dropoffLat, double dropoffLng,
+                                     boolean autoMessages) {
+            runBridgeCall("bridge.armRideGeofences", () -> {
+                geofenceManager.arm(serviceId, userId, receiverId, pickupLat, pickupLng, dropoffLat, dropoffLng, autoMessages,
+                    new GeofenceManager.ArmCallback() {
+                        @Override
+                        public void onArmed(String armedServiceId) {
+                            dispatchWebEvent("android-geofences-armed", "{ serviceId: '" + armedServiceId + "' }");
+                        }
+                        
+                        @Override
+                        public void onArmFailed(String failedServiceId, int statusCode, String message) {
+                            dispatchWebEvent("android-geofence-error", "{ serviceId: '" + failedServiceId + "', code: "
+                                + statusCode + ", message: " + JSONObject.quote(message) + " }");
+                            if (statusCode == GeofenceManager.NO_LOCATION_PERMISSION) {
+                                runOnUiThread(MainActivity.this::requestBackgroundLocation);
+                            }
+                        }
+                    });
+            });
+        }
+        
+        @JavascriptInterface
+        public void disarmRideGeofences() {
+            runBridgeCall("bridge.disarmRideGeofences", () -> {
+                geofenceManager.disarm();
+            });
+        }
+        
+        // Carregar a tela da corrida numa ida paralela; cancelScreenLoads ao sair dela
+        @JavascriptInterface
+        public void loadRideScreen(String serviceId, String otherUserId) {
+            MainActivity.this.loadRideScreen(serviceId, otherUserId);
+        }
+        
+        // Corrida aceita: pré-carrega perfil, chat e posição da outra parte para a próxima tela
+        @JavascriptInterface
+        public void onRideAccepted(String serviceId, String otherUserId) {
+            prefetchCoordinator.onRideAccepted(serviceId, otherUserId);
+        }
+        
+        @JavascriptInterface
+        public void cancelScreenLoads() {
+            CallScope previous = screenScope;
+            screenScope = new CallScope();
+            previous.close();
+        }
+        
         @JavascriptInterface
         public boolean hasLocationPermission() {
             return locationService != null && locationService.hasLocationPermission();
@@ -262,7 +560,7 @@ public class MainActivity extends BridgeActivity {
         // Chat methods
         @JavascriptInterface
         public void sendMessage(String serviceId, String receiverId, String content, String messageType) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.sendMessage", () -> {
                 if (chatService != null) {
                     chatService.sendMessage(serviceId, receiverId, content, messageType);
                 }
@@ -271,7 +569,7 @@ public class MainActivity extends BridgeActivity {
         
         @JavascriptInterface
         public void sendLocation(String serviceId, String receiverId, double latitude, double longitude) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.sendLocation", () -> {
                 if (chatService != null) {
                     chatService.sendLocation(serviceId, receiverId, latitude, longitude);
                 }
@@ -280,7 +578,7 @@ public class MainActivity extends BridgeActivity {
         
         @JavascriptInterface
         public void setTypingStatus(String serviceId, String receiverId, boolean isTyping) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.setTypingStatus", () -> {
                 if (chatService != null) {
                     chatService.setTypingStatus(serviceId, receiverId, isTyping);
                 }
@@ -289,7 +587,7 @@ public class MainActivity extends BridgeActivity {
         
         @JavascriptInterface
         public void markMessagesAsRead(String serviceId) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.markMessagesAsRead", () -> {
                 if (chatService != null) {
                     chatService.markMessagesAsRead(serviceId);
                 }
@@ -299,7 +597,7 @@ public class MainActivity extends BridgeActivity {
         // Rating methods
         @JavascriptInterface
         public void submitRating(String serviceId, String ratedUserId, int rating, String comment) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.submitRating", () -> {
                 if (ratingService != null) {
                     ratingService.submitRatingWithComment(serviceId, ratedUserId, rating, comment);
                 }
@@ -308,7 +606,7 @@ public class MainActivity extends BridgeActivity {
         
         @JavascriptInterface
         public void submitQuickRating(String serviceId, String ratedUserId, int rating) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.submitQuickRating", () -> {
                 if (ratingService != null) {
                     ratingService.submitQuickRating(serviceId, ratedUserId, rating);
                 }
@@ -318,7 +616,7 @@ public class MainActivity extends BridgeActivity {
         // Gamification methods
         @JavascriptInterface
         public void addExperience(int amount, String reason) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.addExperience", () -> {
                 if (gamificationService != null) {
                     gamificationService.addExperience(amount, reason);
                 }
@@ -327,7 +625,7 @@ public class MainActivity extends BridgeActivity {
         
         @JavascriptInterface
         public void checkAllBadges(String userId) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.checkAllBadges", () -> {
                 if (gamificationService != null) {
                     gamificationService.checkAllBadges(userId);
                 }
@@ -337,13 +635,53 @@ public class MainActivity extends BridgeActivity {
         // Document methods
         @JavascriptInterface
         public void uploadDocument(String userId, String documentType, String base64Data, String format) {
-            runOnUiThread(() -> {
+            runBridgeCall("bridge.uploadDocument", () -> {
                 if (documentService != null) {
                     documentService.uploadDocument(userId, documentType, base64Data, format);
                 }
             });
         }
         
+        @JavascriptInterface
+        public void captureDocument(String documentType) {
+            if (documentService == null || !documentService.isValidDocumentType(documentType)) {
+                return;
+            }
+            runBridgeCall("bridge.captureDocument", () -> {
+                Intent intent = new Intent(MainActivity.this, DocumentCaptureActivity.class);
+                intent.putExtra(DocumentCaptureActivity.EXTRA_DOCUMENT_TYPE, documentType);
+                startActivityForResult(intent, DOCUMENT_CAPTURE_REQUEST_CODE);
+            });
+        }
+        
+        @JavascriptInterface
+        public void uploadCapturedDocument(String userId, String documentType, String fileId) {
+            if (documentService != null) {
+                documentService.uploadCapturedDocument(userId, documentType, fileId);
+            }
+        }
+        
+        // Cadastro inteiro num lote: progresso em 'android-document-batch-progress', cada item em
+        // 'android-document-batch-item' e o resumo em 'android-document-batch-complete'. Retorna o id do lote
+        @JavascriptInterface
+        public String uploadDocumentBatch(String userId, String itemsJson) {
+            if (documentService == null) {
+                return null;
+            }
+            try {
+                return documentService.uploadDocumentBatch(userId, new JSONArray(itemsJson), documentBatchListener);
+            } catch (JSONException e) {
+                AppLog.e(TAG, "Lote de documentos inválido: {}", e.getMessage());
+                return null;
+            }
+        }
+        
+        // Reenvia só os documentos do lote que falharam
+        @JavascriptInterface
+        public boolean retryDocumentBatch(String batchId) {
+            return documentService != null && documentService.retryDocumentBatch(batchId);
+        }
+        
         @JavascriptInterface
         public boolean isValidDocumentType(String documentType) {
             return documentService != null && documentService.isValidDocumentType(documentType);
@@ -353,5 +691,106 @@ public class MainActivity extends BridgeActivity {
         public boolean isValidFileSize(String base64Data) {
             return documentService != null && documentService.isValidFileSize(base64Data);
         }
+        
+        // Metrics methods
+        @JavascriptInterface
+        public String getMetrics() {
+            return MetricsRegistry.getInstance().snapshot().toString();
+        }
+        
+        @JavascriptInterface
+        public String dumpMetrics() {
+            try {
+                File file = MetricsRegistry.getInstance().dumpToFile(new File(getFilesDir(), "metrics"));
+                return file.getAbsolutePath();
+            } catch (IOException e) {
+                AppLog.e(TAG, "Erro ao gravar métricas: {}", e.getMessage());
+                return null;
+            }
+        }
+        
+        @JavascriptInterface
+        public String dumpLogs() {
+            try {
+                File file = AppLog.dumpToFile(new File(getFilesDir(), "logs"));
+                return file.getAbsolutePath();
+            } catch (IOException e) {
+                AppLog.e(TAG, "Erro ao gravar logs: {}", e.getMessage());
+                return null;
+            }
+        }
+        
+        @JavascriptInterface
+        public String getRecentLogs() {
+            return AppLog.recentEvents();
+        }
+        
+        @JavascriptInterface
+        public void resetMetrics() {
+            MetricsRegistry.getInstance().reset();
+        }
+        
+        @JavascriptInterface
+        public String getDocumentCacheStats() {
+            return documentService != null ? documentService.getCacheStats().toString() : "{}";
+        }
+        
+        // Triagem de fotos de documento: aprovadas, reprovadas por motivo e custo
+        @JavascriptInterface
+        public String getDocumentQualityStats() {
+            return documentService != null ? documentService.getQualityStats().toString() : "{}";
+        }
+        
+        // Map tile methods
+        @JavascriptInterface
+        public String getTileCacheStats() {
+            return tileCache.getStats().toString();
+        }
+        
+        @JavascriptInterface
+        public String getAvatarCacheStats() {
+            return avatarCache.getStats().toString();
+        }
+        
+        // Classe atual do link (UNKNOWN, OFFLINE, POOR, MODERATE, GOOD, EXCELLENT) com vazão e RTT estimados
+        @JavascriptInterface
+        public String getNetworkQuality() {
+            return NetworkQualityMonitor.getInstance().getStats().toString();
+        }
+        
+        // Login feito na WebView (vazio no logout): separa os dados locais por conta
+        @JavascriptInterface
+        public void setSignedInUser(String userId) {
+            signedInUserId = userId == null || userId.isEmpty() ? null : userId;
+            if (signedInUserId == null) {
+                // Fecha o histórico de quem saiu
+                ChatHistoryStore.forUser(MainActivity.this, null);
+            }
+        }
+        
+        // Mensagens recebidas em tempo real pela WebView (array de linhas de messages), para a busca offline
+        @JavascriptInterface
+        public void indexChatMessages(String serviceId, String messagesJson) {
+            ChatHistoryStore history = chatHistory();
+            if (history != null) {
+                history.addMessages(serviceId, messagesJson);
+            }
+        }
+        
+        // Busca no histórico local da conta logada; serviceId vazio busca em todas as corridas
+        @JavascriptInterface
+        public String searchChat(String query, String serviceId, int limit) {
+            ChatHistoryStore history = chatHistory();
+            if (history == null) {
+                return "[]";
+            }
+            return history.search(query, serviceId == null || serviceId.isEmpty() ? null : serviceId, limit);
+        }
+        
+        @JavascriptInterface
+        public String getChatSearchStats() {
+            ChatHistoryStore history = chatHistory();
+            return history != null ? history.getStats().toString() : "{}";
+        }
     }
 }
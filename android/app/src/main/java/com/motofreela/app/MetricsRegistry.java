@@ -0,0 +1,282 @@
+package com.motofreela.app;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class MetricsRegistry {
+    private static final String TAG = "MetricsRegistry";
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Endpoint>> endpoints = new ConcurrentHashMap<>();
+    private volatile long startNanos = System.nanoTime();
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    // Contador monotônico
+    public static final class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        public void increment() {
+            value.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+
+        void reset() {
+            value.set(0);
+        }
+    }
+
+    // Último valor observado
+    public static final class Gauge {
+        private final AtomicLong value = new AtomicLong();
+
+        public void set(long newValue) {
+            value.set(newValue);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    // Histograma com buckets logarítmicos (4 sub-buckets por potência de 2, erro relativo < 25%)
+    public static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 2;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int BUCKET_COUNT = 64 * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        // Registrar um valor (sem alocação)
+        public void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            buckets.incrementAndGet(bucketIndex(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            long currentMax;
+            while (value > (currentMax = max.get())) {
+                if (max.compareAndSet(currentMax, value)) {
+                    break;
+                }
+            }
+        }
+
+        // Registrar duração a partir de um System.nanoTime() inicial, em microssegundos
+        public void recordSince(long startNanos) {
+            record((System.nanoTime() - startNanos) / 1000);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public double getMean() {
+            long total = count.get();
+            return total > 0 ? (double) sum.get() / total : 0.0;
+        }
+
+        // Percentil aproximado (ponto médio do bucket, limitado ao máximo observado)
+        public long percentile(double fraction) {
+            long total = count.get();
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(fraction * total);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += buckets.get(i);
+                if (cumulative >= target) {
+                    return Math.min(bucketLowerBound(i) + bucketWidth(i) / 2, max.get());
+                }
+            }
+            return max.get();
+        }
+
+        static int bucketIndex(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        static long bucketLowerBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int subBucket = index % SUB_BUCKETS;
+            return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+
+        static long bucketWidth(int index) {
+            if (index < SUB_BUCKETS) {
+                return 1;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            return 1L << (exponent - SUB_BUCKET_BITS);
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.set(0);
+        }
+    }
+
+    // Métricas agrupadas por endpoint HTTP
+    public static final class Endpoint {
+        public final Histogram latency = new Histogram();
+        public final Counter requests = new Counter();
+        public final Counter errors = new Counter();
+        public final Counter bytesSent = new Counter();
+        public final Counter bytesReceived = new Counter();
+    }
+
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        return counter != null ? counter : counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public Gauge gauge(String name) {
+        Gauge gauge = gauges.get(name);
+        return gauge != null ? gauge : gauges.computeIfAbsent(name, key -> new Gauge());
+    }
+
+    public Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        return histogram != null ? histogram : histograms.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    // Endpoint por método + caminho; a busca não aloca depois do primeiro uso
+    public Endpoint endpoint(String method, String path) {
+        ConcurrentHashMap<String, Endpoint> byPath = endpoints.get(method);
+        if (byPath == null) {
+            byPath = endpoints.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+        }
+        Endpoint endpoint = byPath.get(path);
+        return endpoint != null ? endpoint : byPath.computeIfAbsent(path, key -> new Endpoint());
+    }
+
+    // Zerar tudo (início de uma nova janela de medição)
+    public void reset() {
+        for (Counter counter : counters.values()) {
+            counter.reset();
+        }
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (Map<String, Endpoint> byPath : endpoints.values()) {
+            for (Endpoint endpoint : byPath.values()) {
+                endpoint.latency.reset();
+                endpoint.requests.reset();
+                endpoint.errors.reset();
+                endpoint.bytesSent.reset();
+                endpoint.bytesReceived.reset();
+            }
+        }
+        startNanos = System.nanoTime();
+    }
+
+    // Snapshot em JSON (latências em ms, vazão em eventos/s)
+    public JSONObject snapshot() {
+        JSONObject snapshot = new JSONObject();
+        try {
+            double elapsedSeconds = Math.max((System.nanoTime() - startNanos) / 1e9, 1e-3);
+            snapshot.put("uptimeMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+
+            JSONObject counterJson = new JSONObject();
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                counterJson.put(entry.getKey(), entry.getValue().get());
+            }
+            snapshot.put("counters", counterJson);
+
+            JSONObject gaugeJson = new JSONObject();
+            for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+                gaugeJson.put(entry.getKey(), entry.getValue().get());
+            }
+            snapshot.put("gauges", gaugeJson);
+
+            JSONObject histogramJson = new JSONObject();
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                histogramJson.put(entry.getKey(), histogramToJson(entry.getValue(), elapsedSeconds));
+            }
+            snapshot.put("histograms", histogramJson);
+
+            JSONObject endpointJson = new JSONObject();
+            for (Map.Entry<String, ConcurrentHashMap<String, Endpoint>> byMethod : endpoints.entrySet()) {
+                for (Map.Entry<String, Endpoint> entry : byMethod.getValue().entrySet()) {
+                    Endpoint endpoint = entry.getValue();
+                    JSONObject json = histogramToJson(endpoint.latency, elapsedSeconds);
+                    json.put("requests", endpoint.requests.get());
+                    json.put("errors", endpoint.errors.get());
+                    json.put("bytesSent", endpoint.bytesSent.get());
+                    json.put("bytesReceived", endpoint.bytesReceived.get());
+                    endpointJson.put(byMethod.getKey() + " " + entry.getKey(), json);
+                }
+            }
+            snapshot.put("endpoints", endpointJson);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Erro ao montar snapshot de métricas: {}", e.getMessage());
+        }
+        return snapshot;
+    }
+
+    private JSONObject histogramToJson(Histogram histogram, double elapsedSeconds) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("count", histogram.getCount());
+        json.put("perSecond", histogram.getCount() / elapsedSeconds);
+        json.put("meanMs", histogram.getMean() / 1000.0);
+        json.put("p50Ms", histogram.percentile(0.50) / 1000.0);
+        json.put("p90Ms", histogram.percentile(0.90) / 1000.0);
+        json.put("p99Ms", histogram.percentile(0.99) / 1000.0);
+        json.put("maxMs", histogram.getMax() / 1000.0);
+        return json;
+    }
+
+    // Gravar snapshot em arquivo (para coleta em aparelhos de campo)
+    public File dumpToFile(File directory) throws IOException {
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+        File file = new File(directory, "metrics-" + System.currentTimeMillis() + ".json");
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(snapshot().toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,40 @@
+package com.motofreela.app;
+
+import com.motofreela.core.LinkQualityEstimator.Quality;
+
+// Tamanhos e ritmos que dependem do link (documentos, página do chat, lotes de fixes)
+public final class NetworkPolicy {
+    public final int documentMaxDimension;
+    public final int documentTargetBytes;
+    public final int chatPageSize;
+    public final long trackingIntervalMs;
+    public final long locationBatchDelayMs;
+
+    private static final NetworkPolicy FULL = new NetworkPolicy(
+        DocumentImagePipeline.DEFAULT_MAX_DIMENSION, DocumentImagePipeline.DEFAULT_TARGET_BYTES,
+        SupabaseService.CHAT_PAGE_SIZE, 5000, 60_000);
+    private static final NetworkPolicy MODERATE = new NetworkPolicy(1280, 250 * 1024, 50, 5000, 90_000);
+    private static final NetworkPolicy CONSTRAINED = new NetworkPolicy(1024, 150 * 1024, 20, 10_000, 3 * 60_000);
+
+    NetworkPolicy(int documentMaxDimension, int documentTargetBytes, int chatPageSize,
+                  long trackingIntervalMs, long locationBatchDelayMs) {
+        this.documentMaxDimension = documentMaxDimension;
+        this.documentTargetBytes = documentTargetBytes;
+        this.chatPageSize = chatPageSize;
+        this.trackingIntervalMs = trackingIntervalMs;
+        this.locationBatchDelayMs = locationBatchDelayMs;
+    }
+
+    // Sem medição ainda, vale o comportamento de sempre
+    public static NetworkPolicy forQuality(Quality quality) {
+        switch (quality) {
+            case OFFLINE:
+            case POOR:
+                return CONSTRAINED;
+            case MODERATE:
+                return MODERATE;
+            default:
+                return FULL;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.motofreela.app;
+
+import com.motofreela.core.LinkQualityEstimator;
+import com.motofreela.core.LinkQualityEstimator.Quality;
+import java.io.IOException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Request;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Qualidade do link medida nas chamadas reais do app; avisa quem depende dela quando a classe muda
+public class NetworkQualityMonitor {
+    private static final String TAG = "NetworkQualityMonitor";
+
+    public interface Listener {
+        // Roda na thread do OkHttp que concluiu a chamada; não bloquear
+        void onQualityChanged(Quality quality, NetworkPolicy policy);
+    }
+
+    private static final NetworkQualityMonitor instance = new NetworkQualityMonitor();
+
+    private final LinkQualityEstimator estimator = new LinkQualityEstimator();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Quality quality = Quality.UNKNOWN;
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final MetricsRegistry.Gauge throughputGauge = metrics.gauge("network.throughput_kbps");
+    private final MetricsRegistry.Gauge rttGauge = metrics.gauge("network.rtt_ms");
+    private final MetricsRegistry.Gauge qualityGauge = metrics.gauge("network.quality");
+    private final MetricsRegistry.Counter qualityChanges = metrics.counter("network.quality_changes");
+
+    public static NetworkQualityMonitor getInstance() {
+        return instance;
+    }
+
+    NetworkQualityMonitor() {
+    }
+
+    // Instalado no cliente compartilhado; newBuilder() dos demais clientes herda
+    public EventListener.Factory eventListenerFactory() {
+        return call -> new CallTimer();
+    }
+
+    public Quality getQuality() {
+        return quality;
+    }
+
+    public NetworkPolicy getPolicy() {
+        return NetworkPolicy.forQuality(quality);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        try {
+            stats.put("quality", quality.name());
+            stats.put("throughputKbps", Double.isNaN(estimator.getThroughputKbps()) ? JSONObject.NULL
+                : Math.round(estimator.getThroughputKbps()));
+            stats.put("rttMs", Double.isNaN(estimator.getRttMs()) ? JSONObject.NULL : Math.round(estimator.getRttMs()));
+            stats.put("qualityChanges", qualityChanges.get());
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Erro ao montar estatísticas: {}", e.getMessage());
+        }
+        return stats;
+    }
+
+    void onRoundTrip(long nanos) {
+        Quality changed;
+        synchronized (this) {
+            changed = applied(estimator.onRoundTrip(nanos));
+            rttGauge.set(Math.round(estimator.getRttMs()));
+        }
+        publish(changed);
+    }
+
+    void onTransfer(long bytes, long nanos) {
+        Quality changed;
+        synchronized (this) {
+            changed = applied(estimator.onTransfer(bytes, nanos));
+            if (!Double.isNaN(estimator.getThroughputKbps())) {
+                throughputGauge.set(Math.round(estimator.getThroughputKbps()));
+            }
+        }
+        publish(changed);
+    }
+
+    void onFailure() {
+        Quality changed;
+        synchronized (this) {
+            changed = applied(estimator.onFailure());
+        }
+        publish(changed);
+    }
+
+    // Dentro do lock: a classe publicada segue a ordem das amostras
+    private Quality applied(Quality changed) {
+        if (changed != null) {
+            quality = changed;
+            qualityGauge.set(changed.ordinal());
+            qualityChanges.increment();
+        }
+        return changed;
+    }
+
+    private void publish(Quality changed) {
+        if (changed == null) {
+            return;
+        }
+        AppLog.i(TAG, "Link agora {}", changed);
+        NetworkPolicy policy = NetworkPolicy.forQuality(changed);
+        for (Listener listener : listeners) {
+            listener.onQualityChanged(changed, policy);
+        }
+    }
+
+    // Um por chamada: as marcas de tempo são só desta chamada
+    private final class CallTimer extends EventListener {
+        private long sentNanos;
+        private long bodyStartNanos;
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            sentNanos = System.nanoTime();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            sentNanos = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            if (sentNanos != 0) {
+                onRoundTrip(System.nanoTime() - sentNanos);
+                sentNanos = 0;
+            }
+        }
+
+        @Override
+        public void responseBodyStart(Call call) {
+            bodyStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            if (bodyStartNanos != 0) {
+                onTransfer(byteCount, System.nanoTime() - bodyStartNanos);
+                bodyStartNanos = 0;
+            }
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            if (!call.isCanceled()) {
+                onFailure();
+            }
+        }
+    }
+}
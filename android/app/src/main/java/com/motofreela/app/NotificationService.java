@@ -1,5 +1,6 @@
 package com.motofreela.app;
 
+import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
@@ -16,6 +17,8 @@ public class NotificationService {
     
     private Context context;
     private NotificationManagerCompat notificationManager;
+    private final MetricsRegistry.Histogram postLatency = MetricsRegistry.getInstance().histogram("notification.post");
+    private final MetricsRegistry.Counter postCount = MetricsRegistry.getInstance().counter("notification.posted");
     
     public NotificationService(Context context) {
         this.context = context;
@@ -43,6 +46,26 @@ public class NotificationService {
     }
     
     public void showRideNotification(String title, String message, String serviceId) {
+        post(serviceId.hashCode(), rideNotification(title, message, serviceId).build());
+    }
+    
+    // Com a foto da outra parte como ícone grande; sem ela (falha ou demora) sai só o ícone pequeno
+    public void showRideNotification(String title, String message, String serviceId, String avatarUrl) {
+        if (avatarUrl == null || avatarUrl.isEmpty()) {
+            showRideNotification(title, message, serviceId);
+            return;
+        }
+        int sizePx = context.getResources().getDimensionPixelSize(android.R.dimen.notification_large_icon_width);
+        AvatarCache.getInstance(context).loadBitmap(avatarUrl, sizePx, bitmap -> {
+            NotificationCompat.Builder builder = rideNotification(title, message, serviceId);
+            if (bitmap != null) {
+                builder.setLargeIcon(bitmap);
+            }
+            post(serviceId.hashCode(), builder.build());
+        });
+    }
+    
+    private NotificationCompat.Builder rideNotification(String title, String message, String serviceId) {
         Intent intent = new Intent(context, MainActivity.class);
         intent.putExtra("serviceId", serviceId);
         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -63,7 +86,7 @@ public class NotificationService {
             .setContentIntent(pendingIntent)
             .setDefaults(NotificationCompat.DEFAULT_ALL);
         
-        notificationManager.notify(serviceId.hashCode(), builder.build());
+        return builder;
     }
     
     public void showLocationUpdateNotification(String motoboyName, String status) {
@@ -77,7 +100,7 @@ public class NotificationService {
             .setPriority(NotificationCompat.PRIORITY_DEFAULT)
             .setAutoCancel(true);
         
-        notificationManager.notify("location".hashCode(), builder.build());
+        post("location".hashCode(), builder.build());
     }
     
     public void showEmergencyNotification(String serviceId, String location) {
@@ -106,6 +129,14 @@ public class NotificationService {
             .setDefaults(NotificationCompat.DEFAULT_ALL)
             .setOngoing(true);
         
-        notificationManager.notify("emergency".hashCode(), builder.build());
+        post("emergency".hashCode(), builder.build());
+    }
+    
+    // Publicar notificação medindo o custo do post
+    private void post(int id, Notification notification) {
+        long startNanos = System.nanoTime();
+        notificationManager.notify(id, notification);
+        postLatency.recordSince(startNanos);
+        postCount.increment();
     }
 }
@@ -0,0 +1,185 @@
+package com.motofreela.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+
+public class PostgrestQuery {
+    private final String table;
+    private final String path;
+    private final List<String> columns = new ArrayList<>();
+    private final List<String[]> filters = new ArrayList<>();
+    private final List<String> orders = new ArrayList<>();
+    private Integer limit;
+    private Integer offset;
+    private Integer rangeFrom;
+    private Integer rangeTo;
+    private boolean countExact;
+
+    private PostgrestQuery(String table) {
+        this.table = table;
+        this.path = "/rest/v1/" + table;
+    }
+
+    // Consulta sobre uma tabela do PostgREST (/rest/v1/<tabela>)
+    public static PostgrestQuery from(String table) {
+        return new PostgrestQuery(table);
+    }
+
+    // Projeção de colunas (select=a,b,c)
+    public PostgrestQuery select(String... columns) {
+        for (String column : columns) {
+            this.columns.add(column);
+        }
+        return this;
+    }
+
+    // Recurso embutido: alias:tabela(colunas) ou tabela(colunas) sem alias
+    public PostgrestQuery embed(String alias, String table, String... columns) {
+        StringBuilder embedded = new StringBuilder();
+        if (alias != null) {
+            embedded.append(alias).append(':');
+        }
+        embedded.append(table).append('(').append(String.join(",", columns)).append(')');
+        this.columns.add(embedded.toString());
+        return this;
+    }
+
+    // Filtros
+    public PostgrestQuery eq(String column, Object value) {
+        return filter(column, "eq", value);
+    }
+
+    public PostgrestQuery neq(String column, Object value) {
+        return filter(column, "neq", value);
+    }
+
+    public PostgrestQuery gt(String column, Object value) {
+        return filter(column, "gt", value);
+    }
+
+    public PostgrestQuery gte(String column, Object value) {
+        return filter(column, "gte", value);
+    }
+
+    public PostgrestQuery lt(String column, Object value) {
+        return filter(column, "lt", value);
+    }
+
+    public PostgrestQuery lte(String column, Object value) {
+        return filter(column, "lte", value);
+    }
+
+    public PostgrestQuery is(String column, String value) {
+        return filter(column, "is", value);
+    }
+
+    public PostgrestQuery in(String column, Object... values) {
+        StringBuilder list = new StringBuilder("(");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                list.append(',');
+            }
+            list.append(quoteListValue(String.valueOf(values[i])));
+        }
+        list.append(')');
+        filters.add(new String[]{column, "in." + list});
+        return this;
+    }
+
+    private PostgrestQuery filter(String column, String operator, Object value) {
+        filters.add(new String[]{column, operator + "." + value});
+        return this;
+    }
+
+    // Ordenação (pode ser chamada mais de uma vez)
+    public PostgrestQuery order(String column, boolean ascending) {
+        orders.add(column + (ascending ? ".asc" : ".desc"));
+        return this;
+    }
+
+    // Paginação por parâmetros
+    public PostgrestQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    public PostgrestQuery offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    // Paginação por cabeçalho Range (inclusivo)
+    public PostgrestQuery range(int from, int to) {
+        this.rangeFrom = from;
+        this.rangeTo = to;
+        return this;
+    }
+
+    // Pedir o total no Content-Range (Prefer: count=exact)
+    public PostgrestQuery countExact() {
+        this.countExact = true;
+        return this;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    // Caminho sem parâmetros (chave das métricas por endpoint)
+    public String getPath() {
+        return path;
+    }
+
+    // URL completa com parâmetros codificados
+    public HttpUrl toUrl(String baseUrl) {
+        HttpUrl.Builder builder = HttpUrl.get(baseUrl).newBuilder()
+            .addPathSegments("rest/v1")
+            .addPathSegment(table);
+
+        if (!columns.isEmpty()) {
+            builder.addQueryParameter("select", String.join(",", columns));
+        }
+        for (String[] filter : filters) {
+            builder.addQueryParameter(filter[0], filter[1]);
+        }
+        if (!orders.isEmpty()) {
+            builder.addQueryParameter("order", String.join(",", orders));
+        }
+        if (limit != null) {
+            builder.addQueryParameter("limit", String.valueOf(limit));
+        }
+        if (offset != null) {
+            builder.addQueryParameter("offset", String.valueOf(offset));
+        }
+        return builder.build();
+    }
+
+    // Cabeçalhos de paginação e contagem
+    public void applyHeaders(Request.Builder requestBuilder) {
+        if (rangeFrom != null && rangeTo != null) {
+            requestBuilder.header("Range-Unit", "items");
+            requestBuilder.header("Range", rangeFrom + "-" + rangeTo);
+        }
+        if (countExact) {
+            requestBuilder.header("Prefer", "count=exact");
+        }
+    }
+
+    // Valores com vírgula, parênteses ou aspas precisam de aspas dentro de in.(...)
+    private static String quoteListValue(String value) {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '(' || c == ')' || c == '"' || c == '\\' || c == ' ') {
+                needsQuotes = true;
+                break;
+            }
+        }
+        if (!needsQuotes) {
+            return value;
+        }
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
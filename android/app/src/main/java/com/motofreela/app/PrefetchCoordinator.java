@@ -0,0 +1,208 @@
+package com.motofreela.app;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Pré-carga da tela da corrida aceita (perfil, chat e posição), aproveitada uma única vez
+public class PrefetchCoordinator {
+    private static final String TAG = "PrefetchCoordinator";
+
+    enum Kind {
+        // Perfil quase não muda; histórico recebe mensagens novas; posição envelhece rápido
+        PROFILE(10 * 60_000),
+        MESSAGES(2 * 60_000),
+        LOCATION(30_000);
+
+        final long ttlMillis;
+
+        Kind(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
+    private static final class Entry {
+        final SupabaseFuture<String> future;
+        final long createdMillis;
+        final long ttlMillis;
+
+        Entry(SupabaseFuture<String> future, long ttlMillis) {
+            this.future = future;
+            this.createdMillis = System.currentTimeMillis();
+            this.ttlMillis = ttlMillis;
+        }
+
+        boolean isExpired(long now) {
+            return now - createdMillis > ttlMillis;
+        }
+    }
+
+    private interface Loader {
+        SupabaseFuture<String> load(RequestScheduler.Priority priority);
+    }
+
+    private final SupabaseService supabaseService;
+    // Opcional: com ele, a foto da outra parte também é preparada
+    private final AvatarCache avatarCache;
+    // "<tipo>:<id>" -> leitura pré-carregada
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final MetricsRegistry.Counter issued = metrics.counter("prefetch.issued");
+    private final MetricsRegistry.Counter used = metrics.counter("prefetch.used");
+    private final MetricsRegistry.Counter expiredUnused = metrics.counter("prefetch.expired_unused");
+    private final MetricsRegistry.Counter hits = metrics.counter("prefetch.hits");
+    private final MetricsRegistry.Counter misses = metrics.counter("prefetch.misses");
+
+    public PrefetchCoordinator(SupabaseService supabaseService) {
+        this(supabaseService, null);
+    }
+
+    public PrefetchCoordinator(SupabaseService supabaseService, AvatarCache avatarCache) {
+        this.supabaseService = supabaseService;
+        this.avatarCache = avatarCache;
+    }
+
+    // Corrida aceita: tudo o que a próxima tela vai pedir, em paralelo e sem disputar com a tela atual
+    public void onRideAccepted(String serviceId, String otherUserId) {
+        SupabaseFuture<String> profile =
+            prefetch(Kind.PROFILE, otherUserId, priority -> supabaseService.getUserProfileAsync(otherUserId, priority));
+        prefetch(Kind.MESSAGES, serviceId, priority -> supabaseService.getChatMessagesAsync(serviceId, priority));
+        prefetch(Kind.LOCATION, otherUserId, priority -> supabaseService.getUserLocationAsync(otherUserId, priority));
+        if (avatarCache != null && profile != null) {
+            profile.map(PrefetchCoordinator::avatarUrl).whenComplete((url, error) -> {
+                if (error == null && url != null) {
+                    avatarCache.prefetch(url);
+                }
+            });
+        }
+    }
+
+    // Notificação aberta (só com o id da corrida): descobre a outra parte e pré-carrega o resto
+    public void onServiceOpened(String serviceId) {
+        prefetch(Kind.MESSAGES, serviceId, priority -> supabaseService.getChatMessagesAsync(serviceId, priority));
+        supabaseService.getServiceParticipantsAsync(serviceId, RequestScheduler.Priority.BACKGROUND)
+            .map(this::counterpart)
+            .whenComplete((otherUserId, error) -> {
+                if (error != null || otherUserId == null) {
+                    AppLog.d(TAG, "Sem a outra parte da corrida {} para pré-carga", serviceId);
+                    return;
+                }
+                onRideAccepted(serviceId, otherUserId);
+            });
+    }
+
+    public SupabaseFuture<String> profile(String userId) {
+        return get(Kind.PROFILE, userId, priority -> supabaseService.getUserProfileAsync(userId, priority));
+    }
+
+    public SupabaseFuture<String> messages(String serviceId) {
+        return get(Kind.MESSAGES, serviceId, priority -> supabaseService.getChatMessagesAsync(serviceId, priority));
+    }
+
+    public SupabaseFuture<String> location(String userId) {
+        return get(Kind.LOCATION, userId, priority -> supabaseService.getUserLocationAsync(userId, priority));
+    }
+
+    // Tela da corrida: [perfil, mensagens, posição], com o que a pré-carga já trouxe
+    public SupabaseFuture<List<String>> loadRideScreen(String serviceId, String otherUserId) {
+        return SupabaseFuture.all(profile(otherUserId), messages(serviceId), location(otherUserId));
+    }
+
+    // Retorna a leitura (nova ou já em andamento); null sem id
+    private SupabaseFuture<String> prefetch(Kind kind, String id, Loader loader) {
+        if (id == null) {
+            return null;
+        }
+        String key = kind.name() + ":" + id;
+        Entry entry;
+        synchronized (this) {
+            evictExpired();
+            Entry existing = entries.get(key);
+            if (existing != null && !existing.future.isCompletedExceptionally()) {
+                return existing.future;
+            }
+            entry = new Entry(loader.load(RequestScheduler.Priority.BACKGROUND), kind.ttlMillis);
+            entries.put(key, entry);
+        }
+        issued.increment();
+        return entry.future;
+    }
+
+    private SupabaseFuture<String> get(Kind kind, String id, Loader loader) {
+        String key = kind.name() + ":" + id;
+        Entry entry;
+        synchronized (this) {
+            evictExpired();
+            // Uso único: a próxima abertura da tela busca de novo (chat e posição mudam)
+            entry = entries.remove(key);
+            if (entry != null && entry.future.isCompletedExceptionally()) {
+                entry = null;
+            }
+            if (entry != null) {
+                used.increment();
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return loader.load(RequestScheduler.Priority.INTERACTIVE);
+        }
+        hits.increment();
+        return detached(entry.future);
+    }
+
+    // Cópia do resultado: cancelar a leitura da tela não cancela a pré-carga compartilhada
+    private static SupabaseFuture<String> detached(SupabaseFuture<String> source) {
+        SupabaseFuture<String> view = new SupabaseFuture<>();
+        source.whenComplete((value, error) -> {
+            if (error != null) {
+                view.fail(error);
+            } else {
+                view.complete(value);
+            }
+        });
+        return view;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.isExpired(now)) {
+                // Entradas usadas já saíram do mapa
+                expiredUnused.increment();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String avatarUrl(String profileResponse) throws Exception {
+        JSONArray rows = new JSONArray(profileResponse);
+        if (rows.length() == 0 || rows.getJSONObject(0).isNull("avatar_url")) {
+            return null;
+        }
+        String url = rows.getJSONObject(0).getString("avatar_url");
+        return url.isEmpty() ? null : url;
+    }
+
+    // A outra parte é quem não é o usuário logado. Sem sessão nativa (login só pela WebView) ou
+    // sem o usuário entre as partes não há como saber: null, e só o chat fica pré-carregado
+    private String counterpart(String servicesResponse) throws Exception {
+        String me = supabaseService.getSessionManager().getUserId();
+        JSONArray rows = new JSONArray(servicesResponse);
+        if (me == null || rows.length() == 0) {
+            return null;
+        }
+        JSONObject service = rows.getJSONObject(0);
+        String company = service.isNull("company_id") ? null : service.getString("company_id");
+        String motoboy = service.isNull("motoboy_id") ? null : service.getString("motoboy_id");
+        if (me.equals(company)) {
+            return motoboy;
+        }
+        return me.equals(motoboy) ? company : null;
+    }
+}
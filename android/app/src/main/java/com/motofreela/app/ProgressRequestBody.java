@@ -0,0 +1,53 @@
+package com.motofreela.app;
+
+import java.io.IOException;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+// Corpo que avisa quantos bytes já foram escritos na conexão (progresso de uploads grandes)
+public class ProgressRequestBody extends RequestBody {
+    public interface Listener {
+        // Chamado na thread do OkHttp; recomeça do zero se o envio for reiniciado (preempção BULK)
+        void onProgress(long bytesWritten, long contentLength);
+    }
+
+    private final RequestBody delegate;
+    private final Listener listener;
+
+    public ProgressRequestBody(RequestBody delegate, Listener listener) {
+        this.delegate = delegate;
+        this.listener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return delegate.contentLength();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        long contentLength = contentLength();
+        BufferedSink counting = Okio.buffer(new ForwardingSink(sink) {
+            private long written;
+
+            @Override
+            public void write(Buffer source, long byteCount) throws IOException {
+                super.write(source, byteCount);
+                written += byteCount;
+                listener.onProgress(written, contentLength);
+            }
+        });
+        delegate.writeTo(counting);
+        // Só esvazia; o sink da requisição é do OkHttp
+        counting.emit();
+    }
+}
@@ -1,7 +1,7 @@
 package com.motofreela.app;
 
 import android.content.Context;
-import android.util.Log;
+import com.motofreela.core.RatingAggregator;
 import org.json.JSONObject;
 import org.json.JSONException;
 import java.util.ArrayList;
@@ -63,7 +63,7 @@ public class RatingService {
         supabaseService.submitRating(serviceId, currentUserId, ratedUserId, rating, comment, new SupabaseService.SupabaseCallback() {
             @Override
             public void onSuccess(String response) {
-                Log.d(TAG, "Avaliação enviada com sucesso: " + response);
+                AppLog.d(TAG, "Avaliação enviada com sucesso: {}", serviceId);
                 if (callback != null) {
                     callback.onRatingSubmitted("rating_" + System.currentTimeMillis(), rating, comment);
                 }
@@ -78,7 +78,7 @@ public class RatingService {
             
             @Override
             public void onError(String error) {
-                Log.e(TAG, "Erro ao enviar avaliação: " + error);
+                AppLog.e(TAG, "Erro ao enviar avaliação: {}", error);
                 if (callback != null) {
                     callback.onError("Erro ao enviar avaliação");
                 }
@@ -144,13 +144,7 @@ public class RatingService {
     
     // Calcular média de avaliações
     public double calculateAverageRating(List<Integer> ratings) {
-        if (ratings.isEmpty()) return 0.0;
-        
-        int sum = 0;
-        for (int rating : ratings) {
-            sum += rating;
-        }
-        return (double) sum / ratings.size();
+        return RatingAggregator.average(ratings);
     }
     
     // Verificar se pode avaliar (apenas após corrida concluída)
@@ -0,0 +1,187 @@
+package com.motofreela.app;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+// Faixas de prioridade das chamadas ao Supabase; trabalho crítico segura e preempta a faixa BULK
+public class RequestScheduler {
+    public enum Priority {
+        // Login, aceite de corrida, emergência
+        CRITICAL(4),
+        // O que o usuário está esperando na tela: chat, perfil, avaliação
+        INTERACTIVE(4),
+        // Posições e histórico do rastreamento
+        BACKGROUND(2),
+        // Uploads grandes (documentos); dois por vez para o lote do cadastro sobrepor os envios
+        BULK(2);
+
+        final int budget;
+
+        Priority(int budget) {
+            this.budget = budget;
+        }
+    }
+
+    // Soma dos limites: o dispatcher do OkHttp não pode ser o gargalo (ele é FIFO)
+    static final int TOTAL_BUDGET;
+
+    static {
+        int total = 0;
+        for (Priority priority : Priority.values()) {
+            total += priority.budget;
+        }
+        TOTAL_BUDGET = total;
+    }
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    // Cancelar uma chamada agendada, esteja na fila ou em andamento
+    public interface Handle {
+        void cancel();
+    }
+
+    private static final class Pending {
+        final Priority priority;
+        final Callback callback;
+        final long enqueuedNanos;
+        Call call;
+        boolean preempted;
+        boolean cancelled;
+
+        Pending(Priority priority, Call call, Callback callback) {
+            this.priority = priority;
+            this.call = call;
+            this.callback = callback;
+            this.enqueuedNanos = System.nanoTime();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Pending>[] queues = new ArrayDeque[PRIORITIES.length];
+    private final int[] running = new int[PRIORITIES.length];
+    private final List<Pending> runningBulk = new ArrayList<>();
+
+    private final MetricsRegistry.Histogram[] queueWait = new MetricsRegistry.Histogram[PRIORITIES.length];
+    private final MetricsRegistry.Gauge[] queueDepth = new MetricsRegistry.Gauge[PRIORITIES.length];
+    private final MetricsRegistry.Counter preemptions = MetricsRegistry.getInstance().counter("lane.bulk.preempted");
+
+    public RequestScheduler() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        for (Priority priority : PRIORITIES) {
+            String lane = "lane." + priority.name().toLowerCase(Locale.ROOT);
+            queues[priority.ordinal()] = new ArrayDeque<>();
+            queueWait[priority.ordinal()] = metrics.histogram(lane + ".queue_wait");
+            queueDepth[priority.ordinal()] = metrics.gauge(lane + ".queued");
+        }
+    }
+
+    // Agendar uma chamada ainda não iniciada; o callback recebe o resultado como no enqueue do OkHttp
+    public synchronized Handle enqueue(Priority priority, Call call, Callback callback) {
+        Pending pending = new Pending(priority, call, callback);
+        queues[priority.ordinal()].addLast(pending);
+        if (priority == Priority.CRITICAL) {
+            preemptBulk();
+        }
+        pump();
+        return () -> cancel(pending);
+    }
+
+    // Na fila: sai dela e falha com "Canceled", como o OkHttp faria; em andamento: cancela a Call
+    private void cancel(Pending pending) {
+        Call call;
+        boolean wasQueued;
+        synchronized (this) {
+            if (pending.cancelled) {
+                return;
+            }
+            pending.cancelled = true;
+            call = pending.call;
+            wasQueued = queues[pending.priority.ordinal()].remove(pending);
+            if (wasQueued) {
+                queueDepth[pending.priority.ordinal()].set(queues[pending.priority.ordinal()].size());
+            }
+        }
+        call.cancel();
+        if (wasQueued) {
+            pending.callback.onFailure(call, new IOException("Canceled"));
+        }
+    }
+
+    synchronized int getRunning(Priority priority) {
+        return running[priority.ordinal()];
+    }
+
+    synchronized int getQueued(Priority priority) {
+        return queues[priority.ordinal()].size();
+    }
+
+    // Iniciar o que couber, da faixa mais prioritária para a menos
+    private void pump() {
+        for (Priority priority : PRIORITIES) {
+            ArrayDeque<Pending> queue = queues[priority.ordinal()];
+            while (!queue.isEmpty() && running[priority.ordinal()] < priority.budget && !held(priority)) {
+                start(queue.pollFirst());
+            }
+            queueDepth[priority.ordinal()].set(queue.size());
+        }
+    }
+
+    private boolean held(Priority priority) {
+        return priority == Priority.BULK
+            && (running[Priority.CRITICAL.ordinal()] > 0 || !queues[Priority.CRITICAL.ordinal()].isEmpty());
+    }
+
+    private void preemptBulk() {
+        for (Pending pending : runningBulk) {
+            if (!pending.preempted) {
+                pending.preempted = true;
+                pending.call.cancel();
+                preemptions.increment();
+            }
+        }
+    }
+
+    private void start(Pending pending) {
+        running[pending.priority.ordinal()]++;
+        if (pending.priority == Priority.BULK) {
+            runningBulk.add(pending);
+        }
+        queueWait[pending.priority.ordinal()].recordSince(pending.enqueuedNanos);
+        pending.call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (finish(pending, false)) {
+                    pending.callback.onFailure(call, e);
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) throws IOException {
+                finish(pending, true);
+                pending.callback.onResponse(call, response);
+            }
+        });
+    }
+
+    // Libera a vaga; retorna false se a chamada foi preemptada e voltou para a fila
+    private synchronized boolean finish(Pending pending, boolean completed) {
+        running[pending.priority.ordinal()]--;
+        if (pending.priority == Priority.BULK) {
+            runningBulk.remove(pending);
+        }
+        boolean requeue = pending.preempted && !completed && !pending.cancelled;
+        if (requeue) {
+            pending.preempted = false;
+            pending.call = pending.call.clone();
+            queues[pending.priority.ordinal()].addFirst(pending);
+        }
+        pump();
+        return !requeue;
+    }
+}
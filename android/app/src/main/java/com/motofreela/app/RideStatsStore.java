@@ -0,0 +1,53 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.motofreela.core.TripMetricsEngine;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+
+// Estatísticas das corridas deste aparelho, lidas pelos badges (fastRides, dailyRides, punctualStreak)
+public class RideStatsStore {
+    private static final String PREFS = "motofreela_ride_stats";
+    private static final String KEY_COMPLETED = "completedRides";
+    private static final String KEY_FAST = "fastRides";
+    private static final String KEY_PUNCTUAL_STREAK = "punctualStreak";
+    private static final String KEY_DAILY = "dailyRides";
+    private static final String KEY_DAILY_DATE = "dailyRidesDate";
+    private static final String KEY_DISTANCE_M = "totalDistanceMeters";
+    private static final String KEY_MOVING_S = "totalMovingSeconds";
+
+    private final SharedPreferences prefs;
+
+    public RideStatsStore(Context context) {
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    // Só corridas entregues e medidas do começo ao fim contam; dailyRides zera na virada do dia
+    public synchronized void record(TripMetricsEngine.Summary summary, long nowMillis) {
+        if (!summary.completed || summary.partial) {
+            return;
+        }
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(nowMillis));
+        int daily = today.equals(prefs.getString(KEY_DAILY_DATE, null)) ? prefs.getInt(KEY_DAILY, 0) : 0;
+        prefs.edit()
+            .putInt(KEY_COMPLETED, prefs.getInt(KEY_COMPLETED, 0) + 1)
+            .putInt(KEY_FAST, prefs.getInt(KEY_FAST, 0) + (summary.isFast() ? 1 : 0))
+            .putInt(KEY_PUNCTUAL_STREAK, summary.punctual ? prefs.getInt(KEY_PUNCTUAL_STREAK, 0) + 1 : 0)
+            .putString(KEY_DAILY_DATE, today)
+            .putInt(KEY_DAILY, daily + 1)
+            .putLong(KEY_DISTANCE_M, prefs.getLong(KEY_DISTANCE_M, 0) + Math.round(summary.distanceMeters))
+            .putLong(KEY_MOVING_S, prefs.getLong(KEY_MOVING_S, 0) + summary.movingMillis / 1000)
+            .apply();
+    }
+
+    // Preenche as chaves dos badges que dependem do trajeto
+    public synchronized void mergeInto(Map<String, Integer> stats, long nowMillis) {
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date(nowMillis));
+        stats.put(KEY_FAST, prefs.getInt(KEY_FAST, 0));
+        stats.put(KEY_PUNCTUAL_STREAK, prefs.getInt(KEY_PUNCTUAL_STREAK, 0));
+        stats.put(KEY_DAILY, today.equals(prefs.getString(KEY_DAILY_DATE, null)) ? prefs.getInt(KEY_DAILY, 0) : 0);
+    }
+}
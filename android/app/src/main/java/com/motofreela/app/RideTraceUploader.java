@@ -0,0 +1,155 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import com.motofreela.core.LocationFix;
+import com.motofreela.core.RideTraceRecorder;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Envio da trilha da corrida, do fix mais antigo não confirmado em diante; um uploader por arquivo (LIVE_TRACES)
+class RideTraceUploader {
+    private static final String TAG = "RideTraceUploader";
+
+    // ~40 min de corrida por POST ao reenviar uma trilha acumulada
+    static final int MAX_FIXES_PER_UPLOAD = 500;
+    static final int TRACE_CAPACITY = 4096;
+    private static final String TRACE_SUFFIX = ".trace";
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final MetricsRegistry.Counter uploadedFixes = metrics.counter("trace.fixes_uploaded");
+    private static final MetricsRegistry.Counter recoveredFixes = metrics.counter("trace.fixes_recovered");
+    private static final MetricsRegistry.Counter uploadFailures = metrics.counter("trace.upload_failures");
+
+    // Caminhos das trilhas com uploader vivo neste processo
+    private static final Set<String> LIVE_TRACES = Collections.synchronizedSet(new HashSet<>());
+
+    private final SupabaseService supabaseService;
+    private final RideTraceRecorder recorder;
+    private final AtomicBoolean uploading = new AtomicBoolean();
+    private volatile boolean finished;
+
+    RideTraceUploader(SupabaseService supabaseService, RideTraceRecorder recorder) {
+        this.supabaseService = supabaseService;
+        this.recorder = recorder;
+        LIVE_TRACES.add(recorder.getFile().getAbsolutePath());
+    }
+
+    // Em filesDir: a trilha não pode sumir numa limpeza de cache no meio da corrida
+    static File traceDir(Context context) {
+        File dir = new File(context.getFilesDir(), "traces");
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        return dir;
+    }
+
+    static File traceFile(Context context, String serviceId) {
+        return new File(traceDir(context), serviceId.replaceAll("[^A-Za-z0-9_-]", "_") + TRACE_SUFFIX);
+    }
+
+    // Trilhas deixadas por execuções anteriores (corrida encerrada com envio pendente, processo morto);
+    // as que ainda têm uploader vivo, inclusive a da corrida atual, ficam com ele
+    static void recoverAll(Context context, SupabaseService supabaseService) {
+        File[] files = traceDir(context).listFiles((dir, name) -> name.endsWith(TRACE_SUFFIX));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            String path = file.getAbsolutePath();
+            if (!LIVE_TRACES.add(path)) {
+                continue;
+            }
+            try {
+                RideTraceRecorder recorder = RideTraceRecorder.recover(file);
+                if (recorder == null) {
+                    file.delete();
+                    LIVE_TRACES.remove(path);
+                    continue;
+                }
+                recoveredFixes.add(recorder.pendingCount());
+                AppLog.i(TAG, "Trilha da corrida {} recuperada com {} fixes pendentes",
+                    recorder.getServiceId(), recorder.pendingCount());
+                RideTraceUploader uploader = new RideTraceUploader(supabaseService, recorder);
+                uploader.finish();
+            } catch (IOException e) {
+                LIVE_TRACES.remove(path);
+                AppLog.e(TAG, "Erro ao recuperar trilha {}: {}", file.getName(), e.getMessage());
+            }
+        }
+    }
+
+    RideTraceRecorder getRecorder() {
+        return recorder;
+    }
+
+    // Corrida encerrada: envia o que falta e apaga o arquivo quando não sobrar nada
+    void finish() {
+        finished = true;
+        flush();
+    }
+
+    // Enviar os pendentes; sem efeito se já há um envio no ar (ele continua até esvaziar)
+    void flush() {
+        if (!uploading.compareAndSet(false, true)) {
+            return;
+        }
+        List<LocationFix> pending = recorder.pending(MAX_FIXES_PER_UPLOAD);
+        if (pending.isEmpty()) {
+            uploading.set(false);
+            deleteIfDone();
+            return;
+        }
+        long end = recorder.getAckedSeq() + pending.size();
+        supabaseService.uploadLocationBatch(recorder.getUserId(), recorder.getServiceId(), pending,
+            new SupabaseService.SupabaseCallback() {
+                @Override
+                public void onSuccess(String response) {
+                    recorder.acknowledge(end);
+                    uploadedFixes.add(pending.size());
+                    uploading.set(false);
+                    if (recorder.pendingCount() > 0) {
+                        flush();
+                    } else {
+                        deleteIfDone();
+                    }
+                }
+
+                @Override
+                public void onError(String error) {
+                    uploadFailures.increment();
+                    uploading.set(false);
+                    AppLog.w(TAG, "Envio da trilha falhou ({} fixes ficam no arquivo): {}", recorder.pendingCount(), error);
+                    if (finished) {
+                        // Ninguém mais chama flush: a trilha volta para o próximo recoverAll
+                        release();
+                    }
+                }
+            });
+    }
+
+    private void deleteIfDone() {
+        if (!finished || recorder.pendingCount() > 0) {
+            return;
+        }
+        try {
+            recorder.delete();
+        } catch (IOException e) {
+            AppLog.w(TAG, "Erro ao apagar trilha: {}", e.getMessage());
+        }
+        LIVE_TRACES.remove(recorder.getFile().getAbsolutePath());
+    }
+
+    private void release() {
+        try {
+            recorder.close();
+        } catch (IOException e) {
+            AppLog.w(TAG, "Erro ao fechar trilha: {}", e.getMessage());
+        }
+        LIVE_TRACES.remove(recorder.getFile().getAbsolutePath());
+    }
+}
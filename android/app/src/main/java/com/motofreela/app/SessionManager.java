@@ -0,0 +1,380 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import androidx.security.crypto.EncryptedSharedPreferences;
+import androidx.security.crypto.MasterKeys;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import okhttp3.Authenticator;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Sessão do Supabase Auth: token cifrado em disco e renovação única, antes de vencer ou após um 401
+public class SessionManager {
+    private static final String TAG = "SessionManager";
+    // Tokens cifrados (chave no Android Keystore); o arquivo antigo, em texto puro, só é lido para migrar
+    private static final String PREFS = "motofreela_session_secure";
+    private static final String LEGACY_PREFS = "motofreela_session";
+    private static final String KEY_ACCESS_TOKEN = "accessToken";
+    private static final String KEY_REFRESH_TOKEN = "refreshToken";
+    private static final String KEY_EXPIRES_AT = "expiresAt";
+    private static final String KEY_USER_ID = "userId";
+
+    private static final long REFRESH_MARGIN_MS = 60_000;
+    private static final long RETRY_DELAY_MS = 30_000;
+    private static final long REFRESH_WAIT_S = 15;
+
+    private static volatile SessionManager instance;
+
+    // Sessão imutável: trocada inteira a cada login/renovação
+    static final class Session {
+        final String accessToken;
+        final String refreshToken;
+        final String userId;
+        final long expiresAtMillis;
+
+        Session(String accessToken, String refreshToken, String userId, long expiresAtMillis) {
+            this.accessToken = accessToken;
+            this.refreshToken = refreshToken;
+            this.userId = userId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final OkHttpClient httpClient;
+    private final String supabaseUrl;
+    private final String supabaseKey;
+    private final SharedPreferences prefs;
+    private final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Session session;
+    private volatile long lastAttemptMillis;
+    private FutureTask<Session> inFlight;
+    private ScheduledFuture<?> scheduledRefresh;
+
+    private final MetricsRegistry.Counter refreshCount = MetricsRegistry.getInstance().counter("session.refreshes");
+    private final MetricsRegistry.Counter refreshFailures = MetricsRegistry.getInstance().counter("session.refresh_failures");
+    private final MetricsRegistry.Counter joinedRefreshes = MetricsRegistry.getInstance().counter("session.refresh_joined");
+    private final MetricsRegistry.Histogram refreshWait = MetricsRegistry.getInstance().histogram("session.refresh_wait");
+
+    public static SessionManager getInstance(Context context) {
+        if (instance == null) {
+            synchronized (SessionManager.class) {
+                if (instance == null) {
+                    Context appContext = context.getApplicationContext();
+                    instance = new SessionManager(
+                        SupabaseService.sharedClient(),
+                        appContext.getString(R.string.supabase_url),
+                        appContext.getString(R.string.supabase_anon_key),
+                        openPrefs(appContext));
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Keystore indisponível: sessão só em memória (novo login a cada abertura), nunca em texto puro
+    private static SharedPreferences openPrefs(Context context) {
+        SharedPreferences secure;
+        try {
+            secure = openEncrypted(context);
+        } catch (GeneralSecurityException | IOException e) {
+            // Arquivo restaurado de backup sem a chave deste aparelho: descarta e cria de novo
+            AppLog.w(TAG, "Sessão cifrada ilegível ({}); recriando", e.getMessage());
+            context.getSharedPreferences(PREFS, Context.MODE_PRIVATE).edit().clear().commit();
+            try {
+                secure = openEncrypted(context);
+            } catch (GeneralSecurityException | IOException retry) {
+                AppLog.e(TAG, "Armazenamento cifrado indisponível: {}", retry.getMessage());
+                secure = null;
+            }
+        }
+        SharedPreferences legacy = context.getSharedPreferences(LEGACY_PREFS, Context.MODE_PRIVATE);
+        if (legacy.contains(KEY_REFRESH_TOKEN)) {
+            if (secure != null && !secure.contains(KEY_REFRESH_TOKEN)) {
+                secure.edit()
+                    .putString(KEY_ACCESS_TOKEN, legacy.getString(KEY_ACCESS_TOKEN, null))
+                    .putString(KEY_REFRESH_TOKEN, legacy.getString(KEY_REFRESH_TOKEN, null))
+                    .putString(KEY_USER_ID, legacy.getString(KEY_USER_ID, null))
+                    .putLong(KEY_EXPIRES_AT, legacy.getLong(KEY_EXPIRES_AT, 0))
+                    .commit();
+            }
+            legacy.edit().clear().commit();
+        }
+        return secure;
+    }
+
+    private static SharedPreferences openEncrypted(Context context) throws GeneralSecurityException, IOException {
+        return EncryptedSharedPreferences.create(
+            PREFS,
+            MasterKeys.getOrCreate(MasterKeys.AES256_GCM_SPEC),
+            context,
+            EncryptedSharedPreferences.PrefKeyEncryptionScheme.AES256_SIV,
+            EncryptedSharedPreferences.PrefValueEncryptionScheme.AES256_GCM);
+    }
+
+    // prefs null = sessão só em memória (testes)
+    SessionManager(OkHttpClient httpClient, String supabaseUrl, String supabaseKey, SharedPreferences prefs) {
+        this.httpClient = httpClient;
+        this.supabaseUrl = supabaseUrl;
+        this.supabaseKey = supabaseKey;
+        this.prefs = prefs;
+        Session saved = load();
+        if (saved != null) {
+            session = saved;
+            scheduleRefresh(saved);
+        }
+    }
+
+    // Caminho quente: só lê o campo volátil
+    public String getAccessToken() {
+        Session current = session;
+        return current != null ? current.accessToken : null;
+    }
+
+    public String getUserId() {
+        Session current = session;
+        return current != null ? current.userId : null;
+    }
+
+    public boolean isSignedIn() {
+        return session != null;
+    }
+
+    // Resposta do /auth/v1/token de um login
+    void onTokenResponse(String responseBody) throws JSONException {
+        install(parse(responseBody, getUserId()));
+    }
+
+    public synchronized void signOut() {
+        signOutIf(session);
+    }
+
+    // Só encerra se a sessão ainda é 'expected' (um login depois da renovação recusada continua)
+    private synchronized void signOutIf(Session expected) {
+        if (session != expected) {
+            return;
+        }
+        session = null;
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+            scheduledRefresh = null;
+        }
+        if (prefs != null) {
+            prefs.edit().clear().apply();
+        }
+    }
+
+    // Renovação única: quem chega com uma em andamento recebe a mesma
+    synchronized FutureTask<Session> refreshAsync() {
+        if (inFlight != null) {
+            joinedRefreshes.increment();
+            return inFlight;
+        }
+        FutureTask<Session> task = new FutureTask<>(() -> {
+            try {
+                return doRefresh();
+            } finally {
+                synchronized (SessionManager.this) {
+                    inFlight = null;
+                }
+            }
+        });
+        inFlight = task;
+        refreshExecutor.execute(task);
+        return task;
+    }
+
+    // Chamado pelo Authenticator após 401; retorna o token a usar ou null para desistir
+    String refreshBlocking(String rejectedToken) {
+        Session current = session;
+        if (current == null) {
+            return null;
+        }
+        if (!current.accessToken.equals(rejectedToken)) {
+            // Outra requisição já renovou enquanto esta estava no ar
+            return current.accessToken;
+        }
+        long startNanos = System.nanoTime();
+        try {
+            Session renewed = refreshAsync().get(REFRESH_WAIT_S, TimeUnit.SECONDS);
+            return renewed != null ? renewed.accessToken : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        } finally {
+            refreshWait.recordSince(startNanos);
+        }
+    }
+
+    // Cabeçalhos de autenticação em toda requisição; token vencido dispara a renovação sem esperar
+    Interceptor interceptor() {
+        return chain -> {
+            Request request = chain.request();
+            String token = null;
+            if (!request.url().encodedPath().startsWith("/auth/v1/")) {
+                Session current = session;
+                if (current != null) {
+                    token = current.accessToken;
+                    long now = System.currentTimeMillis();
+                    if (now >= current.expiresAtMillis && now - lastAttemptMillis >= RETRY_DELAY_MS) {
+                        refreshAsync();
+                    }
+                }
+            }
+            return chain.proceed(request.newBuilder()
+                .header("Authorization", "Bearer " + (token != null ? token : supabaseKey))
+                .header("apikey", supabaseKey)
+                .build());
+        };
+    }
+
+    // 401 com token de usuário: espera a renovação única e repete uma vez
+    Authenticator authenticator() {
+        return (route, response) -> {
+            if (response.priorResponse() != null) {
+                return null;
+            }
+            String header = response.request().header("Authorization");
+            String sentToken = header != null && header.startsWith("Bearer ") ? header.substring(7) : null;
+            if (sentToken == null || sentToken.equals(supabaseKey)) {
+                return null;
+            }
+            String token = refreshBlocking(sentToken);
+            if (token == null) {
+                return null;
+            }
+            return response.request().newBuilder()
+                .header("Authorization", "Bearer " + token)
+                .build();
+        };
+    }
+
+    // Executado na thread session-refresh
+    private Session doRefresh() {
+        Session current = session;
+        if (current == null) {
+            return null;
+        }
+        refreshCount.increment();
+        lastAttemptMillis = System.currentTimeMillis();
+        Request request = new Request.Builder()
+            .url(supabaseUrl + "/auth/v1/token?grant_type=refresh_token")
+            .header("apikey", supabaseKey)
+            .header("Authorization", "Bearer " + supabaseKey)
+            .post(new JsonRequestBody(writer -> writer.beginObject().field("refresh_token", current.refreshToken).endObject()))
+            .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            if (response.isSuccessful()) {
+                Session renewed = parse(body, current.userId);
+                if (!replace(current, renewed)) {
+                    // signOut (ou novo login) durante a renovação: a resposta não ressuscita a sessão antiga
+                    AppLog.i(TAG, "Sessão mudou durante a renovação; resposta descartada");
+                    return session;
+                }
+                AppLog.i(TAG, "Sessão renovada");
+                return renewed;
+            }
+            refreshFailures.increment();
+            if (response.code() == 400 || response.code() == 401) {
+                // Refresh token revogado ou já usado: só um novo login resolve
+                AppLog.w(TAG, "Renovação recusada ({}); sessão encerrada", response.code());
+                signOutIf(current);
+                return null;
+            }
+            AppLog.w(TAG, "Renovação falhou: {}", response.code());
+        } catch (IOException | JSONException e) {
+            refreshFailures.increment();
+            AppLog.w(TAG, "Renovação falhou: {}", e.getMessage());
+        }
+        retryLater();
+        return null;
+    }
+
+    private static Session parse(String responseBody, String fallbackUserId) throws JSONException {
+        JSONObject json = new JSONObject(responseBody);
+        JSONObject user = json.optJSONObject("user");
+        long expiresAt = json.has("expires_at")
+            ? json.getLong("expires_at") * 1000
+            : System.currentTimeMillis() + json.getLong("expires_in") * 1000;
+        return new Session(
+            json.getString("access_token"),
+            json.getString("refresh_token"),
+            user != null ? user.optString("id", null) : fallbackUserId,
+            expiresAt);
+    }
+
+    private synchronized void install(Session next) {
+        session = next;
+        save(next);
+        scheduleRefresh(next);
+    }
+
+    // Troca condicional: a renovação só vale para a sessão que a pediu
+    private synchronized boolean replace(Session expected, Session next) {
+        if (session != expected) {
+            return false;
+        }
+        install(next);
+        return true;
+    }
+
+    private synchronized void scheduleRefresh(Session target) {
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        // Um minuto antes de vencer; tokens mais curtos que duas margens, na metade da vida restante
+        long remaining = Math.max(0, target.expiresAtMillis - System.currentTimeMillis());
+        long delay = remaining > 2 * REFRESH_MARGIN_MS ? remaining - REFRESH_MARGIN_MS : remaining / 2;
+        scheduledRefresh = refreshExecutor.schedule(this::refreshAsync, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void retryLater() {
+        if (session == null) {
+            return;
+        }
+        scheduledRefresh = refreshExecutor.schedule(this::refreshAsync, RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private Session load() {
+        if (prefs == null || prefs.getString(KEY_REFRESH_TOKEN, null) == null) {
+            return null;
+        }
+        return new Session(
+            prefs.getString(KEY_ACCESS_TOKEN, null),
+            prefs.getString(KEY_REFRESH_TOKEN, null),
+            prefs.getString(KEY_USER_ID, null),
+            prefs.getLong(KEY_EXPIRES_AT, 0));
+    }
+
+    private void save(Session next) {
+        if (prefs == null) {
+            return;
+        }
+        prefs.edit()
+            .putString(KEY_ACCESS_TOKEN, next.accessToken)
+            .putString(KEY_REFRESH_TOKEN, next.refreshToken)
+            .putString(KEY_USER_ID, next.userId)
+            .putLong(KEY_EXPIRES_AT, next.expiresAtMillis)
+            .apply();
+    }
+}
@@ -0,0 +1,8 @@
+package com.motofreela.app;
+
+// Falha de uma chamada ao Supabase com a mesma mensagem entregue ao onError dos callbacks
+public class SupabaseException extends Exception {
+    public SupabaseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,257 @@
+package com.motofreela.app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Resultado futuro de uma chamada ao Supabase (CompletableFuture só existe a partir da API 24)
+public final class SupabaseFuture<T> {
+    public interface Listener<T> {
+        // error é null em caso de sucesso; CancellationException se foi cancelado
+        void onComplete(T value, Throwable error);
+    }
+
+    public interface Function<A, B> {
+        B apply(A value) throws Exception;
+    }
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "supabase-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private T value;
+    private Throwable error;
+    private boolean done;
+    private List<Listener<? super T>> listeners = new ArrayList<>();
+    private Runnable canceller;
+
+    public static <T> SupabaseFuture<T> completed(T value) {
+        SupabaseFuture<T> future = new SupabaseFuture<>();
+        future.complete(value);
+        return future;
+    }
+
+    public static <T> SupabaseFuture<T> failed(Throwable error) {
+        SupabaseFuture<T> future = new SupabaseFuture<>();
+        future.fail(error);
+        return future;
+    }
+
+    // Todos juntos, na ordem recebida; a primeira falha cancela os demais
+    @SafeVarargs
+    public static <T> SupabaseFuture<List<T>> all(SupabaseFuture<T>... futures) {
+        return all(Arrays.asList(futures));
+    }
+
+    public static <T> SupabaseFuture<List<T>> all(List<SupabaseFuture<T>> futures) {
+        SupabaseFuture<List<T>> result = new SupabaseFuture<>();
+        result.setCanceller(() -> {
+            for (SupabaseFuture<T> future : futures) {
+                future.cancel();
+            }
+        });
+        if (futures.isEmpty()) {
+            result.complete(new ArrayList<>());
+            return result;
+        }
+        List<T> values = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            values.add(null);
+        }
+        AtomicInteger remaining = new AtomicInteger(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            int index = i;
+            futures.get(i).whenComplete((value, error) -> {
+                if (error != null) {
+                    if (result.fail(error)) {
+                        for (SupabaseFuture<T> future : futures) {
+                            future.cancel();
+                        }
+                    }
+                    return;
+                }
+                synchronized (values) {
+                    values.set(index, value);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    synchronized (values) {
+                        result.complete(new ArrayList<>(values));
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    public boolean complete(T value) {
+        return finish(value, null);
+    }
+
+    public boolean fail(Throwable error) {
+        return finish(null, error);
+    }
+
+    // Cancela o trabalho por trás (a Call do OkHttp); retorna false se já tinha terminado
+    public boolean cancel() {
+        return failAndCancel(new CancellationException());
+    }
+
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    // Terminou com falha, cancelamento ou timeout
+    public synchronized boolean isCompletedExceptionally() {
+        return done && error != null;
+    }
+
+    public synchronized boolean isCancelled() {
+        return done && error instanceof CancellationException;
+    }
+
+    // O que cancelar junto com este futuro; roda na hora se ele já foi cancelado
+    void setCanceller(Runnable canceller) {
+        boolean cancelled;
+        synchronized (this) {
+            this.canceller = canceller;
+            cancelled = done && error instanceof CancellationException;
+        }
+        if (cancelled) {
+            canceller.run();
+        }
+    }
+
+    public SupabaseFuture<T> whenComplete(Listener<? super T> listener) {
+        synchronized (this) {
+            if (!done) {
+                listeners.add(listener);
+                return this;
+            }
+        }
+        listener.onComplete(value, error);
+        return this;
+    }
+
+    // Transformar o resultado; uma exceção na função vira falha do novo futuro
+    public <R> SupabaseFuture<R> map(Function<? super T, ? extends R> function) {
+        SupabaseFuture<R> result = new SupabaseFuture<>();
+        result.setCanceller(this::cancel);
+        whenComplete((value, error) -> {
+            if (error != null) {
+                result.fail(error);
+                return;
+            }
+            try {
+                result.complete(function.apply(value));
+            } catch (Exception e) {
+                result.fail(e);
+            }
+        });
+        return result;
+    }
+
+    // Encadear outra chamada que depende deste resultado; cancelar alcança a etapa em andamento
+    public <R> SupabaseFuture<R> then(Function<? super T, SupabaseFuture<R>> function) {
+        SupabaseFuture<R> result = new SupabaseFuture<>();
+        result.setCanceller(this::cancel);
+        whenComplete((value, error) -> {
+            if (error != null) {
+                result.fail(error);
+                return;
+            }
+            try {
+                SupabaseFuture<R> next = function.apply(value);
+                result.setCanceller(next::cancel);
+                next.whenComplete((nextValue, nextError) -> {
+                    if (nextError != null) {
+                        result.fail(nextError);
+                    } else {
+                        result.complete(nextValue);
+                    }
+                });
+            } catch (Exception e) {
+                result.fail(e);
+            }
+        });
+        return result;
+    }
+
+    // Falhar com TimeoutException (e cancelar a chamada) se não terminar no prazo
+    public SupabaseFuture<T> withTimeout(long timeout, TimeUnit unit) {
+        ScheduledFuture<?> timeoutTask = timer.schedule(
+            () -> failAndCancel(new TimeoutException("Sem resposta em " + unit.toMillis(timeout) + " ms")),
+            timeout, unit);
+        whenComplete((value, error) -> timeoutTask.cancel(false));
+        return this;
+    }
+
+    // Cancelado junto com o escopo (ex.: quando a tela é destruída)
+    public SupabaseFuture<T> bindTo(CallScope scope) {
+        scope.add(this);
+        return this;
+    }
+
+    // Espera bloqueante, para threads de fundo
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (!done) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TimeoutException();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+            if (error instanceof CancellationException) {
+                throw (CancellationException) error;
+            }
+            if (error != null) {
+                throw new ExecutionException(error);
+            }
+            return value;
+        }
+    }
+
+    private boolean failAndCancel(Throwable reason) {
+        if (!finish(null, reason)) {
+            return false;
+        }
+        Runnable toRun;
+        synchronized (this) {
+            toRun = canceller;
+        }
+        if (toRun != null) {
+            toRun.run();
+        }
+        return true;
+    }
+
+    private boolean finish(T value, Throwable error) {
+        List<Listener<? super T>> toNotify;
+        synchronized (this) {
+            if (done) {
+                return false;
+            }
+            this.value = value;
+            this.error = error;
+            this.done = true;
+            toNotify = listeners;
+            listeners = null;
+            notifyAll();
+        }
+        for (Listener<? super T> listener : toNotify) {
+            listener.onComplete(value, error);
+        }
+        return true;
+    }
+}
@@ -1,31 +1,100 @@
 package com.motofreela.app;
 
 import android.content.Context;
-import android.util.Log;
-import org.json.JSONObject;
-import org.json.JSONException;
+import com.motofreela.core.LocationFix;
+import com.motofreela.core.SupabasePayloads;
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import okhttp3.*;
+import org.json.JSONArray;
+import org.json.JSONException;
 
 public class SupabaseService {
     private static final String TAG = "SupabaseService";
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final MetricsRegistry.Counter cancelledRequests = metrics.counter("requests.cancelled");
     private Context context;
     private OkHttpClient httpClient;
     private String supabaseUrl;
     private String supabaseKey;
+    private final SessionManager sessionManager;
+    private final RequestScheduler scheduler;
+    
+    // Colunas lidas em cada consulta (evita trazer a linha inteira)
+    static final String[] PROFILE_COLUMNS = {"id", "full_name", "avatar_url", "phone", "rating", "total_jobs"};
+    static final String[] MESSAGE_COLUMNS = {"id", "sender_id", "receiver_id", "content", "message_type", "read", "created_at"};
+    static final String[] LOCATION_COLUMNS = {"latitude", "longitude", "accuracy", "updated_at"};
+    static final String[] SERVICE_PARTICIPANT_COLUMNS = {"company_id", "motoboy_id"};
+    static final int CHAT_PAGE_SIZE = 100;
+    
+    // Posição atual: uma linha por usuário (user_id é UNIQUE), atualizada no lugar e sem eco
+    static final String LOCATION_UPSERT_PREFER = "resolution=merge-duplicates,return=minimal";
+    static final String MINIMAL_PREFER = "return=minimal";
+    
+    // Desligado se o servidor recusar corpos comprimidos; vale até o app reiniciar
+    private static volatile boolean gzipWrites = true;
+    
+    // Um cliente (pool de conexões e dispatcher) para o processo inteiro
+    private static OkHttpClient sharedClient;
+    // Faixas de prioridade compartilhadas por todas as instâncias (mesmo dispatcher)
+    private static final RequestScheduler sharedScheduler = new RequestScheduler();
     
     public SupabaseService(Context context) {
+        // Configurar URL e chave do Supabase (mesmo da versão web)
+        this(
+            context,
+            sharedClient(),
+            context.getString(R.string.supabase_url),
+            context.getString(R.string.supabase_anon_key),
+            SessionManager.getInstance(context)
+        );
+    }
+    
+    // Construtor com cliente e servidor explícitos (usado nos testes com PostgREST local)
+    SupabaseService(Context context, OkHttpClient httpClient, String supabaseUrl, String supabaseKey) {
+        this(context, httpClient, supabaseUrl, supabaseKey,
+            new SessionManager(httpClient, supabaseUrl, supabaseKey, null), new RequestScheduler());
+    }
+    
+    SupabaseService(Context context, OkHttpClient httpClient, String supabaseUrl, String supabaseKey, SessionManager sessionManager) {
+        this(context, httpClient, supabaseUrl, supabaseKey, sessionManager, sharedScheduler);
+    }
+    
+    SupabaseService(Context context, OkHttpClient httpClient, String supabaseUrl, String supabaseKey,
+                    SessionManager sessionManager, RequestScheduler scheduler) {
         this.context = context;
-        this.httpClient = new OkHttpClient.Builder()
-            .connectTimeout(30, TimeUnit.SECONDS)
-            .readTimeout(30, TimeUnit.SECONDS)
-            .writeTimeout(30, TimeUnit.SECONDS)
+        this.supabaseUrl = supabaseUrl;
+        this.supabaseKey = supabaseKey;
+        this.sessionManager = sessionManager;
+        this.scheduler = scheduler;
+        // As faixas limitam a concorrência; o limite por host do dispatcher não pode ser menor
+        if (httpClient.dispatcher().getMaxRequestsPerHost() < RequestScheduler.TOTAL_BUDGET) {
+            httpClient.dispatcher().setMaxRequestsPerHost(RequestScheduler.TOTAL_BUDGET);
+        }
+        // newBuilder compartilha pool e dispatcher; só acrescenta a autenticação
+        this.httpClient = httpClient.newBuilder()
+            .addInterceptor(sessionManager.interceptor())
+            .authenticator(sessionManager.authenticator())
             .build();
-        
-        // Configurar URL e chave do Supabase (mesmo da versão web)
-        this.supabaseUrl = context.getString(R.string.supabase_url);
-        this.supabaseKey = context.getString(R.string.supabase_anon_key);
+    }
+    
+    static synchronized OkHttpClient sharedClient() {
+        if (sharedClient == null) {
+            sharedClient = new OkHttpClient.Builder()
+                .connectTimeout(30, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .eventListenerFactory(NetworkQualityMonitor.getInstance().eventListenerFactory())
+                .build();
+        }
+        return sharedClient;
+    }
+    
+    public SessionManager getSessionManager() {
+        return sessionManager;
     }
     
     // Interface para callbacks do Supabase
@@ -34,112 +103,219 @@ public class SupabaseService {
         void onError(String error);
     }
     
-    // Autenticação
+    // Autenticação (a sessão fica salva e passa a assinar as próximas requisições)
     public void signIn(String email, String password, SupabaseCallback callback) {
-        try {
-            JSONObject authData = new JSONObject();
-            authData.put("email", email);
-            authData.put("password", password);
-            
-            makeRequest("POST", "/auth/v1/token?grant_type=password", authData.toString(), callback);
-        } catch (JSONException e) {
-            Log.e(TAG, "Erro ao criar dados de autenticação: " + e.getMessage());
-            if (callback != null) {
-                callback.onError("Erro ao fazer login");
-            }
-        }
+        makeRequest("POST", "/auth/v1/token?grant_type=password", null, RequestScheduler.Priority.CRITICAL,
+            new JsonRequestBody(writer -> SupabasePayloads.signIn(writer, email, password)), new SupabaseCallback() {
+                @Override
+                public void onSuccess(String response) {
+                    try {
+                        sessionManager.onTokenResponse(response);
+                    } catch (JSONException e) {
+                        AppLog.e(TAG, "Resposta de login inválida: {}", e.getMessage());
+                    }
+                    if (callback != null) {
+                        callback.onSuccess(response);
+                    }
+                }
+                
+                @Override
+                public void onError(String error) {
+                    if (callback != null) {
+                        callback.onError(error);
+                    }
+                }
+            });
+    }
+    
+    public void signOut() {
+        sessionManager.signOut();
     }
     
     // Registrar usuário
     public void signUp(String email, String password, String fullName, String role, SupabaseCallback callback) {
-        try {
-            JSONObject userData = new JSONObject();
-            userData.put("email", email);
-            userData.put("password", password);
-            userData.put("data", new JSONObject()
-                .put("full_name", fullName)
-                .put("role", role)
-            );
-            
-            makeRequest("POST", "/auth/v1/signup", userData.toString(), callback);
-        } catch (JSONException e) {
-            Log.e(TAG, "Erro ao criar dados de registro: " + e.getMessage());
-            if (callback != null) {
-                callback.onError("Erro ao registrar usuário");
-            }
-        }
+        makeRequest("POST", "/auth/v1/signup", null, RequestScheduler.Priority.CRITICAL,
+            new JsonRequestBody(writer -> SupabasePayloads.signUp(writer, email, password, fullName, role)), callback);
     }
     
     // Obter perfil do usuário
     public void getUserProfile(String userId, SupabaseCallback callback) {
-        makeRequest("GET", "/rest/v1/profiles?id=eq." + userId, null, callback);
+        query(profileQuery(userId), callback);
+    }
+    
+    public SupabaseFuture<String> getUserProfileAsync(String userId) {
+        return getUserProfileAsync(userId, RequestScheduler.Priority.INTERACTIVE);
+    }
+    
+    public SupabaseFuture<String> getUserProfileAsync(String userId, RequestScheduler.Priority priority) {
+        return queryAsync(profileQuery(userId), priority);
+    }
+    
+    private static PostgrestQuery profileQuery(String userId) {
+        return PostgrestQuery.from("profiles")
+            .select(PROFILE_COLUMNS)
+            .eq("id", userId)
+            .limit(1);
     }
     
     // Enviar mensagem de chat
     public void sendChatMessage(String serviceId, String senderId, String receiverId, String content, String messageType, SupabaseCallback callback) {
-        try {
-            JSONObject messageData = new JSONObject();
-            messageData.put("service_id", serviceId);
-            messageData.put("sender_id", senderId);
-            messageData.put("receiver_id", receiverId);
-            messageData.put("content", content);
-            messageData.put("message_type", messageType);
-            
-            makeRequest("POST", "/rest/v1/messages", messageData.toString(), callback);
-        } catch (JSONException e) {
-            Log.e(TAG, "Erro ao criar mensagem: " + e.getMessage());
-            if (callback != null) {
-                callback.onError("Erro ao enviar mensagem");
-            }
-        }
+        makeRequest("POST", "/rest/v1/messages",
+            new JsonRequestBody(writer -> SupabasePayloads.chatMessage(writer, serviceId, senderId, receiverId, content, messageType)), callback);
     }
     
-    // Obter mensagens do chat
+    // Obter mensagens do chat (página mais recente, menor em link ruim)
     public void getChatMessages(String serviceId, SupabaseCallback callback) {
-        makeRequest("GET", "/rest/v1/messages?service_id=eq." + serviceId + "&order=created_at.asc", null, callback);
+        getChatMessages(serviceId, 0, chatPageSize() - 1, callback);
     }
     
-    // Enviar avaliação
-    public void submitRating(String serviceId, String raterId, String ratedId, int rating, String comment, SupabaseCallback callback) {
-        try {
-            JSONObject ratingData = new JSONObject();
-            ratingData.put("service_id", serviceId);
-            ratingData.put("rater_id", raterId);
-            ratingData.put("rated_id", ratedId);
-            ratingData.put("rating", rating);
-            ratingData.put("comment", comment);
+    // Obter mensagens do chat paginadas a partir da mais recente (intervalo inclusivo: 0 é a
+    // mais nova); cada página vem em ordem cronológica
+    public void getChatMessages(String serviceId, int from, int to, SupabaseCallback callback) {
+        query(chatMessagesQuery(serviceId, from, to), new SupabaseCallback() {
+            @Override
+            public void onSuccess(String response) {
+                String rows;
+                try {
+                    rows = chronological(response);
+                } catch (JSONException e) {
+                    if (callback != null) {
+                        callback.onError("Resposta inválida: " + e.getMessage());
+                    }
+                    return;
+                }
+                if (callback != null) {
+                    callback.onSuccess(rows);
+                }
+            }
             
-            makeRequest("POST", "/rest/v1/ratings", ratingData.toString(), callback);
-        } catch (JSONException e) {
-            Log.e(TAG, "Erro ao criar avaliação: " + e.getMessage());
-            if (callback != null) {
-                callback.onError("Erro ao enviar avaliação");
+            @Override
+            public void onError(String error) {
+                if (callback != null) {
+                    callback.onError(error);
+                }
             }
+        });
+    }
+    
+    public SupabaseFuture<String> getChatMessagesAsync(String serviceId) {
+        return getChatMessagesAsync(serviceId, RequestScheduler.Priority.INTERACTIVE);
+    }
+    
+    public SupabaseFuture<String> getChatMessagesAsync(String serviceId, RequestScheduler.Priority priority) {
+        return queryAsync(chatMessagesQuery(serviceId, 0, chatPageSize() - 1), priority)
+            .map(SupabaseService::chronological);
+    }
+    
+    private static int chatPageSize() {
+        return NetworkQualityMonitor.getInstance().getPolicy().chatPageSize;
+    }
+    
+    // Mais novas primeiro no banco, para o Range pegar o fim da conversa
+    private static PostgrestQuery chatMessagesQuery(String serviceId, int from, int to) {
+        return PostgrestQuery.from("messages")
+            .select(MESSAGE_COLUMNS)
+            .eq("service_id", serviceId)
+            .order("created_at", false)
+            .range(from, to);
+    }
+    
+    // Inverte a página (que vem da mais nova para a mais antiga) para a ordem da conversa
+    static String chronological(String rowsJson) throws JSONException {
+        JSONArray rows = new JSONArray(rowsJson);
+        JSONArray reversed = new JSONArray();
+        for (int i = rows.length() - 1; i >= 0; i--) {
+            reversed.put(rows.get(i));
         }
+        return reversed.toString();
+    }
+    
+    // Enviar avaliação
+    public void submitRating(String serviceId, String raterId, String ratedId, int rating, String comment, SupabaseCallback callback) {
+        makeRequest("POST", "/rest/v1/ratings",
+            new JsonRequestBody(writer -> SupabasePayloads.rating(writer, serviceId, raterId, ratedId, rating, comment)), callback);
     }
     
-    // Atualizar localização do usuário
+    // Atualizar localização do usuário (upsert na linha do usuário; updated_at vem do banco)
     public void updateUserLocation(String userId, double latitude, double longitude, float accuracy, SupabaseCallback callback) {
-        try {
-            JSONObject locationData = new JSONObject();
-            locationData.put("user_id", userId);
-            locationData.put("latitude", latitude);
-            locationData.put("longitude", longitude);
-            locationData.put("accuracy", accuracy);
-            locationData.put("updated_at", "now()");
-            
-            makeRequest("POST", "/rest/v1/user_locations", locationData.toString(), callback);
-        } catch (JSONException e) {
-            Log.e(TAG, "Erro ao atualizar localização: " + e.getMessage());
-            if (callback != null) {
-                callback.onError("Erro ao atualizar localização");
-            }
-        }
+        makeRequest("POST", supabaseUrl + "/rest/v1/user_locations?on_conflict=user_id", "/rest/v1/user_locations", null,
+            LOCATION_UPSERT_PREFER, RequestScheduler.Priority.BACKGROUND,
+            new JsonRequestBody(writer -> SupabasePayloads.location(writer, userId, latitude, longitude, accuracy)), callback);
+    }
+    
+    // Enviar um lote de fixes do rastreamento para o histórico (um POST por lote, sem eco da linha)
+    public void uploadLocationBatch(String userId, String serviceId, List<LocationFix> fixes, SupabaseCallback callback) {
+        List<LocationFix> batch = new ArrayList<>(fixes);
+        RequestBody body = new JsonRequestBody(writer -> SupabasePayloads.locationHistory(writer, userId, serviceId, batch));
+        makeRequest("POST", "/rest/v1/location_history", MINIMAL_PREFER, RequestScheduler.Priority.BACKGROUND,
+            gzipWrites ? new GzipRequestBody(body) : body, callback);
     }
     
     // Obter localização do usuário
     public void getUserLocation(String userId, SupabaseCallback callback) {
-        makeRequest("GET", "/rest/v1/user_locations?user_id=eq." + userId, null, callback);
+        query(locationQuery(userId), RequestScheduler.Priority.BACKGROUND, callback);
+    }
+    
+    // Numa tela aberta, a posição é o que o usuário está olhando: faixa interativa
+    public SupabaseFuture<String> getUserLocationAsync(String userId) {
+        return getUserLocationAsync(userId, RequestScheduler.Priority.INTERACTIVE);
+    }
+    
+    public SupabaseFuture<String> getUserLocationAsync(String userId, RequestScheduler.Priority priority) {
+        return queryAsync(locationQuery(userId), priority);
+    }
+    
+    // Participantes de uma corrida (empresa e entregador)
+    public SupabaseFuture<String> getServiceParticipantsAsync(String serviceId, RequestScheduler.Priority priority) {
+        return queryAsync(PostgrestQuery.from("services")
+            .select(SERVICE_PARTICIPANT_COLUMNS)
+            .eq("id", serviceId)
+            .limit(1), priority);
+    }
+    
+    private static PostgrestQuery locationQuery(String userId) {
+        return PostgrestQuery.from("user_locations")
+            .select(LOCATION_COLUMNS)
+            .eq("user_id", userId)
+            .limit(1);
+    }
+    
+    // Tela da corrida numa única ida paralela: [perfil do outro usuário, mensagens, posição dele]
+    public SupabaseFuture<List<String>> loadRideScreen(String serviceId, String otherUserId) {
+        return SupabaseFuture.all(
+            getUserProfileAsync(otherUserId),
+            getChatMessagesAsync(serviceId),
+            getUserLocationAsync(otherUserId));
+    }
+    
+    // Consulta tipada ao PostgREST (faixa interativa)
+    public void query(PostgrestQuery query, SupabaseCallback callback) {
+        query(query, RequestScheduler.Priority.INTERACTIVE, callback);
+    }
+    
+    public void query(PostgrestQuery query, RequestScheduler.Priority priority, SupabaseCallback callback) {
+        makeRequest("GET", query.toUrl(supabaseUrl).toString(), query.getPath(), query, null, priority, null, callback);
+    }
+    
+    // Consulta com futuro: cancelar o futuro tira a chamada da fila ou cancela a Call em andamento
+    public SupabaseFuture<String> queryAsync(PostgrestQuery query, RequestScheduler.Priority priority) {
+        SupabaseFuture<String> future = new SupabaseFuture<>();
+        RequestScheduler.Handle handle = makeRequest("GET", query.toUrl(supabaseUrl).toString(), query.getPath(), query,
+            null, priority, null, new SupabaseCallback() {
+                @Override
+                public void onSuccess(String response) {
+                    future.complete(response);
+                }
+                
+                @Override
+                public void onError(String error) {
+                    future.fail(new SupabaseException(error));
+                }
+            });
+        if (handle != null) {
+            future.setCanceller(handle::cancel);
+        }
+        return future;
     }
     
     // Upload de documento
@@ -147,27 +323,67 @@ public class SupabaseService {
         try {
             // Converter base64 para bytes
             byte[] imageBytes = android.util.Base64.decode(base64Data, android.util.Base64.DEFAULT);
+            uploadDocument(userId, documentType, imageBytes, imageBytes.length, format, callback);
+        } catch (Exception e) {
+            AppLog.e(TAG, "Erro ao processar documento: {}", e.getMessage());
+            if (callback != null) {
+                callback.onError("Erro ao processar documento");
+            }
+        }
+    }
+    
+    // Upload de documento já codificado (sem passar por base64)
+    public void uploadDocument(String userId, String documentType, byte[] imageBytes, int length, String format, SupabaseCallback callback) {
+        RequestBody requestBody = RequestBody.create(
+            MediaType.parse("image/" + format),
+            imageBytes,
+            0,
+            length
+        );
+        uploadDocumentBody(userId, documentType, requestBody, format, callback);
+    }
+    
+    // Upload de documento direto de um arquivo (captura nativa)
+    public void uploadDocument(String userId, String documentType, File file, String format, SupabaseCallback callback) {
+        uploadDocument(userId, documentType, file, format, null, callback);
+    }
+    
+    // Com progresso em bytes (lote do cadastro)
+    public void uploadDocument(String userId, String documentType, File file, String format,
+                               ProgressRequestBody.Listener progress, SupabaseCallback callback) {
+        RequestBody requestBody = RequestBody.create(MediaType.parse("image/" + format), file);
+        if (progress != null) {
+            requestBody = new ProgressRequestBody(requestBody, progress);
+        }
+        uploadDocumentBody(userId, documentType, requestBody, format, callback);
+    }
+    
+    private void uploadDocumentBody(String userId, String documentType, RequestBody requestBody, String format, SupabaseCallback callback) {
+        MetricsRegistry.Endpoint endpointMetrics = metrics.endpoint("POST", "/storage/v1/object/documents");
+        long startNanos = System.nanoTime();
+        try {
+            endpointMetrics.requests.increment();
+            endpointMetrics.bytesSent.add(requestBody.contentLength());
             
             // Gerar nome do arquivo
             String filename = userId + "/" + documentType + "_" + System.currentTimeMillis() + "." + format;
             
-            // Upload para Supabase Storage
-            RequestBody requestBody = RequestBody.create(
-                MediaType.parse("image/" + format),
-                imageBytes
-            );
-            
             Request request = new Request.Builder()
                 .url(supabaseUrl + "/storage/v1/object/documents/" + filename)
-                .addHeader("Authorization", "Bearer " + supabaseKey)
                 .addHeader("Content-Type", "image/" + format)
+                // Upload preemptado é reenviado com o mesmo nome (e pode já ter sido gravado):
+                // upsert torna o reenvio idempotente; o nome é único por upload, nada de outro é sobrescrito
+                .addHeader("x-upsert", "true")
                 .post(requestBody)
                 .build();
             
-            httpClient.newCall(request).enqueue(new Callback() {
+            // Faixa BULK: cede a vez (e é reenviado) quando chega trabalho crítico
+            scheduler.enqueue(RequestScheduler.Priority.BULK, httpClient.newCall(request), new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
-                    Log.e(TAG, "Erro no upload: " + e.getMessage());
+                    endpointMetrics.latency.recordSince(startNanos);
+                    endpointMetrics.errors.increment();
+                    AppLog.e(TAG, "Erro no upload: {}", e.getMessage());
                     if (callback != null) {
                         callback.onError("Erro no upload do documento");
                     }
@@ -175,13 +391,16 @@ public class SupabaseService {
                 
                 @Override
                 public void onResponse(Call call, Response response) throws IOException {
+                    response.close();
+                    endpointMetrics.latency.recordSince(startNanos);
                     if (response.isSuccessful()) {
                         String documentUrl = supabaseUrl + "/storage/v1/object/public/documents/" + filename;
                         if (callback != null) {
                             callback.onSuccess(documentUrl);
                         }
                     } else {
-                        Log.e(TAG, "Erro no upload: " + response.code());
+                        endpointMetrics.errors.increment();
+                        AppLog.e(TAG, "Erro no upload: {}", response.code());
                         if (callback != null) {
                             callback.onError("Erro no upload: " + response.code());
                         }
@@ -190,34 +409,98 @@ public class SupabaseService {
             });
             
         } catch (Exception e) {
-            Log.e(TAG, "Erro ao processar documento: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao processar documento: {}", e.getMessage());
             if (callback != null) {
                 callback.onError("Erro ao processar documento");
             }
         }
     }
     
+    // 415 é recusa explícita do gzip. Um 400 só a confirma se o mesmo corpo passar sem compressão;
+    // senão o erro era do conteúdo e o gzip continua ligado
+    private static SupabaseCallback plainRetryCallback(int gzipStatus, SupabaseCallback callback) {
+        if (gzipStatus == 415) {
+            gzipWrites = false;
+            return callback;
+        }
+        return new SupabaseCallback() {
+            @Override
+            public void onSuccess(String response) {
+                gzipWrites = false;
+                if (callback != null) {
+                    callback.onSuccess(response);
+                }
+            }
+            
+            @Override
+            public void onError(String error) {
+                if (callback != null) {
+                    callback.onError(error);
+                }
+            }
+        };
+    }
+    
+    // Testes: volta ao padrão entre casos (o estado é do processo)
+    static void resetGzipWrites() {
+        gzipWrites = true;
+    }
+    
     // Fazer requisição HTTP para Supabase
-    private void makeRequest(String method, String endpoint, String body, SupabaseCallback callback) {
+    private RequestScheduler.Handle makeRequest(String method, String endpoint, RequestBody body, SupabaseCallback callback) {
+        return makeRequest(method, endpoint, null, RequestScheduler.Priority.INTERACTIVE, body, callback);
+    }
+    
+    // Escrita com cabeçalho Prefer do PostgREST (ex.: return=minimal) numa faixa explícita
+    private RequestScheduler.Handle makeRequest(String method, String endpoint, String prefer, RequestScheduler.Priority priority, RequestBody body, SupabaseCallback callback) {
+        return makeRequest(method, supabaseUrl + endpoint, endpoint, null, prefer, priority, body, callback);
+    }
+    
+    // Retorna o controle para cancelar a chamada (null se ela nem chegou a ser montada)
+    private RequestScheduler.Handle makeRequest(String method, String url, String metricPath, PostgrestQuery query, String prefer,
+                             RequestScheduler.Priority priority, RequestBody body, SupabaseCallback callback) {
+        MetricsRegistry.Endpoint endpointMetrics = metrics.endpoint(method, metricPath);
+        long startNanos = System.nanoTime();
         try {
             Request.Builder requestBuilder = new Request.Builder()
-                .url(supabaseUrl + endpoint)
-                .addHeader("Authorization", "Bearer " + supabaseKey)
-                .addHeader("apikey", supabaseKey)
+                .url(url)
                 .addHeader("Content-Type", "application/json");
             
+            if (query != null) {
+                query.applyHeaders(requestBuilder);
+            }
+            if (prefer != null) {
+                requestBuilder.header("Prefer", prefer);
+            }
+            if (body instanceof GzipRequestBody) {
+                requestBuilder.header("Content-Encoding", "gzip");
+            }
+            
             if ("POST".equals(method) && body != null) {
-                requestBuilder.post(RequestBody.create(MediaType.parse("application/json"), body));
+                requestBuilder.post(body);
             } else if ("GET".equals(method)) {
                 requestBuilder.get();
             }
             
             Request request = requestBuilder.build();
+            endpointMetrics.requests.increment();
             
-            httpClient.newCall(request).enqueue(new Callback() {
+            return scheduler.enqueue(priority, httpClient.newCall(request), new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
-                    Log.e(TAG, "Erro na requisição: " + e.getMessage());
+                    endpointMetrics.latency.recordSince(startNanos);
+                    if (call.isCanceled()) {
+                        // Cancelada por quem pediu (tela fechada, prazo estourado): não é erro do servidor
+                        cancelledRequests.increment();
+                        AppLog.d(TAG, "Requisição cancelada: {}", metricPath);
+                        if (callback != null) {
+                            callback.onError("Cancelada");
+                        }
+                        return;
+                    }
+                    endpointMetrics.errors.increment();
+                    recordBytesSent(endpointMetrics, body);
+                    AppLog.e(TAG, "Erro na requisição: {}", e.getMessage());
                     if (callback != null) {
                         callback.onError("Erro de conexão: " + e.getMessage());
                     }
@@ -226,14 +509,31 @@ public class SupabaseService {
                 @Override
                 public void onResponse(Call call, Response response) throws IOException {
                     String responseBody = response.body() != null ? response.body().string() : "";
+                    endpointMetrics.latency.recordSince(startNanos);
+                    recordBytesSent(endpointMetrics, body);
+                    endpointMetrics.bytesReceived.add(responseBody.length());
+                    
+                    if ((response.code() == 415 || response.code() == 400) && body instanceof GzipRequestBody) {
+                        // Servidor sem suporte a Content-Encoding: reenviar sem compressão. O PostgREST não
+                        // descomprime e responde 400 (PGRST102, JSON inválido); 415 vem de proxies
+                        endpointMetrics.errors.increment();
+                        AppLog.w(TAG, "Servidor recusou gzip em {} ({}); enviando sem compressão", metricPath, response.code());
+                        makeRequest(method, url, metricPath, query, prefer, priority, ((GzipRequestBody) body).getDelegate(),
+                            plainRetryCallback(response.code(), callback));
+                        return;
+                    }
                     
                     if (response.isSuccessful()) {
-                        Log.d(TAG, "Resposta do Supabase: " + responseBody);
+                        // Só status e tamanho: o corpo traz dados pessoais, e o de /auth traz tokens
+                        if (!metricPath.startsWith("/auth/")) {
+                            AppLog.d(TAG, "Resposta de {}: {} bytes", metricPath, responseBody.length());
+                        }
                         if (callback != null) {
                             callback.onSuccess(responseBody);
                         }
                     } else {
-                        Log.e(TAG, "Erro na resposta: " + response.code() + " - " + responseBody);
+                        endpointMetrics.errors.increment();
+                        AppLog.e(TAG, "Erro na resposta de {}: {}", metricPath, response.code());
                         if (callback != null) {
                             callback.onError("Erro: " + response.code() + " - " + responseBody);
                         }
@@ -242,10 +542,34 @@ public class SupabaseService {
             });
             
         } catch (Exception e) {
-            Log.e(TAG, "Erro ao fazer requisição: " + e.getMessage());
+            AppLog.e(TAG, "Erro ao fazer requisição: {}", e.getMessage());
             if (callback != null) {
                 callback.onError("Erro interno: " + e.getMessage());
             }
+            return null;
+        }
+    }
+    
+    // Corpos em streaming só sabem o tamanho depois de escritos
+    private static void recordBytesSent(MetricsRegistry.Endpoint endpointMetrics, RequestBody body) {
+        if (body == null) {
+            return;
+        }
+        long length = -1;
+        if (body instanceof GzipRequestBody) {
+            length = ((GzipRequestBody) body).getBytesWritten();
+        } else if (body instanceof JsonRequestBody) {
+            length = ((JsonRequestBody) body).getBytesWritten();
+        }
+        if (length < 0) {
+            try {
+                length = body.contentLength();
+            } catch (IOException e) {
+                length = -1;
+            }
+        }
+        if (length > 0) {
+            endpointMetrics.bytesSent.add(length);
         }
     }
 }
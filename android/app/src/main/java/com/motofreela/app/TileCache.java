@@ -0,0 +1,242 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// Cache em disco dos tiles dos mapas da WebView; tile vencido sai do disco e é revalidado em segundo plano
+public class TileCache {
+    private static final String TAG = "TileCache";
+
+    // Orçamento de disco para tiles
+    public static final long DEFAULT_MAX_BYTES = 50L * 1024 * 1024;
+
+    private static TileCache instance;
+
+    private final OkHttpClient httpClient;
+    private final Cache cache;
+    private final ConnectivityManager connectivity;
+    private final ExecutorService executor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "tile-cache");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // URLs com revalidação em andamento (uma por tile)
+    private final Set<String> revalidating = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final MetricsRegistry.Counter requests = metrics.counter("tiles.requests");
+    private final MetricsRegistry.Counter hits = metrics.counter("tiles.hits");
+    private final MetricsRegistry.Counter misses = metrics.counter("tiles.misses");
+    private final MetricsRegistry.Counter staleServed = metrics.counter("tiles.stale_served");
+    private final MetricsRegistry.Counter revalidated = metrics.counter("tiles.revalidated");
+    private final MetricsRegistry.Counter bytesSaved = metrics.counter("tiles.bytes_saved");
+    private final MetricsRegistry.Counter mobileBytesSaved = metrics.counter("tiles.mobile_bytes_saved");
+    private final MetricsRegistry.Histogram latency = metrics.histogram("tiles.latency");
+
+    // Tile lido por inteiro (poucas dezenas de KB) para a resposta já sair fechada
+    static final class Tile {
+        final int code;
+        final String contentType;
+        final byte[] body;
+        final boolean fromCache;
+
+        Tile(int code, String contentType, byte[] body, boolean fromCache) {
+            this.code = code;
+            this.contentType = contentType;
+            this.body = body;
+            this.fromCache = fromCache;
+        }
+    }
+
+    public static synchronized TileCache getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new TileCache(
+                SupabaseService.sharedClient(),
+                new File(appContext.getCacheDir(), "tiles"),
+                DEFAULT_MAX_BYTES,
+                (ConnectivityManager) appContext.getSystemService(Context.CONNECTIVITY_SERVICE));
+        }
+        return instance;
+    }
+
+    // connectivity null = nunca conta como dados móveis (testes)
+    TileCache(OkHttpClient baseClient, File directory, long maxBytes, ConnectivityManager connectivity) {
+        this.cache = new Cache(directory, maxBytes);
+        this.connectivity = connectivity;
+        // newBuilder compartilha pool e dispatcher; só acrescenta o cache (validade é a do servidor)
+        this.httpClient = baseClient.newBuilder()
+            .cache(cache)
+            .build();
+    }
+
+    // Hosts e caminhos de tiles dos mapas usados na WebView
+    public static boolean isTileUrl(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        if (parsed == null) {
+            return false;
+        }
+        String host = parsed.host();
+        String path = parsed.encodedPath();
+        return host.endsWith("tile.openstreetmap.org")
+            || (host.equals("maps.googleapis.com") && path.startsWith("/maps/vt"))
+            || (host.matches("mt\\d\\.google\\.com") && path.startsWith("/vt"))
+            || (host.matches("khms\\d\\.googleapis\\.com") && path.startsWith("/kh"));
+    }
+
+    // Chamado em shouldInterceptRequest (thread de IO da WebView); null deixa a WebView buscar sozinha
+    public WebResourceResponse intercept(WebResourceRequest request) {
+        String url = request.getUrl().toString();
+        if (!"GET".equals(request.getMethod()) || !isTileUrl(url)) {
+            return null;
+        }
+        try {
+            Tile tile = fetch(url, request.getRequestHeaders());
+            Map<String, String> headers = new HashMap<>();
+            // Os mapas desenham os tiles em canvas: sem CORS o navegador recusa a imagem
+            headers.put("Access-Control-Allow-Origin", "*");
+            String mimeType = tile.contentType != null ? tile.contentType.split(";")[0].trim() : "image/png";
+            return new WebResourceResponse(mimeType, null, tile.code, tile.code == 200 ? "OK" : "Error",
+                headers, new ByteArrayInputStream(tile.body));
+        } catch (IOException e) {
+            AppLog.d(TAG, "Tile sem cache nem rede: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    Tile fetch(String url) throws IOException {
+        return fetch(url, Collections.emptyMap());
+    }
+
+    // Disco primeiro (mesmo vencido); só vai à rede se o tile nunca foi baixado
+    Tile fetch(String url, Map<String, String> webViewHeaders) throws IOException {
+        requests.increment();
+        long startNanos = System.nanoTime();
+        Headers headers = forwardedHeaders(webViewHeaders);
+        try {
+            Request cachedOnly = new Request.Builder()
+                .url(url)
+                .headers(headers)
+                .cacheControl(new CacheControl.Builder()
+                    .onlyIfCached()
+                    .maxStale(Integer.MAX_VALUE, TimeUnit.SECONDS)
+                    .build())
+                .build();
+            try (Response response = httpClient.newCall(cachedOnly).execute()) {
+                // 504 = não está no cache
+                if (response.code() != 504) {
+                    byte[] body = response.body() != null ? response.body().bytes() : new byte[0];
+                    hits.increment();
+                    recordSaved(body.length);
+                    if (isStale(response)) {
+                        staleServed.increment();
+                        revalidateAsync(url, headers);
+                    }
+                    return new Tile(response.code(), response.header("Content-Type"), body, true);
+                }
+            }
+            misses.increment();
+            try (Response response = httpClient.newCall(new Request.Builder().url(url).headers(headers).build()).execute()) {
+                byte[] body = response.body() != null ? response.body().bytes() : new byte[0];
+                return new Tile(response.code(), response.header("Content-Type"), body, false);
+            }
+        } finally {
+            latency.recordSince(startNanos);
+        }
+    }
+
+    public JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        try {
+            long total = hits.get() + misses.get();
+            stats.put("requests", requests.get());
+            stats.put("hits", hits.get());
+            stats.put("misses", misses.get());
+            stats.put("hitRate", total > 0 ? (double) hits.get() / total : 0.0);
+            stats.put("staleServed", staleServed.get());
+            stats.put("revalidated", revalidated.get());
+            stats.put("bytesSaved", bytesSaved.get());
+            stats.put("mobileBytesSaved", mobileBytesSaved.get());
+            stats.put("diskBytes", cache.size());
+            stats.put("maxDiskBytes", cache.maxSize());
+        } catch (JSONException | IOException e) {
+            AppLog.e(TAG, "Erro ao montar estatísticas: {}", e.getMessage());
+        }
+        return stats;
+    }
+
+    private void revalidateAsync(String url, Headers headers) {
+        if (!revalidating.add(url)) {
+            return;
+        }
+        executor.execute(() -> {
+            // Requisição normal: o OkHttp manda a validação condicional e atualiza o cache
+            try (Response response = httpClient.newCall(new Request.Builder().url(url).headers(headers).build()).execute()) {
+                byte[] body = response.body() != null ? response.body().bytes() : new byte[0];
+                Response network = response.networkResponse();
+                if (network != null && network.code() == 304) {
+                    revalidated.increment();
+                    recordSaved(body.length);
+                }
+            } catch (IOException e) {
+                AppLog.d(TAG, "Revalidação falhou: {}", e.getMessage());
+            } finally {
+                revalidating.remove(url);
+            }
+        });
+    }
+
+    private void recordSaved(long bytes) {
+        bytesSaved.add(bytes);
+        if (connectivity != null && connectivity.isActiveNetworkMetered()) {
+            mobileBytesSaved.add(bytes);
+        }
+    }
+
+    // User-Agent e Referer da WebView seguem para o servidor de tiles (política de uso do OSM);
+    // cabeçalhos de cache e compressão ficam com o OkHttp
+    static Headers forwardedHeaders(Map<String, String> webViewHeaders) {
+        Headers.Builder builder = new Headers.Builder();
+        if (webViewHeaders == null) {
+            return builder.build();
+        }
+        for (Map.Entry<String, String> header : webViewHeaders.entrySet()) {
+            String name = header.getKey().toLowerCase(Locale.ROOT);
+            if (name.startsWith("if-") || name.equals("cache-control") || name.equals("pragma")
+                || name.equals("range") || name.equals("accept-encoding")) {
+                continue;
+            }
+            builder.add(header.getKey(), header.getValue());
+        }
+        return builder.build();
+    }
+
+    // O OkHttp marca a resposta servida vencida com "Warning: 110"
+    private static boolean isStale(Response response) {
+        String warning = response.header("Warning");
+        return warning != null && warning.startsWith("110");
+    }
+}
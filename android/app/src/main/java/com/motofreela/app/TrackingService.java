@@ -0,0 +1,533 @@
+package com.motofreela.app;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.content.pm.ServiceInfo;
+import android.location.Location;
+import android.os.Build;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.core.app.ActivityCompat;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.ServiceCompat;
+import androidx.core.content.ContextCompat;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+import com.motofreela.core.ArrivalStateMachine;
+import com.motofreela.core.LocationFix;
+import com.motofreela.core.LocationStreamProcessor;
+import com.motofreela.core.RideTraceRecorder;
+import com.motofreela.core.TripMetricsEngine;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Rastreamento em primeiro plano durante a corrida: fixes em lote, gravados na trilha antes do envio
+public class TrackingService extends Service {
+    private static final String TAG = "TrackingService";
+    private static final String ACTION_START = "com.motofreela.app.tracking.START";
+    private static final String ACTION_STOP = "com.motofreela.app.tracking.STOP";
+    private static final String ACTION_SET_RATE = "com.motofreela.app.tracking.SET_RATE";
+    private static final String ACTION_ARRIVAL = "com.motofreela.app.tracking.ARRIVAL";
+    private static final String EXTRA_BETWEEN_LEGS = "betweenLegs";
+    private static final String EXTRA_STATE = "state";
+    private static final String EXTRA_TIME = "time";
+    private static final String EXTRA_USER_ID = "userId";
+    private static final String EXTRA_SERVICE_ID = "serviceId";
+    private static final String EXTRA_ACCEPTED_AT = "acceptedAt";
+
+    private static final String CHANNEL_ID = "motofreela_tracking";
+    private static final String CHANNEL_NAME = "MotoFreela Rastreamento";
+    private static final int NOTIFICATION_ID = 2001;
+
+    // Um fix a cada 5 segundos em até 12 por entrega; em link ruim o NetworkPolicy espaça os dois
+    private static final long INTERVAL_MS = 5000;
+    private static final float MIN_DISTANCE_M = 10;
+    private static final float MAX_UPLOAD_ACCURACY_M = 50;
+    // Entre coleta e entrega a chegada vem do geofence: basta a posição para o mapa da empresa
+    private static final long BETWEEN_LEGS_INTERVAL_MS = 30_000;
+    private static final long BETWEEN_LEGS_MAX_BATCH_DELAY_MS = 3 * 60_000;
+
+    // Quem está na tela (MainActivity) recebe cada lote; null com o app fechado
+    public interface BatchListener {
+        void onBatch(List<LocationFix> fixes);
+    }
+
+    private static volatile BatchListener batchListener;
+
+    // Resumo da corrida ao chegar na entrega (ou ao parar o rastreamento antes dela)
+    public interface TripListener {
+        void onTripSummary(String serviceId, TripMetricsEngine.Summary summary);
+    }
+
+    private static volatile TripListener tripListener;
+
+    private final MetricsRegistry.Counter wakeups = MetricsRegistry.getInstance().counter("tracking.wakeups");
+    private final MetricsRegistry.Gauge wakeupsPerHour = MetricsRegistry.getInstance().gauge("tracking.wakeups_per_hour");
+    private final MetricsRegistry.Histogram batchSize = MetricsRegistry.getInstance().histogram("tracking.batch_size");
+    private final MetricsRegistry.Counter fixCount = MetricsRegistry.getInstance().counter("tracking.fixes");
+    private final MetricsRegistry.Counter filteredFixCount = MetricsRegistry.getInstance().counter("tracking.fixes_filtered");
+    private final AppLog.Sampler batchLogSampler = new AppLog.Sampler(5 * 60_000);
+
+    private final LocationStreamProcessor uploadFilter =
+        new LocationStreamProcessor(MAX_UPLOAD_ACCURACY_M, MIN_DISTANCE_M, INTERVAL_MS);
+
+    private FusedLocationProviderClient locationClient;
+    private ExecutorService callbackExecutor;
+    private SupabaseService supabaseService;
+    // Escritos na main thread e lidos na thread dos lotes (e vice-versa para tracking)
+    private volatile String userId;
+    private volatile String serviceId;
+    private volatile boolean tracking;
+    private volatile boolean betweenLegs;
+    // Parada em andamento (flush do último lote) e a corrida que chegou durante ela; só na main thread
+    private boolean stopping;
+    private QueuedStart queuedStart;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Só na thread dos lotes
+    private long trackingStartedAt;
+    private long wakeupsSinceStart;
+    // Trilha em disco da corrida atual (fonte do histórico enviado); null sem corrida
+    private RideTraceUploader traceUploader;
+    // Métricas da corrida atual, alimentadas com todos os fixes do lote (antes do filtro de envio)
+    private TripMetricsEngine tripMetrics;
+    private RideStatsStore rideStats;
+
+    // Link mudou de classe: refaz o pedido com o novo ritmo (na thread dos lotes, como o resto do estado)
+    private final NetworkQualityMonitor.Listener qualityListener = (quality, policy) -> callbackExecutor.execute(() -> {
+        if (tracking && !betweenLegs) {
+            AppLog.i(TAG, "Link {}: entrega de fixes a cada {} ms", quality, policy.locationBatchDelayMs);
+            requestUpdates();
+        }
+    });
+
+    private static final class QueuedStart {
+        final String userId;
+        final String serviceId;
+        final long acceptedAt;
+        final boolean resumed;
+
+        QueuedStart(String userId, String serviceId, long acceptedAt, boolean resumed) {
+            this.userId = userId;
+            this.serviceId = serviceId;
+            this.acceptedAt = acceptedAt;
+            this.resumed = resumed;
+        }
+    }
+
+    private final LocationCallback locationCallback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult result) {
+            handleBatch(result.getLocations());
+        }
+    };
+
+    // acceptedAtMillis: aceite da corrida, início das métricas. Vai no intent, que o sistema
+    // reentrega igual (START_REDELIVER_INTENT) se o processo morrer no meio
+    public static void start(Context context, String userId, String serviceId, long acceptedAtMillis) {
+        Intent intent = new Intent(context, TrackingService.class)
+            .setAction(ACTION_START)
+            .putExtra(EXTRA_USER_ID, userId)
+            .putExtra(EXTRA_SERVICE_ID, serviceId)
+            .putExtra(EXTRA_ACCEPTED_AT, acceptedAtMillis);
+        ContextCompat.startForegroundService(context, intent);
+    }
+
+    public static void stop(Context context) {
+        context.startService(new Intent(context, TrackingService.class).setAction(ACTION_STOP));
+    }
+
+    // Amostragem reduzida enquanto as cercas da corrida estão armadas (ver GeofenceManager)
+    public static void setBetweenLegs(Context context, boolean betweenLegs) {
+        try {
+            context.startService(new Intent(context, TrackingService.class)
+                .setAction(ACTION_SET_RATE)
+                .putExtra(EXTRA_BETWEEN_LEGS, betweenLegs));
+        } catch (IllegalStateException e) {
+            // App em segundo plano sem o serviço rodando: não há rastreamento para ajustar
+            AppLog.d(TAG, "Ajuste de amostragem ignorado: {}", e.getMessage());
+        }
+    }
+
+    public static void setBatchListener(BatchListener listener) {
+        batchListener = listener;
+    }
+
+    public static void setTripListener(TripListener listener) {
+        tripListener = listener;
+    }
+
+    // Etapa da corrida vinda do geofence (ver GeofenceManager)
+    static void onArrival(Context context, ArrivalStateMachine.State state) {
+        try {
+            context.startService(new Intent(context, TrackingService.class)
+                .setAction(ACTION_ARRIVAL)
+                .putExtra(EXTRA_STATE, state.name())
+                .putExtra(EXTRA_TIME, System.currentTimeMillis()));
+        } catch (IllegalStateException e) {
+            AppLog.d(TAG, "Etapa ignorada sem rastreamento: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        AppLog.init(this);
+        locationClient = LocationServices.getFusedLocationProviderClient(this);
+        // Lotes processados fora da main thread, em ordem
+        callbackExecutor = Executors.newSingleThreadExecutor();
+        supabaseService = new SupabaseService(this);
+        rideStats = new RideStatsStore(this);
+        NetworkQualityMonitor.getInstance().addListener(qualityListener);
+        createNotificationChannel();
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_STOP.equals(intent.getAction())) {
+            stopTracking();
+            return START_NOT_STICKY;
+        }
+        if (intent != null && ACTION_SET_RATE.equals(intent.getAction())) {
+            betweenLegs = intent.getBooleanExtra(EXTRA_BETWEEN_LEGS, false);
+            if (tracking) {
+                requestUpdates();
+            } else {
+                stopSelf(startId);
+            }
+            return START_NOT_STICKY;
+        }
+        if (intent != null && ACTION_ARRIVAL.equals(intent.getAction())) {
+            ArrivalStateMachine.State state = ArrivalStateMachine.State.valueOf(intent.getStringExtra(EXTRA_STATE));
+            long time = intent.getLongExtra(EXTRA_TIME, System.currentTimeMillis());
+            if (tracking) {
+                callbackExecutor.execute(() -> handleArrival(state, time));
+            } else {
+                stopSelf(startId);
+            }
+            return START_NOT_STICKY;
+        }
+
+        String newUserId = intent != null ? intent.getStringExtra(EXTRA_USER_ID) : null;
+        if (newUserId == null || !hasLocationPermission()) {
+            // Sem usuário ou sem permissão não há o que rastrear (e o Android 14 recusa o tipo location)
+            AppLog.w(TAG, "Rastreamento não iniciado: usuário {} permissão {}", newUserId, hasLocationPermission());
+            stopSelf(startId);
+            return START_NOT_STICKY;
+        }
+
+        String newServiceId = intent.getStringExtra(EXTRA_SERVICE_ID);
+        long acceptedAt = intent.getLongExtra(EXTRA_ACCEPTED_AT, System.currentTimeMillis());
+        // Intent reentregue: o processo morreu no meio da corrida e as métricas até aqui se perderam
+        boolean resumed = (flags & START_FLAG_REDELIVERY) != 0;
+        ServiceCompat.startForeground(this, NOTIFICATION_ID, buildNotification(),
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ? ServiceInfo.FOREGROUND_SERVICE_TYPE_LOCATION : 0);
+        if (stopping) {
+            // O último lote da corrida anterior ainda usa userId/serviceId: a nova espera o flush
+            AppLog.i(TAG, "Corrida {} aguarda o fim da anterior", newServiceId);
+            queuedStart = new QueuedStart(newUserId, newServiceId, acceptedAt, resumed);
+            return START_REDELIVER_INTENT;
+        }
+        userId = newUserId;
+        serviceId = newServiceId;
+        startTracking(acceptedAt, resumed);
+
+        // Se o sistema matar o processo, volta com o mesmo usuário e corrida
+        return START_REDELIVER_INTENT;
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    @Override
+    public void onDestroy() {
+        NetworkQualityMonitor.getInstance().removeListener(qualityListener);
+        mainHandler.removeCallbacksAndMessages(null);
+        if (tracking) {
+            locationClient.removeLocationUpdates(locationCallback);
+            tracking = false;
+        }
+        callbackExecutor.shutdown();
+        super.onDestroy();
+    }
+
+    private void startTracking(long acceptedAt, boolean resumed) {
+        String rideUserId = userId;
+        String rideServiceId = serviceId;
+        callbackExecutor.execute(() -> openTrace(rideUserId, rideServiceId, acceptedAt, resumed));
+        if (tracking) {
+            return;
+        }
+        // Antes do pedido: na mesma fila, roda antes do primeiro lote
+        callbackExecutor.execute(() -> {
+            trackingStartedAt = SystemClock.elapsedRealtime();
+            wakeupsSinceStart = 0;
+            uploadFilter.reset();
+        });
+        if (requestUpdates()) {
+            tracking = true;
+            AppLog.i(TAG, "Rastreamento da corrida {} iniciado", serviceId);
+        } else {
+            stopSelf();
+        }
+    }
+
+    // Pedir (ou substituir) as atualizações com o ritmo atual; o mesmo callback troca o pedido anterior
+    private boolean requestUpdates() {
+        NetworkPolicy policy = NetworkQualityMonitor.getInstance().getPolicy();
+        long interval = betweenLegs ? BETWEEN_LEGS_INTERVAL_MS : policy.trackingIntervalMs;
+        LocationRequest request = new LocationRequest.Builder(Priority.PRIORITY_HIGH_ACCURACY, interval)
+            .setMinUpdateDistanceMeters(MIN_DISTANCE_M)
+            .setMaxUpdateDelayMillis(betweenLegs ? BETWEEN_LEGS_MAX_BATCH_DELAY_MS : policy.locationBatchDelayMs)
+            .build();
+        try {
+            locationClient.requestLocationUpdates(request, callbackExecutor, locationCallback);
+            return true;
+        } catch (SecurityException e) {
+            AppLog.e(TAG, "Erro de permissão ao pedir localização: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void stopTracking() {
+        if (stopping) {
+            // Parada já em andamento: só descarta a corrida que esperava por ela
+            queuedStart = null;
+            return;
+        }
+        if (!tracking) {
+            stopSelf();
+            return;
+        }
+        stopping = true;
+        // Entregar o lote pendente antes de parar, para não perder o fim da corrida
+        locationClient.flushLocations().addOnCompleteListener(callbackExecutor, task -> {
+            locationClient.removeLocationUpdates(locationCallback);
+            tracking = false;
+            if (tripMetrics != null) {
+                publishTrip(tripMetrics);
+            }
+            if (traceUploader != null) {
+                traceUploader.finish();
+                traceUploader = null;
+            }
+            AppLog.i(TAG, "Rastreamento da corrida {} parado após {} lotes", serviceId, wakeupsSinceStart);
+            mainHandler.post(this::onStopped);
+        });
+    }
+
+    // Main thread, depois do flush da parada: começa a corrida que esperava ou encerra o serviço
+    private void onStopped() {
+        stopping = false;
+        QueuedStart next = queuedStart;
+        queuedStart = null;
+        if (callbackExecutor.isShutdown()) {
+            return;
+        }
+        if (next != null) {
+            userId = next.userId;
+            serviceId = next.serviceId;
+            startTracking(next.acceptedAt, next.resumed);
+            return;
+        }
+        ServiceCompat.stopForeground(this, ServiceCompat.STOP_FOREGROUND_REMOVE);
+        stopSelf();
+    }
+
+    // Executado na thread do callbackExecutor: um despertar do processador por lote
+    private void handleBatch(List<Location> locations) {
+        wakeups.increment();
+        wakeupsSinceStart++;
+        long elapsedMs = SystemClock.elapsedRealtime() - trackingStartedAt;
+        if (elapsedMs > 0) {
+            wakeupsPerHour.set(wakeupsSinceStart * 3_600_000L / elapsedMs);
+        }
+        batchSize.record(locations.size());
+        fixCount.add(locations.size());
+
+        List<LocationFix> accepted = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            if (tripMetrics != null) {
+                tripMetrics.onFix(location.getLatitude(), location.getLongitude(), location.getAccuracy(),
+                    location.hasSpeed() ? location.getSpeed() : Float.NaN, location.getTime());
+            }
+            if (!uploadFilter.accept(location.getLatitude(), location.getLongitude(), location.getAccuracy(), location.getTime())) {
+                filteredFixCount.increment();
+                continue;
+            }
+            accepted.add(new LocationFix(
+                location.getLatitude(),
+                location.getLongitude(),
+                location.getAccuracy(),
+                location.hasSpeed() ? location.getSpeed() : Float.NaN,
+                location.hasBearing() ? location.getBearing() : Float.NaN,
+                location.getTime()));
+        }
+        if (batchLogSampler.sample(AppLog.DEBUG)) {
+            AppLog.d(TAG, "Lote com {} fixes, {} aceitos (+{} lotes omitidos)",
+                locations.size(), accepted.size(), batchLogSampler.getSuppressedAndReset());
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        BatchListener listener = batchListener;
+        if (listener != null) {
+            listener.onBatch(accepted);
+        }
+        uploadBatch(accepted);
+    }
+
+    // Na thread dos lotes; a chegada na entrega fecha as métricas da corrida
+    private void handleArrival(ArrivalStateMachine.State state, long time) {
+        if (tripMetrics == null) {
+            return;
+        }
+        tripMetrics.onArrival(state, time);
+        if (state == ArrivalStateMachine.State.AT_DROPOFF) {
+            publishTrip(tripMetrics);
+        }
+    }
+
+    // Uma vez por corrida: estatísticas só das entregues, resumo para quem estiver na tela
+    private void publishTrip(TripMetricsEngine engine) {
+        tripMetrics = null;
+        TripMetricsEngine.Summary summary = engine.summary();
+        rideStats.record(summary, System.currentTimeMillis());
+        AppLog.i(TAG, "Corrida {}: {} m", serviceId, Math.round(summary.distanceMeters));
+        TripListener listener = tripListener;
+        if (listener != null) {
+            listener.onTripSummary(serviceId, summary);
+        }
+    }
+
+    // Corrida (re)iniciada: retoma a trilha dela se o processo morreu no meio, e reenvia trilhas órfãs
+    private void openTrace(String rideUserId, String rideServiceId, long acceptedAt, boolean resumed) {
+        if (traceUploader != null && traceUploader.getRecorder().getServiceId().equals(rideServiceId)) {
+            return;
+        }
+        // Métricas contam do aceite; retomadas após a morte do processo saem parciais (fora das estatísticas)
+        tripMetrics = new TripMetricsEngine(acceptedAt);
+        if (resumed) {
+            tripMetrics.markResumed();
+        }
+        if (traceUploader != null) {
+            traceUploader.finish();
+            traceUploader = null;
+        }
+        if (rideServiceId == null) {
+            return;
+        }
+        File file = RideTraceUploader.traceFile(this, rideServiceId);
+        try {
+            RideTraceRecorder recorder = RideTraceRecorder.open(file, rideUserId, rideServiceId, RideTraceUploader.TRACE_CAPACITY);
+            traceUploader = new RideTraceUploader(supabaseService, recorder);
+            if (recorder.pendingCount() > 0) {
+                AppLog.i(TAG, "Corrida {} retomada com {} fixes não enviados", rideServiceId, recorder.pendingCount());
+                traceUploader.flush();
+            }
+        } catch (IOException e) {
+            // Sem trilha o envio segue direto do lote, como antes
+            AppLog.e(TAG, "Erro ao abrir trilha da corrida: {}", e.getMessage());
+        }
+        RideTraceUploader.recoverAll(this, supabaseService);
+    }
+
+    // Histórico pela trilha em disco (ou direto, sem ela); a posição atual (user_locations) só com o último fix
+    private void uploadBatch(List<LocationFix> fixes) {
+        if (traceUploader != null) {
+            RideTraceRecorder recorder = traceUploader.getRecorder();
+            for (int i = 0; i < fixes.size(); i++) {
+                recorder.append(fixes.get(i));
+            }
+            traceUploader.flush();
+        } else {
+            supabaseService.uploadLocationBatch(userId, serviceId, fixes, new SupabaseService.SupabaseCallback() {
+                @Override
+                public void onSuccess(String response) {
+                }
+
+                @Override
+                public void onError(String error) {
+                    AppLog.e(TAG, "Erro ao enviar lote de localização: {}", error);
+                }
+            });
+        }
+
+        LocationFix latest = fixes.get(fixes.size() - 1);
+        supabaseService.updateUserLocation(userId, latest.getLatitude(), latest.getLongitude(), latest.getAccuracy(),
+            new SupabaseService.SupabaseCallback() {
+                @Override
+                public void onSuccess(String response) {
+                }
+
+                @Override
+                public void onError(String error) {
+                    AppLog.e(TAG, "Erro ao enviar localização atual: {}", error);
+                }
+            });
+    }
+
+    private boolean hasLocationPermission() {
+        return ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    private Notification buildNotification() {
+        Intent intent = new Intent(this, MainActivity.class);
+        intent.putExtra("serviceId", serviceId);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            this,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+            .setSmallIcon(android.R.drawable.ic_menu_mylocation)
+            .setContentTitle("Corrida em andamento")
+            .setContentText("Sua localização está sendo compartilhada com a empresa")
+            .setPriority(NotificationCompat.PRIORITY_LOW)
+            .setCategory(NotificationCompat.CATEGORY_SERVICE)
+            .setContentIntent(pendingIntent)
+            .setOngoing(true)
+            .setOnlyAlertOnce(true)
+            .build();
+    }
+
+    private void createNotificationChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                CHANNEL_NAME,
+                NotificationManager.IMPORTANCE_LOW
+            );
+            channel.setDescription("Aviso fixo enquanto uma corrida está sendo rastreada");
+            channel.setShowBadge(false);
+
+            NotificationManager manager = getSystemService(NotificationManager.class);
+            if (manager != null) {
+                manager.createNotificationChannel(channel);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.motofreela.app;
+
+import android.content.Context;
+import android.webkit.WebView;
+import androidx.webkit.WebViewCompat;
+import androidx.webkit.WebViewFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collections;
+
+// Entrega dos eventos nativos para a WebView: fila até a página avisar (ready()) ou terminar de carregar
+public class WebEventBridge {
+    private static final String TAG = "WebEventBridge";
+    static final String INTEGRATION_ASSET = "android-integration.js";
+    // Eventos guardados enquanto a página carrega; acima disso descarta os mais antigos
+    static final int MAX_PENDING = 64;
+
+    // Texto do script em memória: nenhuma leitura de asset (nem fetch file://) depois da primeira
+    private static volatile String integrationScript;
+
+    private final WebView webView;
+    private final long createdNanos;
+    // Estado abaixo só é tocado na thread principal
+    private final ArrayDeque<String> pending = new ArrayDeque<>();
+    private boolean documentStart;
+    private boolean ready;
+    private boolean pageLoadRecorded;
+    private boolean readyRecorded;
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final MetricsRegistry.Histogram timeToInteractive = metrics.histogram("startup.tti");
+    private final MetricsRegistry.Histogram pageLoaded = metrics.histogram("startup.page_loaded");
+    private final MetricsRegistry.Gauge pendingDepth = metrics.gauge("bridge.events_pending");
+    private final MetricsRegistry.Counter dropped = metrics.counter("bridge.events_dropped");
+    private final MetricsRegistry.Counter readyOnLoad = metrics.counter("bridge.ready_on_load");
+
+    // createdNanos: início do onCreate da Activity, referência do tempo até a página ficar interativa
+    public WebEventBridge(WebView webView, long createdNanos) {
+        this.webView = webView;
+        this.createdNanos = createdNanos;
+    }
+
+    // Registrar o script de integração; chamar antes de a página carregar
+    public void install(Context context, String origin) {
+        String script = integrationScript(context);
+        if (script == null) {
+            return;
+        }
+        if (WebViewFeature.isFeatureSupported(WebViewFeature.DOCUMENT_START_SCRIPT)) {
+            WebViewCompat.addDocumentStartJavaScript(webView, script, Collections.singleton(origin));
+            documentStart = true;
+            metrics.counter("bridge.bootstrap.document_start").increment();
+        } else {
+            // WebView antiga: o script é injetado no fim do carregamento (onPageLoaded)
+            metrics.counter("bridge.bootstrap.on_load").increment();
+        }
+    }
+
+    // Novo documento (navegação ou reload): os listeners da página anterior sumiram
+    public void onPageStarted() {
+        ready = false;
+    }
+
+    public void onPageLoaded() {
+        if (!pageLoadRecorded) {
+            pageLoadRecorded = true;
+            pageLoaded.recordSince(createdNanos);
+        }
+        if (!documentStart && integrationScript != null) {
+            webView.evaluateJavascript(integrationScript, null);
+        }
+        // Bundle já executou: não espera por um ready() que a página pode nunca chamar
+        if (!ready) {
+            readyOnLoad.increment();
+            markReady();
+        }
+    }
+
+    // Chamado pela aplicação web (qualquer thread) quando os listeners dela já existem
+    public void onReady() {
+        webView.post(() -> {
+            if (!ready) {
+                markReady();
+            }
+        });
+    }
+
+    private void markReady() {
+        if (!readyRecorded) {
+            readyRecorded = true;
+            timeToInteractive.recordSince(createdNanos);
+            AppLog.i(TAG, "Ponte pronta; {} eventos na fila", pending.size());
+        }
+        flush();
+    }
+
+    private void flush() {
+        ready = true;
+        while (!pending.isEmpty()) {
+            webView.evaluateJavascript(pending.pollFirst(), null);
+        }
+        pendingDepth.set(0);
+    }
+
+    // Disparar evento para a aplicação web (a partir de qualquer thread)
+    public void dispatch(String eventName, String detail) {
+        String js = "window.dispatchEvent(new CustomEvent('" + eventName + "', { detail: " + detail + " }));";
+        webView.post(() -> {
+            if (ready) {
+                webView.evaluateJavascript(js, null);
+                return;
+            }
+            if (pending.size() == MAX_PENDING) {
+                pending.pollFirst();
+                dropped.increment();
+            }
+            pending.addLast(js);
+            pendingDepth.set(pending.size());
+        });
+    }
+
+    private static String integrationScript(Context context) {
+        String script = integrationScript;
+        if (script == null) {
+            try (InputStream in = context.getAssets().open(INTEGRATION_ASSET)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                script = new String(out.toByteArray(), StandardCharsets.UTF_8);
+                integrationScript = script;
+            } catch (IOException e) {
+                AppLog.e(TAG, "Erro ao ler {}: {}", INTEGRATION_ASSET, e.getMessage());
+            }
+        }
+        return script;
+    }
+}
@@ -0,0 +1,37 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Escolha de tamanho, redução na decodificação e reconhecimento das URLs de fotos.
+ */
+public class AvatarCacheTest {
+    @Test
+    public void picksSmallestBucketCoveringTheRequest() {
+        assertEquals(48, AvatarCache.bucketFor(40));
+        assertEquals(48, AvatarCache.bucketFor(48));
+        assertEquals(96, AvatarCache.bucketFor(64));
+        assertEquals(192, AvatarCache.bucketFor(128));
+        assertEquals(192, AvatarCache.bucketFor(1024));
+    }
+
+    @Test
+    public void sampleSizeKeepsTheCropAboveTheTarget() {
+        // Foto de câmera 4000x3000: o recorte quadrado tem 3000 px, reduzido 8x fica com 375 >= 192
+        assertEquals(8, AvatarCache.sampleSizeForCrop(4000, 3000, 192));
+        assertEquals(1, AvatarCache.sampleSizeForCrop(300, 200, 192));
+        assertEquals(2, AvatarCache.sampleSizeForCrop(384, 800, 192));
+    }
+
+    @Test
+    public void recognizesAvatarUrlsAndMapsTransformsToTheOriginal() {
+        String original = "https://x.supabase.co/storage/v1/object/public/avatars/u1.jpg";
+        String render = "https://x.supabase.co/storage/v1/render/image/public/avatars/u1.jpg?width=96";
+        assertTrue(AvatarCache.isAvatarUrl(original));
+        assertTrue(AvatarCache.isAvatarUrl(render));
+        assertFalse(AvatarCache.isAvatarUrl("https://x.supabase.co/storage/v1/object/public/documents/cnh.jpg"));
+        assertEquals(original, AvatarCache.sourceUrl(render));
+    }
+}
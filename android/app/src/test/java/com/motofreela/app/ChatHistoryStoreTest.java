@@ -0,0 +1,20 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Leitura dos timestamptz do PostgREST usados para ordenar a busca no chat.
+ */
+public class ChatHistoryStoreTest {
+    @Test
+    public void parsesPostgrestTimestampsToEpochMillis() {
+        // 2025-03-01T14:05:09Z = 1740837909 s
+        assertEquals(1740837909123L, ChatHistoryStore.parseTimestamp("2025-03-01T14:05:09.123456+00:00"));
+        assertEquals(1740837909000L, ChatHistoryStore.parseTimestamp("2025-03-01T14:05:09Z"));
+        assertEquals(1740837909500L, ChatHistoryStore.parseTimestamp("2025-03-01T11:05:09.5-03:00"));
+        assertEquals(0L, ChatHistoryStore.parseTimestamp("2025-03-01T14:05:09".substring(0, 10)));
+        assertEquals(0L, ChatHistoryStore.parseTimestamp(null));
+    }
+}
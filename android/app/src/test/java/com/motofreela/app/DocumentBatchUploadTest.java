@@ -0,0 +1,215 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import com.motofreela.core.ImageQualityGate;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Lote do cadastro contra um Storage local (MockWebServer): progresso único,
+ * reenvio só do que falhou, a partir do arquivo já preparado, e reprovados
+ * fora do envio. A triagem e a compressão (que dependem de Bitmap) são
+ * trocadas por um Preparer que grava arquivos fixos.
+ */
+public class DocumentBatchUploadTest {
+    private static final int DOCUMENT_BYTES = 64 * 1024;
+
+    private MockWebServer server;
+    private SupabaseService supabaseService;
+    private DocumentCache documentCache;
+    private ExecutorService processingExecutor;
+    private File dir;
+
+    // Uploads que o servidor deve recusar, por tipo de documento
+    private final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> prepareCalls = new ConcurrentHashMap<>();
+    private final List<Integer> progress = new ArrayList<>();
+    private final LinkedBlockingQueue<JSONObject> finishedRounds = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                AtomicInteger failures = failuresLeft.get(documentType(request));
+                if (failures != null && failures.getAndDecrement() > 0) {
+                    return new MockResponse().setResponseCode(500);
+                }
+                return new MockResponse().setBody("{\"Key\":\"documents\"}");
+            }
+        });
+        server.start();
+        String baseUrl = server.url("/").toString().replaceAll("/$", "");
+        supabaseService = new SupabaseService(null, new OkHttpClient(), baseUrl, "test-key");
+        dir = Files.createTempDirectory("document-batch").toFile();
+        documentCache = new DocumentCache(new File(dir, "cache"), 1024 * 1024);
+        processingExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        processingExecutor.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void reportsOneProgressForTheBatchAndSkipsRejectedItems() throws Exception {
+        DocumentBatchUpload batch = batch("cnh", "crlv", "selfie_blurry");
+
+        batch.start();
+        JSONObject summary = finishedRounds.poll(10, TimeUnit.SECONDS);
+
+        assertNotNull("lote não terminou", summary);
+        assertEquals(2, summary.getInt("uploaded"));
+        assertEquals(0, summary.getInt("failed"));
+        assertEquals(1, summary.getInt("rejected"));
+        JSONObject rejected = item(summary, "selfie_blurry");
+        assertEquals("REJECTED", rejected.getString("status"));
+        assertEquals("BLURRY", rejected.getString("reason"));
+        // Reprovado na triagem não chega ao servidor
+        assertEquals(2, server.getRequestCount());
+
+        List<Integer> reported = progressSnapshot();
+        assertEquals(Integer.valueOf(0), reported.get(0));
+        assertTrue(reported.contains(100));
+        // Progresso em bytes do upload, não só um salto por item concluído
+        long partial = reported.stream().filter(percent -> percent > 0 && percent < 100).distinct().count();
+        assertTrue("progresso intermediário: " + reported, partial >= 4);
+        for (int percent : reported) {
+            assertTrue(percent >= 0 && percent <= 100);
+        }
+        assertFalse(batch.retry());
+    }
+
+    @Test
+    public void retryResendsOnlyTheFailedItemFromThePreparedFile() throws Exception {
+        failuresLeft.put("crlv", new AtomicInteger(1));
+        DocumentBatchUpload batch = batch("cnh", "crlv", "selfie_blurry");
+
+        batch.start();
+        JSONObject first = finishedRounds.poll(10, TimeUnit.SECONDS);
+        assertNotNull("lote não terminou", first);
+        assertEquals("UPLOADED", item(first, "cnh").getString("status"));
+        assertEquals("FAILED", item(first, "crlv").getString("status"));
+        assertTrue(batch.hasFailures());
+        int requestsBefore = server.getRequestCount();
+        for (int i = 0; i < requestsBefore; i++) {
+            server.takeRequest(5, TimeUnit.SECONDS);
+        }
+        synchronized (progress) {
+            progress.clear();
+        }
+
+        assertTrue(batch.retry());
+        JSONObject second = finishedRounds.poll(10, TimeUnit.SECONDS);
+        assertNotNull("reenvio não terminou", second);
+
+        assertEquals(1, server.getRequestCount() - requestsBefore);
+        RecordedRequest resent = server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("crlv", documentType(resent));
+        assertEquals(DOCUMENT_BYTES, resent.getBodySize());
+        assertEquals("true", resent.getHeader("x-upsert"));
+        assertEquals(3, second.getInt("uploaded") + second.getInt("rejected"));
+        assertEquals(2, item(second, "crlv").getInt("attempts"));
+        assertEquals(1, item(second, "cnh").getInt("attempts"));
+        assertEquals("REJECTED", item(second, "selfie_blurry").getString("status"));
+        // Nem nova triagem nem recompressão: cada documento passou uma vez pelo Preparer
+        assertEquals(1, prepareCalls.get("crlv").get());
+        assertEquals(1, prepareCalls.get("cnh").get());
+        assertEquals(1, prepareCalls.get("selfie_blurry").get());
+        // Itens fora da rodada já contam como concluídos: o progresso recomeça em 2/3
+        List<Integer> reported = progressSnapshot();
+        assertEquals(Integer.valueOf(66), reported.get(0));
+        assertTrue(reported.contains(100));
+        assertFalse(batch.hasFailures());
+    }
+
+    private DocumentBatchUpload batch(String... documentTypes) {
+        List<DocumentBatchUpload.Item> items = new ArrayList<>();
+        for (String documentType : documentTypes) {
+            items.add(new DocumentBatchUpload.Item(documentType, new byte[] {1}, "jpeg", null));
+        }
+        return new DocumentBatchUpload(this::prepare, supabaseService, documentCache, processingExecutor, "u1", items,
+            new DocumentBatchUpload.Listener() {
+                @Override
+                public void onProgress(DocumentBatchUpload batch, int percent) {
+                    synchronized (progress) {
+                        progress.add(percent);
+                    }
+                }
+
+                @Override
+                public void onItemFinished(DocumentBatchUpload batch, DocumentBatchUpload.Item item) {
+                }
+
+                @Override
+                public void onFinished(DocumentBatchUpload batch) {
+                    finishedRounds.add(batch.summary());
+                }
+            });
+    }
+
+    // "*_blurry" é reprovado; os demais viram um arquivo de DOCUMENT_BYTES no cache
+    private DocumentService.Prepared prepare(String userId, String documentType, byte[] imageBytes, String format,
+                                             File captureFile) throws IOException {
+        prepareCalls.computeIfAbsent(documentType, key -> new AtomicInteger()).incrementAndGet();
+        if (documentType.endsWith("_blurry")) {
+            return new DocumentService.Prepared(ImageQualityGate.Verdict.BLURRY, null, null, null, null);
+        }
+        byte[] data = new byte[DOCUMENT_BYTES];
+        Arrays.fill(data, (byte) documentType.hashCode());
+        String hash = DocumentCache.hash(data, 0, data.length);
+        File file = new File(dir, documentType + ".jpg");
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(data);
+        }
+        return new DocumentService.Prepared(null, file, "jpg", hash, null);
+    }
+
+    private List<Integer> progressSnapshot() {
+        synchronized (progress) {
+            return new ArrayList<>(progress);
+        }
+    }
+
+    // /storage/v1/object/documents/u1/<tipo>_<timestamp>.jpg
+    private static String documentType(RecordedRequest request) {
+        String path = request.getRequestUrl().encodedPath();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return name.substring(0, name.lastIndexOf('_'));
+    }
+
+    private static JSONObject item(JSONObject summary, String documentType) throws Exception {
+        JSONArray items = summary.getJSONArray("items");
+        for (int i = 0; i < items.length(); i++) {
+            if (items.getJSONObject(i).getString("documentType").equals(documentType)) {
+                return items.getJSONObject(i);
+            }
+        }
+        throw new AssertionError("sem item " + documentType);
+    }
+}
@@ -0,0 +1,67 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Reaproveitamento de uploads (só para o mesmo usuário e tipo de documento)
+ * e remoção LRU dos arquivos, com o índice persistido entre aberturas.
+ */
+public class DocumentCacheTest {
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("document-cache").toFile();
+    }
+
+    @Test
+    public void remoteUrlIsReusedOnlyForSameUserAndDocumentType() {
+        DocumentCache cache = new DocumentCache(dir, 1024);
+        cache.putRemoteUrl("user-a", "cnh", "abc", "https://storage/user-a/cnh.jpg");
+
+        assertEquals("https://storage/user-a/cnh.jpg", cache.lookupRemoteUrl("user-a", "cnh", "abc", 10));
+        assertNull(cache.lookupRemoteUrl("user-b", "cnh", "abc", 10));
+        assertNull(cache.lookupRemoteUrl("user-a", "crlv", "abc", 10));
+
+        DocumentCache reopened = new DocumentCache(dir, 1024);
+        assertEquals("https://storage/user-a/cnh.jpg", reopened.lookupRemoteUrl("user-a", "cnh", "abc", 10));
+        assertNull(reopened.lookupRemoteUrl("user-b", "cnh", "abc", 10));
+    }
+
+    @Test
+    public void evictionDropsFileAndAliasesAndPersistsIndex() throws Exception {
+        DocumentCache cache = new DocumentCache(dir, 100);
+        File first = cache.put("first", new byte[60], 0, 60, "jpg");
+        cache.putAlias("capture-1", "first");
+        cache.put("second", new byte[60], 0, 60, "jpg");
+
+        assertFalse(first.exists());
+        assertNull(cache.get("first"));
+        assertNull(cache.getByAlias("capture-1"));
+        assertNotNull(cache.get("second"));
+
+        DocumentCache reopened = new DocumentCache(dir, 100);
+        assertNull(reopened.getByAlias("capture-1"));
+        assertEquals(1, reopened.getStats().getInt("entries"));
+        assertEquals(60, reopened.getStats().getLong("totalBytes"));
+    }
+
+    @Test
+    public void missingFileRemovesEntryAndAliasFromIndex() throws Exception {
+        DocumentCache cache = new DocumentCache(dir, 1024);
+        File file = cache.put("hash", "conteudo".getBytes(StandardCharsets.UTF_8), 0, 8, "jpg");
+        cache.putAlias("capture-1", "hash");
+        assertTrue(file.delete());
+
+        assertNull(cache.getByAlias("capture-1"));
+        DocumentCache reopened = new DocumentCache(dir, 1024);
+        assertEquals(0, reopened.getStats().getInt("entries"));
+        assertNull(reopened.getByAlias("capture-1"));
+    }
+}
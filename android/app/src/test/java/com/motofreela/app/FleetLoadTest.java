@@ -0,0 +1,52 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+/**
+ * Carga de uma frota simulada contra o PostgREST local. Leva alguns segundos
+ * mesmo com os padrões, então só roda quando pedido; o relatório (JSON e
+ * texto) vai para build/reports/fleet. Para medir de verdade:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests '*FleetLoadTest*' \
+ *       -Dfleet.enabled=true -Dfleet.couriers=200 -Dfleet.minutes=30
+ */
+public class FleetLoadTest {
+    static final String DEFAULT_REPORT_DIR = "build/reports/fleet";
+
+    @Test
+    public void fleetCompletesEveryRequest() throws Exception {
+        assumeTrue("Carga da frota desligada (-Dfleet.enabled=true)", Boolean.getBoolean("fleet.enabled"));
+
+        FleetSimulator.Config config = FleetSimulator.Config.fromSystemProperties();
+        FleetSimulator.Report report = new FleetSimulator(config).run();
+
+        File reportDir = new File(System.getProperty("fleet.reportDir", DEFAULT_REPORT_DIR));
+        write(new File(reportDir, "fleet.json"), report.toJson().toString(2));
+        write(new File(reportDir, "fleet.txt"), report.describe());
+
+        int ticks = config.ticks();
+        long expectedPerCourier = ticks
+            + ticks / config.chatEveryTicks
+            + ticks / config.chatReadEveryTicks
+            + 1;
+        assertEquals(0, report.errors);
+        assertEquals(expectedPerCourier * config.couriers, report.requests);
+        assertTrue(report.bytesSent > 0);
+        assertTrue(report.endpoints.has("POST /rest/v1/user_locations"));
+        assertTrue(report.endpoints.has("GET /rest/v1/messages"));
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.motofreela.app;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Frota simulada de entregadores usando o SupabaseService contra um
+ * PostgREST local (MockWebServer). Cada entregador repete o padrão de uma
+ * corrida: fixes de localização, mensagens e leitura do chat e uma avaliação
+ * no final. O tempo é comprimido: um tick de {@code tickMs} representa um
+ * fix real a cada {@link Config#REAL_FIX_INTERVAL_MS}.
+ */
+class FleetSimulator {
+    static final class Config {
+        // Intervalo real entre fixes no LocationService
+        static final long REAL_FIX_INTERVAL_MS = 5000;
+
+        int couriers = 10;
+        int simulatedMinutes = 5;
+        long tickMs = 50;
+        // Uma mensagem por minuto e leitura do chat a cada dois minutos
+        int chatEveryTicks = 12;
+        int chatReadEveryTicks = 24;
+        // Latência artificial do servidor
+        long serverLatencyMs = 5;
+        // Como no app: um OkHttpClient compartilhado (SupabaseService.sharedClient());
+        // true reproduz o comportamento antigo, um cliente por serviço, para comparação
+        boolean clientPerService = false;
+
+        // Sobrescrever pelos -Dfleet.* (repassados pelo Gradle)
+        static Config fromSystemProperties() {
+            Config config = new Config();
+            config.couriers = Integer.getInteger("fleet.couriers", config.couriers);
+            config.simulatedMinutes = Integer.getInteger("fleet.minutes", config.simulatedMinutes);
+            config.tickMs = Long.getLong("fleet.tickMs", config.tickMs);
+            config.serverLatencyMs = Long.getLong("fleet.latencyMs", config.serverLatencyMs);
+            config.clientPerService = Boolean.parseBoolean(
+                System.getProperty("fleet.clientPerService", String.valueOf(config.clientPerService)));
+            return config;
+        }
+
+        int ticks() {
+            return (int) (simulatedMinutes * 60_000L / REAL_FIX_INTERVAL_MS);
+        }
+    }
+
+    static final class Report {
+        Config config;
+        int couriers;
+        double wallSeconds;
+        double simulatedHours;
+        long requests;
+        long errors;
+        long bytesSent;
+        long bytesReceived;
+        double requestsPerSecond;
+        double requestsPerCourierHour;
+        double bytesPerCourierHour;
+        int baselineThreads;
+        int peakThreads;
+        int peakClientThreads;
+        long heapPerCourierBytes;
+        JSONObject endpoints;
+
+        double clientThreadsPerCourier() {
+            return (double) peakClientThreads / couriers;
+        }
+
+        JSONObject toJson() throws JSONException {
+            return new JSONObject()
+                .put("config", new JSONObject()
+                    .put("simulatedMinutes", config.simulatedMinutes)
+                    .put("tickMs", config.tickMs)
+                    .put("serverLatencyMs", config.serverLatencyMs)
+                    .put("clientPerService", config.clientPerService))
+                .put("couriers", couriers)
+                .put("wallSeconds", wallSeconds)
+                .put("simulatedHours", simulatedHours)
+                .put("requests", requests)
+                .put("errors", errors)
+                .put("bytesSent", bytesSent)
+                .put("bytesReceived", bytesReceived)
+                .put("requestsPerSecond", requestsPerSecond)
+                .put("requestsPerCourierHour", requestsPerCourierHour)
+                .put("bytesPerCourierHour", bytesPerCourierHour)
+                .put("baselineThreads", baselineThreads)
+                .put("peakThreads", peakThreads)
+                .put("peakClientThreads", peakClientThreads)
+                .put("clientThreadsPerCourier", clientThreadsPerCourier())
+                .put("heapPerCourierBytes", heapPerCourierBytes)
+                .put("endpoints", endpoints);
+        }
+
+        String describe() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format(Locale.ROOT,
+                "frota: %d entregadores, %.1f s de parede, %.2f h simuladas%n", couriers, wallSeconds, simulatedHours));
+            text.append(String.format(Locale.ROOT,
+                "requisições: %d (%d erros), %.1f req/s, %.0f req por entregador-hora%n",
+                requests, errors, requestsPerSecond, requestsPerCourierHour));
+            text.append(String.format(Locale.ROOT,
+                "bytes: %d enviados, %d recebidos, %.0f por entregador-hora%n", bytesSent, bytesReceived, bytesPerCourierHour));
+            text.append(String.format(Locale.ROOT,
+                "threads: %d base, pico %d (%d do cliente HTTP, %.2f por entregador)%n",
+                baselineThreads, peakThreads, peakClientThreads, clientThreadsPerCourier()));
+            text.append(String.format(Locale.ROOT, "heap: %d KB por entregador%n", heapPerCourierBytes / 1024));
+            for (String key : endpointKeys()) {
+                JSONObject endpoint = endpoints.optJSONObject(key);
+                text.append(String.format(Locale.ROOT, "  %-40s %6d req  p50 %7.2f ms  p99 %7.2f ms%n",
+                    key, endpoint.optLong("requests"), endpoint.optDouble("p50Ms"), endpoint.optDouble("p99Ms")));
+            }
+            return text.toString();
+        }
+
+        private List<String> endpointKeys() {
+            List<String> keys = new ArrayList<>();
+            endpoints.keys().forEachRemaining(keys::add);
+            keys.sort(null);
+            return keys;
+        }
+    }
+
+    // Um entregador: serviços, corrida atual e estado do trajeto
+    private static final class Courier {
+        final String userId;
+        final String serviceId;
+        final SupabaseService location;
+        final SupabaseService chat;
+        final SupabaseService rating;
+        double latitude;
+        double longitude;
+        int tick;
+
+        Courier(String userId, String serviceId, SupabaseService location, SupabaseService chat, SupabaseService rating,
+                double latitude, double longitude) {
+            this.userId = userId;
+            this.serviceId = serviceId;
+            this.location = location;
+            this.chat = chat;
+            this.rating = rating;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    private final Config config;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile int peakThreads;
+    private volatile int peakClientThreads;
+    private volatile long peakHeap;
+
+    FleetSimulator(Config config) {
+        this.config = config;
+    }
+
+    Report run() throws Exception {
+        MockWebServer server = new MockWebServer();
+        server.setDispatcher(new SupabaseDispatcher(config.serverLatencyMs));
+        server.start();
+        String baseUrl = server.url("/").toString().replaceAll("/$", "");
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        try {
+            System.gc();
+            int baselineThreads = threadBean.getThreadCount();
+            long baselineHeap = usedHeap();
+            peakThreads = baselineThreads;
+
+            List<Courier> couriers = createCouriers(baseUrl);
+            metrics.reset();
+
+            ScheduledFuture<?> sampler = scheduler.scheduleAtFixedRate(this::sample, 0, 20, TimeUnit.MILLISECONDS);
+            CountDownLatch finished = new CountDownLatch(couriers.size());
+            long startNanos = System.nanoTime();
+            for (Courier courier : couriers) {
+                // Espalha os entregadores ao longo do primeiro tick
+                long offset = (long) (Math.random() * config.tickMs);
+                scheduleTick(scheduler, courier, finished, offset);
+            }
+
+            finished.await();
+            awaitPending();
+            double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+            sampler.cancel(false);
+            sample();
+
+            Report report = new Report();
+            report.config = config;
+            report.couriers = couriers.size();
+            report.wallSeconds = wallSeconds;
+            report.simulatedHours = config.simulatedMinutes / 60.0;
+            report.baselineThreads = baselineThreads;
+            report.peakThreads = peakThreads;
+            report.peakClientThreads = peakClientThreads;
+            report.heapPerCourierBytes = Math.max(peakHeap - baselineHeap, 0) / couriers.size();
+            summarize(report, metrics.snapshot().getJSONObject("endpoints"));
+            // Erros vistos pelos callbacks (inclui falhas antes de a requisição sair)
+            report.errors = failures.get();
+            return report;
+        } finally {
+            scheduler.shutdownNow();
+            server.shutdown();
+        }
+    }
+
+    private List<Courier> createCouriers(String baseUrl) {
+        Random random = new Random(42);
+        List<Courier> couriers = new ArrayList<>(config.couriers);
+        OkHttpClient sharedClient = new OkHttpClient();
+        for (int i = 0; i < config.couriers; i++) {
+            SupabaseService location = newService(baseUrl, sharedClient);
+            SupabaseService chat = config.clientPerService ? newService(baseUrl, sharedClient) : location;
+            SupabaseService rating = config.clientPerService ? newService(baseUrl, sharedClient) : location;
+            couriers.add(new Courier(
+                "courier-" + i,
+                "service-" + i,
+                location,
+                chat,
+                rating,
+                -23.55 + random.nextDouble() * 0.2,
+                -46.63 + random.nextDouble() * 0.2
+            ));
+        }
+        return couriers;
+    }
+
+    private SupabaseService newService(String baseUrl, OkHttpClient sharedClient) {
+        // Um aparelho por entregador; no app os serviços derivam do cliente compartilhado (newBuilder)
+        OkHttpClient client = config.clientPerService ? new OkHttpClient() : sharedClient.newBuilder().build();
+        return new SupabaseService(null, client, baseUrl, "fleet-key");
+    }
+
+    private void scheduleTick(ScheduledExecutorService scheduler, Courier courier, CountDownLatch finished, long delayMs) {
+        scheduler.schedule(() -> {
+            tick(courier);
+            if (courier.tick < config.ticks()) {
+                scheduleTick(scheduler, courier, finished, config.tickMs);
+            } else {
+                finished.countDown();
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Um fix de localização (e as ações do chat/avaliação que caem neste tick)
+    private void tick(Courier courier) {
+        courier.tick++;
+        courier.latitude += 0.0002;
+        courier.longitude += 0.0001;
+        courier.location.updateUserLocation(courier.userId, courier.latitude, courier.longitude, 8.0f, track());
+
+        if (courier.tick % config.chatEveryTicks == 0) {
+            courier.chat.sendChatMessage(courier.serviceId, courier.userId, "client-" + courier.userId,
+                "Estou a caminho, chego em alguns minutos", "text", track());
+        }
+        if (courier.tick % config.chatReadEveryTicks == 0) {
+            courier.chat.getChatMessages(courier.serviceId, track());
+        }
+        if (courier.tick == config.ticks()) {
+            courier.rating.submitRating(courier.serviceId, courier.userId, "client-" + courier.userId, 5, "Cliente atencioso", track());
+        }
+    }
+
+    private SupabaseService.SupabaseCallback track() {
+        pending.incrementAndGet();
+        return new SupabaseService.SupabaseCallback() {
+            @Override
+            public void onSuccess(String response) {
+                pending.decrementAndGet();
+            }
+
+            @Override
+            public void onError(String error) {
+                failures.incrementAndGet();
+                pending.decrementAndGet();
+            }
+        };
+    }
+
+    private void awaitPending() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (pending.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void sample() {
+        peakThreads = Math.max(peakThreads, threadBean.getThreadCount());
+        int clientThreads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            // Threads do OkHttp do lado do cliente (o MockWebServer usa nomes próprios)
+            if (thread.getName().startsWith("OkHttp") && !thread.getName().contains("MockWebServer")) {
+                clientThreads++;
+            }
+        }
+        peakClientThreads = Math.max(peakClientThreads, clientThreads);
+        peakHeap = Math.max(peakHeap, usedHeap());
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private void summarize(Report report, JSONObject endpoints) throws JSONException {
+        report.endpoints = endpoints;
+        for (String key : report.endpointKeys()) {
+            JSONObject endpoint = endpoints.getJSONObject(key);
+            report.requests += endpoint.getLong("requests");
+            report.bytesSent += endpoint.getLong("bytesSent");
+            report.bytesReceived += endpoint.getLong("bytesReceived");
+        }
+        double courierHours = report.couriers * report.simulatedHours;
+        report.requestsPerSecond = report.requests / report.wallSeconds;
+        report.requestsPerCourierHour = report.requests / courierHours;
+        report.bytesPerCourierHour = (report.bytesSent + report.bytesReceived) / courierHours;
+    }
+
+    // Respostas no formato do PostgREST para as tabelas usadas pela frota
+    private static final class SupabaseDispatcher extends Dispatcher {
+        private final long latencyMs;
+
+        SupabaseDispatcher(long latencyMs) {
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            String path = request.getRequestUrl() != null ? request.getRequestUrl().encodedPath() : "";
+            MockResponse response;
+            if ("GET".equals(request.getMethod()) && path.equals("/rest/v1/messages")) {
+                response = new MockResponse().setResponseCode(206)
+                    .setHeader("Content-Range", "0-1/2")
+                    .setBody("[{\"id\":\"m1\",\"content\":\"Olá\"},{\"id\":\"m2\",\"content\":\"Chegando\"}]");
+            } else if (path.startsWith("/rest/v1/")) {
+                // Sem return=minimal o PostgREST devolve a linha gravada
+                String prefer = request.getHeader("Prefer");
+                boolean minimal = prefer != null && prefer.contains("return=minimal");
+                response = new MockResponse().setResponseCode(201)
+                    .setBody(minimal ? "" : "[" + request.getBody().readUtf8() + "]");
+            } else {
+                response = new MockResponse().setResponseCode(404).setBody("{\"message\":\"not found\"}");
+            }
+            return response.setHeadersDelay(latencyMs, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void bucketBoundsCoverEveryValue() {
+        long[] values = {0, 1, 3, 4, 5, 7, 8, 15, 16, 1000, 123456, Long.MAX_VALUE / 2};
+        for (long value : values) {
+            int index = MetricsRegistry.Histogram.bucketIndex(value);
+            long lower = MetricsRegistry.Histogram.bucketLowerBound(index);
+            long width = MetricsRegistry.Histogram.bucketWidth(index);
+            assertTrue("valor " + value, value >= lower && value < lower + width);
+        }
+    }
+
+    @Test
+    public void percentilesStayWithinBucketError() {
+        MetricsRegistry.Histogram histogram = new MetricsRegistry.Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMax());
+        assertEquals(500_000, histogram.percentile(0.50), 500_000 * 0.25);
+        assertEquals(990_000, histogram.percentile(0.99), 990_000 * 0.25);
+        assertTrue(histogram.percentile(0.99) <= histogram.getMax());
+    }
+
+    @Test
+    public void snapshotIncludesEndpointsAndCounters() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        MetricsRegistry.Endpoint endpoint = registry.endpoint("GET", "/rest/v1/profiles");
+        endpoint.requests.increment();
+        endpoint.latency.record(2500);
+        registry.counter("location.fixes").add(3);
+
+        assertSame(endpoint, registry.endpoint("GET", "/rest/v1/profiles"));
+
+        JSONObject snapshot = registry.snapshot();
+        JSONObject profiles = snapshot.getJSONObject("endpoints").getJSONObject("GET /rest/v1/profiles");
+        assertEquals(1, profiles.getLong("requests"));
+        assertEquals(1, profiles.getLong("count"));
+        assertEquals(3, snapshot.getJSONObject("counters").getLong("location.fixes"));
+    }
+}
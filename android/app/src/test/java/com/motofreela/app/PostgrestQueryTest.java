@@ -0,0 +1,70 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import org.junit.Test;
+
+public class PostgrestQueryTest {
+    private static final String BASE_URL = "https://example.supabase.co";
+
+    @Test
+    public void buildsProjectionFiltersOrderAndLimit() {
+        HttpUrl url = PostgrestQuery.from("messages")
+            .select("id", "content")
+            .eq("service_id", "abc")
+            .order("created_at", true)
+            .limit(20)
+            .offset(40)
+            .toUrl(BASE_URL);
+
+        assertEquals("/rest/v1/messages", url.encodedPath());
+        assertEquals("id,content", url.queryParameter("select"));
+        assertEquals("eq.abc", url.queryParameter("service_id"));
+        assertEquals("created_at.asc", url.queryParameter("order"));
+        assertEquals("20", url.queryParameter("limit"));
+        assertEquals("40", url.queryParameter("offset"));
+    }
+
+    @Test
+    public void encodesFilterValues() {
+        HttpUrl url = PostgrestQuery.from("profiles")
+            .eq("full_name", "João & Maria")
+            .toUrl(BASE_URL);
+
+        assertEquals("eq.João & Maria", url.queryParameter("full_name"));
+        assertFalse(url.encodedQuery().contains(" "));
+        assertFalse(url.encodedQuery().contains("&Maria"));
+    }
+
+    @Test
+    public void embedsResources() {
+        HttpUrl url = PostgrestQuery.from("messages")
+            .select("id")
+            .embed("sender", "profiles", "full_name", "avatar_url")
+            .toUrl(BASE_URL);
+
+        assertEquals("id,sender:profiles(full_name,avatar_url)", url.queryParameter("select"));
+    }
+
+    @Test
+    public void quotesListValuesWithReservedCharacters() {
+        HttpUrl url = PostgrestQuery.from("services")
+            .in("status", "accepted", "in progress", "a,b")
+            .toUrl(BASE_URL);
+
+        assertEquals("in.(accepted,\"in progress\",\"a,b\")", url.queryParameter("status"));
+    }
+
+    @Test
+    public void appliesRangeAndCountHeaders() {
+        Request.Builder builder = new Request.Builder().url(BASE_URL);
+        PostgrestQuery.from("messages").range(0, 49).countExact().applyHeaders(builder);
+        Request request = builder.build();
+
+        assertEquals("items", request.header("Range-Unit"));
+        assertEquals("0-49", request.header("Range"));
+        assertEquals("count=exact", request.header("Prefer"));
+    }
+}
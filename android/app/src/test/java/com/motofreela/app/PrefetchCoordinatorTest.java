@@ -0,0 +1,142 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pré-carga da corrida contra um PostgREST local (MockWebServer).
+ */
+public class PrefetchCoordinatorTest {
+    private MockWebServer server;
+    private SupabaseService supabaseService;
+    private PrefetchCoordinator coordinator;
+    private final Map<String, AtomicInteger> hitsByTable = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String path = request.getPath();
+                if (path.startsWith("/auth/v1/token")) {
+                    return new MockResponse().setBody("{\"access_token\":\"t\",\"refresh_token\":\"r\","
+                        + "\"expires_in\":3600,\"user\":{\"id\":\"courier\"}}");
+                }
+                String table = path.substring("/rest/v1/".length()).split("\\?")[0];
+                hitsByTable.computeIfAbsent(table, key -> new AtomicInteger()).incrementAndGet();
+                Thread.sleep(100);
+                switch (table) {
+                    case "services":
+                        return new MockResponse().setBody("[{\"company_id\":\"company\",\"motoboy_id\":\"courier\"}]");
+                    case "profiles":
+                        return new MockResponse().setBody("[{\"id\":\"company\",\"full_name\":\"Loja\"}]");
+                    case "messages":
+                        return new MockResponse().setBody("[]");
+                    default:
+                        return new MockResponse().setBody("[{\"latitude\":-23.55,\"longitude\":-46.63}]");
+                }
+            }
+        });
+        server.start();
+        String baseUrl = server.url("/").toString().replaceAll("/$", "");
+        supabaseService = new SupabaseService(null, new OkHttpClient(), baseUrl, "anon-key");
+        coordinator = new PrefetchCoordinator(supabaseService);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void rideScreenReusesPrefetchedReads() throws Exception {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        long usedBefore = metrics.counter("prefetch.used").get();
+        long missesBefore = metrics.counter("prefetch.misses").get();
+
+        coordinator.onRideAccepted("s1", "company");
+        // A tela abre antes de a pré-carga terminar: espera a mesma leitura em vez de repetir
+        List<String> screen = coordinator.loadRideScreen("s1", "company").get(5, TimeUnit.SECONDS);
+
+        assertTrue(screen.get(0).contains("Loja"));
+        assertEquals(1, hitsByTable.get("profiles").get());
+        assertEquals(1, hitsByTable.get("messages").get());
+        assertEquals(1, hitsByTable.get("user_locations").get());
+        assertEquals(usedBefore + 3, metrics.counter("prefetch.used").get());
+        assertEquals(missesBefore, metrics.counter("prefetch.misses").get());
+    }
+
+    @Test
+    public void secondLoadRefetches() throws Exception {
+        coordinator.onRideAccepted("s1", "company");
+        coordinator.loadRideScreen("s1", "company").get(5, TimeUnit.SECONDS);
+
+        // Pré-carga é de uso único: a tela reaberta busca chat e posição de novo
+        coordinator.loadRideScreen("s1", "company").get(5, TimeUnit.SECONDS);
+        assertEquals(2, hitsByTable.get("profiles").get());
+        assertEquals(2, hitsByTable.get("messages").get());
+        assertEquals(2, hitsByTable.get("user_locations").get());
+    }
+
+    @Test
+    public void openedServiceResolvesCounterpart() throws Exception {
+        awaitSignIn();
+        coordinator.onServiceOpened("s1");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!hitsByTable.containsKey("user_locations") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        List<String> screen = coordinator.loadRideScreen("s1", "company").get(5, TimeUnit.SECONDS);
+        assertTrue(screen.get(0).contains("Loja"));
+        assertEquals(1, hitsByTable.get("services").get());
+        assertEquals(1, hitsByTable.get("profiles").get());
+        assertEquals(1, hitsByTable.get("messages").get());
+    }
+
+    @Test
+    public void openedServiceWithoutSessionPrefetchesOnlyMessages() throws Exception {
+        // Sem usuário conhecido não dá para escolher a outra parte: nada de perfil ou posição
+        coordinator.onServiceOpened("s1");
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!hitsByTable.containsKey("services") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(1, hitsByTable.get("messages").get());
+        assertNull(hitsByTable.get("profiles"));
+        assertNull(hitsByTable.get("user_locations"));
+    }
+
+    private void awaitSignIn() throws Exception {
+        SupabaseFuture<String> signedIn = new SupabaseFuture<>();
+        supabaseService.signIn("courier@motofreela.com", "pw", new SupabaseService.SupabaseCallback() {
+            @Override
+            public void onSuccess(String response) {
+                signedIn.complete(response);
+            }
+
+            @Override
+            public void onError(String error) {
+                signedIn.fail(new SupabaseException(error));
+            }
+        });
+        signedIn.get(5, TimeUnit.SECONDS);
+        assertEquals("courier", supabaseService.getSessionManager().getUserId());
+    }
+}
@@ -0,0 +1,126 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Faixas de prioridade contra um servidor local lento (MockWebServer).
+ */
+public class RequestSchedulerTest {
+    private MockWebServer server;
+    private OkHttpClient client;
+    private RequestScheduler scheduler;
+    private final List<String> completed = new ArrayList<>();
+    private final AtomicInteger bulkAttempts = new AtomicInteger();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String path = request.getPath();
+                if (path.startsWith("/bulk")) {
+                    bulkAttempts.incrementAndGet();
+                    // Upload grande: a resposta demora o bastante para ser preemptado
+                    return new MockResponse().setBody("ok").setHeadersDelay(300, TimeUnit.MILLISECONDS);
+                }
+                if (path.startsWith("/background")) {
+                    return new MockResponse().setBody("ok").setHeadersDelay(200, TimeUnit.MILLISECONDS);
+                }
+                return new MockResponse().setBody("ok").setHeadersDelay(50, TimeUnit.MILLISECONDS);
+            }
+        });
+        server.start();
+        client = new OkHttpClient();
+        client.dispatcher().setMaxRequestsPerHost(RequestScheduler.TOTAL_BUDGET);
+        scheduler = new RequestScheduler();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void criticalPreemptsBulkAndBulkIsRetried() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        enqueue(RequestScheduler.Priority.BULK, "/bulk", latch);
+        Thread.sleep(100);
+        assertEquals(1, scheduler.getRunning(RequestScheduler.Priority.BULK));
+
+        enqueue(RequestScheduler.Priority.CRITICAL, "/critical", latch);
+        assertTrue("timeout", latch.await(5, TimeUnit.SECONDS));
+
+        synchronized (completed) {
+            assertEquals("/critical", completed.get(0));
+            assertEquals("/bulk", completed.get(1));
+        }
+        // O upload cancelado voltou para a fila e foi enviado de novo, sem erro para quem pediu
+        assertEquals(2, bulkAttempts.get());
+    }
+
+    @Test
+    public void backgroundLoadStaysWithinItsBudget() throws Exception {
+        CountDownLatch background = new CountDownLatch(6);
+        for (int i = 0; i < 6; i++) {
+            enqueue(RequestScheduler.Priority.BACKGROUND, "/background/" + i, background);
+        }
+        assertEquals(RequestScheduler.Priority.BACKGROUND.budget, scheduler.getRunning(RequestScheduler.Priority.BACKGROUND));
+        assertEquals(6 - RequestScheduler.Priority.BACKGROUND.budget, scheduler.getQueued(RequestScheduler.Priority.BACKGROUND));
+
+        // O chat não espera a fila de posições: tem vagas próprias
+        CountDownLatch chat = new CountDownLatch(1);
+        long startNanos = System.nanoTime();
+        enqueue(RequestScheduler.Priority.INTERACTIVE, "/chat", chat);
+        assertEquals(1, scheduler.getRunning(RequestScheduler.Priority.INTERACTIVE));
+        assertTrue("timeout", chat.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) < 200);
+
+        assertTrue("timeout", background.await(5, TimeUnit.SECONDS));
+        synchronized (completed) {
+            assertEquals("/chat", completed.get(0));
+            assertEquals(7, completed.size());
+        }
+    }
+
+    private void enqueue(RequestScheduler.Priority priority, String path, CountDownLatch latch) {
+        Request request = new Request.Builder().url(server.url(path)).build();
+        scheduler.enqueue(priority, client.newCall(request), new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                synchronized (completed) {
+                    completed.add("failed " + path);
+                }
+                latch.countDown();
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                synchronized (completed) {
+                    completed.add(path);
+                }
+                latch.countDown();
+            }
+        });
+    }
+}
@@ -0,0 +1,152 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Renovação da sessão contra um Supabase Auth local (MockWebServer).
+ */
+public class SessionManagerTest {
+    private MockWebServer server;
+    private SupabaseService supabaseService;
+    private final AtomicInteger refreshCalls = new AtomicInteger();
+    private final List<String> restAuthorizations = new ArrayList<>();
+    private volatile long firstTokenLifetimeS = 3600;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String path = request.getPath();
+                String authorization = request.getHeader("Authorization");
+                if (path.startsWith("/auth/v1/token?grant_type=password")) {
+                    return new MockResponse().setBody(tokenResponse("old", "r1", firstTokenLifetimeS));
+                }
+                if (path.startsWith("/auth/v1/token?grant_type=refresh_token")) {
+                    refreshCalls.incrementAndGet();
+                    // Renovação lenta: as requisições com 401 chegam todas durante ela
+                    Thread.sleep(200);
+                    return new MockResponse().setBody(tokenResponse("new", "r2", 3600));
+                }
+                synchronized (restAuthorizations) {
+                    restAuthorizations.add(authorization);
+                }
+                if ("Bearer old".equals(authorization)) {
+                    return new MockResponse().setResponseCode(401).setBody("{\"message\":\"JWT expired\"}");
+                }
+                return new MockResponse().setBody("[]");
+            }
+        });
+        server.start();
+        String baseUrl = server.url("/").toString().replaceAll("/$", "");
+        supabaseService = new SupabaseService(null, new OkHttpClient(), baseUrl, "anon-key");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentUnauthorizedRequestsShareOneRefresh() throws Exception {
+        await(1, callback -> supabaseService.signIn("a@b.com", "pw", callback));
+        assertEquals("old", supabaseService.getSessionManager().getAccessToken());
+        assertEquals("u1", supabaseService.getSessionManager().getUserId());
+
+        int failures = await(8, callback -> supabaseService.getUserProfile("u1", callback));
+
+        assertEquals(0, failures);
+        assertEquals(1, refreshCalls.get());
+        assertEquals("new", supabaseService.getSessionManager().getAccessToken());
+        synchronized (restAuthorizations) {
+            // Cada consulta termina com o token novo; as que saíram antes da renovação levaram um 401 antes
+            assertEquals(8, restAuthorizations.stream().filter("Bearer new"::equals).count());
+            assertEquals(restAuthorizations.size() - 8, restAuthorizations.stream().filter("Bearer old"::equals).count());
+        }
+    }
+
+    @Test
+    public void refreshesAheadOfExpiryInBackground() throws Exception {
+        // Token curto: renovado na metade da vida, sem nenhuma requisição esperar
+        firstTokenLifetimeS = 1;
+        await(1, callback -> supabaseService.signIn("a@b.com", "pw", callback));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (refreshCalls.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, refreshCalls.get());
+        while (!"new".equals(supabaseService.getSessionManager().getAccessToken()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("new", supabaseService.getSessionManager().getAccessToken());
+
+        await(1, callback -> supabaseService.getUserProfile("u1", callback));
+        synchronized (restAuthorizations) {
+            assertEquals("Bearer new", restAuthorizations.get(0));
+        }
+    }
+
+    @Test
+    public void signOutDuringRefreshIsNotUndone() throws Exception {
+        await(1, callback -> supabaseService.signIn("a@b.com", "pw", callback));
+        SessionManager sessionManager = supabaseService.getSessionManager();
+
+        FutureTask<SessionManager.Session> refresh = sessionManager.refreshAsync();
+        // Sai enquanto o servidor ainda responde a renovação (200 ms)
+        Thread.sleep(50);
+        sessionManager.signOut();
+        refresh.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, refreshCalls.get());
+        assertFalse(sessionManager.isSignedIn());
+        assertNull(sessionManager.getAccessToken());
+    }
+
+    private static String tokenResponse(String accessToken, String refreshToken, long lifetimeS) {
+        return "{\"access_token\":\"" + accessToken + "\",\"refresh_token\":\"" + refreshToken + "\","
+            + "\"expires_in\":" + lifetimeS + ",\"token_type\":\"bearer\",\"user\":{\"id\":\"u1\"}}";
+    }
+
+    private interface Call {
+        void run(SupabaseService.SupabaseCallback callback);
+    }
+
+    // Dispara 'count' chamadas em paralelo e retorna quantas falharam
+    private static int await(int count, Call call) throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            call.run(new SupabaseService.SupabaseCallback() {
+                @Override
+                public void onSuccess(String response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(String message) {
+                    failures.incrementAndGet();
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue("timeout", latch.await(10, TimeUnit.SECONDS));
+        return failures.get();
+    }
+}
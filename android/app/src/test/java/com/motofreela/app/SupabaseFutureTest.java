@@ -0,0 +1,144 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * API com futuros do SupabaseService contra um PostgREST local (MockWebServer).
+ */
+public class SupabaseFutureTest {
+    private MockWebServer server;
+    private SupabaseService supabaseService;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private volatile long delayMs = 200;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(delayMs);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                String path = request.getPath();
+                if (path.startsWith("/rest/v1/profiles")) {
+                    return new MockResponse().setBody("[{\"id\":\"u2\",\"full_name\":\"Ana\"}]");
+                }
+                if (path.startsWith("/rest/v1/messages")) {
+                    return new MockResponse().setBody("[{\"id\":\"m1\",\"content\":\"oi\"}]");
+                }
+                if (path.startsWith("/rest/v1/user_locations")) {
+                    return new MockResponse().setBody("[{\"latitude\":-23.55,\"longitude\":-46.63}]");
+                }
+                return new MockResponse().setResponseCode(404).setBody("{}");
+            }
+        });
+        server.start();
+        String baseUrl = server.url("/").toString().replaceAll("/$", "");
+        supabaseService = new SupabaseService(null, new OkHttpClient(), baseUrl, "anon-key");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void rideScreenLoadsInOneParallelRoundTrip() throws Exception {
+        long startNanos = System.nanoTime();
+        List<String> results = supabaseService.loadRideScreen("s1", "u2").get(5, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        assertTrue(results.get(0).contains("Ana"));
+        assertTrue(results.get(1).contains("m1"));
+        assertTrue(results.get(2).contains("-46.63"));
+        // As três no ar ao mesmo tempo: ~1 atraso do servidor, não 3
+        assertEquals(3, maxInFlight.get());
+        assertTrue("levou " + elapsedMs + " ms", elapsedMs < 2 * delayMs + 150);
+    }
+
+    @Test
+    public void closingTheScopeCancelsInFlightCalls() throws Exception {
+        delayMs = 1000;
+        CallScope scope = new CallScope();
+        SupabaseFuture<List<String>> screen = supabaseService.loadRideScreen("s1", "u2").bindTo(scope);
+        waitFor(() -> inFlight.get() == 3);
+
+        scope.close();
+
+        assertTrue(screen.isCancelled());
+        try {
+            screen.get(1, TimeUnit.SECONDS);
+            fail("esperava cancelamento");
+        } catch (CancellationException expected) {
+        }
+        // Futuro criado depois do fechamento já nasce cancelado, sem ir ao servidor
+        int before = server.getRequestCount();
+        assertTrue(supabaseService.getUserProfileAsync("u2").bindTo(scope).isCancelled());
+        Thread.sleep(50);
+        assertEquals(before, server.getRequestCount());
+    }
+
+    @Test
+    public void timeoutFailsAndCancelsTheCall() throws Exception {
+        delayMs = 1000;
+        SupabaseFuture<String> profile = supabaseService.getUserProfileAsync("u2").withTimeout(100, TimeUnit.MILLISECONDS);
+        try {
+            profile.get(5, TimeUnit.SECONDS);
+            fail("esperava timeout");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof TimeoutException);
+        }
+    }
+
+    @Test
+    public void composesDependentCalls() throws Exception {
+        delayMs = 0;
+        // O id do perfil alimenta a próxima consulta
+        SupabaseFuture<String> location = supabaseService.getUserProfileAsync("u2")
+            .map(body -> new org.json.JSONArray(body).getJSONObject(0).getString("id"))
+            .then(supabaseService::getUserLocationAsync);
+        assertTrue(location.get(5, TimeUnit.SECONDS).contains("-23.55"));
+
+        SupabaseFuture<String> missing = supabaseService.queryAsync(PostgrestQuery.from("nope").limit(1),
+            RequestScheduler.Priority.INTERACTIVE);
+        try {
+            missing.get(5, TimeUnit.SECONDS);
+            fail("esperava erro 404");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof SupabaseException);
+            assertTrue(expected.getCause().getMessage().startsWith("Erro: 404"));
+        }
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.holds() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("timeout", condition.holds());
+    }
+}
@@ -0,0 +1,261 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import com.motofreela.core.LocationFix;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.GzipSource;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Consultas do SupabaseService contra um PostgREST local (MockWebServer).
+ */
+public class SupabaseServiceQueryTest {
+    private MockWebServer server;
+    private SupabaseService supabaseService;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        String baseUrl = server.url("/").toString().replaceAll("/$", "");
+        supabaseService = new SupabaseService(null, new OkHttpClient(), baseUrl, "test-key");
+        SupabaseService.resetGzipWrites();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void getUserProfileProjectsColumnsAndLimitsToOneRow() throws Exception {
+        server.enqueue(new MockResponse().setBody("[{\"id\":\"u1\",\"full_name\":\"Ana\"}]"));
+
+        String body = await(callback -> supabaseService.getUserProfile("u1", callback));
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals("[{\"id\":\"u1\",\"full_name\":\"Ana\"}]", body);
+        assertEquals("GET", request.getMethod());
+        assertEquals("/rest/v1/profiles", request.getRequestUrl().encodedPath());
+        assertEquals(String.join(",", SupabaseService.PROFILE_COLUMNS), request.getRequestUrl().queryParameter("select"));
+        assertEquals("eq.u1", request.getRequestUrl().queryParameter("id"));
+        assertEquals("1", request.getRequestUrl().queryParameter("limit"));
+        assertEquals("test-key", request.getHeader("apikey"));
+    }
+
+    @Test
+    public void getChatMessagesPagesWithRangeHeader() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(206)
+            .setHeader("Content-Range", "100-149/300")
+            .setBody("[]"));
+
+        String body = await(callback -> supabaseService.getChatMessages("s1", 100, 149, callback));
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals("[]", body);
+        assertEquals("/rest/v1/messages", request.getRequestUrl().encodedPath());
+        assertEquals(String.join(",", SupabaseService.MESSAGE_COLUMNS), request.getRequestUrl().queryParameter("select"));
+        assertEquals("eq.s1", request.getRequestUrl().queryParameter("service_id"));
+        assertEquals("created_at.desc", request.getRequestUrl().queryParameter("order"));
+        assertEquals("items", request.getHeader("Range-Unit"));
+        assertEquals("100-149", request.getHeader("Range"));
+    }
+
+    @Test
+    public void getChatMessagesPagesBackFromNewestInChronologicalOrder() throws Exception {
+        // O banco devolve da mais nova para a mais antiga; cada página chega em ordem da conversa
+        server.enqueue(new MockResponse().setResponseCode(206)
+            .setHeader("Content-Range", "0-1/5")
+            .setBody("[{\"id\":\"m5\"},{\"id\":\"m4\"}]"));
+        server.enqueue(new MockResponse().setResponseCode(206)
+            .setHeader("Content-Range", "2-3/5")
+            .setBody("[{\"id\":\"m3\"},{\"id\":\"m2\"}]"));
+
+        JSONArray newest = new JSONArray(await(callback -> supabaseService.getChatMessages("s1", 0, 1, callback)));
+        JSONArray older = new JSONArray(await(callback -> supabaseService.getChatMessages("s1", 2, 3, callback)));
+        RecordedRequest first = server.takeRequest(5, TimeUnit.SECONDS);
+        RecordedRequest second = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals("0-1", first.getHeader("Range"));
+        assertEquals("2-3", second.getHeader("Range"));
+        assertEquals("created_at.desc", second.getRequestUrl().queryParameter("order"));
+        assertEquals("m4", newest.getJSONObject(0).getString("id"));
+        assertEquals("m5", newest.getJSONObject(1).getString("id"));
+        assertEquals("m2", older.getJSONObject(0).getString("id"));
+        assertEquals("m3", older.getJSONObject(1).getString("id"));
+    }
+
+    @Test
+    public void getUserLocationEncodesUserId() throws Exception {
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        await(callback -> supabaseService.getUserLocation("a&b=c", callback));
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals("eq.a&b=c", request.getRequestUrl().queryParameter("user_id"));
+        assertNull(request.getRequestUrl().queryParameter("b"));
+        assertEquals(String.join(",", SupabaseService.LOCATION_COLUMNS), request.getRequestUrl().queryParameter("select"));
+    }
+
+    @Test
+    public void sendChatMessageStreamsJsonBody() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(201));
+
+        await(callback -> supabaseService.sendChatMessage("s1", "a", "b", "Olá \"chefe\"\n🚀", "text", callback));
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals("POST", request.getMethod());
+        assertTrue(request.getHeader("Content-Type").startsWith("application/json"));
+        JSONObject body = new JSONObject(request.getBody().readUtf8());
+        assertEquals("Olá \"chefe\"\n🚀", body.getString("content"));
+        assertEquals("s1", body.getString("service_id"));
+    }
+
+    @Test
+    public void updateUserLocationUpsertsWithoutEcho() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(201));
+
+        await(callback -> supabaseService.updateUserLocation("u1", -23.5505, -46.6333, 8f, callback));
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals("/rest/v1/user_locations", request.getRequestUrl().encodedPath());
+        assertEquals("user_id", request.getRequestUrl().queryParameter("on_conflict"));
+        assertEquals(SupabaseService.LOCATION_UPSERT_PREFER, request.getHeader("Prefer"));
+        JSONObject body = new JSONObject(request.getBody().readUtf8());
+        assertFalse(body.has("updated_at"));
+    }
+
+    @Test
+    public void uploadLocationBatchIsGzippedWithPlainFallback() throws Exception {
+        LocationFix fix = new LocationFix(-23.5505, -46.6333, 6f, Float.NaN, Float.NaN, 1761055387250L);
+        server.enqueue(new MockResponse().setResponseCode(201));
+        await(callback -> supabaseService.uploadLocationBatch("u1", "s1", Arrays.asList(fix, fix), callback));
+        RecordedRequest gzipped = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+        assertEquals(SupabaseService.MINIMAL_PREFER, gzipped.getHeader("Prefer"));
+        Buffer inflated = new Buffer();
+        inflated.writeAll(new GzipSource(gzipped.getBody()));
+        assertEquals(2, new JSONArray(inflated.readUtf8()).length());
+
+        // Servidor sem suporte a gzip: reenvia o mesmo lote sem compressão
+        server.enqueue(new MockResponse().setResponseCode(415));
+        server.enqueue(new MockResponse().setResponseCode(201));
+        await(callback -> supabaseService.uploadLocationBatch("u1", "s1", Arrays.asList(fix), callback));
+        server.takeRequest(5, TimeUnit.SECONDS);
+        RecordedRequest plain = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertNull(plain.getHeader("Content-Encoding"));
+        assertEquals(1, new JSONArray(plain.getBody().readUtf8()).length());
+    }
+
+    @Test
+    public void uploadLocationBatchFallsBackToPlainOnPostgrest400() throws Exception {
+        // O PostgREST não descomprime: lê gzip como JSON inválido e responde 400 (PGRST102)
+        LocationFix fix = new LocationFix(-23.5505, -46.6333, 6f, Float.NaN, Float.NaN, 1761055387250L);
+        server.enqueue(new MockResponse().setResponseCode(400)
+            .setBody("{\"code\":\"PGRST102\",\"message\":\"Empty or invalid json\"}"));
+        server.enqueue(new MockResponse().setResponseCode(201));
+        await(callback -> supabaseService.uploadLocationBatch("u1", "s1", Arrays.asList(fix, fix), callback));
+        RecordedRequest gzipped = server.takeRequest(5, TimeUnit.SECONDS);
+        RecordedRequest plain = server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+        assertNull(plain.getHeader("Content-Encoding"));
+        assertEquals(2, new JSONArray(plain.getBody().readUtf8()).length());
+
+        // O reenvio sem compressão passou: os próximos lotes já vão sem gzip
+        server.enqueue(new MockResponse().setResponseCode(201));
+        await(callback -> supabaseService.uploadLocationBatch("u1", "s1", Arrays.asList(fix), callback));
+        assertNull(server.takeRequest(5, TimeUnit.SECONDS).getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void uploadLocationBatchKeepsGzipWhen400IsAboutTheContent() throws Exception {
+        LocationFix fix = new LocationFix(-23.5505, -46.6333, 6f, Float.NaN, Float.NaN, 1761055387250L);
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("{\"code\":\"23502\"}"));
+        server.enqueue(new MockResponse().setResponseCode(400).setBody("{\"code\":\"23502\"}"));
+        String error = awaitError(callback -> supabaseService.uploadLocationBatch("u1", "s1", Arrays.asList(fix), callback));
+        server.takeRequest(5, TimeUnit.SECONDS);
+        server.takeRequest(5, TimeUnit.SECONDS);
+
+        assertTrue(error.contains("400"));
+        server.enqueue(new MockResponse().setResponseCode(201));
+        await(callback -> supabaseService.uploadLocationBatch("u1", "s1", Arrays.asList(fix), callback));
+        assertEquals("gzip", server.takeRequest(5, TimeUnit.SECONDS).getHeader("Content-Encoding"));
+    }
+
+    @Test
+    public void reportsErrorStatus() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(406).setBody("{\"message\":\"erro\"}"));
+
+        AtomicReference<String> error = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        supabaseService.getUserProfile("u1", new SupabaseService.SupabaseCallback() {
+            @Override
+            public void onSuccess(String response) {
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(String message) {
+                error.set(message);
+                latch.countDown();
+            }
+        });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNotNull(error.get());
+        assertTrue(error.get().startsWith("Erro: 406"));
+    }
+
+    private interface Call {
+        void run(SupabaseService.SupabaseCallback callback);
+    }
+
+    private static String await(Call call) throws InterruptedException {
+        String[] outcome = complete(call);
+        assertNull(outcome[1]);
+        return outcome[0];
+    }
+
+    private static String awaitError(Call call) throws InterruptedException {
+        String[] outcome = complete(call);
+        assertNotNull(outcome[1]);
+        return outcome[1];
+    }
+
+    // { resposta, erro }
+    private static String[] complete(Call call) throws InterruptedException {
+        String[] outcome = new String[2];
+        CountDownLatch latch = new CountDownLatch(1);
+        call.run(new SupabaseService.SupabaseCallback() {
+            @Override
+            public void onSuccess(String response) {
+                outcome[0] = response;
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(String message) {
+                outcome[1] = message;
+                latch.countDown();
+            }
+        });
+        assertTrue("timeout", latch.await(5, TimeUnit.SECONDS));
+        return outcome;
+    }
+}
@@ -0,0 +1,126 @@
+package com.motofreela.app;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Cache de tiles contra um servidor de tiles local (MockWebServer).
+ */
+public class TileCacheTest {
+    private static final String TILE = "PNG-tile-bytes";
+
+    private MockWebServer server;
+    private File directory;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModified = new AtomicInteger();
+    private volatile RecordedRequest lastRequest;
+    // Validade que o servidor anuncia; max-age=0 pede revalidação a cada uso
+    private volatile String cacheControl = "max-age=0";
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                lastRequest = request;
+                if ("\"v1\"".equals(request.getHeader("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    return new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\"");
+                }
+                fullResponses.incrementAndGet();
+                return new MockResponse()
+                    .setHeader("Content-Type", "image/png")
+                    .setHeader("Cache-Control", cacheControl)
+                    .setHeader("ETag", "\"v1\"")
+                    .setBody(TILE);
+            }
+        });
+        server.start();
+        directory = Files.createTempDirectory("tiles").toFile();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void staleTileIsServedFromDiskAndRevalidated() throws Exception {
+        TileCache cache = new TileCache(new OkHttpClient(), directory, 1024 * 1024, null);
+        String url = server.url("/15/12139/18590.png").toString();
+
+        TileCache.Tile first = cache.fetch(url);
+        assertFalse(first.fromCache);
+        assertEquals(TILE, new String(first.body, "UTF-8"));
+        assertEquals(1, fullResponses.get());
+
+        // Segunda vez: sai do disco na hora; a validação condicional vai em segundo plano
+        TileCache.Tile second = cache.fetch(url);
+        assertTrue(second.fromCache);
+        assertEquals(200, second.code);
+        assertEquals(TILE, new String(second.body, "UTF-8"));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (notModified.get() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, notModified.get());
+        assertEquals(1, fullResponses.get());
+        assertTrue(cache.getStats().getDouble("hitRate") > 0);
+    }
+
+    @Test
+    public void serverFreshnessAvoidsRevalidation() throws Exception {
+        cacheControl = "max-age=3600";
+        TileCache cache = new TileCache(new OkHttpClient(), directory, 1024 * 1024, null);
+        String url = server.url("/16/24278/37180.png").toString();
+
+        cache.fetch(url);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(cache.fetch(url).fromCache);
+        }
+        Thread.sleep(100);
+        assertEquals(1, fullResponses.get());
+        assertEquals(0, notModified.get());
+    }
+
+    @Test
+    public void webViewHeadersReachTheTileServer() throws Exception {
+        TileCache cache = new TileCache(new OkHttpClient(), directory, 1024 * 1024, null);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("User-Agent", "Mozilla/5.0 (Linux; Android 14; wv) MotoFreela");
+        headers.put("Referer", "https://localhost/");
+        headers.put("If-None-Match", "\"stale\"");
+
+        cache.fetch(server.url("/17/48557/74361.png").toString(), headers);
+
+        assertEquals("Mozilla/5.0 (Linux; Android 14; wv) MotoFreela", lastRequest.getHeader("User-Agent"));
+        assertEquals("https://localhost/", lastRequest.getHeader("Referer"));
+        // Validação condicional é do cache, não da WebView
+        assertNull(lastRequest.getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void recognisesTileHosts() {
+        assertTrue(TileCache.isTileUrl("https://tile.openstreetmap.org/15/12139/18590.png"));
+        assertTrue(TileCache.isTileUrl("https://maps.googleapis.com/maps/vt?pb=!1m5!1m4!1i15"));
+        assertTrue(TileCache.isTileUrl("https://khms1.googleapis.com/kh?v=979&x=1&y=2&z=3"));
+        assertFalse(TileCache.isTileUrl("https://maps.googleapis.com/maps/api/js?key=abc"));
+        assertFalse(TileCache.isTileUrl("https://localhost/assets/index.js"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.motofreela.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Avaliação de todos os badges e cálculo de nível (checkAllBadges)
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BadgeEngineBenchmark {
+    // Os dez badges do app (GamificationService)
+    private final BadgeEngine engine = new BadgeEngine(Arrays.asList(
+        new BadgeEngine.Rule("first_ride", "totalRides", 1),
+        new BadgeEngine.Rule("veteran", "totalRides", 50),
+        new BadgeEngine.Rule("master", "totalRides", 100),
+        new BadgeEngine.Rule("legend", "totalRides", 500),
+        new BadgeEngine.Rule("five_stars", "fiveStarStreak", 10),
+        new BadgeEngine.Rule("speed_demon", "fastRides", 10),
+        new BadgeEngine.Rule("punctual", "punctualStreak", 20),
+        new BadgeEngine.Rule("reliable", "completionRate", 95),
+        new BadgeEngine.Rule("hot_streak", "dailyRides", 7),
+        new BadgeEngine.Rule("top_rated", "positiveRatings", 100)));
+    private Map<String, Integer> stats;
+    private int experience;
+
+    @Setup
+    public void setUp() {
+        stats = new HashMap<>();
+        stats.put("totalRides", 120);
+        stats.put("averageRating", 4);
+        stats.put("completionRate", 97);
+        stats.put("fastRides", 8);
+        stats.put("punctualStreak", 21);
+        stats.put("dailyRides", 5);
+        stats.put("positiveRatings", 88);
+        stats.put("fiveStarStreak", 12);
+    }
+
+    @Benchmark
+    public List<String> earnedBadges() {
+        return engine.earnedBadges(stats);
+    }
+
+    @Benchmark
+    public int progressAllBadges() {
+        int total = 0;
+        total += engine.progress("first_ride", stats);
+        total += engine.progress("veteran", stats);
+        total += engine.progress("master", stats);
+        total += engine.progress("legend", stats);
+        total += engine.progress("five_stars", stats);
+        total += engine.progress("speed_demon", stats);
+        total += engine.progress("punctual", stats);
+        total += engine.progress("reliable", stats);
+        total += engine.progress("hot_streak", stats);
+        total += engine.progress("top_rated", stats);
+        return total;
+    }
+
+    @Benchmark
+    public int levelForExperience() {
+        experience += 37;
+        return BadgeEngine.levelForExperience(experience);
+    }
+}
@@ -0,0 +1,83 @@
+package com.motofreela.core;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Busca no histórico do chat com 50 mil mensagens e indexação de mensagens novas
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ChatSearchBenchmark {
+    private static final int MESSAGES = 50_000;
+    private static final int BATCH = 1000;
+    private static final String[] WORDS = {
+        "cheguei", "chegando", "estou", "portão", "portaria", "entrega", "entregador", "coleta",
+        "prédio", "apartamento", "bloco", "rua", "avenida", "número", "ok", "obrigado", "obrigada",
+        "pode", "descer", "aguardando", "trânsito", "minutos", "já", "saindo", "pacote", "documento",
+        "assinatura", "recebido", "interfone", "não", "atende", "esquina", "farmácia", "mercado",
+        "pagamento", "pix", "troco", "dinheiro", "cartão", "senha", "código", "fundos", "lado",
+        "frente", "garagem", "elevador", "térreo", "recepção", "chuva", "atrasado", "confirmado"
+    };
+
+    private ChatSearchIndex index;
+    private String[] batch;
+    private int round;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new ChatSearchIndex();
+        for (int i = 0; i < MESSAGES; i++) {
+            index.add("m" + i, "s" + (i / 40), i * 30_000L, message(random));
+        }
+        batch = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            batch[i] = message(random);
+        }
+    }
+
+    private static String message(Random random) {
+        StringBuilder text = new StringBuilder();
+        int words = 3 + random.nextInt(10);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                text.append(random.nextInt(8) == 0 ? ", " : " ");
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.append(random.nextInt(4) == 0 ? "!" : "").toString();
+    }
+
+    @Benchmark
+    public List<ChatSearchIndex.Hit> searchWord() {
+        return index.search("portao", 20);
+    }
+
+    @Benchmark
+    public List<ChatSearchIndex.Hit> searchTwoPrefixes() {
+        return index.search("entreg port", 20);
+    }
+
+    @Benchmark
+    public List<ChatSearchIndex.Hit> searchShortPrefix() {
+        return index.search("c", 20);
+    }
+
+    // Lotes de mil mensagens num índice novo (custo por mensagem)
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int indexMessage() {
+        ChatSearchIndex fresh = new ChatSearchIndex();
+        int base = round++ * BATCH;
+        for (int i = 0; i < BATCH; i++) {
+            fresh.add("n" + (base + i), "s", i, batch[i]);
+        }
+        return fresh.size();
+    }
+}
@@ -0,0 +1,45 @@
+package com.motofreela.core;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Triagem de uma foto de documento na escala da análise (512x384): conversão para luma e avaliação completa
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ImageQualityBenchmark {
+    private static final int W = 512;
+    private static final int H = 384;
+
+    private final ImageQualityGate gate = new ImageQualityGate(600, 100);
+    private int[] argb;
+    private byte[] luma;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        argb = new int[W * H];
+        Arrays.fill(argb, 0xFFC8C8C8);
+        for (int line = 20; line < H - 20; line += 18) {
+            for (int y = line; y < line + 9; y++) {
+                for (int x = 20; x < W - 20; x++) {
+                    if (random.nextInt(3) > 0) {
+                        argb[y * W + x] = 0xFF282828;
+                    }
+                }
+            }
+        }
+        luma = new byte[W * H];
+    }
+
+    @Benchmark
+    public ImageQualityGate.Assessment lumaAndAssess() {
+        ImageQualityGate.toLuma(argb, argb.length, luma);
+        return gate.assess(luma, W, H, 1600, 1200);
+    }
+}
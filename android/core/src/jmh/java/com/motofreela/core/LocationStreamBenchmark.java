@@ -0,0 +1,64 @@
+package com.motofreela.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Filtro de fixes sobre um trajeto sintético (GPS + rede intercalados)
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LocationStreamBenchmark {
+    private static final int FIXES = 1024;
+
+    private final double[] latitudes = new double[FIXES];
+    private final double[] longitudes = new double[FIXES];
+    private final float[] accuracies = new float[FIXES];
+    private final long[] times = new long[FIXES];
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        double latitude = -23.5505;
+        double longitude = -46.6333;
+        for (int i = 0; i < FIXES; i++) {
+            // ~8 m/s com ruído; um em cada quatro fixes vem da rede (impreciso)
+            latitude += 0.00005 + random.nextGaussian() * 0.00001;
+            longitude += 0.00003 + random.nextGaussian() * 0.00001;
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+            accuracies[i] = i % 4 == 3 ? 150f : 5f + random.nextFloat() * 10f;
+            times[i] = i * 1000L;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIXES)
+    public long filterTrack() {
+        LocationStreamProcessor processor = new LocationStreamProcessor(50, 10, 5000);
+        for (int i = 0; i < FIXES; i++) {
+            processor.accept(latitudes[i], longitudes[i], accuracies[i], times[i]);
+        }
+        return processor.getAcceptedCount();
+    }
+
+    // Métricas da corrida sobre o mesmo trajeto (todos os fixes, antes do filtro de envio)
+    @Benchmark
+    @OperationsPerInvocation(FIXES)
+    public double tripMetrics() {
+        TripMetricsEngine engine = new TripMetricsEngine(0);
+        for (int i = 0; i < FIXES; i++) {
+            engine.onFix(latitudes[i], longitudes[i], accuracies[i], Float.NaN, times[i]);
+        }
+        return engine.getDistanceMeters();
+    }
+
+    @Benchmark
+    public double haversine() {
+        return GeoMath.distanceMeters(latitudes[0], longitudes[0], latitudes[FIXES - 1], longitudes[FIXES - 1]);
+    }
+}
@@ -0,0 +1,36 @@
+package com.motofreela.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Média sobre a lista completa (RatingService.calculateAverageRating)
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RatingAggregatorBenchmark {
+    @Param({"100", "10000"})
+    public int ratingCount;
+
+    private List<Integer> ratings;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ratings = new ArrayList<>(ratingCount);
+        for (int i = 0; i < ratingCount; i++) {
+            ratings.add(1 + random.nextInt(5));
+        }
+    }
+
+    @Benchmark
+    public double averageOfList() {
+        return RatingAggregator.average(ratings);
+    }
+}
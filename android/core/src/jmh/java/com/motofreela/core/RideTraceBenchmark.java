@@ -0,0 +1,64 @@
+package com.motofreela.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// Gravação de fixes na trilha mapeada (lotes de 12 confirmados) e recuperação de uma corrida inteira
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RideTraceBenchmark {
+    private static final int BATCH = 12;
+    // ~5,7 h de corrida a um fix por 5 s
+    private static final int CAPACITY = 4096;
+
+    private File directory;
+    private RideTraceRecorder recorder;
+    private File recoveryFile;
+    private long time;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("trace-bench").toFile();
+        recorder = RideTraceRecorder.open(new File(directory, "write.trace"), "user", "service", CAPACITY);
+        recoveryFile = new File(directory, "recover.trace");
+        RideTraceRecorder full = RideTraceRecorder.open(recoveryFile, "user", "service", CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            full.append(-23.55 + i * 1e-5, -46.63 + i * 1e-5, 5f, 8f, 90f, i * 5000L);
+        }
+        full.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        recorder.delete();
+        recoveryFile.delete();
+        directory.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long appendBatch() {
+        for (int i = 0; i < BATCH; i++) {
+            time += 5000;
+            recorder.append(-23.55, -46.63, 5f, 8f, 90f, time);
+        }
+        recorder.acknowledge(recorder.getWrittenSeq());
+        return recorder.getWrittenSeq();
+    }
+
+    @Benchmark
+    public int recoverFullRing() throws IOException {
+        try (RideTraceRecorder recovered = RideTraceRecorder.recover(recoveryFile)) {
+            return recovered.pending(CAPACITY).size();
+        }
+    }
+}
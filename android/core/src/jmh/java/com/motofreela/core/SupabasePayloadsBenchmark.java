@@ -0,0 +1,112 @@
+package com.motofreela.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+// Corpos enviados ao PostgREST: JSONObject + toString + bytes (antes) vs. JsonWriter direto no sink (depois).
+// Rode com o profiler gc ligado (padrão no build) e compare gc.alloc.rate.norm (bytes por requisição).
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SupabasePayloadsBenchmark {
+    private final String userId = "8d0b6f2e-3c1a-4f7e-9a52-1b7c4d9e0f31";
+    private final String serviceId = "f2a4c6e8-1b3d-4f5a-8c7e-9d0b2a4c6e8f";
+    private final String content = "Cheguei no local de coleta, estou na portaria";
+    private double latitude = -23.5505;
+
+    // Faz o papel do sink do OkHttp: consome os bytes sem guardar
+    private final BlackholeStream sink = new BlackholeStream();
+    private final JsonWriter writer = new JsonWriter(null, 512);
+
+    @Benchmark
+    public byte[] locationJsonObject() throws JSONException {
+        latitude += 1e-6;
+        JSONObject locationData = new JSONObject();
+        locationData.put("user_id", userId);
+        locationData.put("latitude", latitude);
+        locationData.put("longitude", -46.6333);
+        locationData.put("accuracy", 8.5f);
+        locationData.put("updated_at", "now()");
+        return locationData.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long locationStreaming() throws IOException {
+        latitude += 1e-6;
+        SupabasePayloads.location(writer.reset(sink), userId, latitude, -46.6333, 8.5f);
+        writer.flush();
+        return writer.getBytesWritten();
+    }
+
+    @Benchmark
+    public byte[] chatMessageJsonObject() throws JSONException {
+        JSONObject messageData = new JSONObject();
+        messageData.put("service_id", serviceId);
+        messageData.put("sender_id", userId);
+        messageData.put("receiver_id", serviceId);
+        messageData.put("content", content);
+        messageData.put("message_type", "text");
+        return messageData.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long chatMessageStreaming() throws IOException {
+        SupabasePayloads.chatMessage(writer.reset(sink), serviceId, userId, serviceId, content, "text");
+        writer.flush();
+        return writer.getBytesWritten();
+    }
+
+    @Benchmark
+    public byte[] ratingJsonObject() throws JSONException {
+        JSONObject ratingData = new JSONObject();
+        ratingData.put("service_id", serviceId);
+        ratingData.put("rater_id", userId);
+        ratingData.put("rated_id", serviceId);
+        ratingData.put("rating", 5);
+        ratingData.put("comment", "Entrega rápida e cuidadosa");
+        return ratingData.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long ratingStreaming() throws IOException {
+        SupabasePayloads.rating(writer.reset(sink), serviceId, userId, serviceId, 5, "Entrega rápida e cuidadosa");
+        writer.flush();
+        return writer.getBytesWritten();
+    }
+
+    @Benchmark
+    public byte[] signInJsonObject() throws JSONException {
+        JSONObject authData = new JSONObject();
+        authData.put("email", "entregador@motofreela.com");
+        authData.put("password", "senha-de-teste");
+        return authData.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public long signInStreaming() throws IOException {
+        SupabasePayloads.signIn(writer.reset(sink), "entregador@motofreela.com", "senha-de-teste");
+        writer.flush();
+        return writer.getBytesWritten();
+    }
+
+    private static final class BlackholeStream extends OutputStream {
+        int checksum;
+
+        @Override
+        public void write(int b) {
+            checksum += b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            checksum += b[off] + len;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.motofreela.core;
+
+// Etapas da corrida pelas cercas; eventos repetidos ou fora de ordem são ignorados
+// A entrega só conta depois de sair da coleta (cercas sobrepostas)
+public final class ArrivalStateMachine {
+    public enum Leg {
+        PICKUP,
+        DROPOFF
+    }
+
+    public enum State {
+        TO_PICKUP,
+        AT_PICKUP,
+        TO_DROPOFF,
+        AT_DROPOFF
+    }
+
+    private State state;
+    // Dentro da cerca de entrega (ENTER sem EXIT), em qualquer etapa
+    private boolean insideDropoff;
+
+    public ArrivalStateMachine() {
+        this(State.TO_PICKUP, false);
+    }
+
+    // Retomar um estado salvo (o receiver roda sem o app aberto)
+    public ArrivalStateMachine(State state, boolean insideDropoff) {
+        this.state = state;
+        this.insideDropoff = insideDropoff;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isInsideDropoff() {
+        return insideDropoff;
+    }
+
+    // Entrou em uma cerca; retorna o novo estado ou null se nada mudou
+    public State onEnter(Leg leg) {
+        if (leg == Leg.PICKUP && state == State.TO_PICKUP) {
+            return moveTo(State.AT_PICKUP);
+        }
+        if (leg == Leg.DROPOFF) {
+            insideDropoff = true;
+            // Ainda na coleta (INITIAL_TRIGGER_ENTER com cercas sobrepostas): espera a saída dela
+            if (state == State.TO_DROPOFF) {
+                return moveTo(State.AT_DROPOFF);
+            }
+        }
+        return null;
+    }
+
+    // Saiu de uma cerca; só a saída da coleta muda a etapa
+    public State onExit(Leg leg) {
+        if (leg == Leg.DROPOFF) {
+            insideDropoff = false;
+            return null;
+        }
+        if (state == State.AT_PICKUP) {
+            // Saiu da coleta já dentro da entrega: nenhum novo ENTER viria
+            return moveTo(insideDropoff ? State.AT_DROPOFF : State.TO_DROPOFF);
+        }
+        return null;
+    }
+
+    // Entre as cercas o rastreamento pode amostrar devagar; a chegada vem do geofence
+    public boolean isBetweenLegs() {
+        return state == State.TO_PICKUP || state == State.TO_DROPOFF;
+    }
+
+    public boolean isFinished() {
+        return state == State.AT_DROPOFF;
+    }
+
+    private State moveTo(State next) {
+        state = next;
+        return next;
+    }
+}
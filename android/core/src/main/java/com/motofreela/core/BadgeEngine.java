@@ -0,0 +1,90 @@
+package com.motofreela.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public final class BadgeEngine {
+    // Experiência necessária por nível
+    public static final int EXPERIENCE_PER_LEVEL = 1000;
+
+    // Regra de um badge: estatística observada e valor mínimo
+    public static final class Rule {
+        public final String id;
+        public final String statKey;
+        public final int requirement;
+
+        public Rule(String id, String statKey, int requirement) {
+            if (requirement <= 0) {
+                throw new IllegalArgumentException("Requisito inválido para " + id);
+            }
+            this.id = id;
+            this.statKey = statKey;
+            this.requirement = requirement;
+        }
+    }
+
+    private final Rule[] rules;
+
+    public BadgeEngine(List<Rule> rules) {
+        this.rules = rules.toArray(new Rule[0]);
+    }
+
+    public Rule getRule(String badgeId) {
+        for (Rule rule : rules) {
+            if (rule.id.equals(badgeId)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    // Valor atual da estatística associada ao badge
+    public int currentValue(String badgeId, Map<String, Integer> stats) {
+        Rule rule = getRule(badgeId);
+        return rule != null ? statValue(rule, stats) : 0;
+    }
+
+    public boolean isEarned(String badgeId, Map<String, Integer> stats) {
+        Rule rule = getRule(badgeId);
+        return rule != null && statValue(rule, stats) >= rule.requirement;
+    }
+
+    // Progresso em porcentagem (0-100)
+    public int progress(String badgeId, Map<String, Integer> stats) {
+        Rule rule = getRule(badgeId);
+        if (rule == null) {
+            return 0;
+        }
+        return (int) Math.min((statValue(rule, stats) * 100L) / rule.requirement, 100);
+    }
+
+    // Todos os badges conquistados com as estatísticas atuais
+    public List<String> earnedBadges(Map<String, Integer> stats) {
+        List<String> earned = null;
+        for (Rule rule : rules) {
+            if (statValue(rule, stats) >= rule.requirement) {
+                if (earned == null) {
+                    earned = new ArrayList<>();
+                }
+                earned.add(rule.id);
+            }
+        }
+        return earned != null ? earned : Collections.emptyList();
+    }
+
+    // Nível a partir da experiência acumulada (nível 1 começa em 0 XP)
+    public static int levelForExperience(int experience) {
+        return Math.max(experience, 0) / EXPERIENCE_PER_LEVEL + 1;
+    }
+
+    public static int experienceToNextLevel(int experience) {
+        return EXPERIENCE_PER_LEVEL - (Math.max(experience, 0) % EXPERIENCE_PER_LEVEL);
+    }
+
+    private static int statValue(Rule rule, Map<String, Integer> stats) {
+        Integer value = stats.get(rule.statKey);
+        return value != null ? value : 0;
+    }
+}
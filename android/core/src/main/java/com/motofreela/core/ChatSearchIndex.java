@@ -0,0 +1,220 @@
+package com.motofreela.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Índice invertido do chat: termos sem acento, cada palavra da busca vale como prefixo
+public final class ChatSearchIndex {
+    static final int MAX_TERM_LENGTH = 32;
+    private static final char[] FOLD = new char[0x100 - 0xC0];
+
+    static {
+        String from = "àáâãäåçèéêëìíîïñòóôõöùúûüýÿ";
+        String to = "aaaaaaceeeeiiiinooooouuuuyy";
+        Arrays.fill(FOLD, '\0');
+        for (int i = 0; i < from.length(); i++) {
+            char lower = from.charAt(i);
+            FOLD[lower - 0xC0] = to.charAt(i);
+            char upper = Character.toUpperCase(lower);
+            if (upper >= 0xC0 && upper <= 0xFF) {
+                FOLD[upper - 0xC0] = to.charAt(i);
+            }
+        }
+    }
+
+    public static final class Hit {
+        public final String messageId;
+        public final String serviceId;
+        public final long timeMillis;
+        public final String text;
+
+        Hit(String messageId, String serviceId, long timeMillis, String text) {
+            this.messageId = messageId;
+            this.serviceId = serviceId;
+            this.timeMillis = timeMillis;
+            this.text = text;
+        }
+    }
+
+    // Documentos em ordem crescente (cada mensagem entra uma vez por termo)
+    private static final class Postings {
+        int[] docs = new int[4];
+        int size;
+
+        void add(int doc) {
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> docByMessageId = new HashMap<>();
+    private String[] messageIds = new String[1024];
+    private String[] serviceIds = new String[1024];
+    private String[] texts = new String[1024];
+    private long[] times = new long[1024];
+    private int size;
+    private final StringBuilder token = new StringBuilder(MAX_TERM_LENGTH);
+
+    // Retorna false se a mensagem já estava no índice
+    public synchronized boolean add(String messageId, String serviceId, long timeMillis, String text) {
+        if (docByMessageId.containsKey(messageId)) {
+            return false;
+        }
+        if (size == messageIds.length) {
+            int capacity = size * 2;
+            messageIds = Arrays.copyOf(messageIds, capacity);
+            serviceIds = Arrays.copyOf(serviceIds, capacity);
+            texts = Arrays.copyOf(texts, capacity);
+            times = Arrays.copyOf(times, capacity);
+        }
+        int doc = size++;
+        messageIds[doc] = messageId;
+        serviceIds[doc] = serviceId;
+        texts[doc] = text;
+        times[doc] = timeMillis;
+        docByMessageId.put(messageId, doc);
+
+        token.setLength(0);
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? fold(text.charAt(i)) : '\0';
+            if (c != '\0') {
+                if (token.length() < MAX_TERM_LENGTH) {
+                    token.append(c);
+                }
+            } else if (token.length() > 0) {
+                String term = token.toString();
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    postings = new Postings();
+                    terms.put(term, postings);
+                }
+                postings.add(doc);
+                token.setLength(0);
+            }
+        }
+        return true;
+    }
+
+    public List<Hit> search(String query, int limit) {
+        return search(query, null, limit);
+    }
+
+    // Todas as palavras precisam aparecer (como prefixo); serviceId null busca em todas as corridas
+    public synchronized List<Hit> search(String query, String serviceId, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || limit <= 0 || size == 0) {
+            return new ArrayList<>();
+        }
+        long[] matches = null;
+        for (String word : words) {
+            long[] wordDocs = docsWithPrefix(word);
+            if (matches == null) {
+                matches = wordDocs;
+            } else {
+                for (int i = 0; i < matches.length; i++) {
+                    matches[i] &= wordDocs[i];
+                }
+            }
+        }
+        return mostRecent(matches, serviceId, limit);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int termCount() {
+        return terms.size();
+    }
+
+    // Minúscula sem acento; '\0' para separadores
+    static char fold(char c) {
+        if (c < 0x80) {
+            if (c >= 'A' && c <= 'Z') {
+                return (char) (c + ('a' - 'A'));
+            }
+            return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? c : '\0';
+        }
+        if (c >= 0xC0 && c <= 0xFF) {
+            return FOLD[c - 0xC0];
+        }
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : '\0';
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0, length = text.length(); i <= length; i++) {
+            char c = i < length ? fold(text.charAt(i)) : '\0';
+            if (c != '\0') {
+                if (word.length() < MAX_TERM_LENGTH) {
+                    word.append(c);
+                }
+            } else if (word.length() > 0) {
+                String term = word.toString();
+                if (!words.contains(term)) {
+                    words.add(term);
+                }
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private long[] docsWithPrefix(String prefix) {
+        long[] bits = new long[(size + 63) >>> 6];
+        SortedMap<String, Postings> range = terms.subMap(prefix, prefix + Character.MAX_VALUE);
+        for (Postings postings : range.values()) {
+            int[] docs = postings.docs;
+            for (int i = 0; i < postings.size; i++) {
+                bits[docs[i] >>> 6] |= 1L << docs[i];
+            }
+        }
+        return bits;
+    }
+
+    // As limit mais recentes entre as encontradas (inserção ordenada; limit é pequeno). Percorre
+    // do último documento para o primeiro: mensagens chegam quase em ordem, então depois das
+    // primeiras limit quase todas caem na primeira comparação
+    private List<Hit> mostRecent(long[] matches, String serviceId, int limit) {
+        int[] best = new int[limit];
+        int found = 0;
+        for (int word = matches.length - 1; word >= 0; word--) {
+            long bits = matches[word];
+            while (bits != 0) {
+                int bit = 63 - Long.numberOfLeadingZeros(bits);
+                int doc = (word << 6) + bit;
+                bits &= ~(1L << bit);
+                if (serviceId != null && !serviceId.equals(serviceIds[doc])) {
+                    continue;
+                }
+                if (found == limit && times[doc] <= times[best[limit - 1]]) {
+                    continue;
+                }
+                int position = found == limit ? limit - 1 : found++;
+                while (position > 0 && times[best[position - 1]] < times[doc]) {
+                    best[position] = best[position - 1];
+                    position--;
+                }
+                best[position] = doc;
+            }
+        }
+        List<Hit> hits = new ArrayList<>(found);
+        for (int i = 0; i < found; i++) {
+            int doc = best[i];
+            hits.add(new Hit(messageIds[doc], serviceIds[doc], times[doc], texts[doc]));
+        }
+        return hits;
+    }
+}
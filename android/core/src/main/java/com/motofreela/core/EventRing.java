@@ -0,0 +1,145 @@
+package com.motofreela.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// Buffer circular de eventos recentes em slots de tamanho fixo: gravar não aloca
+// Slot: [hora ms:8][nível:1][tam. tag:1][tam. mensagem:2][tag][mensagem]
+public final class EventRing {
+    private static final int HEADER_BYTES = 12;
+    private static final int MAX_TAG_BYTES = 32;
+
+    private final byte[] data;
+    private final int slotSize;
+    private final int capacity;
+    private long written;
+
+    public EventRing(int capacity, int slotSize) {
+        if (capacity <= 0 || slotSize < HEADER_BYTES + MAX_TAG_BYTES + 16 || slotSize > 4096) {
+            throw new IllegalArgumentException("Ring inválido: " + capacity + " x " + slotSize);
+        }
+        this.capacity = capacity;
+        this.slotSize = slotSize;
+        this.data = new byte[capacity * slotSize];
+    }
+
+    public synchronized void record(long timeMillis, int level, String tag, CharSequence message) {
+        int base = (int) (written % capacity) * slotSize;
+        written++;
+
+        for (int i = 0; i < 8; i++) {
+            data[base + i] = (byte) (timeMillis >>> (56 - 8 * i));
+        }
+        data[base + 8] = (byte) level;
+        int tagLength = encode(tag, data, base + HEADER_BYTES, MAX_TAG_BYTES);
+        data[base + 9] = (byte) tagLength;
+        int messageStart = base + HEADER_BYTES + tagLength;
+        int messageLength = encode(message, data, messageStart, slotSize - HEADER_BYTES - tagLength);
+        data[base + 10] = (byte) (messageLength >>> 8);
+        data[base + 11] = (byte) messageLength;
+    }
+
+    // Total de eventos já gravados (inclusive os sobrescritos)
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(written, capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized void clear() {
+        written = 0;
+    }
+
+    // Eventos do mais antigo ao mais recente, uma linha por evento
+    public synchronized void dump(Appendable out) throws IOException {
+        SimpleDateFormat timeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.ROOT);
+        timeFormat.setTimeZone(TimeZone.getDefault());
+        long first = Math.max(0, written - capacity);
+        if (first > 0) {
+            out.append("... ").append(String.valueOf(first)).append(" eventos anteriores sobrescritos\n");
+        }
+        for (long index = first; index < written; index++) {
+            int base = (int) (index % capacity) * slotSize;
+            long timeMillis = 0;
+            for (int i = 0; i < 8; i++) {
+                timeMillis = (timeMillis << 8) | (data[base + i] & 0xff);
+            }
+            int level = data[base + 8];
+            int tagLength = data[base + 9] & 0xff;
+            int messageLength = ((data[base + 10] & 0xff) << 8) | (data[base + 11] & 0xff);
+            out.append(timeFormat.format(new Date(timeMillis)))
+                .append(' ').append(levelLetter(level)).append(' ')
+                .append(new String(data, base + HEADER_BYTES, tagLength, StandardCharsets.UTF_8))
+                .append(": ")
+                .append(new String(data, base + HEADER_BYTES + tagLength, messageLength, StandardCharsets.UTF_8))
+                .append('\n');
+        }
+    }
+
+    // Níveis no padrão do android.util.Log (2 = VERBOSE ... 6 = ERROR)
+    static char levelLetter(int level) {
+        switch (level) {
+            case 2: return 'V';
+            case 3: return 'D';
+            case 4: return 'I';
+            case 5: return 'W';
+            case 6: return 'E';
+            default: return '?';
+        }
+    }
+
+    // UTF-8 direto no slot, sem cortar um caractere ao meio; retorna os bytes gravados
+    private static int encode(CharSequence text, byte[] target, int offset, int limit) {
+        if (text == null) {
+            return 0;
+        }
+        int position = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (position + 1 > limit) {
+                    break;
+                }
+                target[offset + position++] = (byte) c;
+            } else if (c < 0x800) {
+                if (position + 2 > limit) {
+                    break;
+                }
+                target[offset + position++] = (byte) (0xc0 | (c >> 6));
+                target[offset + position++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                if (position + 4 > limit) {
+                    break;
+                }
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                target[offset + position++] = (byte) (0xf0 | (codePoint >> 18));
+                target[offset + position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                target[offset + position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                target[offset + position++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                if (position + 3 > limit) {
+                    break;
+                }
+                if (Character.isSurrogate(c)) {
+                    // Surrogate solto
+                    target[offset + position++] = '?';
+                    continue;
+                }
+                target[offset + position++] = (byte) (0xe0 | (c >> 12));
+                target[offset + position++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                target[offset + position++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,19 @@
+package com.motofreela.core;
+
+public final class GeoMath {
+    public static final double EARTH_RADIUS_M = 6_371_008.8;
+
+    private GeoMath() {
+    }
+
+    // Distância em metros pela fórmula de haversine
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLng = Math.sin(dLng / 2);
+        double a = sinLat * sinLat
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLng * sinLng;
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+}
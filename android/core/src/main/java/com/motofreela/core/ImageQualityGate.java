@@ -0,0 +1,132 @@
+package com.motofreela.core;
+
+import java.util.Locale;
+
+// Triagem das fotos de documento: resolução, exposição e nitidez (variância do Laplaciano), nessa ordem
+public final class ImageQualityGate {
+    // Lado maior da cópia analisada; os limiares de nitidez valem para essa escala
+    public static final int ANALYSIS_MAX_DIMENSION = 512;
+
+    static final int DARK_LUMA = 16;
+    static final int BRIGHT_LUMA = 250;
+    static final double MIN_MEAN_LUMA = 45;
+    static final double MAX_MEAN_LUMA = 225;
+    // Mais da metade preta (sem flash à noite) ou um terço estourado (reflexo no plástico da CNH)
+    static final double MAX_DARK_FRACTION = 0.5;
+    static final double MAX_BRIGHT_FRACTION = 0.33;
+
+    public enum Verdict {
+        OK,
+        TOO_SMALL,
+        TOO_DARK,
+        TOO_BRIGHT,
+        BLURRY
+    }
+
+    private final int minShortSide;
+    private final double minSharpness;
+
+    // minShortSide: menor lado aceito na imagem original; minSharpness: variância do Laplaciano
+    public ImageQualityGate(int minShortSide, double minSharpness) {
+        this.minShortSide = minShortSide;
+        this.minSharpness = minSharpness;
+    }
+
+    // Luma inteira (BT.601) de pixels ARGB, como os de Bitmap.getPixels
+    public static void toLuma(int[] argb, int count, byte[] luma) {
+        for (int i = 0; i < count; i++) {
+            int pixel = argb[i];
+            int y = (77 * ((pixel >> 16) & 0xFF) + 150 * ((pixel >> 8) & 0xFF) + 29 * (pixel & 0xFF)) >> 8;
+            luma[i] = (byte) y;
+        }
+    }
+
+    // luma: width x height da cópia reduzida; sourceWidth/Height: dimensões da foto original
+    public Assessment assess(byte[] luma, int width, int height, int sourceWidth, int sourceHeight) {
+        if (Math.min(sourceWidth, sourceHeight) < minShortSide) {
+            return new Assessment(Verdict.TOO_SMALL, sourceWidth, sourceHeight, Double.NaN, 0, 0, Double.NaN);
+        }
+
+        int pixels = width * height;
+        long sum = 0;
+        int dark = 0;
+        int bright = 0;
+        for (int i = 0; i < pixels; i++) {
+            int y = luma[i] & 0xFF;
+            sum += y;
+            if (y < DARK_LUMA) {
+                dark++;
+            } else if (y >= BRIGHT_LUMA) {
+                bright++;
+            }
+        }
+        double mean = (double) sum / pixels;
+        double darkFraction = (double) dark / pixels;
+        double brightFraction = (double) bright / pixels;
+        if (mean < MIN_MEAN_LUMA || darkFraction > MAX_DARK_FRACTION) {
+            return new Assessment(Verdict.TOO_DARK, sourceWidth, sourceHeight, mean, darkFraction, brightFraction, Double.NaN);
+        }
+        if (mean > MAX_MEAN_LUMA || brightFraction > MAX_BRIGHT_FRACTION) {
+            return new Assessment(Verdict.TOO_BRIGHT, sourceWidth, sourceHeight, mean, darkFraction, brightFraction, Double.NaN);
+        }
+
+        double sharpness = laplacianVariance(luma, width, height);
+        Verdict verdict = sharpness < minSharpness ? Verdict.BLURRY : Verdict.OK;
+        return new Assessment(verdict, sourceWidth, sourceHeight, mean, darkFraction, brightFraction, sharpness);
+    }
+
+    // Variância do Laplaciano de 4 vizinhos nos pixels internos
+    static double laplacianVariance(byte[] luma, int width, int height) {
+        if (width < 3 || height < 3) {
+            return 0;
+        }
+        long sum = 0;
+        long sumSquares = 0;
+        for (int y = 1; y < height - 1; y++) {
+            int row = y * width;
+            for (int x = 1; x < width - 1; x++) {
+                int i = row + x;
+                int response = 4 * (luma[i] & 0xFF)
+                    - (luma[i - 1] & 0xFF) - (luma[i + 1] & 0xFF)
+                    - (luma[i - width] & 0xFF) - (luma[i + width] & 0xFF);
+                sum += response;
+                sumSquares += response * response;
+            }
+        }
+        double count = (double) (width - 2) * (height - 2);
+        double mean = sum / count;
+        return sumSquares / count - mean * mean;
+    }
+
+    // Resultado da triagem; métricas não medidas (critério anterior já reprovou) ficam NaN
+    public static final class Assessment {
+        public final Verdict verdict;
+        public final int sourceWidth;
+        public final int sourceHeight;
+        public final double meanLuma;
+        public final double darkFraction;
+        public final double brightFraction;
+        public final double sharpness;
+
+        Assessment(Verdict verdict, int sourceWidth, int sourceHeight, double meanLuma,
+                   double darkFraction, double brightFraction, double sharpness) {
+            this.verdict = verdict;
+            this.sourceWidth = sourceWidth;
+            this.sourceHeight = sourceHeight;
+            this.meanLuma = meanLuma;
+            this.darkFraction = darkFraction;
+            this.brightFraction = brightFraction;
+            this.sharpness = sharpness;
+        }
+
+        public boolean passed() {
+            return verdict == Verdict.OK;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s %dx%d luma=%.0f escuros=%.2f estourados=%.2f nitidez=%.0f",
+                verdict, sourceWidth, sourceHeight, meanLuma, darkFraction, brightFraction, sharpness);
+        }
+    }
+}
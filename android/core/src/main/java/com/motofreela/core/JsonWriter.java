@@ -0,0 +1,364 @@
+package com.motofreela.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Serializador JSON em streaming direto para o OutputStream; reutilizável (reset), não é thread-safe
+public final class JsonWriter {
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private final byte[] buffer;
+    private int position;
+    private long bytesWritten;
+    private OutputStream out;
+
+    // Pilha de contexto: cada bit indica se o próximo item do nível precisa de vírgula
+    private long needsComma;
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(OutputStream out) {
+        this(out, 256);
+    }
+
+    public JsonWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    // Reaproveitar o writer (e o buffer) para outro destino
+    public JsonWriter reset(OutputStream out) {
+        this.out = out;
+        position = 0;
+        bytesWritten = 0;
+        needsComma = 0;
+        depth = 0;
+        afterName = false;
+        return this;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        writeByte('{');
+        push();
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        pop();
+        writeByte('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        writeByte('[');
+        push();
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        pop();
+        writeByte(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Nome fora de objeto: " + name);
+        }
+        comma();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    // Representação do Double.toString (aloca); prefira value(double, casas) em caminhos quentes
+    public JsonWriter value(double value) throws IOException {
+        checkFinite(value);
+        beforeValue();
+        String text = Double.toString(value);
+        for (int i = 0; i < text.length(); i++) {
+            writeByte(text.charAt(i));
+        }
+        return this;
+    }
+
+    // Ponto fixo com até 9 casas, zeros à direita removidos (7 casas ~ 1 cm em coordenadas)
+    public JsonWriter value(double value, int decimals) throws IOException {
+        checkFinite(value);
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Casas decimais inválidas: " + decimals);
+        }
+        if (Math.abs(value) >= 1e9) {
+            // Fora da faixa do ponto fixo
+            return value(value);
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+
+        beforeValue();
+        if (value < 0 && scaled != 0) {
+            writeByte('-');
+        }
+        writeLong(scaled / scale);
+        long fraction = scaled % scale;
+        if (fraction != 0) {
+            int digits = decimals;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            writeByte('.');
+            for (int i = digits - 1; i >= 0; i--) {
+                writeByte('0' + (int) (fraction / POWERS_OF_TEN[i] % 10));
+            }
+        }
+        return this;
+    }
+
+    // Instante em UTC no formato ISO-8601 ("2025-10-21T14:03:07.250Z"), sem Calendar nem String
+    public JsonWriter timestamp(long epochMillis) throws IOException {
+        long days = epochMillis / 86_400_000L;
+        int millisOfDay = (int) (epochMillis % 86_400_000L);
+        if (millisOfDay < 0) {
+            days--;
+            millisOfDay += 86_400_000;
+        }
+
+        // Data civil a partir de dias desde 1970-01-01 (algoritmo de Howard Hinnant)
+        long z = days + 719_468;
+        long era = (z >= 0 ? z : z - 146_096) / 146_097;
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Ano fora do ISO-8601 básico: " + year);
+        }
+
+        beforeValue();
+        writeByte('"');
+        writeDigits((int) year, 4);
+        writeByte('-');
+        writeDigits(month, 2);
+        writeByte('-');
+        writeDigits(day, 2);
+        writeByte('T');
+        writeDigits(millisOfDay / 3_600_000, 2);
+        writeByte(':');
+        writeDigits(millisOfDay / 60_000 % 60, 2);
+        writeByte(':');
+        writeDigits(millisOfDay / 1000 % 60, 2);
+        writeByte('.');
+        writeDigits(millisOfDay % 1000, 3);
+        writeByte('Z');
+        writeByte('"');
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        writeBytes(NULL);
+        return this;
+    }
+
+    // Atalhos nome + valor
+    public JsonWriter field(String name, String value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, double value, int decimals) throws IOException {
+        return name(name).value(value, decimals);
+    }
+
+    public void flush() throws IOException {
+        if (position > 0) {
+            out.write(buffer, 0, position);
+            bytesWritten += position;
+            position = 0;
+        }
+    }
+
+    // Bytes produzidos desde o último reset (inclui os ainda no buffer)
+    public long getBytesWritten() {
+        return bytesWritten + position;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            comma();
+        }
+    }
+
+    private void comma() throws IOException {
+        long bit = 1L << (depth - 1);
+        if ((needsComma & bit) != 0) {
+            writeByte(',');
+        } else {
+            needsComma |= bit;
+        }
+    }
+
+    private void push() {
+        if (depth == 64) {
+            throw new IllegalStateException("Aninhamento acima de 64 níveis");
+        }
+        depth++;
+        needsComma &= ~(1L << (depth - 1));
+    }
+
+    private void pop() {
+        if (depth == 0 || afterName) {
+            throw new IllegalStateException("Fechamento sem abertura correspondente");
+        }
+        depth--;
+    }
+
+    private void writeString(String value) throws IOException {
+        writeByte('"');
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\') {
+                    writeByte('\\');
+                    writeByte(c);
+                } else if (c < 0x20) {
+                    writeControl(c);
+                } else {
+                    writeByte(c);
+                }
+            } else if (c < 0x800) {
+                writeByte(0xc0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                writeByte(0xf0 | (codePoint >> 18));
+                writeByte(0x80 | ((codePoint >> 12) & 0x3f));
+                writeByte(0x80 | ((codePoint >> 6) & 0x3f));
+                writeByte(0x80 | (codePoint & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                // Surrogate solto: mesmo comportamento do encoder UTF-8 da JVM
+                writeByte('?');
+            } else {
+                writeByte(0xe0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3f));
+                writeByte(0x80 | (c & 0x3f));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeControl(char c) throws IOException {
+        writeByte('\\');
+        switch (c) {
+            case '\n': writeByte('n'); break;
+            case '\r': writeByte('r'); break;
+            case '\t': writeByte('t'); break;
+            case '\b': writeByte('b'); break;
+            case '\f': writeByte('f'); break;
+            default:
+                writeByte('u');
+                writeByte('0');
+                writeByte('0');
+                writeByte(HEX[c >> 4]);
+                writeByte(HEX[c & 0xf]);
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            for (byte b : Long.toString(value).getBytes()) {
+                writeByte(b);
+            }
+            return;
+        }
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        if (value < 10) {
+            writeByte('0' + (int) value);
+            return;
+        }
+        // Dígitos em ordem inversa direto no buffer
+        if (buffer.length - position < 20) {
+            flush();
+        }
+        int start = position;
+        while (value > 0) {
+            buffer[position++] = (byte) ('0' + (int) (value % 10));
+            value /= 10;
+        }
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+    }
+
+    // Inteiro não negativo com zeros à esquerda até 'width' dígitos
+    private void writeDigits(int value, int width) throws IOException {
+        for (int i = width - 1; i >= 0; i--) {
+            writeByte('0' + (int) (value / POWERS_OF_TEN[i] % 10));
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            flush();
+        }
+        buffer[position++] = (byte) b;
+    }
+
+    private static void checkFinite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("JSON não aceita " + value);
+        }
+    }
+}
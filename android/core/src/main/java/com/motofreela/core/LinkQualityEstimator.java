@@ -0,0 +1,133 @@
+package com.motofreela.core;
+
+// Classe do link por médias móveis de vazão e tempo até o primeiro byte; só muda com amostras seguidas
+public final class LinkQualityEstimator {
+    public enum Quality {
+        UNKNOWN,
+        OFFLINE,
+        POOR,
+        MODERATE,
+        GOOD,
+        EXCELLENT
+    }
+
+    // Limites de vazão (kbps) e de tempo até o primeiro byte (ms) de cada classe
+    static final double POOR_MAX_KBPS = 150;
+    static final double MODERATE_MAX_KBPS = 550;
+    static final double GOOD_MAX_KBPS = 2000;
+    static final double POOR_MIN_RTT_MS = 1500;
+    static final double MODERATE_MIN_RTT_MS = 600;
+    static final double GOOD_MIN_RTT_MS = 250;
+
+    // Respostas menores que isso são dominadas pela latência: só contam para o RTT
+    public static final long MIN_THROUGHPUT_BYTES = 8 * 1024;
+    private static final double ALPHA = 0.25;
+    static final int CONFIRM_SAMPLES = 3;
+    static final int OFFLINE_FAILURES = 3;
+
+    private double throughputKbps = Double.NaN;
+    private double rttMs = Double.NaN;
+    private Quality quality = Quality.UNKNOWN;
+    private Quality candidate;
+    private int candidateCount;
+    private int consecutiveFailures;
+
+    public Quality getQuality() {
+        return quality;
+    }
+
+    // NaN enquanto não houver amostra
+    public double getThroughputKbps() {
+        return throughputKbps;
+    }
+
+    public double getRttMs() {
+        return rttMs;
+    }
+
+    // Tempo entre o fim do envio e o primeiro byte da resposta; retorna a nova classe ou null se nada mudou
+    public Quality onRoundTrip(long nanos) {
+        consecutiveFailures = 0;
+        rttMs = average(rttMs, nanos / 1e6);
+        return reclassify();
+    }
+
+    // Corpo da resposta lido por inteiro; retorna a nova classe ou null se nada mudou
+    public Quality onTransfer(long bytes, long nanos) {
+        consecutiveFailures = 0;
+        if (bytes < MIN_THROUGHPUT_BYTES || nanos <= 0) {
+            return null;
+        }
+        throughputKbps = average(throughputKbps, bytes * 8.0 / (nanos / 1e6));
+        return reclassify();
+    }
+
+    // Chamada sem resposta (timeout, sem rota); cancelamentos não contam
+    public Quality onFailure() {
+        consecutiveFailures++;
+        if (consecutiveFailures >= OFFLINE_FAILURES && quality != Quality.OFFLINE) {
+            candidate = null;
+            candidateCount = 0;
+            quality = Quality.OFFLINE;
+            return quality;
+        }
+        return null;
+    }
+
+    public void reset() {
+        throughputKbps = Double.NaN;
+        rttMs = Double.NaN;
+        quality = Quality.UNKNOWN;
+        candidate = null;
+        candidateCount = 0;
+        consecutiveFailures = 0;
+    }
+
+    // A pior das duas leituras; sem vazão medida vale só o RTT
+    static Quality classify(double throughputKbps, double rttMs) {
+        Quality byRtt = Double.isNaN(rttMs) ? Quality.EXCELLENT
+            : rttMs >= POOR_MIN_RTT_MS ? Quality.POOR
+            : rttMs >= MODERATE_MIN_RTT_MS ? Quality.MODERATE
+            : rttMs >= GOOD_MIN_RTT_MS ? Quality.GOOD
+            : Quality.EXCELLENT;
+        if (Double.isNaN(throughputKbps)) {
+            return Double.isNaN(rttMs) ? Quality.UNKNOWN : byRtt;
+        }
+        Quality byThroughput = throughputKbps < POOR_MAX_KBPS ? Quality.POOR
+            : throughputKbps < MODERATE_MAX_KBPS ? Quality.MODERATE
+            : throughputKbps < GOOD_MAX_KBPS ? Quality.GOOD
+            : Quality.EXCELLENT;
+        return byRtt.ordinal() < byThroughput.ordinal() ? byRtt : byThroughput;
+    }
+
+    private Quality reclassify() {
+        Quality measured = classify(throughputKbps, rttMs);
+        if (measured == quality) {
+            candidate = null;
+            candidateCount = 0;
+            return null;
+        }
+        // Primeira leitura (ou saída do OFFLINE) vale na hora; as demais precisam se repetir
+        if (quality == Quality.UNKNOWN || quality == Quality.OFFLINE) {
+            quality = measured;
+            candidate = null;
+            candidateCount = 0;
+            return quality;
+        }
+        if (measured != candidate) {
+            candidate = measured;
+            candidateCount = 0;
+        }
+        if (++candidateCount < CONFIRM_SAMPLES) {
+            return null;
+        }
+        quality = measured;
+        candidate = null;
+        candidateCount = 0;
+        return quality;
+    }
+
+    private static double average(double current, double sample) {
+        return Double.isNaN(current) ? sample : current + ALPHA * (sample - current);
+    }
+}
@@ -0,0 +1,44 @@
+package com.motofreela.core;
+
+// Um fix de localização já aceito para envio (velocidade e direção opcionais: NaN)
+public final class LocationFix {
+    private final double latitude;
+    private final double longitude;
+    private final float accuracy;
+    private final float speedMetersPerSecond;
+    private final float bearingDegrees;
+    private final long timeMillis;
+
+    public LocationFix(double latitude, double longitude, float accuracy, float speedMetersPerSecond, float bearingDegrees, long timeMillis) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.accuracy = accuracy;
+        this.speedMetersPerSecond = speedMetersPerSecond;
+        this.bearingDegrees = bearingDegrees;
+        this.timeMillis = timeMillis;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    public float getSpeedMetersPerSecond() {
+        return speedMetersPerSecond;
+    }
+
+    public float getBearingDegrees() {
+        return bearingDegrees;
+    }
+
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+}
@@ -0,0 +1,74 @@
+package com.motofreela.core;
+
+public final class LocationStreamProcessor {
+    private final float maxAccuracyM;
+    private final float minDistanceM;
+    private final long minIntervalMs;
+
+    // Último fix aceito
+    private boolean hasLast;
+    private double lastLat;
+    private double lastLng;
+    private long lastTimeMs;
+
+    private long accepted;
+    private long rejectedInaccurate;
+    private long rejectedThrottled;
+    private double totalDistanceM;
+
+    public LocationStreamProcessor(float maxAccuracyM, float minDistanceM, long minIntervalMs) {
+        this.maxAccuracyM = maxAccuracyM;
+        this.minDistanceM = minDistanceM;
+        this.minIntervalMs = minIntervalMs;
+    }
+
+    // Decide se o fix deve ser repassado/enviado (O(1), sem alocação)
+    public boolean accept(double latitude, double longitude, float accuracy, long timeMs) {
+        if (accuracy > maxAccuracyM || Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            rejectedInaccurate++;
+            return false;
+        }
+
+        if (hasLast) {
+            double distance = GeoMath.distanceMeters(lastLat, lastLng, latitude, longitude);
+            boolean moved = distance >= minDistanceM;
+            boolean stale = timeMs - lastTimeMs >= minIntervalMs;
+            if (!moved && !stale) {
+                rejectedThrottled++;
+                return false;
+            }
+            totalDistanceM += distance;
+        }
+
+        hasLast = true;
+        lastLat = latitude;
+        lastLng = longitude;
+        lastTimeMs = timeMs;
+        accepted++;
+        return true;
+    }
+
+    public void reset() {
+        hasLast = false;
+        accepted = 0;
+        rejectedInaccurate = 0;
+        rejectedThrottled = 0;
+        totalDistanceM = 0;
+    }
+
+    public long getAcceptedCount() {
+        return accepted;
+    }
+
+    public long getRejectedInaccurateCount() {
+        return rejectedInaccurate;
+    }
+
+    public long getRejectedThrottledCount() {
+        return rejectedThrottled;
+    }
+
+    public double getTotalDistanceMeters() {
+        return totalDistanceM;
+    }
+}
@@ -0,0 +1,84 @@
+package com.motofreela.core;
+
+// Formatação das mensagens de log (placeholders {}), com segredos mascarados e corpos longos truncados
+public final class LogText {
+    // Chaves cujo valor nunca vai para o log
+    private static final String[] SECRET_KEYS = {"\"access_token\"", "\"refresh_token\"", "\"password\"", "\"apikey\"", "\"token\""};
+
+    private LogText() {
+    }
+
+    // Acrescenta o padrão com até três argumentos; argumentos a mais são ignorados
+    public static void format(StringBuilder out, String pattern, Object a, Object b, Object c, int argCount, int maxArgChars) {
+        int next = 0;
+        int start = 0;
+        int index;
+        while ((index = pattern.indexOf("{}", start)) >= 0) {
+            out.append(pattern, start, index);
+            if (next < argCount) {
+                Object arg = next == 0 ? a : next == 1 ? b : c;
+                appendRedacted(out, arg, maxArgChars);
+                next++;
+            } else {
+                out.append("{}");
+            }
+            start = index + 2;
+        }
+        out.append(pattern, start, pattern.length());
+    }
+
+    // Argumento como texto: segredos de JSON mascarados e corte em maxChars
+    public static void appendRedacted(StringBuilder out, Object arg, int maxChars) {
+        if (arg instanceof Throwable) {
+            Throwable throwable = (Throwable) arg;
+            arg = throwable.getClass().getSimpleName() + ": " + throwable.getMessage();
+        }
+        String text = String.valueOf(arg);
+        int start = out.length();
+        int limit = Math.min(text.length(), maxChars);
+        out.append(text, 0, limit);
+        maskSecrets(out, start);
+        if (text.length() > maxChars) {
+            out.append("…(").append(text.length()).append(" chars)");
+        }
+    }
+
+    // "chave":"valor" -> "chave":"***" para as chaves sensíveis, a partir de from
+    static void maskSecrets(StringBuilder text, int from) {
+        for (String key : SECRET_KEYS) {
+            int search = from;
+            int keyIndex;
+            while ((keyIndex = indexOf(text, key, search)) >= 0) {
+                int colon = skipSpaces(text, keyIndex + key.length());
+                if (colon >= text.length() || text.charAt(colon) != ':') {
+                    search = keyIndex + 1;
+                    continue;
+                }
+                int valueStart = skipSpaces(text, colon + 1);
+                if (valueStart >= text.length() || text.charAt(valueStart) != '"') {
+                    search = valueStart;
+                    continue;
+                }
+                int valueEnd = valueStart + 1;
+                while (valueEnd < text.length() && text.charAt(valueEnd) != '"') {
+                    valueEnd += text.charAt(valueEnd) == '\\' ? 2 : 1;
+                }
+                // Valor cortado pelo limite também é mascarado até o fim
+                int end = Math.min(valueEnd, text.length());
+                text.replace(valueStart + 1, end, "***");
+                search = valueStart + 5;
+            }
+        }
+    }
+
+    private static int indexOf(StringBuilder text, String needle, int from) {
+        return from >= text.length() ? -1 : text.indexOf(needle, from);
+    }
+
+    private static int skipSpaces(StringBuilder text, int index) {
+        while (index < text.length() && text.charAt(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+}
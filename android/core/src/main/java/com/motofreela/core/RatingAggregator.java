@@ -0,0 +1,20 @@
+package com.motofreela.core;
+
+import java.util.List;
+
+public final class RatingAggregator {
+    private RatingAggregator() {
+    }
+
+    // Média simples de uma lista (mesmo contrato do RatingService)
+    public static double average(List<Integer> ratings) {
+        if (ratings.isEmpty()) {
+            return 0.0;
+        }
+        long total = 0;
+        for (int i = 0, size = ratings.size(); i < size; i++) {
+            total += ratings.get(i);
+        }
+        return (double) total / ratings.size();
+    }
+}
@@ -0,0 +1,227 @@
+package com.motofreela.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Trilha da corrida em arquivo mapeado (anel de registros fixos); o não confirmado volta ao reabrir
+// Cabeçalho (128 B): [mágico:4][versão:4][capacidade:4][tam. registro:4][ack:8][reservado:8]
+//   [tam. usuário:2][usuário:48][tam. corrida:2][corrida:48]
+// Registro (48 B): [seq+1:8][hora ms:8][lat:8][lng:8][precisão:4][velocidade:4][direção:4][reservado:4];
+//   o seq vai por último, então registro pela metade encerra a recuperação
+public final class RideTraceRecorder implements Closeable {
+    public static final int HEADER_BYTES = 128;
+    public static final int RECORD_BYTES = 48;
+    private static final int MAGIC = 0x4D465452; // "MFTR"
+    private static final int VERSION = 1;
+    private static final int MAX_ID_BYTES = 48;
+    private static final int ACK_OFFSET = 16;
+    private static final int USER_OFFSET = 32;
+    private static final int SERVICE_OFFSET = USER_OFFSET + 2 + MAX_ID_BYTES;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final String userId;
+    private final String serviceId;
+    private long ackSeq;
+    private long writeSeq;
+    private long overwritten;
+
+    private RideTraceRecorder(File file, RandomAccessFile raf, MappedByteBuffer buffer, int capacity,
+                              String userId, String serviceId) {
+        this.file = file;
+        this.raf = raf;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.userId = userId;
+        this.serviceId = serviceId;
+    }
+
+    // Trilha da corrida: retoma o arquivo se ele já é desta corrida, senão começa um novo
+    public static RideTraceRecorder open(File file, String userId, String serviceId, int capacity) throws IOException {
+        if (capacity <= 0 || capacity > (Integer.MAX_VALUE - HEADER_BYTES) / RECORD_BYTES) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        RideTraceRecorder existing = file.exists() ? recover(file) : null;
+        if (existing != null) {
+            if (existing.capacity == capacity && userId.equals(existing.userId) && serviceId.equals(existing.serviceId)) {
+                return existing;
+            }
+            existing.close();
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            long length = HEADER_BYTES + (long) capacity * RECORD_BYTES;
+            raf.setLength(length);
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, capacity);
+            buffer.putInt(12, RECORD_BYTES);
+            buffer.putLong(ACK_OFFSET, 0);
+            putId(buffer, USER_OFFSET, userId);
+            putId(buffer, SERVICE_OFFSET, serviceId);
+            return new RideTraceRecorder(file, raf, buffer, capacity, userId, serviceId);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    // Arquivo deixado por uma execução anterior; null se não for uma trilha válida
+    public static RideTraceRecorder recover(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (raf.length() < HEADER_BYTES) {
+                raf.close();
+                return null;
+            }
+            MappedByteBuffer header = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            int capacity = header.getInt(8);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || header.getInt(12) != RECORD_BYTES
+                || capacity <= 0 || raf.length() != HEADER_BYTES + (long) capacity * RECORD_BYTES) {
+                raf.close();
+                return null;
+            }
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            RideTraceRecorder recorder = new RideTraceRecorder(file, raf, buffer, capacity,
+                getId(buffer, USER_OFFSET), getId(buffer, SERVICE_OFFSET));
+            recorder.ackSeq = buffer.getLong(ACK_OFFSET);
+            recorder.writeSeq = recorder.ackSeq;
+            while (recorder.writeSeq - recorder.ackSeq < capacity
+                && buffer.getLong(recorder.offset(recorder.writeSeq)) == recorder.writeSeq + 1) {
+                recorder.writeSeq++;
+            }
+            return recorder;
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public void append(LocationFix fix) {
+        append(fix.getLatitude(), fix.getLongitude(), fix.getAccuracy(), fix.getSpeedMetersPerSecond(),
+            fix.getBearingDegrees(), fix.getTimeMillis());
+    }
+
+    // Anel cheio: o fix mais antigo ainda não enviado é descartado (contado em getOverwrittenCount)
+    public synchronized void append(double latitude, double longitude, float accuracy, float speedMetersPerSecond,
+                                    float bearingDegrees, long timeMillis) {
+        if (writeSeq - ackSeq == capacity) {
+            ackSeq++;
+            overwritten++;
+            buffer.putLong(ACK_OFFSET, ackSeq);
+        }
+        int offset = offset(writeSeq);
+        buffer.putLong(offset + 8, timeMillis);
+        buffer.putDouble(offset + 16, latitude);
+        buffer.putDouble(offset + 24, longitude);
+        buffer.putFloat(offset + 32, accuracy);
+        buffer.putFloat(offset + 36, speedMetersPerSecond);
+        buffer.putFloat(offset + 40, bearingDegrees);
+        buffer.putLong(offset, writeSeq + 1);
+        writeSeq++;
+    }
+
+    // Próximos fixes não confirmados, do mais antigo, no máximo max
+    public synchronized List<LocationFix> pending(int max) {
+        int count = (int) Math.min(max, writeSeq - ackSeq);
+        List<LocationFix> fixes = new ArrayList<>(count);
+        for (long seq = ackSeq; seq < ackSeq + count; seq++) {
+            int offset = offset(seq);
+            fixes.add(new LocationFix(
+                buffer.getDouble(offset + 16),
+                buffer.getDouble(offset + 24),
+                buffer.getFloat(offset + 32),
+                buffer.getFloat(offset + 36),
+                buffer.getFloat(offset + 40),
+                buffer.getLong(offset + 8)));
+        }
+        return fixes;
+    }
+
+    public synchronized int pendingCount() {
+        return (int) (writeSeq - ackSeq);
+    }
+
+    // Seq do próximo fix não confirmado; pending() começa nele
+    public synchronized long getAckedSeq() {
+        return ackSeq;
+    }
+
+    public synchronized long getWrittenSeq() {
+        return writeSeq;
+    }
+
+    public synchronized long getOverwrittenCount() {
+        return overwritten;
+    }
+
+    // Envio confirmado até seq (exclusivo); nunca volta atrás nem passa do último gravado
+    public synchronized void acknowledge(long seq) {
+        long next = Math.min(seq, writeSeq);
+        if (next > ackSeq) {
+            ackSeq = next;
+            buffer.putLong(ACK_OFFSET, ackSeq);
+        }
+    }
+
+    // Fechar não é obrigatório para não perder dados; só libera o arquivo
+    @Override
+    public synchronized void close() throws IOException {
+        raf.close();
+    }
+
+    // Corrida encerrada e tudo enviado
+    public void delete() throws IOException {
+        close();
+        if (!file.delete() && file.exists()) {
+            throw new IOException("Falha ao apagar " + file.getName());
+        }
+    }
+
+    private int offset(long seq) {
+        return HEADER_BYTES + (int) (seq % capacity) * RECORD_BYTES;
+    }
+
+    private static void putId(MappedByteBuffer buffer, int offset, String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_ID_BYTES) {
+            throw new IllegalArgumentException("Id longo demais: " + id);
+        }
+        buffer.putShort(offset, (short) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(offset + 2 + i, bytes[i]);
+        }
+    }
+
+    private static String getId(MappedByteBuffer buffer, int offset) {
+        int length = Math.min(buffer.getShort(offset), MAX_ID_BYTES);
+        byte[] bytes = new byte[Math.max(length, 0)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.motofreela.core;
+
+import java.io.IOException;
+import java.util.List;
+
+// Corpos JSON das escritas do SupabaseService, escritos em streaming
+public final class SupabasePayloads {
+    // 7 casas ~ 1 cm; precisão do GPS em cm
+    public static final int COORDINATE_DECIMALS = 7;
+    public static final int ACCURACY_DECIMALS = 2;
+    // location_history guarda velocidade em km/h e direção em graus, ambas DECIMAL(_,2)
+    private static final double METERS_PER_SECOND_TO_KMH = 3.6;
+
+    private SupabasePayloads() {
+    }
+
+    public static void signIn(JsonWriter writer, String email, String password) throws IOException {
+        writer.beginObject()
+            .field("email", email)
+            .field("password", password)
+            .endObject();
+    }
+
+    public static void signUp(JsonWriter writer, String email, String password, String fullName, String role) throws IOException {
+        writer.beginObject()
+            .field("email", email)
+            .field("password", password)
+            .name("data").beginObject()
+                .field("full_name", fullName)
+                .field("role", role)
+            .endObject()
+            .endObject();
+    }
+
+    public static void chatMessage(JsonWriter writer, String serviceId, String senderId, String receiverId, String content, String messageType) throws IOException {
+        writer.beginObject()
+            .field("service_id", serviceId)
+            .field("sender_id", senderId)
+            .field("receiver_id", receiverId)
+            .field("content", content)
+            .field("message_type", messageType)
+            .endObject();
+    }
+
+    public static void rating(JsonWriter writer, String serviceId, String raterId, String ratedId, int rating, String comment) throws IOException {
+        writer.beginObject()
+            .field("service_id", serviceId)
+            .field("rater_id", raterId)
+            .field("rated_id", ratedId)
+            .field("rating", rating)
+            .field("comment", comment)
+            .endObject();
+    }
+
+    // Posição atual (upsert); updated_at fica com o default/trigger do banco
+    public static void location(JsonWriter writer, String userId, double latitude, double longitude, float accuracy) throws IOException {
+        writer.beginObject()
+            .field("user_id", userId)
+            .field("latitude", latitude, COORDINATE_DECIMALS)
+            .field("longitude", longitude, COORDINATE_DECIMALS)
+            .field("accuracy", accuracy, ACCURACY_DECIMALS)
+            .endObject();
+    }
+
+    // Lote do rastreamento em um único POST (array = insert de várias linhas no PostgREST)
+    public static void locationHistory(JsonWriter writer, String userId, String serviceId, List<LocationFix> fixes) throws IOException {
+        writer.beginArray();
+        for (int i = 0, size = fixes.size(); i < size; i++) {
+            LocationFix fix = fixes.get(i);
+            writer.beginObject()
+                .field("user_id", userId)
+                .field("service_id", serviceId)
+                .field("lat", fix.getLatitude(), COORDINATE_DECIMALS)
+                .field("lng", fix.getLongitude(), COORDINATE_DECIMALS)
+                .field("accuracy", fix.getAccuracy(), ACCURACY_DECIMALS);
+            optionalField(writer, "speed", fix.getSpeedMetersPerSecond() * METERS_PER_SECOND_TO_KMH);
+            optionalField(writer, "heading", fix.getBearingDegrees());
+            writer.name("created_at").timestamp(fix.getTimeMillis())
+                .endObject();
+        }
+        writer.endArray();
+    }
+
+    private static void optionalField(JsonWriter writer, String name, double value) throws IOException {
+        writer.name(name);
+        if (Double.isNaN(value)) {
+            writer.nullValue();
+        } else {
+            writer.value(value, 2);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.motofreela.core;
+
+import java.io.IOException;
+
+// Métricas da corrida em O(1) por fix, sem guardar a trilha; motor retomado no meio sai parcial (markResumed)
+public final class TripMetricsEngine {
+    static final float MAX_ACCURACY_M = 50;
+    // ~5 km/h: abaixo disso é trânsito parado ou espera
+    static final double MOVING_SPEED_MPS = 1.4;
+    // ~160 km/h: acima disso é salto de GPS, não moto
+    static final double MAX_PLAUSIBLE_SPEED_MPS = 45;
+    // Corrida rápida (badge "Velocista") e janela padrão para chegar na coleta
+    public static final long FAST_RIDE_MS = 15 * 60_000;
+    public static final long DEFAULT_PICKUP_WINDOW_MS = 20 * 60_000;
+
+    private final long startMillis;
+    private final long pickupDeadlineMillis;
+
+    private boolean hasAnchor;
+    private double anchorLatitude;
+    private double anchorLongitude;
+    private long anchorTime;
+    private long lastTime;
+
+    private double distanceMeters;
+    private long movingMillis;
+    private long stoppedMillis;
+    private double maxSpeedMps;
+    private int acceptedFixes;
+    private int rejectedFixes;
+
+    private long pickupArrivedAt = -1;
+    private long pickupDepartedAt = -1;
+    private long dropoffArrivedAt = -1;
+    private boolean partial;
+
+    // Corrida aceita em startMillis; chegar na coleta até pickupDeadlineMillis conta como pontual
+    public TripMetricsEngine(long startMillis, long pickupDeadlineMillis) {
+        this.startMillis = startMillis;
+        this.pickupDeadlineMillis = pickupDeadlineMillis;
+        this.lastTime = startMillis;
+    }
+
+    public TripMetricsEngine(long startMillis) {
+        this(startMillis, startMillis + DEFAULT_PICKUP_WINDOW_MS);
+    }
+
+    // Fixes e etapas anteriores a este ponto se perderam: distância e tempos de etapa ficam incompletos
+    public void markResumed() {
+        partial = true;
+    }
+
+    // Retorna false se o fix foi descartado (impreciso, fora de ordem ou salto)
+    public boolean onFix(double latitude, double longitude, float accuracy, float speedMetersPerSecond, long timeMillis) {
+        if (!(accuracy <= MAX_ACCURACY_M) || timeMillis <= lastTime && hasAnchor) {
+            rejectedFixes++;
+            return false;
+        }
+        if (!hasAnchor) {
+            moveAnchor(latitude, longitude, timeMillis);
+            lastTime = timeMillis;
+            acceptedFixes++;
+            return true;
+        }
+
+        double meters = GeoMath.distanceMeters(anchorLatitude, anchorLongitude, latitude, longitude);
+        long sinceAnchor = timeMillis - anchorTime;
+        double segmentSpeed = meters * 1000.0 / sinceAnchor;
+        if (segmentSpeed > MAX_PLAUSIBLE_SPEED_MPS) {
+            rejectedFixes++;
+            return false;
+        }
+
+        long elapsed = timeMillis - lastTime;
+        lastTime = timeMillis;
+        acceptedFixes++;
+        if (meters < accuracy) {
+            stoppedMillis += elapsed;
+            return true;
+        }
+
+        distanceMeters += meters;
+        if (segmentSpeed >= MOVING_SPEED_MPS) {
+            movingMillis += elapsed;
+        } else {
+            stoppedMillis += elapsed;
+        }
+        double speed = Float.isNaN(speedMetersPerSecond) ? segmentSpeed : speedMetersPerSecond;
+        if (speed <= MAX_PLAUSIBLE_SPEED_MPS && speed > maxSpeedMps) {
+            maxSpeedMps = speed;
+        }
+        moveAnchor(latitude, longitude, timeMillis);
+        return true;
+    }
+
+    // Etapas vindas do geofence (ArrivalStateMachine); repetições não mudam o primeiro registro
+    public void onArrival(ArrivalStateMachine.State state, long timeMillis) {
+        switch (state) {
+            case AT_PICKUP:
+                if (pickupArrivedAt < 0) {
+                    pickupArrivedAt = timeMillis;
+                }
+                break;
+            case TO_DROPOFF:
+                if (pickupDepartedAt < 0) {
+                    pickupDepartedAt = timeMillis;
+                }
+                break;
+            case AT_DROPOFF:
+                if (dropoffArrivedAt < 0) {
+                    dropoffArrivedAt = timeMillis;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    public boolean isCompleted() {
+        return dropoffArrivedAt >= 0;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public Summary summary() {
+        long end = dropoffArrivedAt >= 0 ? dropoffArrivedAt : lastTime;
+        long legStart = pickupDepartedAt >= 0 ? pickupDepartedAt : pickupArrivedAt;
+        return new Summary(
+            distanceMeters,
+            end - startMillis,
+            movingMillis,
+            stoppedMillis,
+            movingMillis > 0 ? distanceMeters * 1000.0 / movingMillis : 0,
+            maxSpeedMps,
+            pickupArrivedAt >= 0 ? pickupArrivedAt - startMillis : -1,
+            pickupArrivedAt >= 0 && pickupDepartedAt >= 0 ? pickupDepartedAt - pickupArrivedAt : -1,
+            dropoffArrivedAt >= 0 && legStart >= 0 ? dropoffArrivedAt - legStart : -1,
+            acceptedFixes,
+            rejectedFixes,
+            dropoffArrivedAt >= 0,
+            pickupArrivedAt >= 0 && pickupArrivedAt <= pickupDeadlineMillis,
+            partial);
+    }
+
+    private void moveAnchor(double latitude, double longitude, long timeMillis) {
+        hasAnchor = true;
+        anchorLatitude = latitude;
+        anchorLongitude = longitude;
+        anchorTime = timeMillis;
+    }
+
+    // Resumo imutável da corrida; tempos em ms (-1 quando a etapa não aconteceu)
+    public static final class Summary {
+        public final double distanceMeters;
+        public final long durationMillis;
+        public final long movingMillis;
+        public final long stoppedMillis;
+        public final double averageSpeedMps;
+        public final double maxSpeedMps;
+        public final long toPickupMillis;
+        public final long pickupWaitMillis;
+        public final long toDropoffMillis;
+        public final int acceptedFixes;
+        public final int rejectedFixes;
+        public final boolean completed;
+        public final boolean punctual;
+        // Motor retomado no meio da corrida (ver markResumed)
+        public final boolean partial;
+
+        Summary(double distanceMeters, long durationMillis, long movingMillis, long stoppedMillis,
+                double averageSpeedMps, double maxSpeedMps, long toPickupMillis, long pickupWaitMillis,
+                long toDropoffMillis, int acceptedFixes, int rejectedFixes, boolean completed, boolean punctual,
+                boolean partial) {
+            this.distanceMeters = distanceMeters;
+            this.durationMillis = durationMillis;
+            this.movingMillis = movingMillis;
+            this.stoppedMillis = stoppedMillis;
+            this.averageSpeedMps = averageSpeedMps;
+            this.maxSpeedMps = maxSpeedMps;
+            this.toPickupMillis = toPickupMillis;
+            this.pickupWaitMillis = pickupWaitMillis;
+            this.toDropoffMillis = toDropoffMillis;
+            this.acceptedFixes = acceptedFixes;
+            this.rejectedFixes = rejectedFixes;
+            this.completed = completed;
+            this.punctual = punctual;
+            this.partial = partial;
+        }
+
+        // Entregue em menos de FAST_RIDE_MS desde o aceite
+        public boolean isFast() {
+            return completed && durationMillis < FAST_RIDE_MS;
+        }
+
+        // Distância em metros, tempos em segundos, velocidades em km/h
+        public void writeTo(JsonWriter writer) throws IOException {
+            writer.beginObject()
+                .field("distance_m", Math.round(distanceMeters))
+                .field("duration_s", durationMillis / 1000)
+                .field("moving_s", movingMillis / 1000)
+                .field("stopped_s", stoppedMillis / 1000)
+                .field("avg_speed_kmh", averageSpeedMps * 3.6, 1)
+                .field("max_speed_kmh", maxSpeedMps * 3.6, 1)
+                .field("to_pickup_s", seconds(toPickupMillis))
+                .field("pickup_wait_s", seconds(pickupWaitMillis))
+                .field("to_dropoff_s", seconds(toDropoffMillis))
+                .field("fixes", acceptedFixes)
+                .name("completed").value(completed)
+                .name("punctual").value(punctual)
+                .name("fast").value(isFast())
+                .name("partial").value(partial)
+                .endObject();
+        }
+
+        private static long seconds(long millis) {
+            return millis < 0 ? -1 : millis / 1000;
+        }
+    }
+}
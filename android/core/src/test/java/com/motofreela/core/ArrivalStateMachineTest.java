@@ -0,0 +1,61 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.motofreela.core.ArrivalStateMachine.Leg;
+import com.motofreela.core.ArrivalStateMachine.State;
+import org.junit.Test;
+
+public class ArrivalStateMachineTest {
+    @Test
+    public void followsPickupThenDropoff() {
+        ArrivalStateMachine machine = new ArrivalStateMachine();
+        assertTrue(machine.isBetweenLegs());
+
+        assertEquals(State.AT_PICKUP, machine.onEnter(Leg.PICKUP));
+        assertFalse(machine.isBetweenLegs());
+        assertEquals(State.TO_DROPOFF, machine.onExit(Leg.PICKUP));
+        assertTrue(machine.isBetweenLegs());
+        assertEquals(State.AT_DROPOFF, machine.onEnter(Leg.DROPOFF));
+        assertTrue(machine.isFinished());
+    }
+
+    @Test
+    public void ignoresRepeatedAndOutOfOrderEvents() {
+        ArrivalStateMachine machine = new ArrivalStateMachine();
+        // Passou perto do destino antes de coletar
+        assertNull(machine.onEnter(Leg.DROPOFF));
+        assertNull(machine.onExit(Leg.PICKUP));
+
+        machine.onEnter(Leg.PICKUP);
+        assertNull(machine.onEnter(Leg.PICKUP));
+        assertEquals(State.AT_PICKUP, machine.getState());
+    }
+
+    @Test
+    public void overlappingFencesWaitForPickupExit() {
+        // Coleta e entrega a menos de 300 m: as duas cercas disparam ENTER no armamento
+        ArrivalStateMachine machine = new ArrivalStateMachine();
+        assertEquals(State.AT_PICKUP, machine.onEnter(Leg.PICKUP));
+        assertNull(machine.onEnter(Leg.DROPOFF));
+        assertEquals(State.AT_PICKUP, machine.getState());
+        assertTrue(machine.isInsideDropoff());
+
+        // Saiu da coleta ainda dentro da entrega: chegou
+        assertEquals(State.AT_DROPOFF, machine.onExit(Leg.PICKUP));
+        assertTrue(machine.isFinished());
+    }
+
+    @Test
+    public void dropoffExitBeforePickupExitIsForgotten() {
+        ArrivalStateMachine machine = new ArrivalStateMachine(State.AT_PICKUP, false);
+        machine.onEnter(Leg.DROPOFF);
+        assertNull(machine.onExit(Leg.DROPOFF));
+
+        assertEquals(State.TO_DROPOFF, machine.onExit(Leg.PICKUP));
+        assertEquals(State.AT_DROPOFF, machine.onEnter(Leg.DROPOFF));
+    }
+}
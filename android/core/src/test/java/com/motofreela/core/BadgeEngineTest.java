@@ -0,0 +1,48 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class BadgeEngineTest {
+    // Mesmos requisitos da lista de badges do app (GamificationService)
+    private final BadgeEngine engine = new BadgeEngine(Arrays.asList(
+        new BadgeEngine.Rule("first_ride", "totalRides", 1),
+        new BadgeEngine.Rule("veteran", "totalRides", 50),
+        new BadgeEngine.Rule("master", "totalRides", 100),
+        new BadgeEngine.Rule("legend", "totalRides", 500),
+        new BadgeEngine.Rule("five_stars", "fiveStarStreak", 10),
+        new BadgeEngine.Rule("speed_demon", "fastRides", 10),
+        new BadgeEngine.Rule("punctual", "punctualStreak", 20),
+        new BadgeEngine.Rule("reliable", "completionRate", 95),
+        new BadgeEngine.Rule("hot_streak", "dailyRides", 7),
+        new BadgeEngine.Rule("top_rated", "positiveRatings", 100)));
+
+    @Test
+    public void evaluatesBadgesFromStats() {
+        Map<String, Integer> stats = new HashMap<>();
+        stats.put("totalRides", 60);
+        stats.put("completionRate", 94);
+        stats.put("dailyRides", 7);
+
+        assertTrue(engine.isEarned("veteran", stats));
+        assertFalse(engine.isEarned("master", stats));
+        assertFalse(engine.isEarned("reliable", stats));
+        assertEquals(60, engine.progress("master", stats));
+        assertEquals(0, engine.progress("unknown", stats));
+        assertEquals(Arrays.asList("first_ride", "veteran", "hot_streak"), engine.earnedBadges(stats));
+    }
+
+    @Test
+    public void computesLevelsFromExperience() {
+        assertEquals(1, BadgeEngine.levelForExperience(0));
+        assertEquals(1, BadgeEngine.levelForExperience(999));
+        assertEquals(2, BadgeEngine.levelForExperience(1000));
+        assertEquals(250, BadgeEngine.experienceToNextLevel(1750));
+    }
+}
@@ -0,0 +1,66 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+public class ChatSearchIndexTest {
+
+    @Test
+    public void accentsAndCaseFoldToTheSameTerm() {
+        ChatSearchIndex index = new ChatSearchIndex();
+        index.add("m1", "s1", 1000, "Cheguei no PORTÃO da frente");
+        index.add("m2", "s1", 2000, "A coleta é no prédio ao lado");
+
+        assertEquals("m1", index.search("portao", 10).get(0).messageId);
+        assertEquals("m1", index.search("Portão", 10).get(0).messageId);
+        assertEquals("m2", index.search("predio", 10).get(0).messageId);
+        assertEquals("m2", index.search("É", 10).get(0).messageId);
+        assertEquals(ChatSearchIndex.tokenize("Açúcar, pão-de-ló!"), List.of("acucar", "pao", "de", "lo"));
+    }
+
+    @Test
+    public void wordsMatchAsPrefixesAndAllMustAppear() {
+        ChatSearchIndex index = new ChatSearchIndex();
+        index.add("m1", "s1", 1000, "Entrega feita no portão");
+        index.add("m2", "s2", 2000, "Sou o entregador, estou chegando");
+        index.add("m3", "s2", 3000, "Pode deixar na portaria");
+
+        assertEquals(2, index.search("entreg", 10).size());
+        assertEquals(2, index.search("port", 10).size());
+        List<ChatSearchIndex.Hit> both = index.search("entreg port", 10);
+        assertEquals(1, both.size());
+        assertEquals("m1", both.get(0).messageId);
+        assertTrue(index.search("entregas", 10).isEmpty());
+        assertTrue(index.search("  ?! ", 10).isEmpty());
+        // Filtro por corrida
+        assertEquals("m2", index.search("entreg", "s2", 10).get(0).messageId);
+    }
+
+    @Test
+    public void resultsAreNewestFirstUpToTheLimit() {
+        ChatSearchIndex index = new ChatSearchIndex();
+        long[] times = {5000, 1000, 9000, 3000, 7000};
+        for (int i = 0; i < times.length; i++) {
+            index.add("m" + i, "s1", times[i], "mensagem " + i);
+        }
+        List<ChatSearchIndex.Hit> hits = index.search("mensagem", 3);
+        assertEquals(3, hits.size());
+        assertEquals(9000, hits.get(0).timeMillis);
+        assertEquals(7000, hits.get(1).timeMillis);
+        assertEquals(5000, hits.get(2).timeMillis);
+    }
+
+    @Test
+    public void duplicateMessageIdsAreIgnored() {
+        ChatSearchIndex index = new ChatSearchIndex();
+        assertTrue(index.add("m1", "s1", 1000, "ok ok ok"));
+        assertFalse(index.add("m1", "s1", 1000, "ok ok ok"));
+        assertEquals(1, index.size());
+        assertEquals(1, index.termCount());
+        assertEquals(1, index.search("ok", 10).size());
+    }
+}
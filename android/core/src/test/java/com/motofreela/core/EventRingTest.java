@@ -0,0 +1,42 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class EventRingTest {
+    @Test
+    public void keepsMostRecentEventsInOrder() throws Exception {
+        EventRing ring = new EventRing(3, 64);
+        for (int i = 1; i <= 5; i++) {
+            ring.record(i * 1000L, 4, "Tag", "evento " + i);
+        }
+
+        StringBuilder dump = new StringBuilder();
+        ring.dump(dump);
+        String[] lines = dump.toString().split("\n");
+
+        assertEquals(5, ring.getWrittenCount());
+        assertEquals(3, ring.size());
+        assertEquals(4, lines.length);
+        assertTrue(lines[0].contains("2 eventos anteriores"));
+        assertTrue(lines[1].endsWith(" I Tag: evento 3"));
+        assertTrue(lines[3].endsWith(" I Tag: evento 5"));
+    }
+
+    @Test
+    public void truncatesWithoutSplittingCharacters() throws Exception {
+        EventRing ring = new EventRing(1, 60);
+        ring.record(0, 6, "T", "ação ação ação ação ação ação ação ação ação");
+
+        StringBuilder dump = new StringBuilder();
+        ring.dump(dump);
+        String message = dump.substring(dump.indexOf(": ") + 2, dump.length() - 1);
+
+        assertTrue(message.startsWith("ação ação"));
+        assertFalse(message.contains("�"));
+        assertTrue(message.getBytes("UTF-8").length <= 60 - 12 - 1);
+    }
+}
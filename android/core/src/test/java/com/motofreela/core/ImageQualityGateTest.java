@@ -0,0 +1,105 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.motofreela.core.ImageQualityGate.Verdict;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+
+public class ImageQualityGateTest {
+    private static final int W = 512;
+    private static final int H = 384;
+    private final ImageQualityGate gate = new ImageQualityGate(600, 100);
+
+    // Fundo claro com linhas de "texto" escuro, como uma CNH fotografada de perto
+    private static byte[] document() {
+        byte[] luma = new byte[W * H];
+        Arrays.fill(luma, (byte) 200);
+        Random random = new Random(1);
+        for (int line = 20; line < H - 20; line += 18) {
+            for (int x = 20; x < W - 20; ) {
+                int word = 10 + random.nextInt(40);
+                for (int y = line; y < line + 9; y++) {
+                    for (int i = x; i < Math.min(x + word, W - 20); i++) {
+                        if (random.nextInt(3) > 0) {
+                            luma[y * W + i] = 40;
+                        }
+                    }
+                }
+                x += word + 8;
+            }
+        }
+        return luma;
+    }
+
+    private static byte[] boxBlur(byte[] source, int radius) {
+        byte[] out = new byte[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int sum = 0;
+                int count = 0;
+                for (int dy = -radius; dy <= radius; dy++) {
+                    for (int dx = -radius; dx <= radius; dx++) {
+                        int yy = y + dy;
+                        int xx = x + dx;
+                        if (yy >= 0 && xx >= 0 && yy < H && xx < W) {
+                            sum += source[yy * W + xx] & 0xFF;
+                            count++;
+                        }
+                    }
+                }
+                out[y * W + x] = (byte) (sum / count);
+            }
+        }
+        return out;
+    }
+
+    @Test
+    public void sharpWellExposedDocumentPasses() {
+        ImageQualityGate.Assessment assessment = gate.assess(document(), W, H, 1600, 1200);
+        assertEquals(Verdict.OK, assessment.verdict);
+        assertTrue(assessment.passed());
+        assertTrue(assessment.sharpness > 1000);
+    }
+
+    @Test
+    public void outOfFocusDocumentIsBlurry() {
+        // Desfoque de ~9 px na escala da análise: o texto não se lê mais
+        ImageQualityGate.Assessment assessment = gate.assess(boxBlur(document(), 4), W, H, 1600, 1200);
+        assertEquals(Verdict.BLURRY, assessment.verdict);
+        assertTrue(assessment.sharpness < 100);
+    }
+
+    @Test
+    public void exposureIsCheckedBeforeSharpness() {
+        byte[] dark = document();
+        for (int i = 0; i < dark.length; i++) {
+            dark[i] = (byte) ((dark[i] & 0xFF) / 6);
+        }
+        ImageQualityGate.Assessment assessment = gate.assess(dark, W, H, 1600, 1200);
+        assertEquals(Verdict.TOO_DARK, assessment.verdict);
+        assertTrue(Double.isNaN(assessment.sharpness));
+
+        // Reflexo cobrindo metade da foto
+        byte[] glare = document();
+        Arrays.fill(glare, 0, glare.length / 2, (byte) 255);
+        assertEquals(Verdict.TOO_BRIGHT, gate.assess(glare, W, H, 1600, 1200).verdict);
+    }
+
+    @Test
+    public void smallSourceIsRejectedWithoutLookingAtPixels() {
+        assertEquals(Verdict.TOO_SMALL, gate.assess(document(), W, H, 640, 480).verdict);
+        assertEquals(Verdict.OK, gate.assess(document(), W, H, 800, 600).verdict);
+    }
+
+    @Test
+    public void lumaUsesRec601Weights() {
+        byte[] luma = new byte[3];
+        ImageQualityGate.toLuma(new int[] {0xFFFFFFFF, 0xFF000000, 0xFF00FF00}, 3, luma);
+        assertEquals(255, luma[0] & 0xFF);
+        assertEquals(0, luma[1] & 0xFF);
+        assertEquals(149, luma[2] & 0xFF);
+    }
+}
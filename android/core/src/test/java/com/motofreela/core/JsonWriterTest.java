@@ -0,0 +1,55 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class JsonWriterTest {
+    @Test
+    public void writesNestedStructures() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(outputStream, 8);
+        writer.beginObject()
+            .field("a", 1)
+            .name("b").beginArray().value(true).nullValue().value(-42).endArray()
+            .name("c").beginObject().endObject()
+            .field("d", "x")
+            .endObject();
+        writer.flush();
+
+        assertEquals("{\"a\":1,\"b\":[true,null,-42],\"c\":{},\"d\":\"x\"}", outputStream.toString("UTF-8"));
+        assertEquals(outputStream.size(), writer.getBytesWritten());
+    }
+
+    @Test
+    public void escapesAndEncodesUtf8LikeTheJvm() throws Exception {
+        String text = "aç\"\\\n\t\u0001€ 🚀 fim";
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(outputStream, 4);
+        writer.beginObject().field("text", text).endObject();
+        writer.flush();
+
+        String json = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(text, new JSONObject(json).getString("text"));
+        assertEquals("{\"text\":\"aç\\\"\\\\\\n\\t\\u0001€ 🚀 fim\"}", json);
+    }
+
+    @Test
+    public void writesFixedPointNumbers() throws Exception {
+        assertEquals("-23.5505", number(-23.5505, 7));
+        assertEquals("0", number(-0.00000001, 7));
+        assertEquals("12", number(12.0, 2));
+        assertEquals("0.05", number(0.05, 2));
+        assertEquals("1.0E12", number(1e12, 2));
+    }
+
+    private static String number(double value, int decimals) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(outputStream);
+        writer.value(value, decimals).flush();
+        return outputStream.toString("UTF-8");
+    }
+}
@@ -0,0 +1,65 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.motofreela.core.LinkQualityEstimator.Quality;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class LinkQualityEstimatorTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void firstSampleClassifiesImmediately() {
+        LinkQualityEstimator estimator = new LinkQualityEstimator();
+        assertEquals(Quality.UNKNOWN, estimator.getQuality());
+        assertEquals(Quality.EXCELLENT, estimator.onRoundTrip(80 * MS));
+        // 64 KB em 100 ms ~ 5 Mbps, mas o RTT alto puxa para baixo
+        estimator.reset();
+        estimator.onRoundTrip(900 * MS);
+        assertEquals(Quality.MODERATE, estimator.getQuality());
+        assertNull(estimator.onTransfer(64 * 1024, 100 * MS));
+        assertEquals(Quality.MODERATE, estimator.getQuality());
+    }
+
+    @Test
+    public void slowCallAloneDoesNotFlipTheClass() {
+        LinkQualityEstimator estimator = new LinkQualityEstimator();
+        estimator.onRoundTrip(80 * MS);
+        assertNull(estimator.onRoundTrip(4000 * MS));
+        assertEquals(Quality.EXCELLENT, estimator.getQuality());
+
+        // Queda sustentada (3G ruim): muda depois de CONFIRM_SAMPLES leituras concordando
+        Quality changed = null;
+        int samples = 0;
+        while (changed == null) {
+            changed = estimator.onTransfer(32 * 1024, 2500 * MS);
+            samples++;
+        }
+        assertEquals(Quality.POOR, changed);
+        assertEquals(LinkQualityEstimator.CONFIRM_SAMPLES, samples);
+        assertTrue(estimator.getThroughputKbps() < LinkQualityEstimator.POOR_MAX_KBPS);
+    }
+
+    @Test
+    public void smallResponsesOnlyCountForLatency() {
+        LinkQualityEstimator estimator = new LinkQualityEstimator();
+        assertNull(estimator.onTransfer(512, 500 * MS));
+        assertTrue(Double.isNaN(estimator.getThroughputKbps()));
+        assertEquals(Quality.UNKNOWN, estimator.getQuality());
+    }
+
+    @Test
+    public void repeatedFailuresGoOfflineAndAnyResponseRecovers() {
+        LinkQualityEstimator estimator = new LinkQualityEstimator();
+        estimator.onRoundTrip(300 * MS);
+        assertNull(estimator.onFailure());
+        assertNull(estimator.onFailure());
+        assertEquals(Quality.OFFLINE, estimator.onFailure());
+        assertNull(estimator.onFailure());
+
+        assertEquals(Quality.GOOD, estimator.onRoundTrip(300 * MS));
+    }
+}
@@ -0,0 +1,37 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LocationStreamProcessorTest {
+    @Test
+    public void haversineMatchesKnownDistance() {
+        // Praça da Sé -> Consolação, cerca de 2,6 km
+        double distance = GeoMath.distanceMeters(-23.5505, -46.6333, -23.5614, -46.6559);
+        assertEquals(2603, distance, 5);
+        assertEquals(0.0, GeoMath.distanceMeters(-23.5, -46.6, -23.5, -46.6), 0.0);
+    }
+
+    @Test
+    public void filtersInaccurateAndRedundantFixes() {
+        LocationStreamProcessor processor = new LocationStreamProcessor(50, 10, 5000);
+
+        assertTrue(processor.accept(-23.5505, -46.6333, 8, 0));
+        // Impreciso demais
+        assertFalse(processor.accept(-23.5510, -46.6333, 120, 1000));
+        // Parado e cedo demais
+        assertFalse(processor.accept(-23.55051, -46.6333, 8, 2000));
+        // Parado, mas o intervalo mínimo passou
+        assertTrue(processor.accept(-23.55051, -46.6333, 8, 6000));
+        // Andou ~111 m
+        assertTrue(processor.accept(-23.5515, -46.6333, 8, 7000));
+
+        assertEquals(3, processor.getAcceptedCount());
+        assertEquals(1, processor.getRejectedInaccurateCount());
+        assertEquals(1, processor.getRejectedThrottledCount());
+        assertEquals(111, processor.getTotalDistanceMeters(), 2);
+    }
+}
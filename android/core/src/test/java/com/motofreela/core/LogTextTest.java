@@ -0,0 +1,33 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LogTextTest {
+    @Test
+    public void fillsPlaceholdersInOrder() {
+        StringBuilder out = new StringBuilder();
+        LogText.format(out, "{} de {} ({})", 3, "5", null, 2, 256);
+        assertEquals("3 de 5 ({})", out.toString());
+    }
+
+    @Test
+    public void masksSecretsAndTruncatesBodies() {
+        String body = "{\"access_token\":\"eyJhbGciOi.abc\",\"user\":{\"id\":\"u1\"},\"refresh_token\": \"r3fr3sh\"}";
+        StringBuilder out = new StringBuilder();
+        LogText.format(out, "Resposta: {}", body, null, null, 1, 256);
+
+        String text = out.toString();
+        assertFalse(text.contains("eyJhbGciOi"));
+        assertFalse(text.contains("r3fr3sh"));
+        assertTrue(text.contains("\"access_token\":\"***\""));
+        assertTrue(text.contains("\"id\":\"u1\""));
+
+        StringBuilder truncated = new StringBuilder();
+        LogText.appendRedacted(truncated, "x".repeat(1000), 100);
+        assertEquals(100 + "…(1000 chars)".length(), truncated.length());
+    }
+}
@@ -0,0 +1,15 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class RatingAggregatorTest {
+    @Test
+    public void averagesLists() {
+        assertEquals(0.0, RatingAggregator.average(Collections.emptyList()), 0.0);
+        assertEquals(4.0, RatingAggregator.average(Arrays.asList(5, 3, 4)), 1e-9);
+    }
+}
@@ -0,0 +1,89 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RideTraceRecorderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void unsentFixesSurviveWithoutClose() throws Exception {
+        File file = folder.newFile("s1.trace");
+        RideTraceRecorder recorder = RideTraceRecorder.open(file, "u1", "s1", 64);
+        for (int i = 0; i < 10; i++) {
+            recorder.append(fix(i));
+        }
+        recorder.acknowledge(4);
+
+        // Processo morto: nada de close(); a próxima execução lê o mesmo arquivo
+        RideTraceRecorder recovered = RideTraceRecorder.recover(file);
+        assertEquals("u1", recovered.getUserId());
+        assertEquals("s1", recovered.getServiceId());
+        assertEquals(6, recovered.pendingCount());
+        List<LocationFix> pending = recovered.pending(100);
+        assertEquals(4000L, pending.get(0).getTimeMillis());
+        assertEquals(-23.5509, pending.get(5).getLatitude(), 1e-9);
+        assertEquals(Float.NaN, pending.get(5).getBearingDegrees(), 0f);
+
+        recovered.acknowledge(recovered.getAckedSeq() + pending.size());
+        assertEquals(0, RideTraceRecorder.recover(file).pendingCount());
+    }
+
+    @Test
+    public void tornRecordEndsRecovery() throws Exception {
+        File file = folder.newFile("s1.trace");
+        RideTraceRecorder recorder = RideTraceRecorder.open(file, "u1", "s1", 64);
+        for (int i = 0; i < 5; i++) {
+            recorder.append(fix(i));
+        }
+        // Registro 3 sem o seq (gravação interrompida antes do último campo)
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(RideTraceRecorder.HEADER_BYTES + 3L * RideTraceRecorder.RECORD_BYTES);
+            raf.writeLong(0);
+        }
+        assertEquals(3, RideTraceRecorder.recover(file).pendingCount());
+    }
+
+    @Test
+    public void fullRingDropsOldestUnsent() throws Exception {
+        File file = folder.newFile("s1.trace");
+        RideTraceRecorder recorder = RideTraceRecorder.open(file, "u1", "s1", 4);
+        for (int i = 0; i < 6; i++) {
+            recorder.append(fix(i));
+        }
+        assertEquals(2, recorder.getOverwrittenCount());
+        RideTraceRecorder recovered = RideTraceRecorder.recover(file);
+        List<LocationFix> pending = recovered.pending(100);
+        assertEquals(4, pending.size());
+        assertEquals(2000L, pending.get(0).getTimeMillis());
+        assertEquals(5000L, pending.get(3).getTimeMillis());
+    }
+
+    @Test
+    public void otherRideOrGarbageStartsFresh() throws Exception {
+        File file = folder.newFile("trace");
+        RideTraceRecorder first = RideTraceRecorder.open(file, "u1", "s1", 16);
+        first.append(fix(0));
+        first.close();
+        assertEquals(1, RideTraceRecorder.open(file, "u1", "s1", 16).pendingCount());
+        assertEquals(0, RideTraceRecorder.open(file, "u1", "s2", 16).pendingCount());
+
+        File garbage = folder.newFile("garbage");
+        try (RandomAccessFile raf = new RandomAccessFile(garbage, "rw")) {
+            raf.write(new byte[512]);
+        }
+        assertNull(RideTraceRecorder.recover(garbage));
+    }
+
+    private static LocationFix fix(int i) {
+        return new LocationFix(-23.55 - i * 0.0001, -46.63, 5f, 8f, Float.NaN, i * 1000L);
+    }
+}
@@ -0,0 +1,72 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class SupabasePayloadsTest {
+    @Test
+    public void buildsRestPayloads() throws Exception {
+        JSONObject message = write(writer -> SupabasePayloads.chatMessage(writer, "s1", "a", "b", "Olá \"chefe\"", "text"));
+        assertEquals("Olá \"chefe\"", message.getString("content"));
+        assertEquals("text", message.getString("message_type"));
+
+        JSONObject signUp = write(writer -> SupabasePayloads.signUp(writer, "x@y.com", "pw", "Ana", "courier"));
+        assertEquals("courier", signUp.getJSONObject("data").getString("role"));
+
+        JSONObject rating = write(writer -> SupabasePayloads.rating(writer, "s1", "a", "b", 5, ""));
+        assertEquals(5, rating.getInt("rating"));
+        assertEquals("", rating.getString("comment"));
+    }
+
+    @Test
+    public void locationKeepsCoordinatePrecision() throws Exception {
+        JSONObject location = write(writer -> SupabasePayloads.location(writer, "u1", -23.5505123, -46.6333, 8.5f));
+        assertEquals(-23.5505123, location.getDouble("latitude"), 0.0);
+        assertEquals(-46.6333, location.getDouble("longitude"), 0.0);
+        assertEquals(8.5, location.getDouble("accuracy"), 0.0);
+        // updated_at é do banco (default/trigger), não do texto "now()"
+        assertFalse(location.has("updated_at"));
+    }
+
+    @Test
+    public void locationHistoryWritesBatchWithUtcTimestamps() throws Exception {
+        LocationFix moving = new LocationFix(-23.5505, -46.6333, 6f, 10f, 90.5f, 1761055387250L);
+        LocationFix stopped = new LocationFix(-23.5506, -46.6334, 12f, Float.NaN, Float.NaN, 951782400000L);
+        JSONArray rows = new JSONArray(text(writer ->
+            SupabasePayloads.locationHistory(writer, "u1", "s1", Arrays.asList(moving, stopped))));
+
+        assertEquals(2, rows.length());
+        JSONObject first = rows.getJSONObject(0);
+        assertEquals("s1", first.getString("service_id"));
+        assertEquals(36.0, first.getDouble("speed"), 0.0);
+        assertEquals(90.5, first.getDouble("heading"), 0.0);
+        assertEquals("2025-10-21T14:03:07.250Z", first.getString("created_at"));
+        // 29/02/2000: bissexto de século
+        assertEquals("2000-02-29T00:00:00.000Z", rows.getJSONObject(1).getString("created_at"));
+        assertTrue(rows.getJSONObject(1).isNull("speed"));
+    }
+
+    private interface Payload {
+        void write(JsonWriter writer) throws Exception;
+    }
+
+    private static JSONObject write(Payload payload) throws Exception {
+        return new JSONObject(text(payload));
+    }
+
+    private static String text(Payload payload) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(outputStream);
+        payload.write(writer);
+        writer.flush();
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
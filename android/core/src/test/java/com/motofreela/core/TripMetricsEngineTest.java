@@ -0,0 +1,113 @@
+package com.motofreela.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.motofreela.core.ArrivalStateMachine.State;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class TripMetricsEngineTest {
+    // ~11,1 m por 0,0001 grau de latitude
+    private static final double STEP = 0.0001;
+
+    @Test
+    public void accumulatesDistanceAndMovingTime() {
+        TripMetricsEngine engine = new TripMetricsEngine(0);
+        // 60 fixes a cada 5 s andando ~11 m (~8 km/h)
+        for (int i = 0; i <= 60; i++) {
+            engine.onFix(-23.55 + i * STEP, -46.63, 5f, Float.NaN, i * 5000L);
+        }
+        TripMetricsEngine.Summary summary = engine.summary();
+        assertEquals(60 * 11.12, summary.distanceMeters, 5);
+        assertEquals(300_000, summary.movingMillis);
+        assertEquals(0, summary.stoppedMillis);
+        assertEquals(2.22, summary.averageSpeedMps, 0.05);
+        assertEquals(61, summary.acceptedFixes);
+    }
+
+    @Test
+    public void jitterWhileStoppedCountsAsStoppedTime() {
+        TripMetricsEngine engine = new TripMetricsEngine(0);
+        engine.onFix(-23.55, -46.63, 10f, Float.NaN, 1000);
+        // Parado na coleta: o GPS oscila ~3 m com precisão de 10 m
+        for (int i = 1; i <= 24; i++) {
+            engine.onFix(-23.55 + (i % 2) * 0.00003, -46.63, 10f, Float.NaN, 1000 + i * 5000L);
+        }
+        TripMetricsEngine.Summary summary = engine.summary();
+        assertEquals(0, summary.distanceMeters, 0);
+        assertEquals(120_000, summary.stoppedMillis);
+        assertEquals(0, summary.movingMillis);
+    }
+
+    @Test
+    public void rejectsImpreciseOutOfOrderAndJumps() {
+        TripMetricsEngine engine = new TripMetricsEngine(0);
+        assertTrue(engine.onFix(-23.55, -46.63, 5f, Float.NaN, 1000));
+        assertFalse(engine.onFix(-23.55, -46.63, 150f, Float.NaN, 2000));
+        assertFalse(engine.onFix(-23.55, -46.63, 5f, Float.NaN, 500));
+        // 1 km em 5 s
+        assertFalse(engine.onFix(-23.541, -46.63, 5f, Float.NaN, 6000));
+        assertEquals(3, engine.summary().rejectedFixes);
+        assertEquals(0, engine.getDistanceMeters(), 0);
+    }
+
+    @Test
+    public void legTimingsAndSummaryJson() throws Exception {
+        long start = 1_000_000;
+        TripMetricsEngine engine = new TripMetricsEngine(start);
+        engine.onFix(-23.55, -46.63, 5f, 12f, start + 1000);
+        engine.onFix(-23.55 + 10 * STEP, -46.63, 5f, 14f, start + 60_000);
+        engine.onArrival(State.AT_PICKUP, start + 5 * 60_000);
+        engine.onArrival(State.AT_PICKUP, start + 6 * 60_000);
+        engine.onArrival(State.TO_DROPOFF, start + 8 * 60_000);
+        engine.onArrival(State.AT_DROPOFF, start + 14 * 60_000);
+
+        TripMetricsEngine.Summary summary = engine.summary();
+        assertTrue(summary.completed);
+        assertTrue(summary.punctual);
+        assertTrue(summary.isFast());
+        assertEquals(5 * 60_000, summary.toPickupMillis);
+        assertEquals(3 * 60_000, summary.pickupWaitMillis);
+        assertEquals(6 * 60_000, summary.toDropoffMillis);
+        assertEquals(14 * 60_000, summary.durationMillis);
+        assertEquals(14, summary.maxSpeedMps, 0.001);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(out);
+        summary.writeTo(writer);
+        writer.flush();
+        JSONObject json = new JSONObject(out.toString(StandardCharsets.UTF_8.name()));
+        assertEquals(840, json.getLong("duration_s"));
+        assertEquals(50.4, json.getDouble("max_speed_kmh"), 0.001);
+        assertEquals(180, json.getLong("pickup_wait_s"));
+        assertTrue(json.getBoolean("fast"));
+    }
+
+    @Test
+    public void lateOrMissingPickupIsNotPunctual() {
+        TripMetricsEngine engine = new TripMetricsEngine(0, 10 * 60_000);
+        assertFalse(engine.summary().punctual);
+        engine.onArrival(State.AT_PICKUP, 11 * 60_000);
+        assertFalse(engine.summary().punctual);
+        assertFalse(engine.summary().completed);
+        assertEquals(-1, engine.summary().toDropoffMillis);
+    }
+
+    @Test
+    public void resumedEngineCountsFromAcceptanceButIsPartial() {
+        // Aceite às 0; processo morto e serviço de volta aos 8 min com o mesmo intent
+        TripMetricsEngine engine = new TripMetricsEngine(0);
+        engine.markResumed();
+        engine.onArrival(State.AT_DROPOFF, 20 * 60_000);
+
+        TripMetricsEngine.Summary summary = engine.summary();
+        assertEquals(20 * 60_000, summary.durationMillis);
+        assertTrue(summary.completed);
+        assertTrue(summary.partial);
+        assertFalse(new TripMetricsEngine(0).summary().partial);
+    }
+}